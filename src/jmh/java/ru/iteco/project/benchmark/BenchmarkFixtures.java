@@ -0,0 +1,101 @@
+package ru.iteco.project.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import ru.iteco.project.domain.*;
+import ru.iteco.project.domain.converter.MoneyAttributeConverter;
+import ru.iteco.project.service.mappers.DateTimeMapper;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Общие данные для бенчмарков: сущности, заполненные как после чтения из БД, и фабрика сессий Hibernate,
+ * построенная без подключения к БД (для формирования критериев поиска)
+ */
+final class BenchmarkFixtures {
+
+    /*** Формат даты и времени, установленный в application.yml (format.date.time) */
+    static final String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    /*** Фиксированная дата, от которой строятся даты тестовых сущностей */
+    static final LocalDateTime BASE_DATE_TIME = LocalDateTime.of(2020, 11, 15, 12, 30, 45);
+
+
+    private BenchmarkFixtures() {
+    }
+
+
+    /**
+     * Метод устанавливает формат даты и времени в DateTimeMapper, который в приложении задается Spring
+     */
+    static void initDateTimeFormat() {
+        new DateTimeMapper().setFormatDateTime(DATE_TIME_FORMAT);
+    }
+
+    /**
+     * Метод создает пользователя с заполненными полями, ролью и статусом
+     *
+     * @return - сущность пользователя
+     */
+    static User user() {
+        User user = new User(UUID.randomUUID(), "Ivan", "Ivanov", "Ivanovich", "ivanov", "password",
+                "ivanov@mail.ru", "+79001234567",
+                new UserRole(UUID.randomUUID(), UserRole.UserRoleEnum.CUSTOMER.name()),
+                new UserStatus(UUID.randomUUID(), UserStatus.UserStatusEnum.ACTIVE.name(), "Активен"),
+                Money.parse("15000.50"));
+        user.setCreatedAt(BASE_DATE_TIME);
+        user.setUpdatedAt(BASE_DATE_TIME.plusDays(1));
+        return user;
+    }
+
+    /**
+     * Метод создает задание с заполненными полями, заказчиком, исполнителем и статусом
+     *
+     * @return - сущность задания
+     */
+    static Task task() {
+        Task task = new Task();
+        task.setId(UUID.randomUUID());
+        task.setCustomer(user());
+        task.setExecutor(user());
+        task.setTitle("Разработка сервиса");
+        task.setDescription("Разработать сервис постраничного поиска заданий");
+        task.setTaskCompletionDate(BASE_DATE_TIME.plusMonths(1));
+        task.setPrice(Money.parse("2500.00"));
+        task.setTaskStatus(new TaskStatus(UUID.randomUUID(), TaskStatus.TaskStatusEnum.REGISTERED.name(), "Зарегистрировано"));
+        task.setTaskDecision("Решение задания");
+        task.setCreatedAt(BASE_DATE_TIME);
+        task.setUpdatedAt(BASE_DATE_TIME.plusDays(2));
+        return task;
+    }
+
+    /**
+     * Метод строит фабрику сессий Hibernate по сущностям приложения. Подключение к БД не выполняется:
+     * диалект задается явно, чтение метаданных JDBC отключено
+     *
+     * @return - фабрика сессий, она же EntityManagerFactory
+     */
+    static SessionFactory sessionFactory() {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DIALECT, PostgreSQL10Dialect.class.getName())
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", false)
+                .build();
+        return new MetadataSources(registry)
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(UserRole.class)
+                .addAnnotatedClass(UserStatus.class)
+                .addAnnotatedClass(Task.class)
+                .addAnnotatedClass(TaskSearchVector.class)
+                .addAnnotatedClass(TaskStatus.class)
+                .addAnnotatedClass(Contract.class)
+                .addAnnotatedClass(ContractStatus.class)
+                .addAnnotatedClass(MoneyAttributeConverter.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+}
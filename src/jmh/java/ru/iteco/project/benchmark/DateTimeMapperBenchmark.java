@@ -0,0 +1,55 @@
+package ru.iteco.project.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.iteco.project.service.mappers.DateTimeMapper;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки преобразования даты и времени в строку установленного формата и обратно.
+ * Методы legacy* повторяют исходную реализацию DateTimeMapper (новый DateTimeFormatter на каждый вызов)
+ * и служат базой для сравнения
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeMapperBenchmark {
+
+    private LocalDateTime dateTime;
+
+    private String dateTimeStr;
+
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.initDateTimeFormat();
+        dateTime = BenchmarkFixtures.BASE_DATE_TIME;
+        dateTimeStr = DateTimeMapper.objectToString(dateTime);
+    }
+
+
+    @Benchmark
+    public String objectToString() {
+        return DateTimeMapper.objectToString(dateTime);
+    }
+
+    @Benchmark
+    public LocalDateTime stringToObject() {
+        return DateTimeMapper.stringToObject(dateTimeStr);
+    }
+
+    @Benchmark
+    public String legacyObjectToString() {
+        return dateTime.format(DateTimeFormatter.ofPattern(BenchmarkFixtures.DATE_TIME_FORMAT));
+    }
+
+    @Benchmark
+    public LocalDateTime legacyStringToObject() {
+        return LocalDateTime.parse(dateTimeStr, DateTimeFormatter.ofPattern(BenchmarkFixtures.DATE_TIME_FORMAT));
+    }
+}
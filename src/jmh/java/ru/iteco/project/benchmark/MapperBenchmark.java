@@ -0,0 +1,62 @@
+package ru.iteco.project.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.iteco.project.controller.dto.TaskDtoResponse;
+import ru.iteco.project.controller.dto.UserDtoResponse;
+import ru.iteco.project.domain.Task;
+import ru.iteco.project.domain.User;
+import ru.iteco.project.service.mappers.TaskDtoEntityMapper;
+import ru.iteco.project.service.mappers.UserDtoEntityMapper;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки преобразования сущностей в dto ответа. Справочник заданий пользователя передается заранее
+ * подготовленным, так как в приложении он запрашивается один раз на всю страницу результатов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private TaskDtoEntityMapper taskMapper;
+
+    private UserDtoEntityMapper userMapper;
+
+    private Task task;
+
+    private User user;
+
+    private Map<UUID, List<UUID>> tasksIdsByUsers;
+
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.initDateTimeFormat();
+        taskMapper = new TaskDtoEntityMapper(null);
+        userMapper = new UserDtoEntityMapper(null, null);
+        task = BenchmarkFixtures.task();
+        user = BenchmarkFixtures.user();
+        tasksIdsByUsers = Collections.singletonMap(user.getId(),
+                Arrays.asList(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()));
+    }
+
+
+    @Benchmark
+    public TaskDtoResponse taskEntityToResponseDto() {
+        return taskMapper.entityToResponseDto(task);
+    }
+
+    @Benchmark
+    public UserDtoResponse userEntityToResponseDto() {
+        return userMapper.entityToResponseDto(user, tasksIdsByUsers);
+    }
+}
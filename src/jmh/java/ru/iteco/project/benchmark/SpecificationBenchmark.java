@@ -0,0 +1,132 @@
+package ru.iteco.project.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.*;
+import ru.iteco.project.domain.Money;
+import ru.iteco.project.domain.Task;
+import ru.iteco.project.domain.TaskStatus;
+import ru.iteco.project.service.specifications.CriteriaObject;
+import ru.iteco.project.service.specifications.JoinOperations;
+import ru.iteco.project.service.specifications.SearchPredicatesUtil;
+import ru.iteco.project.service.specifications.SpecificationBuilder;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static ru.iteco.project.service.specifications.SearchOperations.*;
+
+/**
+ * Бенчмарки формирования предикатов поиска: спецификация целиком (SpecificationBuilder.getSpec),
+ * спецификация по дереву групп с нормализацией и отдельные производители предикатов SearchPredicatesUtil. Значения ограничений разобраны заранее,
+ * как их формирует SearchFieldRegistry. Запросы к БД не выполняются
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecificationBenchmark {
+
+    private SessionFactory sessionFactory;
+
+    private CriteriaBuilder criteriaBuilder;
+
+    private CriteriaQuery<Task> query;
+
+    private Root<Task> root;
+
+    private SpecificationBuilder<Task> specificationBuilder;
+
+    private CriteriaObject criteriaObject;
+
+    private CriteriaObject criteriaTree;
+
+    private CriteriaObject.RestrictionValues<TaskStatus> statusRestriction;
+
+    private CriteriaObject.RestrictionValues<LocalDateTime> createdAtRestriction;
+
+    private CriteriaObject.RestrictionValues<Money> priceRestriction;
+
+    private CriteriaObject.RestrictionValues<String> titleRestriction;
+
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.initDateTimeFormat();
+        sessionFactory = BenchmarkFixtures.sessionFactory();
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+        query = criteriaBuilder.createQuery(Task.class);
+        root = query.from(Task.class);
+        specificationBuilder = new SpecificationBuilder<>();
+
+        statusRestriction = new CriteriaObject.RestrictionValues<>("taskStatus", EQUAL,
+                new TaskStatus(UUID.randomUUID(), TaskStatus.TaskStatusEnum.REGISTERED.name(), "Зарегистрировано"));
+        createdAtRestriction = new CriteriaObject.RestrictionValues<>("createdAt", BETWEEN,
+                LocalDateTime.of(2020, 1, 1, 0, 0, 0), LocalDateTime.of(2020, 12, 31, 23, 59, 59));
+        priceRestriction = new CriteriaObject.RestrictionValues<>("price", GREATER_THAN_OR_EQUAL, Money.ofMinor(100000L));
+        titleRestriction = new CriteriaObject.RestrictionValues<>("title", LIKE, SearchPredicatesUtil.containsPattern("сервис"));
+        criteriaObject = new CriteriaObject(JoinOperations.AND,
+                Arrays.asList(statusRestriction, createdAtRestriction, priceRestriction, titleRestriction));
+
+        CriteriaObject.RestrictionValues<TaskStatus> otherStatusRestriction = new CriteriaObject.RestrictionValues<>(
+                "taskStatus", EQUAL,
+                new TaskStatus(UUID.randomUUID(), TaskStatus.TaskStatusEnum.IN_PROGRESS.name(), "На выполнении"));
+        CriteriaObject statuses = new CriteriaObject(JoinOperations.OR, new ArrayList<>(), Arrays.asList(
+                new CriteriaObject(JoinOperations.AND, Collections.singletonList(statusRestriction)),
+                new CriteriaObject(JoinOperations.AND, Collections.singletonList(otherStatusRestriction))), false);
+        CriteriaObject notCreated = new CriteriaObject(JoinOperations.AND,
+                Collections.singletonList(createdAtRestriction), new ArrayList<>(), true);
+        criteriaTree = new CriteriaObject(JoinOperations.AND, Arrays.asList(priceRestriction, titleRestriction),
+                Arrays.asList(statuses, notCreated), false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+
+    @Benchmark
+    public Predicate specification() {
+        return specificationBuilder.getSpec(criteriaObject).toPredicate(root, query, criteriaBuilder);
+    }
+
+    @Benchmark
+    public Predicate treeSpecification() {
+        return specificationBuilder.getSpec(criteriaTree).toPredicate(root, query, criteriaBuilder);
+    }
+
+    @Benchmark
+    public Predicate equalProducer() {
+        Path path = root.get(statusRestriction.getKey());
+        return SearchPredicatesUtil.equal().produce(criteriaBuilder, path, statusRestriction);
+    }
+
+    @Benchmark
+    public Predicate betweenProducer() {
+        Path path = root.get(createdAtRestriction.getKey());
+        return SearchPredicatesUtil.between().produce(criteriaBuilder, path, createdAtRestriction);
+    }
+
+    @Benchmark
+    public Predicate greaterThanOrEqualProducer() {
+        Path path = root.get(priceRestriction.getKey());
+        return SearchPredicatesUtil.greaterThanOrEqual().produce(criteriaBuilder, path, priceRestriction);
+    }
+
+    @Benchmark
+    public Predicate likeProducer() {
+        Path path = root.get(titleRestriction.getKey());
+        return SearchPredicatesUtil.like().produce(criteriaBuilder, path, titleRestriction);
+    }
+}
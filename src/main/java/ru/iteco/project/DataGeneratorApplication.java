@@ -0,0 +1,41 @@
+package ru.iteco.project;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import ru.iteco.project.service.datagen.DataGenerationSettings;
+import ru.iteco.project.service.datagen.SyntheticDataGenerator;
+
+import java.time.Instant;
+
+/**
+ * Точка запуска генератора синтетических данных. Приложение поднимается без веб-сервера (схема БД
+ * создается Liquibase), генерирует данные и завершается. Параметры задаются свойствами datagen.*
+ * в application.yml или аргументами командной строки, например:
+ * ./gradlew generateData --args='--datagen.users=100000 --datagen.tasks=1000000 --datagen.seed=42 --datagen.truncate=true'
+ */
+public class DataGeneratorApplication {
+
+    private static final Logger log = LogManager.getLogger(DataGeneratorApplication.class.getName());
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run(args)) {
+
+            Environment env = context.getEnvironment();
+            DataGenerationSettings settings = new DataGenerationSettings(
+                    env.getRequiredProperty("datagen.seed", Long.class),
+                    env.getRequiredProperty("datagen.users", Integer.class),
+                    env.getRequiredProperty("datagen.tasks", Integer.class),
+                    Instant.parse(env.getRequiredProperty("datagen.base-date")),
+                    env.getRequiredProperty("datagen.truncate", Boolean.class));
+
+            SyntheticDataGenerator.GenerationResult result = context.getBean(SyntheticDataGenerator.class).generate(settings);
+            log.info("generated {} users, {} tasks, {} contracts", result.getUsers(), result.getTasks(), result.getContracts());
+        }
+    }
+}
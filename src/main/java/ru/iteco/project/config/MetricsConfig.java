@@ -0,0 +1,43 @@
+package ru.iteco.project.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.iteco.project.metrics.RequestSqlMetricsInterceptor;
+import ru.iteco.project.metrics.SqlStatementCounter;
+
+/**
+ * Конфигурационный класс метрик: подключение счетчика SQL запросов к Hibernate
+ * и перехватчика, записывающего количество SQL запросов на HTTP запрос
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    /*** Перехватчик, записывающий количество SQL запросов на HTTP запрос */
+    private final RequestSqlMetricsInterceptor requestSqlMetricsInterceptor;
+
+
+    public MetricsConfig(RequestSqlMetricsInterceptor requestSqlMetricsInterceptor) {
+        this.requestSqlMetricsInterceptor = requestSqlMetricsInterceptor;
+    }
+
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestSqlMetricsInterceptor).addPathPatterns("/api/**");
+    }
+
+    /**
+     * Регистрация счетчика SQL запросов в качестве StatementInspector фабрики сессий Hibernate
+     *
+     * @param sqlStatementCounter - счетчик SQL запросов
+     * @return - настройка свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+}
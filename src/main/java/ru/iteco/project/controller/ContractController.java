@@ -3,18 +3,24 @@ package ru.iteco.project.controller;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.iteco.project.controller.dto.ContractBaseDto;
 import ru.iteco.project.controller.dto.ContractDtoRequest;
 import ru.iteco.project.controller.dto.ContractDtoResponse;
 import ru.iteco.project.controller.searching.ContractSearchDto;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.service.ContractService;
+import ru.iteco.project.service.export.ExportFormat;
+import ru.iteco.project.service.export.ExportService;
 import ru.iteco.project.validator.ContractDtoRequestValidator;
 
 import java.net.URI;
@@ -34,10 +40,15 @@ public class ContractController {
     /*** Объект валидатора для ContractDtoRequest*/
     private final ContractDtoRequestValidator contractDtoRequestValidator;
 
+    /*** Объект сервиса потоковой выгрузки данных*/
+    private final ExportService exportService;
 
-    public ContractController(ContractService contractService, ContractDtoRequestValidator contractDtoRequestValidator) {
+
+    public ContractController(ContractService contractService, ContractDtoRequestValidator contractDtoRequestValidator,
+                              ExportService exportService) {
         this.contractService = contractService;
         this.contractDtoRequestValidator = contractDtoRequestValidator;
+        this.exportService = exportService;
     }
 
 
@@ -53,6 +64,23 @@ public class ContractController {
     }
 
 
+    /**
+     * Эндпоинт потоковой выгрузки всех договоров. Данные записываются в ответ по мере чтения из БД
+     * и не накапливаются в памяти
+     *
+     * @param format - формат выгрузки: NDJSON (по умолчанию) или CSV
+     * @return - поток ответа с данными всех договоров
+     */
+    @GetMapping(path = "/export")
+    public ResponseEntity<StreamingResponseBody> exportContracts(@RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = outputStream -> exportService.exportContracts(outputStream, format);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=contracts." + format.getExtension())
+                .body(body);
+    }
+
+
     /**
      * Контроллер возвращает ContractDtoResponse контракта с заданным id
      *
@@ -74,16 +102,38 @@ public class ContractController {
      * Эндпоинт с реализацией пагинации и сортировки результатов поиска
      *
      * @param contractSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param countMode     - режим подсчета общего количества результатов: EXACT (по умолчанию), NONE, ESTIMATE
      * @param pageable      - объект пагинации с информацией о размере/наполнении/сортировке данных на странице
      * @return - объект PageDto с результатами соответствующими критериям запроса
      */
     @GetMapping(path = "/search")
     public PageDto<ContractDtoResponse> getContracts(@RequestBody(required = false) ContractSearchDto contractSearchDto,
+                                                     @RequestParam(defaultValue = "EXACT") CountMode countMode,
                                                            @PageableDefault(size = 5,
                                                                    page = 0,
                                                                    sort = {"createdAt"}, direction = Sort.Direction.ASC) Pageable pageable) {
 
-        return contractService.getContracts(contractSearchDto, pageable);
+        return contractService.getContracts(contractSearchDto, pageable, countMode);
+    }
+
+
+    /**
+     * Эндпоинт с реализацией курсорной (keyset) пагинации результатов поиска. Записи упорядочиваются
+     * по дате создания и идентификатору, общее количество результатов не подсчитывается
+     *
+     * @param contractSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param cursor            - курсор следующей страницы из предыдущего ответа, не передается при запросе первой страницы
+     * @param pageable          - объект пагинации с информацией о размере страницы и направлении сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами соответствующими критериям запроса
+     */
+    @GetMapping(path = "/search/keyset")
+    public KeysetPageDto<ContractDtoResponse> getContractsByCursor(@RequestBody(required = false) ContractSearchDto contractSearchDto,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @PageableDefault(size = 5,
+                                                                           sort = {"createdAt"},
+                                                                           direction = Sort.Direction.DESC) Pageable pageable) {
+
+        return contractService.getContractsByCursor(contractSearchDto, cursor, pageable);
     }
 
 
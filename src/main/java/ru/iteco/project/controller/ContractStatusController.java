@@ -13,6 +13,8 @@ import ru.iteco.project.controller.dto.ContractStatusBaseDto;
 import ru.iteco.project.controller.dto.ContractStatusDtoRequest;
 import ru.iteco.project.controller.dto.ContractStatusDtoResponse;
 import ru.iteco.project.controller.searching.ContractStatusSearchDto;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.service.ContractStatusService;
 import ru.iteco.project.validator.ContractStatusDtoRequestValidator;
@@ -74,16 +76,38 @@ public class ContractStatusController {
      * Эндпоинт с реализацией пагинации и сортировки результатов поиска
      *
      * @param contractStatusSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param countMode               - режим подсчета общего количества результатов: EXACT (по умолчанию), NONE, ESTIMATE
      * @param pageable                - объект пагинации с информацией о размере/наполнении/сортировке данных на странице
      * @return - объект PageDto с результатами соответствующими критериям запроса
      */
     @GetMapping(path = "/search")
     public PageDto<ContractStatusDtoResponse> getContracts(@RequestBody(required = false) ContractStatusSearchDto contractStatusSearchDto,
+                                                           @RequestParam(defaultValue = "EXACT") CountMode countMode,
                                                            @PageableDefault(size = 5,
                                                                    page = 0,
                                                                    sort = {"createdAt"}, direction = Sort.Direction.ASC) Pageable pageable) {
 
-        return contractStatusService.getStatus(contractStatusSearchDto, pageable);
+        return contractStatusService.getStatus(contractStatusSearchDto, pageable, countMode);
+    }
+
+
+    /**
+     * Эндпоинт с реализацией курсорной (keyset) пагинации результатов поиска. Записи упорядочиваются
+     * по дате создания и идентификатору, общее количество результатов не подсчитывается
+     *
+     * @param contractStatusSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param cursor                  - курсор следующей страницы из предыдущего ответа, не передается при запросе первой страницы
+     * @param pageable                - объект пагинации с информацией о размере страницы и направлении сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами соответствующими критериям запроса
+     */
+    @GetMapping(path = "/search/keyset")
+    public KeysetPageDto<ContractStatusDtoResponse> getStatusByCursor(@RequestBody(required = false) ContractStatusSearchDto contractStatusSearchDto,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @PageableDefault(size = 5,
+                                                                              sort = {"createdAt"},
+                                                                              direction = Sort.Direction.DESC) Pageable pageable) {
+
+        return contractStatusService.getStatusByCursor(contractStatusSearchDto, cursor, pageable);
     }
 
 
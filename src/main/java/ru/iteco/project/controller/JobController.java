@@ -0,0 +1,177 @@
+package ru.iteco.project.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.iteco.project.controller.dto.JobDtoResponse;
+import ru.iteco.project.controller.dto.UserDtoRequest;
+import ru.iteco.project.service.export.ExportFormat;
+import ru.iteco.project.service.job.JobService;
+import ru.iteco.project.service.job.JobType;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Класс реализует функционал слоя контроллеров для постановки в очередь и контроля фоновых заданий
+ */
+@RestController
+@RequestMapping(path = "/api/v1/jobs")
+public class JobController {
+
+    /*** Объект сервисного слоя фоновых заданий*/
+    private final JobService jobService;
+
+
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+
+    /**
+     * Контроллер возвращает состояние всех фоновых заданий
+     *
+     * @return - список JobDtoResponse
+     */
+    @GetMapping
+    public ResponseEntity<List<JobDtoResponse>> getAllJobs() {
+        return ResponseEntity.ok().body(jobService.getAllJobs());
+    }
+
+    /**
+     * Контроллер возвращает состояние и ход выполнения фонового задания
+     *
+     * @param id - уникальный идентификатор задания
+     * @return - объект JobDtoResponse
+     */
+    @GetMapping(value = "/{id}")
+    public ResponseEntity<JobDtoResponse> getJob(@PathVariable UUID id) {
+        JobDtoResponse jobDtoResponse = jobService.getJob(id);
+        if (jobDtoResponse != null) {
+            return ResponseEntity.ok().body(jobDtoResponse);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Контроллер скачивания файла с результатом завершенного задания выгрузки
+     *
+     * @param id - уникальный идентификатор задания
+     * @return - поток ответа с содержимым файла
+     */
+    @GetMapping(value = "/{id}/result")
+    public ResponseEntity<StreamingResponseBody> getJobResult(@PathVariable UUID id) {
+        Path file = jobService.getResultFile(id);
+        if ((file == null) || !Files.exists(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = outputStream -> Files.copy(file, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + file.getFileName())
+                .body(body);
+    }
+
+    /**
+     * Контроллер отмены фонового задания
+     *
+     * @param id - уникальный идентификатор задания
+     * @return - объект JobDtoResponse с состоянием задания
+     */
+    @DeleteMapping(value = "/{id}")
+    public ResponseEntity<JobDtoResponse> cancelJob(@PathVariable UUID id) {
+        JobDtoResponse jobDtoResponse = jobService.cancelJob(id);
+        if (jobDtoResponse != null) {
+            return ResponseEntity.ok().body(jobDtoResponse);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Контроллер постановки в очередь задания пакетного добавления пользователей
+     *
+     * @param userDtoRequestList - список пользователей для добавления
+     * @param componentsBuilder  - билдер для формирования url ресура
+     * @return - объект JobDtoResponse с id поставленного в очередь задания
+     */
+    @PostMapping(value = "/users/batch")
+    public ResponseEntity<JobDtoResponse> submitUserImport(@RequestBody ArrayList<UserDtoRequest> userDtoRequestList,
+                                                           UriComponentsBuilder componentsBuilder) {
+        return accepted(jobService.submitUserImport(userDtoRequestList), componentsBuilder);
+    }
+
+    /**
+     * Контроллер постановки в очередь задания удаления статуса пользователей вместе со всеми пользователями
+     * в этом статусе
+     *
+     * @param id                - уникальный идентификатор статуса пользователей
+     * @param componentsBuilder - билдер для формирования url ресура
+     * @return - объект JobDtoResponse с id поставленного в очередь задания
+     */
+    @PostMapping(value = "/statuses/users/{id}/delete")
+    public ResponseEntity<JobDtoResponse> submitUserStatusDeletion(@PathVariable UUID id,
+                                                                   UriComponentsBuilder componentsBuilder) {
+        return accepted(jobService.submitUserStatusDeletion(id), componentsBuilder);
+    }
+
+    /**
+     * Контроллер постановки в очередь задания выгрузки всех пользователей
+     *
+     * @param format            - формат выгрузки: NDJSON (по умолчанию) или CSV
+     * @param componentsBuilder - билдер для формирования url ресура
+     * @return - объект JobDtoResponse с id поставленного в очередь задания
+     */
+    @PostMapping(value = "/users/export")
+    public ResponseEntity<JobDtoResponse> submitUserExport(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                                           UriComponentsBuilder componentsBuilder) {
+        return accepted(jobService.submitExport(JobType.USER_EXPORT, format), componentsBuilder);
+    }
+
+    /**
+     * Контроллер постановки в очередь задания выгрузки всех заданий
+     *
+     * @param format            - формат выгрузки: NDJSON (по умолчанию) или CSV
+     * @param componentsBuilder - билдер для формирования url ресура
+     * @return - объект JobDtoResponse с id поставленного в очередь задания
+     */
+    @PostMapping(value = "/tasks/export")
+    public ResponseEntity<JobDtoResponse> submitTaskExport(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                                           UriComponentsBuilder componentsBuilder) {
+        return accepted(jobService.submitExport(JobType.TASK_EXPORT, format), componentsBuilder);
+    }
+
+    /**
+     * Контроллер постановки в очередь задания выгрузки всех договоров
+     *
+     * @param format            - формат выгрузки: NDJSON (по умолчанию) или CSV
+     * @param componentsBuilder - билдер для формирования url ресура
+     * @return - объект JobDtoResponse с id поставленного в очередь задания
+     */
+    @PostMapping(value = "/contracts/export")
+    public ResponseEntity<JobDtoResponse> submitContractExport(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                                               UriComponentsBuilder componentsBuilder) {
+        return accepted(jobService.submitExport(JobType.CONTRACT_EXPORT, format), componentsBuilder);
+    }
+
+
+    /**
+     * Метод формирует ответ 202 Accepted со ссылкой на состояние поставленного в очередь задания
+     *
+     * @param jobDtoResponse    - объект JobDtoResponse поставленного в очередь задания
+     * @param componentsBuilder - билдер для формирования url ресура
+     * @return - ответ со ссылкой на состояние задания
+     */
+    private ResponseEntity<JobDtoResponse> accepted(JobDtoResponse jobDtoResponse, UriComponentsBuilder componentsBuilder) {
+        URI uri = componentsBuilder.path("/api/v1/jobs/" + jobDtoResponse.getId()).build().toUri();
+        return ResponseEntity.accepted().location(uri).body(jobDtoResponse);
+    }
+}
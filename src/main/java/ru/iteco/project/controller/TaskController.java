@@ -3,18 +3,24 @@ package ru.iteco.project.controller;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.iteco.project.controller.dto.TaskBaseDto;
 import ru.iteco.project.controller.dto.TaskDtoRequest;
 import ru.iteco.project.controller.dto.TaskDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.TaskSearchDto;
 import ru.iteco.project.service.TaskService;
+import ru.iteco.project.service.export.ExportFormat;
+import ru.iteco.project.service.export.ExportService;
 import ru.iteco.project.validator.TaskDtoRequestValidator;
 
 import java.net.URI;
@@ -34,10 +40,15 @@ public class TaskController {
     /*** Объект валидатора для TaskDtoRequest*/
     private final TaskDtoRequestValidator taskDtoRequestValidator;
 
+    /*** Объект сервиса потоковой выгрузки данных*/
+    private final ExportService exportService;
 
-    public TaskController(TaskService taskService, TaskDtoRequestValidator taskDtoRequestValidator) {
+
+    public TaskController(TaskService taskService, TaskDtoRequestValidator taskDtoRequestValidator,
+                          ExportService exportService) {
         this.taskService = taskService;
         this.taskDtoRequestValidator = taskDtoRequestValidator;
+        this.exportService = exportService;
     }
 
 
@@ -60,6 +71,23 @@ public class TaskController {
     }
 
 
+    /**
+     * Эндпоинт потоковой выгрузки всех заданий. Данные записываются в ответ по мере чтения из БД
+     * и не накапливаются в памяти
+     *
+     * @param format - формат выгрузки: NDJSON (по умолчанию) или CSV
+     * @return - поток ответа с данными всех заданий
+     */
+    @GetMapping(path = "/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(@RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = outputStream -> exportService.exportTasks(outputStream, format);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=tasks." + format.getExtension())
+                .body(body);
+    }
+
+
     /**
      * Контроллер возвращает TaskDtoResponse задания с заданным id
      *
@@ -81,17 +109,39 @@ public class TaskController {
      * Эндпоинт с реализацией пагинации и сортировки результатов поиска
      *
      * @param taskSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param countMode     - режим подсчета общего количества результатов: EXACT (по умолчанию), NONE, ESTIMATE
      * @param pageable      - объект пагинации с информацией о размере/наполнении/сортировке данных на странице
      * @return - объект PageDto с результатами соответствующими критериям запроса
      */
     @GetMapping(path = "/search")
     public PageDto<TaskDtoResponse> getTasks(@RequestBody(required = false) TaskSearchDto taskSearchDto,
+                                             @RequestParam(defaultValue = "EXACT") CountMode countMode,
                                              @PageableDefault(size = 5,
                                                      page = 0,
                                                      sort = {"createdAt"},
                                                      direction = Sort.Direction.ASC) Pageable pageable) {
 
-        return taskService.getTasks(taskSearchDto, pageable);
+        return taskService.getTasks(taskSearchDto, pageable, countMode);
+    }
+
+
+    /**
+     * Эндпоинт с реализацией курсорной (keyset) пагинации результатов поиска. Записи упорядочиваются
+     * по дате создания и идентификатору, общее количество результатов не подсчитывается
+     *
+     * @param taskSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param cursor        - курсор следующей страницы из предыдущего ответа, не передается при запросе первой страницы
+     * @param pageable      - объект пагинации с информацией о размере страницы и направлении сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами соответствующими критериям запроса
+     */
+    @GetMapping(path = "/search/keyset")
+    public KeysetPageDto<TaskDtoResponse> getTasksByCursor(@RequestBody(required = false) TaskSearchDto taskSearchDto,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @PageableDefault(size = 5,
+                                                                   sort = {"createdAt"},
+                                                                   direction = Sort.Direction.DESC) Pageable pageable) {
+
+        return taskService.getTasksByCursor(taskSearchDto, cursor, pageable);
     }
 
 
@@ -12,6 +12,8 @@ import org.springframework.web.util.UriComponentsBuilder;
 import ru.iteco.project.controller.dto.TaskStatusBaseDto;
 import ru.iteco.project.controller.dto.TaskStatusDtoRequest;
 import ru.iteco.project.controller.dto.TaskStatusDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.TaskStatusSearchDto;
 import ru.iteco.project.service.TaskStatusService;
@@ -74,17 +76,39 @@ public class TaskStatusController {
      * Эндпоинт с реализацией пагинации и сортировки результатов поиска
      *
      * @param taskStatusSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param countMode           - режим подсчета общего количества результатов: EXACT (по умолчанию), NONE, ESTIMATE
      * @param pageable            - объект пагинации с информацией о размере/наполнении/сортировке данных на странице
      * @return - объект PageDto с результатами соответствующими критериям запроса
      */
     @GetMapping(path = "/search")
     public PageDto<TaskStatusDtoResponse> getTasks(@RequestBody(required = false) TaskStatusSearchDto taskStatusSearchDto,
+                                                   @RequestParam(defaultValue = "EXACT") CountMode countMode,
                                                    @PageableDefault(size = 5,
                                                            page = 0,
                                                            sort = {"createdAt"},
                                                            direction = Sort.Direction.ASC) Pageable pageable) {
 
-        return taskStatusService.getStatus(taskStatusSearchDto, pageable);
+        return taskStatusService.getStatus(taskStatusSearchDto, pageable, countMode);
+    }
+
+
+    /**
+     * Эндпоинт с реализацией курсорной (keyset) пагинации результатов поиска. Записи упорядочиваются
+     * по дате создания и идентификатору, общее количество результатов не подсчитывается
+     *
+     * @param taskStatusSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param cursor              - курсор следующей страницы из предыдущего ответа, не передается при запросе первой страницы
+     * @param pageable            - объект пагинации с информацией о размере страницы и направлении сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами соответствующими критериям запроса
+     */
+    @GetMapping(path = "/search/keyset")
+    public KeysetPageDto<TaskStatusDtoResponse> getStatusByCursor(@RequestBody(required = false) TaskStatusSearchDto taskStatusSearchDto,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @PageableDefault(size = 5,
+                                                                          sort = {"createdAt"},
+                                                                          direction = Sort.Direction.DESC) Pageable pageable) {
+
+        return taskStatusService.getStatusByCursor(taskStatusSearchDto, cursor, pageable);
     }
 
 
@@ -3,21 +3,27 @@ package ru.iteco.project.controller;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.iteco.project.controller.dto.UserBaseDto;
 import ru.iteco.project.controller.dto.UserDtoRequest;
 import ru.iteco.project.controller.dto.UserDtoResponse;
+import ru.iteco.project.controller.dto.UserImportResultDto;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.UserSearchDto;
 import ru.iteco.project.service.UserService;
+import ru.iteco.project.service.export.ExportFormat;
+import ru.iteco.project.service.export.ExportService;
 import ru.iteco.project.validator.UserDtoRequestValidator;
 
-import java.io.Serializable;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
@@ -36,10 +42,15 @@ public class UserController {
     /*** Объект валидатора для UserDtoRequest*/
     private final UserDtoRequestValidator userDtoRequestValidator;
 
+    /*** Объект сервиса потоковой выгрузки данных*/
+    private final ExportService exportService;
 
-    public UserController(UserService userService, UserDtoRequestValidator userDtoRequestValidator) {
+
+    public UserController(UserService userService, UserDtoRequestValidator userDtoRequestValidator,
+                          ExportService exportService) {
         this.userService = userService;
         this.userDtoRequestValidator = userDtoRequestValidator;
+        this.exportService = exportService;
     }
 
 
@@ -54,21 +65,60 @@ public class UserController {
         return ResponseEntity.ok().body(allUsers);
     }
 
+
+    /**
+     * Эндпоинт потоковой выгрузки всех пользователей. Данные записываются в ответ по мере чтения из БД
+     * и не накапливаются в памяти
+     *
+     * @param format - формат выгрузки: NDJSON (по умолчанию) или CSV
+     * @return - поток ответа с данными всех пользователей
+     */
+    @GetMapping(path = "/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = outputStream -> exportService.exportUsers(outputStream, format);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + format.getExtension())
+                .body(body);
+    }
+
     /**
      * Эндпоинт с реализацией пагинации и сортировки результатов поиска
      *
      * @param userSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param countMode     - режим подсчета общего количества результатов: EXACT (по умолчанию), NONE, ESTIMATE
      * @param pageable      - объект пагинации с информацией о размере/наполнении/сортировке данных на странице
      * @return - объект PageDto с результатами соответствующими критериям запроса
      */
     @GetMapping(path = "/search")
     public PageDto<UserDtoResponse> getUsers(@RequestBody(required = false) UserSearchDto userSearchDto,
+                                             @RequestParam(defaultValue = "EXACT") CountMode countMode,
                                              @PageableDefault(size = 5,
                                                      page = 0,
                                                      sort = {"createdAt"},
                                                      direction = Sort.Direction.DESC) Pageable pageable) {
 
-        return userService.getUsers(userSearchDto, pageable);
+        return userService.getUsers(userSearchDto, pageable, countMode);
+    }
+
+
+    /**
+     * Эндпоинт с реализацией курсорной (keyset) пагинации результатов поиска. Записи упорядочиваются
+     * по дате создания и идентификатору, общее количество результатов не подсчитывается
+     *
+     * @param userSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param cursor        - курсор следующей страницы из предыдущего ответа, не передается при запросе первой страницы
+     * @param pageable      - объект пагинации с информацией о размере страницы и направлении сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами соответствующими критериям запроса
+     */
+    @GetMapping(path = "/search/keyset")
+    public KeysetPageDto<UserDtoResponse> getUsersByCursor(@RequestBody(required = false) UserSearchDto userSearchDto,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @PageableDefault(size = 5,
+                                                                   sort = {"createdAt"},
+                                                                   direction = Sort.Direction.DESC) Pageable pageable) {
+
+        return userService.getUsersByCursor(userSearchDto, cursor, pageable);
     }
 
 
@@ -118,23 +168,25 @@ public class UserController {
 
 
     /**
-     * Метод пакетного добаввления пользователей
+     * Метод пакетного добаввления пользователей. Каждая запись проверяется отдельно: некорректные записи
+     * и записи с занятыми логином или email пропускаются, остальные добавляются
      *
      * @param userDtoRequestList - список пользователей для добавления
      * @param componentsBuilder  - билдер для формирования url ресура
-     * @return - список созданных пользователей в представлении UserDtoResponse
+     * @return - список результатов импорта каждой записи в представлении UserImportResultDto
      */
     @PostMapping(value = "/batch")
-    public ResponseEntity<List<? extends Serializable>> createBatchUser(@Validated @RequestBody ArrayList<UserDtoRequest> userDtoRequestList,
-                                                                        UriComponentsBuilder componentsBuilder,
-                                                                        BindingResult result) {
-        if (result.hasErrors()) {
-            return ResponseEntity.unprocessableEntity().body(result.getAllErrors());
+    public ResponseEntity<List<UserImportResultDto>> createBatchUser(@RequestBody ArrayList<UserDtoRequest> userDtoRequestList,
+                                                                     UriComponentsBuilder componentsBuilder) {
+
+        List<UserImportResultDto> results = userService.createBundleUsers(userDtoRequestList);
+        boolean anyCreated = results.stream()
+                .anyMatch(result -> result.getStatus() == UserImportResultDto.ImportStatus.CREATED);
+        if (!anyCreated) {
+            return ResponseEntity.unprocessableEntity().body(results);
         }
-
-        List<UserDtoResponse> bundleUsers = userService.createBundleUsers(userDtoRequestList);
         URI uri = componentsBuilder.path("/").build().toUri();
-        return ResponseEntity.created(uri).body(bundleUsers);
+        return ResponseEntity.created(uri).body(results);
     }
 
 
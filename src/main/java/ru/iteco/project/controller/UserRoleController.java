@@ -12,6 +12,8 @@ import org.springframework.web.util.UriComponentsBuilder;
 import ru.iteco.project.controller.dto.UserRoleBaseDto;
 import ru.iteco.project.controller.dto.UserRoleDtoRequest;
 import ru.iteco.project.controller.dto.UserRoleDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.UserRoleSearchDto;
 import ru.iteco.project.service.UserRoleService;
@@ -74,17 +76,39 @@ public class UserRoleController {
      * Эндпоинт с реализацией пагинации и сортировки результатов поиска
      *
      * @param userRoleSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param countMode         - режим подсчета общего количества результатов: EXACT (по умолчанию), NONE, ESTIMATE
      * @param pageable          - объект пагинации с информацией о размере/наполнении/сортировке данных на странице
      * @return - объект PageDto с результатами соответствующими критериям запроса
      */
     @GetMapping(path = "/search")
     public PageDto<UserRoleDtoResponse> getUsers(@RequestBody(required = false) UserRoleSearchDto userRoleSearchDto,
+                                                 @RequestParam(defaultValue = "EXACT") CountMode countMode,
                                                  @PageableDefault(size = 5,
                                                          page = 0,
                                                          sort = {"createdAt"},
                                                          direction = Sort.Direction.ASC) Pageable pageable) {
 
-        return userRoleService.getRoles(userRoleSearchDto, pageable);
+        return userRoleService.getRoles(userRoleSearchDto, pageable, countMode);
+    }
+
+
+    /**
+     * Эндпоинт с реализацией курсорной (keyset) пагинации результатов поиска. Записи упорядочиваются
+     * по дате создания и идентификатору, общее количество результатов не подсчитывается
+     *
+     * @param userRoleSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param cursor            - курсор следующей страницы из предыдущего ответа, не передается при запросе первой страницы
+     * @param pageable          - объект пагинации с информацией о размере страницы и направлении сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами соответствующими критериям запроса
+     */
+    @GetMapping(path = "/search/keyset")
+    public KeysetPageDto<UserRoleDtoResponse> getRolesByCursor(@RequestBody(required = false) UserRoleSearchDto userRoleSearchDto,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @PageableDefault(size = 5,
+                                                                       sort = {"createdAt"},
+                                                                       direction = Sort.Direction.DESC) Pageable pageable) {
+
+        return userRoleService.getRolesByCursor(userRoleSearchDto, cursor, pageable);
     }
 
 
@@ -12,6 +12,8 @@ import org.springframework.web.util.UriComponentsBuilder;
 import ru.iteco.project.controller.dto.UserStatusBaseDto;
 import ru.iteco.project.controller.dto.UserStatusDtoRequest;
 import ru.iteco.project.controller.dto.UserStatusDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.UserStatusSearchDto;
 import ru.iteco.project.service.UserStatusService;
@@ -74,17 +76,39 @@ public class UserStatusController {
      * Эндпоинт с реализацией пагинации и сортировки результатов поиска
      *
      * @param userStatusSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param countMode           - режим подсчета общего количества результатов: EXACT (по умолчанию), NONE, ESTIMATE
      * @param pageable            - объект пагинации с информацией о размере/наполнении/сортировке данных на странице
      * @return - объект PageDto с результатами соответствующими критериям запроса
      */
     @GetMapping(path = "/search")
     public PageDto<UserStatusDtoResponse> getUsers(@RequestBody(required = false) UserStatusSearchDto userStatusSearchDto,
+                                                   @RequestParam(defaultValue = "EXACT") CountMode countMode,
                                                    @PageableDefault(size = 5,
                                                            page = 0,
                                                            sort = {"createdAt"},
                                                            direction = Sort.Direction.ASC) Pageable pageable) {
 
-        return userStatusService.getStatus(userStatusSearchDto, pageable);
+        return userStatusService.getStatus(userStatusSearchDto, pageable, countMode);
+    }
+
+
+    /**
+     * Эндпоинт с реализацией курсорной (keyset) пагинации результатов поиска. Записи упорядочиваются
+     * по дате создания и идентификатору, общее количество результатов не подсчитывается
+     *
+     * @param userStatusSearchDto - dto объект который задает значения полей по которым будет осуществляться поиск данных
+     * @param cursor              - курсор следующей страницы из предыдущего ответа, не передается при запросе первой страницы
+     * @param pageable            - объект пагинации с информацией о размере страницы и направлении сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами соответствующими критериям запроса
+     */
+    @GetMapping(path = "/search/keyset")
+    public KeysetPageDto<UserStatusDtoResponse> getStatusByCursor(@RequestBody(required = false) UserStatusSearchDto userStatusSearchDto,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @PageableDefault(size = 5,
+                                                                          sort = {"createdAt"},
+                                                                          direction = Sort.Direction.DESC) Pageable pageable) {
+
+        return userStatusService.getStatusByCursor(userStatusSearchDto, cursor, pageable);
     }
 
 
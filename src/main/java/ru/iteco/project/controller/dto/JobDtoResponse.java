@@ -0,0 +1,149 @@
+package ru.iteco.project.controller.dto;
+
+import ru.iteco.project.service.job.JobStatus;
+import ru.iteco.project.service.job.JobType;
+
+import java.util.UUID;
+
+/**
+ * Класс для формирования dto объекта фонового задания, содержащего состояние и ход его выполнения
+ */
+public class JobDtoResponse implements DtoInterface {
+
+    /*** Уникальный id задания */
+    private UUID id;
+
+    /*** Тип задания */
+    private JobType type;
+
+    /*** Состояние задания */
+    private JobStatus status;
+
+    /*** Количество обработанных записей */
+    private long processed;
+
+    /*** Общее количество обрабатываемых записей (null - неизвестно) */
+    private Long total;
+
+    /*** Признак запроса на отмену выполняющегося задания */
+    private boolean cancelRequested;
+
+    /*** Дата и время постановки задания в очередь */
+    private String createdAt;
+
+    /*** Дата и время начала выполнения */
+    private String startedAt;
+
+    /*** Дата и время завершения */
+    private String finishedAt;
+
+    /*** Результат выполнения задания */
+    private Object result;
+
+    /*** Признак наличия файла с результатом, доступного для скачивания */
+    private boolean resultFileAvailable;
+
+    /*** Сообщение об ошибке выполнения */
+    private String error;
+
+
+    public JobDtoResponse() {
+    }
+
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    public void setType(JobType type) {
+        this.type = type;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(String startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public String getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(String finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public void setResult(Object result) {
+        this.result = result;
+    }
+
+    public boolean isResultFileAvailable() {
+        return resultFileAvailable;
+    }
+
+    public void setResultFileAvailable(boolean resultFileAvailable) {
+        this.resultFileAvailable = resultFileAvailable;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
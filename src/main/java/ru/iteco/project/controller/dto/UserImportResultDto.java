@@ -0,0 +1,103 @@
+package ru.iteco.project.controller.dto;
+
+import org.springframework.validation.ObjectError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Класс для формирования dto результата импорта одной записи при пакетном добавлении пользователей
+ */
+public class UserImportResultDto implements DtoInterface {
+
+    /*** Порядковый номер записи в запросе */
+    private int index;
+
+    /*** Уникальный id созданного пользователя (null - пользователь не создан) */
+    private UUID id;
+
+    /*** Логин пользователя */
+    private String login;
+
+    /*** Email пользователя */
+    private String email;
+
+    /*** Результат импорта записи */
+    private ImportStatus status;
+
+    /*** Список ошибок, из-за которых запись не была импортирована */
+    private List<ObjectError> errors = new ArrayList<>();
+
+
+    public UserImportResultDto() {
+    }
+
+    public UserImportResultDto(int index, String login, String email) {
+        this.index = index;
+        this.login = login;
+        this.email = email;
+    }
+
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public ImportStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ImportStatus status) {
+        this.status = status;
+    }
+
+    public List<ObjectError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ObjectError> errors) {
+        this.errors = errors;
+    }
+
+
+    /**
+     * Результаты импорта записи
+     */
+    public enum ImportStatus {
+        /*** Пользователь создан */
+        CREATED,
+        /*** Запись не прошла валидацию */
+        INVALID,
+        /*** Логин или email уже заняты (в БД или в предыдущих записях запроса) */
+        DUPLICATE
+    }
+}
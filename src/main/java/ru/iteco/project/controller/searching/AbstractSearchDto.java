@@ -3,14 +3,25 @@ package ru.iteco.project.controller.searching;
 import ru.iteco.project.controller.dto.DtoInterface;
 import ru.iteco.project.service.specifications.JoinOperations;
 
+import java.util.List;
+
 /**
- * Суперкласс для всех dto предназначенных для поиска данных
+ * Суперкласс для всех dto предназначенных для поиска данных. Помимо ограничений по полям dto может содержать
+ * вложенные группы условий того же типа, что позволяет составлять выражения из AND / OR / NOT
+ *
+ * @param <T> - тип dto поиска (тип вложенных групп условий)
  */
-public class AbstractSearchDto implements SearchDto {
+public class AbstractSearchDto<T extends AbstractSearchDto<T>> implements SearchDto {
 
     /** Тип операции объединяющей различные предикаты */
     private JoinOperations joinOperation;
 
+    /** Признак отрицания (NOT) всего условия: ограничений по полям и вложенных групп */
+    private boolean not;
+
+    /** Вложенные группы условий, объединяемые с ограничениями по полям операцией joinOperation */
+    private List<T> groups;
+
 
     public AbstractSearchDto() {
     }
@@ -24,6 +35,22 @@ public class AbstractSearchDto implements SearchDto {
         this.joinOperation = joinOperation;
     }
 
+    public boolean isNot() {
+        return not;
+    }
+
+    public void setNot(boolean not) {
+        this.not = not;
+    }
+
+    public List<T> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<T> groups) {
+        this.groups = groups;
+    }
+
     @Override
     public DtoInterface searchData() {
         return this;
@@ -3,7 +3,7 @@ package ru.iteco.project.controller.searching;
 /**
  * Класс - dto для поиска контрактов с переданными ограничениями по полям
  */
-public class ContractSearchDto extends AbstractSearchDto {
+public class ContractSearchDto extends AbstractSearchDto<ContractSearchDto> {
 
     /*** Статус контракта */
     private SearchUnit contractStatus;
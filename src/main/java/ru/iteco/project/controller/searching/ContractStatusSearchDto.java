@@ -3,7 +3,7 @@ package ru.iteco.project.controller.searching;
 /**
  * Класс - dto для поиска статусов контрактов с переданными ограничениями по полям
  */
-public class ContractStatusSearchDto extends AbstractSearchDto {
+public class ContractStatusSearchDto extends AbstractSearchDto<ContractStatusSearchDto> {
 
     /*** Наименование статуса контракта */
     private SearchUnit value;
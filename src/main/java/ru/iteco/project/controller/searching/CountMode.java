@@ -0,0 +1,14 @@
+package ru.iteco.project.controller.searching;
+
+/**
+ * Режимы подсчета общего количества результатов поиска для постраничной выдачи PageDto
+ */
+public enum CountMode {
+    /*** Точный подсчет количества записей запросом COUNT */
+    EXACT,
+    /*** Подсчет не выполняется, возвращается только признак наличия следующей страницы */
+    NONE,
+    /*** Оценка количества записей по статистике БД (для запросов без критериев поиска),
+     * при наличии критериев поиска выполняется точный подсчет */
+    ESTIMATE;
+}
@@ -0,0 +1,58 @@
+package ru.iteco.project.controller.searching;
+
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Модель страницы-ответа на запрос поиска с курсорной (keyset) пагинацией.
+ * В отличие от PageDto не содержит общего количества записей и страниц, для перехода
+ * к следующей странице используется курсор nextCursor
+ *
+ * @param <T> - тип данных поиск которых осуществляется
+ */
+public class KeysetPageDto<T> implements Serializable {
+
+    /*** Список результатов поиска*/
+    private List<T> data;
+
+    /*** Курсор для получения следующей страницы, null - следующая страница отсутствует*/
+    private String nextCursor;
+
+    /*** Признак наличия следующей страницы*/
+    private boolean hasNext;
+
+
+    public KeysetPageDto() {
+    }
+
+    public KeysetPageDto(List<T> data, String nextCursor) {
+        this.data = data;
+        this.nextCursor = nextCursor;
+        this.hasNext = (nextCursor != null);
+    }
+
+    public List<T> getData() {
+        return data;
+    }
+
+    public void setData(List<T> data) {
+        this.data = data;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
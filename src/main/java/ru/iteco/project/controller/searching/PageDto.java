@@ -14,11 +14,17 @@ public class PageDto<T> implements Serializable {
     /*** Список результатов поиска*/
     private List<T> data;
 
-    /*** Общее количество результатов удовлетворяющих критериям поиска*/
-    private long totalElements;
+    /*** Общее количество результатов удовлетворяющих критериям поиска (null - подсчет не выполнялся)*/
+    private Long totalElements;
 
-    /*** Общее количество страниц для отображения результатов текущего поиска*/
-    private long totalPages;
+    /*** Общее количество страниц для отображения результатов текущего поиска (null - подсчет не выполнялся)*/
+    private Long totalPages;
+
+    /*** Признак наличия следующей страницы*/
+    private boolean hasNext;
+
+    /*** Режим подсчета общего количества результатов*/
+    private CountMode countMode;
 
 
     public PageDto() {
@@ -28,8 +34,18 @@ public class PageDto<T> implements Serializable {
         this.data = data;
         this.totalElements = totalElements;
         this.totalPages = totalPages;
+        this.countMode = CountMode.EXACT;
+    }
+
+    public PageDto(List<T> data, Long totalElements, Long totalPages, boolean hasNext, CountMode countMode) {
+        this.data = data;
+        this.totalElements = totalElements;
+        this.totalPages = totalPages;
+        this.hasNext = hasNext;
+        this.countMode = countMode;
     }
 
+
     public List<T> getData() {
         return data;
     }
@@ -38,19 +54,35 @@ public class PageDto<T> implements Serializable {
         this.data = data;
     }
 
-    public long getTotalElements() {
+    public Long getTotalElements() {
         return totalElements;
     }
 
-    public void setTotalElements(long totalElements) {
+    public void setTotalElements(Long totalElements) {
         this.totalElements = totalElements;
     }
 
-    public long getTotalPages() {
+    public Long getTotalPages() {
         return totalPages;
     }
 
-    public void setTotalPages(long totalPages) {
+    public void setTotalPages(Long totalPages) {
         this.totalPages = totalPages;
     }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    public void setCountMode(CountMode countMode) {
+        this.countMode = countMode;
+    }
 }
@@ -4,7 +4,7 @@ package ru.iteco.project.controller.searching;
 /**
  * Класс - dto для поиска заданий с переданными ограничениями по полям
  */
-public class TaskSearchDto extends AbstractSearchDto {
+public class TaskSearchDto extends AbstractSearchDto<TaskSearchDto> {
 
     /*** Статус задания */
     private SearchUnit taskStatus;
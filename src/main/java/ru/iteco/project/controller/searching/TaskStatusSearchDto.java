@@ -3,7 +3,7 @@ package ru.iteco.project.controller.searching;
 /**
  * Класс - dto для поиска статусов заданий с переданными ограничениями по полям
  */
-public class TaskStatusSearchDto extends AbstractSearchDto {
+public class TaskStatusSearchDto extends AbstractSearchDto<TaskStatusSearchDto> {
 
     /*** Наименование статуса задания */
     private SearchUnit value;
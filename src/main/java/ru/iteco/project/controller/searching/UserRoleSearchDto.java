@@ -3,7 +3,7 @@ package ru.iteco.project.controller.searching;
 /**
  * Класс - dto для поиска ролей пользователей с переданными ограничениями по полям
  */
-public class UserRoleSearchDto extends AbstractSearchDto {
+public class UserRoleSearchDto extends AbstractSearchDto<UserRoleSearchDto> {
 
     /*** Наименование роли пользователя */
     private SearchUnit value;
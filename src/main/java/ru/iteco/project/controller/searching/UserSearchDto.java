@@ -4,7 +4,7 @@ package ru.iteco.project.controller.searching;
 /**
  * Класс - dto для поиска пользователей с переданными ограничениями по полям
  */
-public class UserSearchDto extends AbstractSearchDto {
+public class UserSearchDto extends AbstractSearchDto<UserSearchDto> {
 
     /*** Имя пользователя */
     private SearchUnit firstName;
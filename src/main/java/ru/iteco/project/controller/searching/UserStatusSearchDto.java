@@ -3,7 +3,7 @@ package ru.iteco.project.controller.searching;
 /**
  * Класс - dto для поиска статусов пользователей с переданными ограничениями по полям
  */
-public class UserStatusSearchDto extends AbstractSearchDto {
+public class UserStatusSearchDto extends AbstractSearchDto<UserStatusSearchDto> {
 
     /*** Наименование статуса пользователя */
     private SearchUnit value;
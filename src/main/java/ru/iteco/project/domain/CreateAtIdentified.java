@@ -2,6 +2,7 @@ package ru.iteco.project.domain;
 
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 /**
@@ -17,6 +18,10 @@ public abstract class CreateAtIdentified {
     /*** Время и дата последнего обновления записи */
     LocalDateTime updatedAt;
 
+    /*** Версия записи для оптимистической блокировки, null - запись еще не сохранена */
+    @Version
+    Long version;
+
     public CreateAtIdentified() {
     }
 
@@ -35,4 +40,23 @@ public abstract class CreateAtIdentified {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    /**
+     * Метод переносит на объект, созданный из запроса на обновление, служебные поля сохраненной записи
+     * (дату создания и версию), чтобы сохранение объекта обновило существующую запись с проверкой версии
+     *
+     * @param persisted - сохраненная запись
+     */
+    public void copyStateFrom(CreateAtIdentified persisted) {
+        this.createdAt = persisted.createdAt;
+        this.version = persisted.version;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
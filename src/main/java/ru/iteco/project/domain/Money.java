@@ -0,0 +1,179 @@
+package ru.iteco.project.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Денежная сумма, хранимая в копейках (минимальных единицах валюты) в примитиве long.
+ * Арифметика выполняется без создания BigDecimal и контролирует переполнение: при выходе
+ * за пределы long выбрасывается ArithmeticException. Объекты неизменяемы
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    private static final long serialVersionUID = 4529182773905416286L;
+
+    /*** Количество знаков дробной части суммы */
+    public static final int SCALE = 2;
+
+    /*** Количество копеек в одной единице валюты */
+    private static final long MINOR_UNITS_PER_UNIT = 100L;
+
+    /*** Нулевая сумма */
+    public static final Money ZERO = new Money(0L);
+
+    /*** Сумма в копейках */
+    private final long minorUnits;
+
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+
+    /**
+     * Метод создает сумму из количества копеек
+     *
+     * @param minorUnits - сумма в копейках
+     * @return - денежная сумма
+     */
+    public static Money ofMinor(long minorUnits) {
+        return (minorUnits == 0L) ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Метод создает сумму из значения BigDecimal
+     *
+     * @param amount - сумма, не более двух знаков дробной части
+     * @return - денежная сумма, null - если amount null
+     * @throws ArithmeticException - сумма содержит больше двух знаков дробной части или не помещается в long
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        return ofMinor(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Метод разбирает строковое представление суммы вида [-]123[.45]
+     *
+     * @param value - строковое представление суммы
+     * @return - денежная сумма
+     * @throws NumberFormatException - строка не является суммой с не более чем двумя знаками дробной части
+     * @throws ArithmeticException   - сумма не помещается в long
+     */
+    public static Money parse(String value) {
+        if ((value == null) || value.isEmpty()) {
+            throw new NumberFormatException("Money value is empty");
+        }
+        int pointIndex = value.indexOf('.');
+        int fractionLength = (pointIndex < 0) ? 0 : value.length() - pointIndex - 1;
+        if ((fractionLength <= SCALE) && isPlainNumber(value, pointIndex)) {
+            String units = (pointIndex < 0) ? value : value.substring(0, pointIndex);
+            long minorUnits = Math.multiplyExact(Long.parseLong(units), MINOR_UNITS_PER_UNIT);
+            if (fractionLength > 0) {
+                long fraction = Long.parseLong(value.substring(pointIndex + 1));
+                if (fractionLength == 1) {
+                    fraction *= 10;
+                }
+                minorUnits = (value.charAt(0) == '-')
+                        ? Math.subtractExact(minorUnits, fraction)
+                        : Math.addExact(minorUnits, fraction);
+            }
+            return ofMinor(minorUnits);
+        }
+        return of(new BigDecimal(value));
+    }
+
+    /**
+     * Метод проверяет, что строка состоит из необязательного знака, цифр и не более одной точки
+     * с цифрами по обе стороны, то есть может быть разобрана без BigDecimal
+     */
+    private static boolean isPlainNumber(String value, int pointIndex) {
+        int start = ((value.charAt(0) == '-') || (value.charAt(0) == '+')) ? 1 : 0;
+        int end = value.length();
+        if ((start == end) || (pointIndex == start) || (pointIndex == end - 1) || (end - start > 18)) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (((c < '0') || (c > '9')) && (i != pointIndex)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Метод проверяет, может ли значение быть представлено денежной суммой без потери точности
+     *
+     * @param amount - проверяемое значение
+     * @return - true - не более двух знаков дробной части и значение помещается в long копеек
+     */
+    public static boolean isRepresentable(BigDecimal amount) {
+        if (amount == null) {
+            return false;
+        }
+        try {
+            of(amount);
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+
+    public Money add(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money subtract(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isGreaterOrEqual(Money other) {
+        return minorUnits >= other.minorUnits;
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * @return - сумма в виде BigDecimal с двумя знаками дробной части
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return minorUnits == ((Money) o).minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -1,7 +1,6 @@
 package ru.iteco.project.domain;
 
 import javax.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -14,6 +13,9 @@ public class Task extends CreateAtIdentified implements Identified<UUID> {
 
     private static final long serialVersionUID = -7931737332645464539L;
 
+    /*** Наименование поля поискового вектора задания (путь через ленивую связь с TaskSearchVector) */
+    public static final String SEARCH_VECTOR = "searchVector." + TaskSearchVector.VECTOR;
+
     /*** Уникальный id задания */
     @Id
     @Column
@@ -43,7 +45,7 @@ public class Task extends CreateAtIdentified implements Identified<UUID> {
 
     /*** Стоимость исполнения задания */
     @Column(name = "price", nullable = false, precision = 1000, scale = 2)
-    private BigDecimal price;
+    private Money price;
 
     /*** Статус задания */
     @ManyToOne(fetch = FetchType.EAGER, optional = false)
@@ -54,12 +56,17 @@ public class Task extends CreateAtIdentified implements Identified<UUID> {
     @Column(name = "task_decision")
     private String taskDecision;
 
+    /*** Поисковый вектор задания: та же строка таблицы task, присоединяется только полнотекстовым поиском */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id", insertable = false, updatable = false)
+    private TaskSearchVector searchVector;
+
 
     public Task() {
     }
 
     public Task(UUID id, User customer, User executor, String title, String description, LocalDateTime taskCompletionDate,
-                BigDecimal price, TaskStatus taskStatus, String taskDecision) {
+                Money price, TaskStatus taskStatus, String taskDecision) {
         this.id = id;
         this.customer = customer;
         this.executor = executor;
@@ -115,11 +122,11 @@ public class Task extends CreateAtIdentified implements Identified<UUID> {
         this.taskCompletionDate = taskCompletionDate;
     }
 
-    public BigDecimal getPrice() {
+    public Money getPrice() {
         return price;
     }
 
-    public void setPrice(BigDecimal price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
 
@@ -0,0 +1,48 @@
+package ru.iteco.project.domain;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Модель данных только для чтения, представляющая поисковый вектор задания (колонка task.search_vector
+ * генерируется БД). Отдельная сущность нужна, чтобы вектор не выбирался при загрузке заданий: к ней
+ * присоединяется только спецификация полнотекстового поиска (Task.SEARCH_VECTOR)
+ */
+@Entity
+@Immutable
+@Table(name = "task")
+public class TaskSearchVector implements Serializable {
+
+    private static final long serialVersionUID = 2318517410862341796L;
+
+    /*** Наименование поля поискового вектора */
+    public static final String VECTOR = "vector";
+
+    /*** Уникальный id задания */
+    @Id
+    @Column
+    private UUID id;
+
+    /*** Поисковый вектор названия и описания задания */
+    @Column(name = "search_vector")
+    private String vector;
+
+
+    public TaskSearchVector() {
+    }
+
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getVector() {
+        return vector;
+    }
+}
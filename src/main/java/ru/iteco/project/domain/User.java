@@ -1,7 +1,6 @@
 package ru.iteco.project.domain;
 
 import javax.persistence.*;
-import java.math.BigDecimal;
 import java.util.UUID;
 
 /**
@@ -56,16 +55,17 @@ public class User extends CreateAtIdentified implements Identified<UUID> {
     @JoinColumn(name = "status_id", nullable = false)
     private UserStatus userStatus;
 
-    /*** Кошелек пользователя */
-    @Column(name = "wallet", nullable = false, precision = 1000, scale = 2)
-    private BigDecimal wallet = new BigDecimal(0);
+    /*** Кошелек пользователя - баланс на момент последней свертки журнала кошельков. Изменяется только сверткой
+     * журнала (WalletService), поэтому сохранение сущности пользователя колонку не изменяет */
+    @Column(name = "wallet", nullable = false, updatable = false, precision = 1000, scale = 2)
+    private Money wallet = Money.ZERO;
 
 
     public User() {
     }
 
     public User(UUID id, String firstName, String secondName, String lastName, String login, String password,
-                String email, String phoneNumber, UserRole role, UserStatus userStatus, BigDecimal wallet) {
+                String email, String phoneNumber, UserRole role, UserStatus userStatus, Money wallet) {
         this.id = id;
         this.firstName = firstName;
         this.secondName = secondName;
@@ -160,11 +160,11 @@ public class User extends CreateAtIdentified implements Identified<UUID> {
         this.userStatus = userStatus;
     }
 
-    public BigDecimal getWallet() {
+    public Money getWallet() {
         return wallet;
     }
 
-    public void setWallet(BigDecimal wallet) {
+    public void setWallet(Money wallet) {
         this.wallet = wallet;
     }
 
@@ -0,0 +1,21 @@
+package ru.iteco.project.domain;
+
+/**
+ * Перечисление видов записей журнала изменений кошельков пользователей
+ */
+public enum WalletEntryType {
+    CONTRACT_PAYMENT("Оплата договора заказчиком"),
+    CONTRACT_PAYOUT("Выплата исполнителю по исполненному договору"),
+    CONTRACT_REFUND("Возврат заказчику по расторгнутому договору"),
+    ADJUSTMENT("Изменение баланса при обновлении пользователя");
+
+    private final String description;
+
+    WalletEntryType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
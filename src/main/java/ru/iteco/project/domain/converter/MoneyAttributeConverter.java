@@ -0,0 +1,25 @@
+package ru.iteco.project.domain.converter;
+
+import ru.iteco.project.domain.Money;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.math.BigDecimal;
+
+/**
+ * Класс-конвертер денежной суммы типа Money в совместимый с БД numeric (BigDecimal).
+ * Формат колонок БД не меняется, BigDecimal создается только на границе с JDBC
+ */
+@Converter(autoApply = true)
+public class MoneyAttributeConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return (money == null) ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return Money.of(amount);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.iteco.project.exception;
 
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -122,6 +123,84 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(responseError, new HttpHeaders(), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Перехватчик исключения InvalidCursorException, возникающего при передаче поврежденного или некорректного
+     * курсора курсорной пагинации
+     *
+     * @param e - объект исключения
+     * @return - объект ResponseError с полной информацией о возникшей проблеме
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ResponseError> invalidCursorException(InvalidCursorException e) {
+        ResponseError responseError = new ResponseError(UUID.randomUUID(), e.getLocalizedMessage(), e.getClass().getName());
+        return new ResponseEntity<>(responseError, new HttpHeaders(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Перехватчик исключения InvalidSearchCriteriaException, возникающего при передаче недопустимой для поля
+     * операции поиска или значения поиска, не соответствующего типу поля
+     *
+     * @param e - объект исключения
+     * @return - объект ResponseError с полной информацией о возникшей проблеме
+     */
+    @ExceptionHandler(InvalidSearchCriteriaException.class)
+    public ResponseEntity<ResponseError> invalidSearchCriteriaException(InvalidSearchCriteriaException e) {
+        ResponseError responseError = new ResponseError(UUID.randomUUID(), e.getLocalizedMessage(), e.getClass().getName());
+        return new ResponseEntity<>(responseError, new HttpHeaders(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Перехватчик исключения InvalidSearchPatternException, возникающего при передаче слишком короткого
+     * шаблона поиска по вхождению подстроки
+     *
+     * @param e - объект исключения
+     * @return - объект ResponseError с полной информацией о возникшей проблеме
+     */
+    @ExceptionHandler(InvalidSearchPatternException.class)
+    public ResponseEntity<ResponseError> invalidSearchPatternException(InvalidSearchPatternException e) {
+        ResponseError responseError = new ResponseError(UUID.randomUUID(), e.getLocalizedMessage(), e.getClass().getName());
+        return new ResponseEntity<>(responseError, new HttpHeaders(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Перехватчик исключения JobRejectedException, возникающего при попытке поставить фоновое задание
+     * в заполненную очередь
+     *
+     * @param e - объект исключения
+     * @return - объект ResponseError с полной информацией о возникшей проблеме
+     */
+    @ExceptionHandler(JobRejectedException.class)
+    public ResponseEntity<ResponseError> jobRejectedException(JobRejectedException e) {
+        ResponseError responseError = new ResponseError(UUID.randomUUID(), e.getLocalizedMessage(), e.getClass().getName());
+        return new ResponseEntity<>(responseError, new HttpHeaders(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Перехватчик исключения SqlStatementBudgetExceededException, возникающего при превышении допустимого
+     * количества SQL запросов на обработку HTTP запроса
+     *
+     * @param e - объект исключения
+     * @return - объект ResponseError с полной информацией о возникшей проблеме
+     */
+    @ExceptionHandler(SqlStatementBudgetExceededException.class)
+    public ResponseEntity<ResponseError> sqlStatementBudgetExceededException(SqlStatementBudgetExceededException e) {
+        ResponseError responseError = new ResponseError(UUID.randomUUID(), e.getLocalizedMessage(), e.getClass().getName());
+        return new ResponseEntity<>(responseError, new HttpHeaders(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * Перехватчик исключения ConcurrencyFailureException, возникающего при конфликте с другими транзакциями
+     * (изменение записи, ошибка сериализации, взаимная блокировка), если повторы операции не устранили конфликт
+     *
+     * @param e - объект исключения
+     * @return - объект ResponseError с полной информацией о возникшей проблеме
+     */
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<ResponseError> concurrencyFailureException(ConcurrencyFailureException e) {
+        ResponseError responseError = new ResponseError(UUID.randomUUID(), e.getLocalizedMessage(), e.getClass().getName());
+        return new ResponseEntity<>(responseError, new HttpHeaders(), HttpStatus.CONFLICT);
+    }
+
     /**
      * Перехватчик всех остальных не предусмотренных Exception, возникающих при работе приложения
      *
@@ -0,0 +1,25 @@
+package ru.iteco.project.exception;
+
+/**
+ * Исключение возникающее при передаче поврежденного или некорректного курсора пагинации
+ */
+public class InvalidCursorException extends RuntimeException {
+
+
+    public InvalidCursorException() {
+        super();
+    }
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidCursorException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,25 @@
+package ru.iteco.project.exception;
+
+/**
+ * Исключение возникающее при передаче недопустимой для поля операции поиска или некорректного значения поиска
+ */
+public class InvalidSearchCriteriaException extends RuntimeException {
+
+
+    public InvalidSearchCriteriaException() {
+        super();
+    }
+
+    public InvalidSearchCriteriaException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchCriteriaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidSearchCriteriaException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,25 @@
+package ru.iteco.project.exception;
+
+/**
+ * Исключение возникающее при передаче шаблона поиска по вхождению подстроки короче допустимой длины
+ */
+public class InvalidSearchPatternException extends RuntimeException {
+
+
+    public InvalidSearchPatternException() {
+        super();
+    }
+
+    public InvalidSearchPatternException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchPatternException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidSearchPatternException(Throwable cause) {
+        super(cause);
+    }
+
+}
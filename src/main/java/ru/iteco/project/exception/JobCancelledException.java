@@ -0,0 +1,25 @@
+package ru.iteco.project.exception;
+
+/**
+ * Исключение возникающее в потоке фонового задания при обнаружении запроса на его отмену
+ */
+public class JobCancelledException extends RuntimeException {
+
+
+    public JobCancelledException() {
+        super();
+    }
+
+    public JobCancelledException(String message) {
+        super(message);
+    }
+
+    public JobCancelledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public JobCancelledException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,25 @@
+package ru.iteco.project.exception;
+
+/**
+ * Исключение возникающее при попытке поставить фоновое задание в заполненную очередь
+ */
+public class JobRejectedException extends RuntimeException {
+
+
+    public JobRejectedException() {
+        super();
+    }
+
+    public JobRejectedException(String message) {
+        super(message);
+    }
+
+    public JobRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public JobRejectedException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,26 @@
+package ru.iteco.project.exception;
+
+/**
+ * Исключение возникающее при превышении допустимого количества SQL запросов на обработку HTTP запроса
+ * (только при включенном режиме sql.statements.budget.fail)
+ */
+public class SqlStatementBudgetExceededException extends RuntimeException {
+
+
+    public SqlStatementBudgetExceededException() {
+        super();
+    }
+
+    public SqlStatementBudgetExceededException(String message) {
+        super(message);
+    }
+
+    public SqlStatementBudgetExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public SqlStatementBudgetExceededException(Throwable cause) {
+        super(cause);
+    }
+
+}
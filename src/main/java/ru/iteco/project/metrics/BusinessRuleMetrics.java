@@ -0,0 +1,49 @@
+package ru.iteco.project.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Учет бизнес-правил, не позволивших выполнить операцию. Каждое отклонение увеличивает
+ * счетчик business.rule.rejected с тегом rule - наименованием правила
+ */
+@Component
+public class BusinessRuleMetrics {
+
+    /*** Наименование счетчика отклоненных бизнес-правил */
+    public static final String BUSINESS_RULE_REJECTED_COUNTER = "business.rule.rejected";
+
+    /*** Реестр метрик */
+    private final MeterRegistry meterRegistry;
+
+    /*** Счетчики по наименованиям правил */
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+
+    public BusinessRuleMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    /**
+     * Метод учитывает результат проверки бизнес-правила
+     *
+     * @param rule   - наименование правила
+     * @param passed - результат проверки
+     * @return - результат проверки без изменений
+     */
+    public boolean check(String rule, boolean passed) {
+        if (!passed) {
+            counters.computeIfAbsent(rule, key -> Counter.builder(BUSINESS_RULE_REJECTED_COUNTER)
+                    .description("Business rule checks that rejected an operation")
+                    .tag("rule", key)
+                    .register(meterRegistry))
+                    .increment();
+        }
+        return passed;
+    }
+}
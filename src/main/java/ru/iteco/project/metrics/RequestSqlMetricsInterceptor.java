@@ -0,0 +1,161 @@
+package ru.iteco.project.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Перехватчик запросов, записывающий количество SQL запросов, выполненных при обработке HTTP запроса,
+ * в распределение request.sql.statements с тегами method и uri (шаблон пути эндпоинта).
+ * При включенном контроле бюджета (sql.statements.budget.enabled) превышение допустимого количества запросов
+ * увеличивает счетчик request.sql.budget.exceeded и записывается в лог вместе с местами вызова самых частых
+ * запросов, повторы одного запроса (вероятный N+1) также записываются в лог.
+ * Для асинхронных запросов (потоковая выгрузка) учитываются только запросы, выполненные до начала
+ * асинхронной обработки
+ */
+@Component
+public class RequestSqlMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LogManager.getLogger(RequestSqlMetricsInterceptor.class.getName());
+
+    /*** Наименование распределения количества SQL запросов на HTTP запрос */
+    public static final String REQUEST_SQL_STATEMENTS = "request.sql.statements";
+
+    /*** Наименование счетчика HTTP запросов, превысивших бюджет SQL запросов */
+    public static final String REQUEST_SQL_BUDGET_EXCEEDED = "request.sql.budget.exceeded";
+
+    /*** Значение тега uri для запросов, не сопоставленных с эндпоинтом */
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    /*** Количество различных запросов в отчете о превышении бюджета */
+    private static final int REPORT_SIZE = 10;
+
+    /*** Признак контроля бюджета SQL запросов */
+    @Value("${sql.statements.budget.enabled:false}")
+    private boolean budgetEnabled;
+
+    /*** Допустимое количество SQL запросов для эндпоинтов без собственного бюджета */
+    @Value("${sql.statements.budget.default:30}")
+    private int defaultLimit;
+
+    /*** Признак прерывания обработки HTTP запроса при превышении бюджета */
+    @Value("${sql.statements.budget.fail:false}")
+    private boolean failOnExceeded;
+
+    /*** Количество повторов одного SQL запроса, после которого запрос считается признаком N+1 */
+    @Value("${sql.statements.budget.repeat-threshold:5}")
+    private int repeatThreshold;
+
+    /*** Допустимое количество SQL запросов по шаблонам путей эндпоинтов */
+    private Map<String, Integer> endpointLimits = Collections.emptyMap();
+
+    /*** Счетчик SQL запросов */
+    private final SqlStatementCounter sqlStatementCounter;
+
+    /*** Реестр метрик */
+    private final MeterRegistry meterRegistry;
+
+
+    public RequestSqlMetricsInterceptor(SqlStatementCounter sqlStatementCounter, MeterRegistry meterRegistry) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    /**
+     * Метод устанавливает бюджеты эндпоинтов
+     *
+     * @param endpointBudgets - бюджеты в формате "шаблон пути=количество запросов"
+     */
+    @Value("${sql.statements.budget.endpoints:}")
+    public void setEndpointBudgets(String[] endpointBudgets) {
+        Map<String, Integer> limits = new HashMap<>();
+        for (String endpointBudget : endpointBudgets) {
+            int separator = endpointBudget.lastIndexOf('=');
+            if (separator > 0) {
+                limits.put(endpointBudget.substring(0, separator).trim(),
+                        Integer.valueOf(endpointBudget.substring(separator + 1).trim()));
+            }
+        }
+        this.endpointLimits = Collections.unmodifiableMap(limits);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        sqlStatementCounter.start(budgetEnabled ? budget(uri(request)) : null);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        record(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        record(request);
+    }
+
+
+    /**
+     * Метод завершает подсчет SQL запросов текущего потока и записывает результат
+     *
+     * @param request - HTTP запрос
+     */
+    private void record(HttpServletRequest request) {
+        SqlStatementStatistics statistics = sqlStatementCounter.stop();
+        if (statistics == null) {
+            return;
+        }
+        String uri = uri(request);
+        DistributionSummary.builder(REQUEST_SQL_STATEMENTS)
+                .description("SQL statements executed per HTTP request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getCount());
+
+        if (statistics.isBudgetExceeded()) {
+            Counter.builder(REQUEST_SQL_BUDGET_EXCEEDED)
+                    .description("HTTP requests that exceeded the SQL statement budget")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("SQL statement budget exceeded: {} {} executed {} statements, budget {}. Top statements:\n{}",
+                    request.getMethod(), uri, statistics.getCount(), statistics.getBudget().getLimit(),
+                    String.join("\n", statistics.report(REPORT_SIZE)));
+        } else if (statistics.hasRepeatedStatements()) {
+            log.warn("Possible N+1 select: {} {} repeated statements {} or more times. Top statements:\n{}",
+                    request.getMethod(), uri, repeatThreshold, String.join("\n", statistics.report(REPORT_SIZE)));
+        }
+    }
+
+    /**
+     * Метод определяет бюджет SQL запросов эндпоинта
+     *
+     * @param uri - шаблон пути эндпоинта
+     * @return - бюджет эндпоинта или бюджет по умолчанию
+     */
+    private SqlStatementBudget budget(String uri) {
+        return new SqlStatementBudget(uri, endpointLimits.getOrDefault(uri, defaultLimit), repeatThreshold, failOnExceeded);
+    }
+
+    private String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return (pattern == null) ? UNKNOWN_URI : pattern.toString();
+    }
+}
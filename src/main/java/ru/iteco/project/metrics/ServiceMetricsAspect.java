@@ -0,0 +1,65 @@
+package ru.iteco.project.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Аспект замера длительности публичных методов сервисов пакета ru.iteco.project.service.
+ * Длительность записывается в таймер service.method с тегами class, method и exception
+ * (имя класса исключения или none). Гистограмма и перцентили таймера настраиваются свойствами
+ * management.metrics.distribution.*. Вызовы методов сервиса изнутри самого сервиса не замеряются
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    /*** Наименование таймера методов сервисов */
+    public static final String SERVICE_METHOD_TIMER = "service.method";
+
+    /*** Значение тега exception для успешно завершенных вызовов */
+    private static final String NO_EXCEPTION = "none";
+
+    /*** Реестр метрик */
+    private final MeterRegistry meterRegistry;
+
+    /*** Таймеры успешных вызовов по методам, чтобы не искать таймер в реестре при каждом вызове */
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    @Around("within(ru.iteco.project.service.*) && @within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object timeServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        try {
+            Object result = joinPoint.proceed();
+            sample.stop(timers.computeIfAbsent(method, key -> timer(joinPoint, NO_EXCEPTION)));
+            return result;
+        } catch (Throwable e) {
+            sample.stop(timer(joinPoint, e.getClass().getSimpleName()));
+            throw e;
+        }
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, String exception) {
+        return Timer.builder(SERVICE_METHOD_TIMER)
+                .description("Service method execution time")
+                .tag("class", joinPoint.getTarget().getClass().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.iteco.project.metrics;
+
+/**
+ * Бюджет SQL запросов на обработку одного HTTP запроса
+ */
+public class SqlStatementBudget {
+
+    /*** Наименование бюджета (эндпоинт) для сообщений */
+    private final String name;
+
+    /*** Допустимое количество запросов */
+    private final int limit;
+
+    /*** Количество повторов одного запроса, после которого запрос считается признаком N+1 */
+    private final int repeatThreshold;
+
+    /*** Признак прерывания обработки первого запроса сверх бюджета */
+    private final boolean fail;
+
+
+    public SqlStatementBudget(String name, int limit, int repeatThreshold, boolean fail) {
+        this.name = name;
+        this.limit = limit;
+        this.repeatThreshold = repeatThreshold;
+        this.fail = fail;
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getRepeatThreshold() {
+        return repeatThreshold;
+    }
+
+    public boolean isFail() {
+        return fail;
+    }
+}
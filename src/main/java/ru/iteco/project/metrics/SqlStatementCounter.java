@@ -0,0 +1,73 @@
+package ru.iteco.project.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+import ru.iteco.project.exception.SqlStatementBudgetExceededException;
+
+/**
+ * Счетчик SQL запросов, подготовленных Hibernate в текущем потоке (включая нативные запросы).
+ * Подсчет ведется между вызовами start и stop, вне этого интервала запросы не учитываются.
+ * Если подсчет начат с бюджетом, дополнительно запоминаются тексты запросов и места их вызова, а в режиме
+ * fail первый запрос сверх бюджета прерывается исключением SqlStatementBudgetExceededException.
+ * Запросы через JdbcTemplate выполняются в обход Hibernate и не учитываются
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    /*** Запросы текущего потока, null - подсчет не ведется */
+    private static final ThreadLocal<SqlStatementStatistics> CURRENT = new ThreadLocal<>();
+
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementStatistics statistics = CURRENT.get();
+        if ((statistics != null) && statistics.add(sql)) {
+            SqlStatementBudget budget = statistics.getBudget();
+            throw new SqlStatementBudgetExceededException(String.format(
+                    "SQL statement budget exceeded for %s: more than %d statements", budget.getName(), budget.getLimit()));
+        }
+        return sql;
+    }
+
+    /**
+     * Метод начинает подсчет запросов в текущем потоке без контроля бюджета
+     */
+    public void start() {
+        start(null);
+    }
+
+    /**
+     * Метод начинает подсчет запросов в текущем потоке
+     *
+     * @param budget - бюджет запросов, null - только подсчет количества
+     */
+    public void start(SqlStatementBudget budget) {
+        CURRENT.set(new SqlStatementStatistics(budget));
+    }
+
+    /**
+     * @return - true - в текущем потоке ведется подсчет запросов
+     */
+    public boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * @return - количество запросов с начала подсчета в текущем потоке, 0 - подсчет не ведется
+     */
+    public int current() {
+        SqlStatementStatistics statistics = CURRENT.get();
+        return (statistics == null) ? 0 : statistics.getCount();
+    }
+
+    /**
+     * Метод завершает подсчет запросов в текущем потоке
+     *
+     * @return - статистика запросов с начала подсчета, null - подсчет не велся
+     */
+    public SqlStatementStatistics stop() {
+        SqlStatementStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+}
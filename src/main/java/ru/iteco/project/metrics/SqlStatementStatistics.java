@@ -0,0 +1,142 @@
+package ru.iteco.project.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Статистика SQL запросов, выполненных при обработке одного HTTP запроса. При наличии бюджета для каждого
+ * различного текста запроса запоминаются количество выполнений и место первого вызова в коде приложения,
+ * что позволяет найти ленивые загрузки связей (N+1) по повторяющимся запросам
+ */
+public class SqlStatementStatistics {
+
+    /*** Пакет классов приложения, в котором ищется место вызова запроса */
+    private static final String APPLICATION_PACKAGE = "ru.iteco.project.";
+
+    /*** Пакет метрик, исключаемый при поиске места вызова */
+    private static final String METRICS_PACKAGE = "ru.iteco.project.metrics.";
+
+    /*** Максимальная длина текста запроса в отчете */
+    private static final int MAX_SQL_LENGTH = 300;
+
+    /*** Бюджет запросов, null - только подсчет количества */
+    private final SqlStatementBudget budget;
+
+    /*** Статистика по текстам запросов (только при наличии бюджета) */
+    private final Map<String, StatementEntry> statements;
+
+    /*** Количество запросов */
+    private int count;
+
+    /*** Признак того, что запрос сверх бюджета уже прерван исключением */
+    private boolean failed;
+
+
+    SqlStatementStatistics(SqlStatementBudget budget) {
+        this.budget = budget;
+        this.statements = (budget == null) ? null : new HashMap<>();
+    }
+
+
+    /**
+     * Метод учитывает выполнение запроса
+     *
+     * @param sql - текст запроса
+     * @return - true - запрос превышает бюджет в режиме fail и должен быть прерван
+     */
+    boolean add(String sql) {
+        count++;
+        if (budget == null) {
+            return false;
+        }
+        statements.computeIfAbsent(sql, key -> new StatementEntry(callSite())).count++;
+        if (budget.isFail() && !failed && (count > budget.getLimit())) {
+            failed = true;
+            return true;
+        }
+        return false;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public SqlStatementBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return - true - количество запросов превышает бюджет
+     */
+    public boolean isBudgetExceeded() {
+        return (budget != null) && (count > budget.getLimit());
+    }
+
+    /**
+     * @return - true - есть запросы, повторенные не менее repeatThreshold раз (вероятный N+1)
+     */
+    public boolean hasRepeatedStatements() {
+        return (budget != null) && statements.values().stream().anyMatch(entry -> entry.count >= budget.getRepeatThreshold());
+    }
+
+    /**
+     * Метод формирует отчет о запросах, отсортированных по убыванию количества выполнений
+     *
+     * @param limit - максимальное количество различных запросов в отчете
+     * @return - строки отчета: количество выполнений, место вызова и текст запроса
+     */
+    public List<String> report(int limit) {
+        if (budget == null) {
+            return new ArrayList<>();
+        }
+        return statements.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, StatementEntry> entry) -> entry.getValue().count).reversed())
+                .limit(limit)
+                .map(entry -> String.format("%dx at %s: %s", entry.getValue().count, entry.getValue().callSite,
+                        abbreviate(entry.getKey())))
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Метод определяет место вызова запроса - первый элемент стека, относящийся к коду приложения
+     * (без классов метрик и сгенерированных прокси)
+     *
+     * @return - класс, метод и строка места вызова
+     */
+    private static String callSite() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith(APPLICATION_PACKAGE) && !className.startsWith(METRICS_PACKAGE)
+                    && !className.contains("$$")) {
+                return className.substring(className.lastIndexOf('.') + 1) + "." + element.getMethodName()
+                        + ":" + element.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+
+    private static String abbreviate(String sql) {
+        String singleLine = sql.replaceAll("\\s+", " ").trim();
+        return (singleLine.length() <= MAX_SQL_LENGTH) ? singleLine : singleLine.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+
+
+    /**
+     * Количество выполнений и место первого вызова запроса
+     */
+    private static class StatementEntry {
+
+        private final String callSite;
+
+        private int count;
+
+        StatementEntry(String callSite) {
+            this.callSite = callSite;
+        }
+    }
+}
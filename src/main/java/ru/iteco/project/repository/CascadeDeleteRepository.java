@@ -0,0 +1,161 @@
+package ru.iteco.project.repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.UUID;
+
+/**
+ * Репозиторий каскадного удаления данных. Вместо построчного удаления связанных записей выполняется
+ * фиксированное количество массовых запросов DELETE ... WHERE ... IN (подзапрос) в порядке зависимостей:
+ * договоры -> задания -> пользователи. Количество запросов не зависит от количества удаляемых записей
+ */
+@Repository
+public class CascadeDeleteRepository {
+
+    private static final Logger log = LogManager.getLogger(CascadeDeleteRepository.class.getName());
+
+    /*** Шаблон подзапроса идентификаторов удаляемых пользователей */
+    private static final String USERS_SUBQUERY = "SELECT u.id FROM users u WHERE u.%s = :id";
+
+    /*** Шаблон запроса удаления договоров удаляемых пользователей и их заданий */
+    private static final String DELETE_CONTRACTS_BY_USERS_SQL = "DELETE FROM contract WHERE customer_id IN (%1$s) " +
+            "OR executor_id IN (%1$s) " +
+            "OR task_id IN (SELECT t.id FROM task t WHERE t.customer_id IN (%1$s) OR t.executor_id IN (%1$s))";
+
+    /*** Шаблон запроса удаления заданий удаляемых пользователей */
+    private static final String DELETE_TASKS_BY_USERS_SQL = "DELETE FROM task WHERE customer_id IN (%1$s) " +
+            "OR executor_id IN (%1$s)";
+
+    /*** Шаблон запроса удаления пользователей */
+    private static final String DELETE_USERS_SQL = "DELETE FROM users WHERE %s = :id";
+
+    /*** Запрос удаления договора задания */
+    private static final String DELETE_CONTRACTS_BY_TASK_SQL = "DELETE FROM contract WHERE task_id = :id";
+
+    /*** Запрос удаления задания */
+    private static final String DELETE_TASK_SQL = "DELETE FROM task WHERE id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    /**
+     * Метод удаления пользователей вместе с их заданиями и договорами
+     *
+     * @param scope - признак, по которому отбираются удаляемые пользователи
+     * @param id    - значение признака: id пользователя, id статуса или id роли
+     * @return - количество удаленных записей каждого типа
+     */
+    public DeletionResult deleteUsers(UserScope scope, UUID id) {
+        String users = String.format(USERS_SUBQUERY, scope.getColumn());
+        entityManager.flush();
+
+        DeletionResult result = new DeletionResult(
+                execute(String.format(DELETE_CONTRACTS_BY_USERS_SQL, users), id),
+                execute(String.format(DELETE_TASKS_BY_USERS_SQL, users), id),
+                execute(String.format(DELETE_USERS_SQL, scope.getColumn()), id));
+
+        entityManager.clear();
+        log.info("cascade delete of users by {} {}: {}", scope, id, result);
+        return result;
+    }
+
+    /**
+     * Метод удаления задания вместе с его договором
+     *
+     * @param id - id задания
+     * @return - количество удаленных записей каждого типа
+     */
+    public DeletionResult deleteTask(UUID id) {
+        entityManager.flush();
+
+        DeletionResult result = new DeletionResult(
+                execute(DELETE_CONTRACTS_BY_TASK_SQL, id),
+                execute(DELETE_TASK_SQL, id),
+                0);
+
+        entityManager.clear();
+        log.info("cascade delete of task {}: {}", id, result);
+        return result;
+    }
+
+
+    /**
+     * Метод выполняет запрос удаления
+     *
+     * @param sql - текст запроса с параметром :id
+     * @param id  - значение параметра
+     * @return - количество удаленных записей
+     */
+    private int execute(String sql, UUID id) {
+        return entityManager.createNativeQuery(sql)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+
+    /**
+     * Признаки, по которым отбираются удаляемые пользователи
+     */
+    public enum UserScope {
+        /*** Пользователь с указанным id */
+        USER("id"),
+        /*** Все пользователи с указанным статусом */
+        STATUS("status_id"),
+        /*** Все пользователи с указанной ролью */
+        ROLE("role_id");
+
+        /*** Столбец таблицы пользователей, по которому выполняется отбор */
+        private final String column;
+
+        UserScope(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+    }
+
+    /**
+     * Количество записей, удаленных при каскадном удалении
+     */
+    public static class DeletionResult {
+
+        /*** Количество удаленных договоров */
+        private final int contracts;
+
+        /*** Количество удаленных заданий */
+        private final int tasks;
+
+        /*** Количество удаленных пользователей */
+        private final int users;
+
+        public DeletionResult(int contracts, int tasks, int users) {
+            this.contracts = contracts;
+            this.tasks = tasks;
+            this.users = users;
+        }
+
+        public int getContracts() {
+            return contracts;
+        }
+
+        public int getTasks() {
+            return tasks;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        @Override
+        public String toString() {
+            return "contracts=" + contracts + ", tasks=" + tasks + ", users=" + users;
+        }
+    }
+}
@@ -2,13 +2,24 @@ package ru.iteco.project.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.iteco.project.domain.Contract;
 import ru.iteco.project.domain.ContractStatus;
 import ru.iteco.project.domain.Task;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * Интерфейс JPA репозитория для предоставления методов взаимодействия с данными сущности Contract
@@ -23,6 +34,18 @@ public interface ContractRepository extends JpaRepository<Contract, UUID>, JpaSp
      */
     Optional<Contract> findContractByTask(Task task);
 
+    /**
+     * Метод получения договора с блокировкой строки до конца транзакции (SELECT ... FOR UPDATE).
+     * Участники договора не загружаются и блокируются отдельно после договора
+     * методом UserRepository.findAllByIdForUpdate
+     *
+     * @param id - уникальный идентификатор договора
+     * @return - Объект Optional с заблокированной сущностью договора
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ct FROM Contract ct WHERE ct.id = :id")
+    Optional<Contract> findByIdForUpdate(@Param("id") UUID id);
+
     /**
      * Метод получения всех контрактов с переданным статусом
      *
@@ -31,4 +54,32 @@ public interface ContractRepository extends JpaRepository<Contract, UUID>, JpaSp
      */
     Collection<Contract> findContractsByContractStatus(ContractStatus contractStatus);
 
+    /**
+     * Метод получения всех договоров, загружающий договор, задание, заказчика, исполнителя и их статусы одним запросом
+     *
+     * @return - список всех договоров с загруженными связями
+     */
+    default List<Contract> findAllWithParticipants() {
+        return findAll(FetchSpecifications.contractWithParticipants());
+    }
+
+    /**
+     * Метод потокового получения всех договоров вместе со статусом, заданием, заказчиком и исполнителем
+     * для выгрузки данных. Должен вызываться внутри транзакции, поток необходимо закрыть после использования
+     *
+     * @return - поток договоров, упорядоченных по дате создания
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = FetchSpecifications.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT ct FROM Contract ct LEFT JOIN FETCH ct.contractStatus " +
+            "LEFT JOIN FETCH ct.customer c LEFT JOIN FETCH c.role LEFT JOIN FETCH c.userStatus " +
+            "LEFT JOIN FETCH ct.executor e LEFT JOIN FETCH e.role LEFT JOIN FETCH e.userStatus " +
+            "LEFT JOIN FETCH ct.task t LEFT JOIN FETCH t.taskStatus " +
+            "LEFT JOIN FETCH t.customer tc LEFT JOIN FETCH tc.role LEFT JOIN FETCH tc.userStatus " +
+            "LEFT JOIN FETCH t.executor te LEFT JOIN FETCH te.role LEFT JOIN FETCH te.userStatus " +
+            "ORDER BY ct.createdAt, ct.id")
+    Stream<Contract> streamAllForExport();
+
 }
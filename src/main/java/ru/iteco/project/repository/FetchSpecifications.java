@@ -0,0 +1,90 @@
+package ru.iteco.project.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.iteco.project.domain.Contract;
+import ru.iteco.project.domain.Task;
+
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.FetchParent;
+import javax.persistence.criteria.JoinType;
+
+/**
+ * Утилитарный класс содержащий спецификации жадной загрузки (fetch join) связанных сущностей.
+ * Спецификации не добавляют ограничений поиска и комбинируются со спецификациями SpecificationBuilder.getSpec,
+ * при этом для запроса подсчета количества записей соединения не добавляются
+ */
+public final class FetchSpecifications {
+
+    /*** Количество строк, получаемых драйвером JDBC за одно обращение к БД при потоковой выгрузке данных */
+    public static final String EXPORT_FETCH_SIZE = "500";
+
+    private FetchSpecifications() {
+    }
+
+
+    /**
+     * Метод получения спецификации загрузки задания вместе со статусом, заказчиком и исполнителем
+     *
+     * @return - спецификация жадной загрузки связей задания
+     */
+    public static Specification<Task> taskWithParticipants() {
+        return (root, query, builder) -> {
+            if (!isCountQuery(query)) {
+                fetchTaskParticipants(root);
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Метод получения спецификации загрузки договора вместе со статусом, заданием, заказчиком и исполнителем
+     *
+     * @return - спецификация жадной загрузки связей договора
+     */
+    public static Specification<Contract> contractWithParticipants() {
+        return (root, query, builder) -> {
+            if (!isCountQuery(query)) {
+                root.fetch("contractStatus", JoinType.LEFT);
+                fetchUser(root, "customer");
+                fetchUser(root, "executor");
+                fetchTaskParticipants(root.fetch("task", JoinType.LEFT));
+            }
+            return null;
+        };
+    }
+
+
+    /**
+     * Метод добавляет жадную загрузку статуса, заказчика и исполнителя задания
+     *
+     * @param task - узел запроса соответствующий заданию
+     */
+    private static void fetchTaskParticipants(FetchParent<?, ?> task) {
+        task.fetch("taskStatus", JoinType.LEFT);
+        fetchUser(task, "customer");
+        fetchUser(task, "executor");
+    }
+
+    /**
+     * Метод добавляет жадную загрузку пользователя вместе с его ролью и статусом
+     *
+     * @param parent    - узел запроса, содержащий связь с пользователем
+     * @param attribute - наименование связи с пользователем
+     */
+    private static void fetchUser(FetchParent<?, ?> parent, String attribute) {
+        FetchParent<?, ?> user = parent.fetch(attribute, JoinType.LEFT);
+        user.fetch("role", JoinType.LEFT);
+        user.fetch("userStatus", JoinType.LEFT);
+    }
+
+    /**
+     * Метод определяет является ли запрос запросом подсчета количества записей
+     *
+     * @param query - объект запроса
+     * @return true - запрос подсчета количества записей, false - запрос выборки сущностей
+     */
+    private static boolean isCountQuery(CriteriaQuery<?> query) {
+        return (Long.class == query.getResultType()) || (long.class == query.getResultType());
+    }
+
+}
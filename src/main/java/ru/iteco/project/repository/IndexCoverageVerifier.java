@@ -0,0 +1,213 @@
+package ru.iteco.project.repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.iteco.project.service.specifications.SearchField;
+import ru.iteco.project.service.specifications.SearchFieldRegistry;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Проверка покрытия индексами условий поиска. После старта приложения собираются колонки, по которым
+ * выполняется поиск: свойства условий производных методов репозиториев (findAllByRole, findContractByTask, ...)
+ * и атрибуты полей SearchUnit dto поиска из реестра SearchFieldRegistry (TaskSearchDto.price, ...),
+ * и для каждой колонки проверяется наличие индекса БД, в котором она является первой колонкой. Частичные индексы и индексы по выражениям не учитываются.
+ * Колонки без индекса записываются в лог, при index.coverage.fail = true старт приложения прерывается.
+ * Колонки, поиск по которым осознанно выполняется без индекса, перечисляются в index.coverage.ignored
+ */
+@Component
+public class IndexCoverageVerifier {
+
+    private static final Logger log = LogManager.getLogger(IndexCoverageVerifier.class.getName());
+
+    /*** Запрос первых колонок всех индексов текущей схемы (кроме частичных и индексов по выражениям) */
+    private static final String SELECT_INDEXED_COLUMNS_SQL = "SELECT t.relname, a.attname FROM pg_index i " +
+            "JOIN pg_class t ON t.oid = i.indrelid " +
+            "JOIN pg_namespace n ON n.oid = t.relnamespace " +
+            "JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = i.indkey[0] " +
+            "WHERE n.nspname = current_schema() AND i.indisvalid AND i.indpred IS NULL";
+
+    /*** Признак проверки покрытия индексами при старте приложения */
+    @Value("${index.coverage.enabled:true}")
+    private boolean enabled;
+
+    /*** Признак прерывания старта приложения при наличии колонок без индекса */
+    @Value("${index.coverage.fail:false}")
+    private boolean failOnMissing;
+
+    /*** Колонки, не требующие индекса, в формате "таблица.колонка" или "таблица.*" */
+    private Set<String> ignoredColumns = Collections.emptySet();
+
+    private final ApplicationContext applicationContext;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /*** Реестр полей поиска dto поиска */
+    private final SearchFieldRegistry searchFieldRegistry;
+
+
+    public IndexCoverageVerifier(ApplicationContext applicationContext, EntityManagerFactory entityManagerFactory,
+                                 JdbcTemplate jdbcTemplate, SearchFieldRegistry searchFieldRegistry) {
+        this.applicationContext = applicationContext;
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.searchFieldRegistry = searchFieldRegistry;
+    }
+
+
+    /**
+     * Метод устанавливает колонки, не требующие индекса
+     *
+     * @param ignoredColumns - колонки в формате "таблица.колонка" или "таблица.*"
+     */
+    @Value("${index.coverage.ignored:}")
+    public void setIgnoredColumns(String[] ignoredColumns) {
+        this.ignoredColumns = Arrays.stream(ignoredColumns)
+                .map(String::trim)
+                .filter(column -> !column.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Метод проверяет покрытие индексами после старта приложения (после применения миграций Liquibase)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        List<String> uncovered = verify();
+        if (uncovered.isEmpty()) {
+            log.info("index coverage verified: every search column has an index");
+        } else if (failOnMissing) {
+            throw new IllegalStateException("Search columns without index: " + String.join(", ", uncovered));
+        }
+    }
+
+    /**
+     * Метод проверяет покрытие индексами колонок производных методов репозиториев и полей dto поиска
+     *
+     * @return - список колонок без индекса с указанием источника условия, пустой список - все колонки покрыты
+     */
+    public List<String> verify() {
+        MetamodelImplementor metamodel = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getMetamodel();
+        Map<String, Set<String>> required = new TreeMap<>();
+        collectRepositoryColumns(metamodel, required);
+        collectSearchDtoColumns(metamodel, required);
+
+        Set<String> indexed = new HashSet<>(jdbcTemplate.query(SELECT_INDEXED_COLUMNS_SQL,
+                (rs, rowNum) -> rs.getString(1) + "." + rs.getString(2)));
+
+        List<String> uncovered = new ArrayList<>();
+        required.forEach((column, sources) -> {
+            if (!indexed.contains(column) && !isIgnored(column)) {
+                log.warn("no index on {} used by {}", column, sources);
+                uncovered.add(column + " " + sources);
+            }
+        });
+        return uncovered;
+    }
+
+    /**
+     * Метод собирает колонки условий производных методов репозиториев. Методы с @Query и default методы
+     * не проверяются
+     */
+    private void collectRepositoryColumns(MetamodelImplementor metamodel, Map<String, Set<String>> required) {
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            Optional<RepositoryInformation> information = repositories.getRepositoryInformationFor(domainType);
+            if (!information.isPresent()) {
+                continue;
+            }
+            String repository = information.get().getRepositoryInterface().getSimpleName();
+            for (Method method : information.get().getQueryMethods()) {
+                if (method.isAnnotationPresent(Query.class)) {
+                    continue;
+                }
+                PartTree partTree = new PartTree(method.getName(), domainType);
+                for (Part part : partTree.getParts()) {
+                    String column = resolveColumn(metamodel, domainType.getName(), part.getProperty().toDotPath());
+                    required.computeIfAbsent(column, key -> new TreeSet<>()).add(repository + "." + method.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Метод собирает колонки полей SearchUnit dto поиска по описаниям полей реестра SearchFieldRegistry:
+     * атрибут сущности поля (с учетом полей, имя которых не совпадает с именем атрибута, TaskSearchDto.name - title)
+     * и атрибут полнотекстового поиска
+     */
+    private void collectSearchDtoColumns(MetamodelImplementor metamodel, Map<String, Set<String>> required) {
+        searchFieldRegistry.getSearchFields().forEach((dtoClass, fields) -> {
+            for (SearchField field : fields) {
+                String source = dtoClass.getSimpleName() + "." + field.getName();
+                String entityName = field.getEntityClass().getName();
+                required.computeIfAbsent(resolveColumn(metamodel, entityName, field.getPath()), key -> new TreeSet<>())
+                        .add(source);
+                if (field.getFullTextPath() != null) {
+                    required.computeIfAbsent(resolveColumn(metamodel, entityName, field.getFullTextPath()),
+                            key -> new TreeSet<>()).add(source);
+                }
+            }
+        });
+    }
+
+    /**
+     * Метод определяет колонку, по которой выполняется условие на свойство сущности. Условие на идентификатор
+     * связанной сущности (customer.id) выполняется по колонке внешнего ключа, условие на другое свойство
+     * связанной сущности (customer.login) - по колонке таблицы связанной сущности
+     *
+     * @param metamodel  - метамодель Hibernate
+     * @param entityName - имя сущности
+     * @param path       - путь к свойству через точку
+     * @return - колонка в формате "таблица.колонка"
+     */
+    private String resolveColumn(MetamodelImplementor metamodel, String entityName, String path) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) metamodel.entityPersister(entityName);
+        int separator = path.indexOf('.');
+        String property = (separator < 0) ? path : path.substring(0, separator);
+        if (separator > 0) {
+            Type type = persister.getPropertyType(property);
+            String nestedPath = path.substring(separator + 1);
+            if (type.isEntityType()) {
+                String associatedEntityName = ((org.hibernate.type.EntityType) type).getAssociatedEntityName();
+                AbstractEntityPersister associated = (AbstractEntityPersister) metamodel.entityPersister(associatedEntityName);
+                if (!nestedPath.equals(associated.getIdentifierPropertyName())) {
+                    return resolveColumn(metamodel, associatedEntityName, nestedPath);
+                }
+            }
+        }
+        return tableName(persister) + "." + persister.getPropertyColumnNames(property)[0];
+    }
+
+    private String tableName(AbstractEntityPersister persister) {
+        String tableName = persister.getTableName();
+        return tableName.substring(tableName.lastIndexOf('.') + 1);
+    }
+
+    private boolean isIgnored(String column) {
+        return ignoredColumns.contains(column)
+                || ignoredColumns.contains(column.substring(0, column.indexOf('.')) + ".*");
+    }
+}
@@ -0,0 +1,105 @@
+package ru.iteco.project.repository;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Table;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Репозиторий выборки страниц данных без подсчета общего количества записей.
+ * Используется курсорной (keyset) пагинацией и выдачей без подсчета: выбирается на одну запись больше
+ * размера страницы, наличие этой записи означает наличие следующей страницы
+ */
+@Repository
+public class KeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    /**
+     * Метод выборки страницы данных без запроса COUNT (курсорная пагинация)
+     *
+     * @param domainClass - класс сущности
+     * @param spec        - спецификация поиска (включая предикат курсора), может быть null
+     * @param sort        - сортировка выборки
+     * @param size        - размер страницы
+     * @param <T>         - тип сущности
+     * @return - объект Slice с записями страницы и признаком наличия следующей страницы
+     */
+    public <T> Slice<T> findSlice(Class<T> domainClass, Specification<T> spec, Sort sort, int size) {
+        return findSlice(domainClass, spec, PageRequest.of(0, size, sort));
+    }
+
+    /**
+     * Метод выборки страницы данных без запроса COUNT (пагинация по номеру страницы)
+     *
+     * @param domainClass - класс сущности
+     * @param spec        - спецификация поиска, может быть null
+     * @param pageable    - объект пагинации и сортировки
+     * @param <T>         - тип сущности
+     * @return - объект Slice с записями страницы и признаком наличия следующей страницы
+     */
+    public <T> Slice<T> findSlice(Class<T> domainClass, Specification<T> spec, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.select(root);
+        if (pageable.getSort().isSorted()) {
+            // без сортировки в объекте пагинации сохраняется сортировка, заданная спецификацией
+            query.orderBy(toOrders(pageable.getSort(), root, builder));
+        }
+
+        List<T> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * Метод получения оценки количества записей таблицы сущности по статистике планировщика Postgres
+     * (pg_class.reltuples), без сканирования таблицы
+     *
+     * @param domainClass - класс сущности
+     * @return - оценка количества записей или -1, если статистика по таблице еще не собиралась
+     */
+    public long estimateCount(Class<?> domainClass) {
+        Table table = domainClass.getAnnotation(Table.class);
+        String tableName = ((table != null) && !table.name().isEmpty()) ? table.name() : domainClass.getSimpleName();
+        List<?> result = entityManager
+                .createNativeQuery("SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass(:tableName)")
+                .setParameter("tableName", tableName)
+                .getResultList();
+        if (result.isEmpty() || (result.get(0) == null)) {
+            return -1;
+        }
+        return ((Number) result.get(0)).longValue();
+    }
+
+}
@@ -2,14 +2,21 @@ package ru.iteco.project.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.iteco.project.domain.Task;
 import ru.iteco.project.domain.TaskStatus;
 import ru.iteco.project.domain.User;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.UUID;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.*;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.*;
 
 /**
@@ -17,6 +24,9 @@ import static ru.iteco.project.domain.UserRole.UserRoleEnum.*;
  */
 public interface TaskRepository extends JpaRepository<Task, UUID>, JpaSpecificationExecutor<Task> {
 
+    /*** Максимальное количество идентификаторов передаваемых в одно условие IN (...) */
+    int IN_CLAUSE_CHUNK_SIZE = 1000;
+
     /**
      * Метод получения всех заданий заказчика по его id
      *
@@ -49,6 +59,18 @@ public interface TaskRepository extends JpaRepository<Task, UUID>, JpaSpecificat
         }
     }
 
+    /**
+     * Метод получения задания с блокировкой строки до конца транзакции (SELECT ... FOR UPDATE).
+     * Заказчик и исполнитель задания не загружаются и блокируются отдельно после задания
+     * методом UserRepository.findAllByIdForUpdate
+     *
+     * @param id - уникальный идентификатор задания
+     * @return - Объект Optional с заблокированной сущностью задания
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.id = :id")
+    Optional<Task> findByIdForUpdate(@Param("id") UUID id);
+
     /**
      * Метод получения всех заданий с переданным статусом
      *
@@ -57,4 +79,116 @@ public interface TaskRepository extends JpaRepository<Task, UUID>, JpaSpecificat
      */
     Collection<Task> findAllByTaskStatus(TaskStatus taskStatus);
 
+    /**
+     * Метод получения всех заданий, загружающий задание, заказчика, исполнителя и их статусы одним запросом
+     *
+     * @return - список всех заданий с загруженными связями
+     */
+    default List<Task> findAllWithParticipants() {
+        return findAll(FetchSpecifications.taskWithParticipants());
+    }
+
+    /**
+     * Метод получения пар (id заказчика, id задания) для всех заданий переданных заказчиков
+     *
+     * @param customersIds - коллекция уникальных идентификаторов заказчиков
+     * @return - список пар идентификаторов заказчика и задания
+     */
+    @Query("SELECT t.customer.id AS userId, t.id AS taskId FROM Task t WHERE t.customer.id IN :ids")
+    List<UserTaskId> findTasksIdsByCustomersIds(@Param("ids") Collection<UUID> customersIds);
+
+    /**
+     * Метод получения пар (id исполнителя, id задания) для всех заданий переданных исполнителей
+     *
+     * @param executorsIds - коллекция уникальных идентификаторов исполнителей
+     * @return - список пар идентификаторов исполнителя и задания
+     */
+    @Query("SELECT t.executor.id AS userId, t.id AS taskId FROM Task t WHERE t.executor.id IN :ids")
+    List<UserTaskId> findTasksIdsByExecutorsIds(@Param("ids") Collection<UUID> executorsIds);
+
+    /**
+     * Метод получения идентификаторов заданий сразу для всей коллекции пользователей.
+     * Количество запросов к БД не зависит от количества пользователей: по одному сгруппированному
+     * запросу на заказчиков и исполнителей (на каждые IN_CLAUSE_CHUNK_SIZE идентификаторов)
+     *
+     * @param users - коллекция сущностей пользователей
+     * @return - справочник id пользователя -> список id его заданий, пользователи без заданий в справочник не попадают
+     */
+    default Map<UUID, List<UUID>> findTasksIdsByUsers(Collection<User> users) {
+        Set<UUID> customersIds = new LinkedHashSet<>();
+        Set<UUID> executorsIds = new LinkedHashSet<>();
+        for (User user : users) {
+            if (user == null) {
+                continue;
+            }
+            if (isEqualsUserRole(CUSTOMER, user)) {
+                customersIds.add(user.getId());
+            } else if (isEqualsUserRole(EXECUTOR, user)) {
+                executorsIds.add(user.getId());
+            }
+        }
+
+        Map<UUID, List<UUID>> tasksIdsByUsers = new HashMap<>();
+        for (List<UUID> chunk : partition(customersIds)) {
+            findTasksIdsByCustomersIds(chunk).forEach(pair ->
+                    tasksIdsByUsers.computeIfAbsent(pair.getUserId(), id -> new ArrayList<>()).add(pair.getTaskId()));
+        }
+        for (List<UUID> chunk : partition(executorsIds)) {
+            findTasksIdsByExecutorsIds(chunk).forEach(pair ->
+                    tasksIdsByUsers.computeIfAbsent(pair.getUserId(), id -> new ArrayList<>()).add(pair.getTaskId()));
+        }
+        return tasksIdsByUsers;
+    }
+
+    /**
+     * Метод разбивает коллекцию идентификаторов на части размером не более IN_CLAUSE_CHUNK_SIZE
+     *
+     * @param ids - коллекция идентификаторов
+     * @return - список частей исходной коллекции
+     */
+    static List<List<UUID>> partition(Collection<UUID> ids) {
+        List<List<UUID>> chunks = new ArrayList<>();
+        List<UUID> chunk = new ArrayList<>(Math.min(ids.size(), IN_CLAUSE_CHUNK_SIZE));
+        for (UUID id : ids) {
+            chunk.add(id);
+            if (chunk.size() == IN_CLAUSE_CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(IN_CLAUSE_CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+
+    /**
+     * Проекция пары идентификаторов пользователя и его задания
+     */
+    interface UserTaskId {
+
+        /*** Уникальный id пользователя (заказчика или исполнителя) */
+        UUID getUserId();
+
+        /*** Уникальный id задания */
+        UUID getTaskId();
+    }
+
+    /**
+     * Метод потокового получения всех заданий вместе со статусом, заказчиком и исполнителем для выгрузки данных.
+     * Должен вызываться внутри транзакции, поток необходимо закрыть после использования
+     *
+     * @return - поток заданий, упорядоченных по дате создания
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = FetchSpecifications.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT t FROM Task t LEFT JOIN FETCH t.taskStatus " +
+            "LEFT JOIN FETCH t.customer c LEFT JOIN FETCH c.role LEFT JOIN FETCH c.userStatus " +
+            "LEFT JOIN FETCH t.executor e LEFT JOIN FETCH e.role LEFT JOIN FETCH e.userStatus " +
+            "ORDER BY t.createdAt, t.id")
+    Stream<Task> streamAllForExport();
+
 }
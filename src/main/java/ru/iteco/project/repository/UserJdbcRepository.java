@@ -0,0 +1,128 @@
+package ru.iteco.project.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.iteco.project.domain.User;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Репозиторий пакетной работы с пользователями через JDBC в обход контекста персистентности.
+ * Используется при массовом импорте, где построчное сохранение через JPA слишком дорого
+ */
+@Repository
+public class UserJdbcRepository {
+
+    /*** Запрос поиска занятых логинов и email */
+    private static final String SELECT_TAKEN_CREDENTIALS_SQL = "SELECT login, email FROM users " +
+            "WHERE login IN (:logins) OR email IN (:emails)";
+
+    /*** Запрос добавления пользователя */
+    private static final String INSERT_USER_SQL = "INSERT INTO users (id, first_name, second_name, last_name, login, " +
+            "password, email, phone_number, role_id, status_id, wallet, created_at, updated_at) " +
+            "VALUES (:id, :firstName, :secondName, :lastName, :login, :password, :email, :phoneNumber, :roleId, " +
+            ":statusId, :wallet, :createdAt, :updatedAt)";
+
+    /*** Максимальное количество значений в одном условии IN */
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    /*** Количество записей, добавляемых одним пакетом */
+    @Value("${user.import.batch.size:500}")
+    private int batchSize;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+
+    public UserJdbcRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+
+    /**
+     * Метод поиска уже занятых логинов и email. Вместо проверки каждой записи выполняется
+     * один запрос на каждые IN_CLAUSE_CHUNK_SIZE значений
+     *
+     * @param logins      - проверяемые логины
+     * @param emails      - проверяемые email
+     * @param takenLogins - множество, в которое добавляются найденные в БД логины
+     * @param takenEmails - множество, в которое добавляются найденные в БД email
+     */
+    public void findTakenCredentials(List<String> logins, List<String> emails,
+                                     Set<String> takenLogins, Set<String> takenEmails) {
+        int size = Math.max(logins.size(), emails.size());
+        for (int from = 0; from < size; from += IN_CLAUSE_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("logins", chunk(logins, from))
+                    .addValue("emails", chunk(emails, from));
+            namedParameterJdbcTemplate.query(SELECT_TAKEN_CREDENTIALS_SQL, params, rs -> {
+                takenLogins.add(rs.getString("login"));
+                takenEmails.add(rs.getString("email"));
+            });
+        }
+    }
+
+    /**
+     * Метод пакетного добавления пользователей. Записи отправляются в БД пакетами по batchSize штук,
+     * идентификаторы и даты создания/обновления должны быть заполнены заранее
+     *
+     * @param users - список новых пользователей
+     * @return - количество добавленных записей
+     */
+    public int insertAll(List<User> users) {
+        int inserted = 0;
+        for (int from = 0; from < users.size(); from += batchSize) {
+            List<User> batch = users.subList(from, Math.min(from + batchSize, users.size()));
+            SqlParameterSource[] params = batch.stream()
+                    .map(UserJdbcRepository::toParameters)
+                    .toArray(SqlParameterSource[]::new);
+            for (int count : namedParameterJdbcTemplate.batchUpdate(INSERT_USER_SQL, params)) {
+                inserted += (count == Statement.SUCCESS_NO_INFO) ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+
+
+    /**
+     * Метод возвращает часть списка значений для условия IN. Пустая часть заменяется значением null,
+     * так как условие IN не допускает пустой список
+     *
+     * @param values - список значений
+     * @param from   - индекс первого значения части
+     * @return - часть списка значений
+     */
+    private static List<String> chunk(List<String> values, int from) {
+        if (from >= values.size()) {
+            return Collections.singletonList(null);
+        }
+        return values.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, values.size()));
+    }
+
+    /**
+     * Метод формирует параметры запроса добавления пользователя
+     *
+     * @param user - сущность пользователя
+     * @return - параметры запроса
+     */
+    private static SqlParameterSource toParameters(User user) {
+        return new MapSqlParameterSource()
+                .addValue("id", user.getId())
+                .addValue("firstName", user.getFirstName())
+                .addValue("secondName", user.getSecondName())
+                .addValue("lastName", user.getLastName())
+                .addValue("login", user.getLogin())
+                .addValue("password", user.getPassword())
+                .addValue("email", user.getEmail())
+                .addValue("phoneNumber", user.getPhoneNumber())
+                .addValue("roleId", user.getRole().getId())
+                .addValue("statusId", user.getUserStatus().getId())
+                .addValue("wallet", user.getWallet().toBigDecimal())
+                .addValue("createdAt", Timestamp.valueOf(user.getCreatedAt()))
+                .addValue("updatedAt", Timestamp.valueOf(user.getUpdatedAt()));
+    }
+}
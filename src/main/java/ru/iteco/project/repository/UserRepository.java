@@ -2,12 +2,19 @@ package ru.iteco.project.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.iteco.project.domain.User;
 import ru.iteco.project.domain.UserRole;
 import ru.iteco.project.domain.UserStatus;
 
+import javax.persistence.QueryHint;
 import java.util.Collection;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * Интерфейс JPA репозитория для предоставления методов взаимодействия с данными сущности User
@@ -32,4 +39,17 @@ public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificat
      */
     Collection<User> findAllByRole(UserRole userRole);
 
+    /**
+     * Метод потокового получения всех пользователей вместе с ролью и статусом для выгрузки данных.
+     * Должен вызываться внутри транзакции, поток необходимо закрыть после использования
+     *
+     * @return - поток пользователей, упорядоченных по дате создания
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = FetchSpecifications.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.role LEFT JOIN FETCH u.userStatus ORDER BY u.createdAt, u.id")
+    Stream<User> streamAllForExport();
+
 }
@@ -0,0 +1,104 @@
+package ru.iteco.project.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.iteco.project.domain.Money;
+import ru.iteco.project.domain.WalletEntryType;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий журнала изменений кошельков пользователей. Записи журнала только добавляются: баланс
+ * пользователя равен сумме users.wallet и еще не учтенных в нем записей (compacted = false).
+ * Учет записей в users.wallet (свертка) выполняется одним запросом, поэтому любой запрос баланса
+ * видит либо запись журнала, либо уже учтенную в users.wallet сумму
+ */
+@Repository
+public class WalletLedgerRepository {
+
+    /*** Запрос добавления записи журнала */
+    private static final String INSERT_ENTRY_SQL = "INSERT INTO wallet_ledger (id, user_id, contract_id, entry_type, " +
+            "amount, created_at) VALUES (:id, :userId, :contractId, :entryType, :amount, :createdAt)";
+
+    /*** Запрос баланса пользователя с учетом еще не свернутых записей журнала */
+    private static final String SELECT_BALANCE_SQL = "SELECT u.wallet + COALESCE((SELECT SUM(l.amount) " +
+            "FROM wallet_ledger l WHERE l.user_id = u.id AND NOT l.compacted), 0) FROM users u WHERE u.id = :userId";
+
+    /*** Запрос блокировки кошелька пользователя до конца транзакции */
+    private static final String LOCK_WALLET_SQL = "SELECT pg_advisory_xact_lock(:key)";
+
+    /*** Запрос свертки записей журнала в users.wallet. Версия пользователя не изменяется: колонка wallet
+     * не изменяется при сохранении сущности пользователя, и свертка не конфликтует с изменением пользователей */
+    private static final String COMPACT_SQL = "WITH applied AS (" +
+            "UPDATE wallet_ledger SET compacted = true WHERE id IN (" +
+            "SELECT id FROM wallet_ledger WHERE NOT compacted ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING user_id, amount) " +
+            "UPDATE users u SET wallet = u.wallet + a.total " +
+            "FROM (SELECT user_id, SUM(amount) AS total FROM applied GROUP BY user_id) a WHERE u.id = a.user_id";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+
+    public WalletLedgerRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+
+    /**
+     * Метод добавления записи журнала
+     *
+     * @param userId     - уникальный идентификатор пользователя
+     * @param contractId - уникальный идентификатор договора или null
+     * @param entryType  - вид изменения кошелька
+     * @param amount     - сумма изменения: пополнение - положительная, списание - отрицательная
+     */
+    public void append(UUID userId, UUID contractId, WalletEntryType entryType, Money amount) {
+        namedParameterJdbcTemplate.update(INSERT_ENTRY_SQL, new MapSqlParameterSource()
+                .addValue("id", UUID.randomUUID())
+                .addValue("userId", userId)
+                .addValue("contractId", contractId)
+                .addValue("entryType", entryType.name())
+                .addValue("amount", amount.toBigDecimal())
+                .addValue("createdAt", Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    /**
+     * Метод получения баланса пользователя
+     *
+     * @param userId - уникальный идентификатор пользователя
+     * @return - баланс пользователя или null, если пользователь не существует
+     */
+    public Money findBalance(UUID userId) {
+        List<BigDecimal> balance = namedParameterJdbcTemplate.queryForList(SELECT_BALANCE_SQL,
+                new MapSqlParameterSource("userId", userId), BigDecimal.class);
+        return balance.isEmpty() ? null : Money.of(balance.get(0));
+    }
+
+    /**
+     * Метод блокирует кошелек пользователя до конца текущей транзакции (рекомендательная блокировка
+     * pg_advisory_xact_lock). Строка пользователя не блокируется, поэтому блокировка кошелька не мешает
+     * изменению данных пользователя и свертке журнала
+     *
+     * @param userId - уникальный идентификатор пользователя
+     */
+    public void lockWallet(UUID userId) {
+        namedParameterJdbcTemplate.query(LOCK_WALLET_SQL,
+                new MapSqlParameterSource("key", userId.getMostSignificantBits() ^ userId.getLeastSignificantBits()),
+                rs -> null);
+    }
+
+    /**
+     * Метод сворачивает не более limit самых ранних записей журнала в балансы пользователей
+     *
+     * @param limit - максимальное количество сворачиваемых записей
+     * @return - количество пользователей, баланс которых обновлен
+     */
+    public int compact(int limit) {
+        return namedParameterJdbcTemplate.update(COMPACT_SQL, new MapSqlParameterSource("limit", limit));
+    }
+}
@@ -4,6 +4,8 @@ import org.springframework.data.domain.Pageable;
 import ru.iteco.project.controller.dto.ContractDtoRequest;
 import ru.iteco.project.controller.dto.ContractDtoResponse;
 import ru.iteco.project.controller.searching.ContractSearchDto;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
 import ru.iteco.project.domain.Contract;
@@ -63,12 +65,32 @@ public interface ContractService {
      */
     ContractDtoResponse enrichContractInfo(Contract contract);
 
+    /**
+     * Метод обогащает ContractDtoResponse данными о заказчике, исполнителе и задании для списка договоров.
+     * Данные о заданиях всех участвующих пользователей запрашиваются единовременно для всего списка
+     *
+     * @param contracts - список договоров
+     * @return - список объектов ContractDtoResponse в порядке исходного списка
+     */
+    List<ContractDtoResponse> enrichContractInfo(List<Contract> contracts);
+
     /**
      * Метод поиска данных на основании заданной пагинации и/или сортировки и критериев поиска
      *
      * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
      * @param pageable  - объект пагинации и сортировки
+     * @param countMode - режим подсчета общего количества результатов
      * @return - объект PageDto с результатами поиска данных по заданным критериям
      */
-    PageDto<ContractDtoResponse> getContracts(SearchDto<ContractSearchDto> searchDto, Pageable pageable);
+    PageDto<ContractDtoResponse> getContracts(SearchDto<ContractSearchDto> searchDto, Pageable pageable, CountMode countMode);
+
+    /**
+     * Метод поиска данных с курсорной (keyset) пагинацией по заданным критериям поиска
+     *
+     * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
+     * @param cursor    - курсор последней записи предыдущей страницы, null - запрос первой страницы
+     * @param pageable  - объект пагинации с размером страницы и направлением сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами поиска данных по заданным критериям
+     */
+    KeysetPageDto<ContractDtoResponse> getContractsByCursor(SearchDto<ContractSearchDto> searchDto, String cursor, Pageable pageable);
 }
@@ -2,32 +2,39 @@ package ru.iteco.project.service;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.iteco.project.controller.dto.ContractDtoRequest;
 import ru.iteco.project.controller.dto.ContractDtoResponse;
 import ru.iteco.project.controller.searching.ContractSearchDto;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
-import ru.iteco.project.controller.searching.SearchUnit;
 import ru.iteco.project.domain.Contract;
 import ru.iteco.project.domain.ContractStatus;
+import ru.iteco.project.domain.Money;
 import ru.iteco.project.domain.Task;
 import ru.iteco.project.domain.User;
-import ru.iteco.project.exception.InvalidContractStatusException;
+import ru.iteco.project.domain.WalletEntryType;
+import ru.iteco.project.metrics.BusinessRuleMetrics;
 import ru.iteco.project.repository.ContractRepository;
+import ru.iteco.project.repository.FetchSpecifications;
+import ru.iteco.project.repository.KeysetRepository;
 import ru.iteco.project.repository.TaskRepository;
 import ru.iteco.project.repository.UserRepository;
 import ru.iteco.project.service.mappers.ContractDtoEntityMapper;
 import ru.iteco.project.service.mappers.UserDtoEntityMapper;
-import ru.iteco.project.service.specifications.CriteriaObject;
+import ru.iteco.project.service.retry.RetryOnConflict;
+import ru.iteco.project.service.specifications.KeysetCursor;
+import ru.iteco.project.service.specifications.SearchFieldRegistry;
 import ru.iteco.project.service.specifications.SpecificationBuilder;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.*;
 
 import static ru.iteco.project.domain.ContractStatus.ContractStatusEnum.*;
@@ -36,8 +43,6 @@ import static ru.iteco.project.domain.TaskStatus.TaskStatusEnum.*;
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.EXECUTOR;
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.isEqualsUserRole;
 import static ru.iteco.project.domain.UserStatus.UserStatusEnum.*;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.isBetweenOperation;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.searchUnitIsValid;
 
 
 /**
@@ -69,9 +74,27 @@ public class ContractServiceImpl implements ContractService {
     /*** Сервис для формирования спецификации поиска данных */
     private final SpecificationBuilder<Contract> specificationBuilder;
 
+    /*** Реестр полей поиска для формирования критериев поиска из dto поиска */
+    private final SearchFieldRegistry searchFieldRegistry;
+
+    /*** Репозиторий выборки страниц данных без подсчета общего количества записей */
+    private final KeysetRepository keysetRepository;
+
+    /*** Сервис постраничной выборки данных с учетом режима подсчета количества результатов */
+    private final PagingService pagingService;
+
+
+    /*** Учет отклоненных бизнес-правил */
+    private final BusinessRuleMetrics businessRuleMetrics;
+
+    /*** Сервис кошельков пользователей */
+    private final WalletService walletService;
+
 
     public ContractServiceImpl(ContractRepository contractRepository, UserRepository userRepository, TaskRepository taskRepository,
-                               ContractDtoEntityMapper contractMapper, UserDtoEntityMapper userDtoEntityMapper, TaskService taskService, SpecificationBuilder<Contract> specificationBuilder) {
+                               ContractDtoEntityMapper contractMapper, UserDtoEntityMapper userDtoEntityMapper, TaskService taskService,
+                               SpecificationBuilder<Contract> specificationBuilder, SearchFieldRegistry searchFieldRegistry,
+                               KeysetRepository keysetRepository, PagingService pagingService, BusinessRuleMetrics businessRuleMetrics, WalletService walletService) {
         this.contractRepository = contractRepository;
         this.userRepository = userRepository;
         this.taskRepository = taskRepository;
@@ -79,6 +102,11 @@ public class ContractServiceImpl implements ContractService {
         this.userDtoEntityMapper = userDtoEntityMapper;
         this.taskService = taskService;
         this.specificationBuilder = specificationBuilder;
+        this.searchFieldRegistry = searchFieldRegistry;
+        this.keysetRepository = keysetRepository;
+        this.pagingService = pagingService;
+        this.businessRuleMetrics = businessRuleMetrics;
+        this.walletService = walletService;
     }
 
     /**
@@ -87,11 +115,7 @@ public class ContractServiceImpl implements ContractService {
     @Override
     @Transactional(readOnly = true)
     public List<ContractDtoResponse> getAllContracts() {
-        ArrayList<ContractDtoResponse> contractDtoResponses = new ArrayList<>();
-        for (Contract contract : contractRepository.findAll()) {
-            contractDtoResponses.add(enrichContractInfo(contract));
-        }
-        return contractDtoResponses;
+        return enrichContractInfo(contractRepository.findAllWithParticipants());
     }
 
     /**
@@ -111,28 +135,33 @@ public class ContractServiceImpl implements ContractService {
 
 
     /**
-     * SERIALIZABLE - т.к. во время модификации и создание новых данных не должно быть влияния извне
+     * READ_COMMITTED + явные блокировки строк (SELECT ... FOR UPDATE) вместо SERIALIZABLE: первой блокируется
+     * строка задания, поэтому параллельные попытки заключить договор по одному заданию выполняются по очереди и
+     * все, кроме первой, видят задание уже не в статусе REGISTERED. Затем блокируется кошелек заказчика
+     * (без блокировки строки заказчика), и оплата договора добавляется в журнал кошельков, поэтому параллельные
+     * договоры одного заказчика проверяют баланс по очереди, но не изменяют строку users.
+     * Изменение статуса исполнителя защищено версией записи.
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @RetryOnConflict
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public ContractDtoResponse createContract(ContractDtoRequest contractDtoRequest) {
         ContractDtoResponse contractDtoResponse = null;
-        Optional<Task> taskById = taskRepository.findById(contractDtoRequest.getTaskId());
+        Optional<Task> taskById = taskRepository.findByIdForUpdate(contractDtoRequest.getTaskId());
         Optional<User> executorById = userRepository.findById(contractDtoRequest.getExecutorId());
         if (taskById.isPresent() && executorById.isPresent()) {
             Task task = taskById.get();
             User customer = task.getCustomer();
             User executor = executorById.get();
+            walletService.lockWallet(customer.getId());
 
-            if (isEqualsTaskStatus(REGISTERED, task)
+            if (businessRuleMetrics.check("contract.taskRegistered", isEqualsTaskStatus(REGISTERED, task))
                     && usersNotBlocked(customer, executor)
-                    && isEqualsUserRole(EXECUTOR, executor)
+                    && businessRuleMetrics.check("contract.executorRole", isEqualsUserRole(EXECUTOR, executor))
                     && isCorrectConfirmCodes(contractDtoRequest.getConfirmationCode(), contractDtoRequest.getRepeatConfirmationCode())
                     && customerHaveEnoughMoney(task)) {
 
-                customer.setWallet(customer.getWallet().subtract(task.getPrice()));
-                userRepository.save(customer);
                 userDtoEntityMapper.updateUserStatus(executor, ACTIVE);
 
                 task.setExecutor(executor);
@@ -143,6 +172,7 @@ public class ContractServiceImpl implements ContractService {
                 contract.setTask(task);
                 contract.setCustomer(task.getCustomer());
                 Contract save = contractRepository.save(contract);
+                walletService.debit(customer.getId(), save.getId(), WalletEntryType.CONTRACT_PAYMENT, task.getPrice());
 
                 contractDtoResponse = enrichContractInfo(save);
             }
@@ -151,27 +181,30 @@ public class ContractServiceImpl implements ContractService {
     }
 
     /**
-     * SERIALIZABLE - т.к. во время модификации и создание новых данных не должно быть влияния извне
+     * READ_COMMITTED + блокировка строки договора (SELECT ... FOR UPDATE): параллельные изменения одного договора
+     * выполняются по очереди, поэтому средства по договору перечисляются один раз. Перечисление добавляется
+     * в журнал кошельков и не блокирует строки заказчика и исполнителя.
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @RetryOnConflict
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public ContractDtoResponse updateContract(ContractDtoRequest contractDtoRequest) {
         ContractDtoResponse contractDtoResponse = null;
-        if (contractDtoRequest.getUserId() != null
-                && contractRepository.existsById(contractDtoRequest.getId())) {
-
-            Optional<User> userOptional = userRepository.findById(contractDtoRequest.getUserId());
-            Optional<Contract> contractById = contractRepository.findById(contractDtoRequest.getId());
-            if (userOptional.isPresent() && contractById.isPresent()) {
-                User user = userOptional.get();
+        if (contractDtoRequest.getUserId() != null) {
+            Optional<Contract> contractById = contractRepository.findByIdForUpdate(contractDtoRequest.getId());
+            if (contractById.isPresent()) {
                 Contract contract = contractById.get();
-
-                if (allowToUpdate(user, contract)) {
-                    contractDtoEntityMapper.requestDtoToEntity(contractDtoRequest, contract, user.getRole().getValue());
-                    transferFunds(contract);
-                    Contract save = contractRepository.save(contract);
-                    contractDtoResponse = enrichContractInfo(save);
+                Optional<User> userOptional = userRepository.findById(contractDtoRequest.getUserId());
+
+                if (userOptional.isPresent()) {
+                    User user = userOptional.get();
+                    if (allowToUpdate(user, contract)) {
+                        contractDtoEntityMapper.requestDtoToEntity(contractDtoRequest, contract, user.getRole().getValue());
+                        transferFunds(contract);
+                        Contract save = contractRepository.save(contract);
+                        contractDtoResponse = enrichContractInfo(save);
+                    }
                 }
             }
         }
@@ -185,6 +218,7 @@ public class ContractServiceImpl implements ContractService {
      * должна быть применена только при выполнении общей транзакции (единицы бизнес логики)
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public Boolean deleteContract(UUID id) {
         contractRepository.deleteById(id);
@@ -194,11 +228,29 @@ public class ContractServiceImpl implements ContractService {
 
     @Override
     public ContractDtoResponse enrichContractInfo(Contract contract) {
-        ContractDtoResponse contractDtoResponse = contractDtoEntityMapper.entityToResponseDto(contract);
-        contractDtoResponse.setCustomer(userDtoEntityMapper.entityToResponseDto(contract.getCustomer()));
-        contractDtoResponse.setExecutor(userDtoEntityMapper.entityToResponseDto(contract.getExecutor()));
-        contractDtoResponse.setTask(taskService.enrichByUsersInfo(contract.getTask()));
-        return contractDtoResponse;
+        return enrichContractInfo(Collections.singletonList(contract)).get(0);
+    }
+
+    @Override
+    public List<ContractDtoResponse> enrichContractInfo(List<Contract> contracts) {
+        List<User> users = new ArrayList<>(contracts.size() * 4);
+        for (Contract contract : contracts) {
+            users.add(contract.getCustomer());
+            users.add(contract.getExecutor());
+            users.add(contract.getTask().getCustomer());
+            users.add(contract.getTask().getExecutor());
+        }
+        Map<UUID, List<UUID>> tasksIdsByUsers = userDtoEntityMapper.prefetchTasksIds(users);
+
+        List<ContractDtoResponse> contractDtoResponses = new ArrayList<>(contracts.size());
+        for (Contract contract : contracts) {
+            ContractDtoResponse contractDtoResponse = contractDtoEntityMapper.entityToResponseDto(contract);
+            contractDtoResponse.setCustomer(userDtoEntityMapper.entityToResponseDto(contract.getCustomer(), tasksIdsByUsers));
+            contractDtoResponse.setExecutor(userDtoEntityMapper.entityToResponseDto(contract.getExecutor(), tasksIdsByUsers));
+            contractDtoResponse.setTask(taskService.enrichByUsersInfo(contract.getTask(), tasksIdsByUsers));
+            contractDtoResponses.add(contractDtoResponse);
+        }
+        return contractDtoResponses;
     }
 
     /**
@@ -209,24 +261,24 @@ public class ContractServiceImpl implements ContractService {
      */
     private void transferFunds(Contract contract) {
         if (isEqualsContractStatus(ContractStatus.ContractStatusEnum.DONE, contract)) {
-            User executor = contract.getExecutor();
-            executor.setWallet(executor.getWallet().add(contract.getTask().getPrice()));
+            walletService.credit(contract.getExecutor().getId(), contract.getId(), WalletEntryType.CONTRACT_PAYOUT,
+                    contract.getTask().getPrice());
         } else if (isEqualsContractStatus(TERMINATED, contract)) {
-            User customer = contract.getCustomer();
-            customer.setWallet(customer.getWallet().add(contract.getTask().getPrice()));
+            walletService.credit(contract.getCustomer().getId(), contract.getId(), WalletEntryType.CONTRACT_REFUND,
+                    contract.getTask().getPrice());
         }
     }
 
     /**
-     * Метод проверяет достаточно ли у заказчика денег для формирования договора оказания услуги
+     * Метод проверяет достаточно ли у заказчика денег для формирования договора оказания услуги.
+     * Баланс учитывает еще не свернутые записи журнала кошельков
      *
      * @param task - задание
      * @return - true - достаточно средств, false - недостаточно средств
      */
     private boolean customerHaveEnoughMoney(Task task) {
-        BigDecimal customerWallet = task.getCustomer().getWallet();
-        BigDecimal taskPrice = task.getPrice();
-        return customerWallet.compareTo(taskPrice) >= 0;
+        Money customerWallet = walletService.getBalance(task.getCustomer().getId());
+        return businessRuleMetrics.check("contract.customerHaveEnoughMoney", customerWallet.isGreaterOrEqual(task.getPrice()));
     }
 
     /**
@@ -237,7 +289,8 @@ public class ContractServiceImpl implements ContractService {
      * @return - true - пользователи не заблокированы, false - пользователи заблокированы
      */
     private boolean usersNotBlocked(User customer, User executor) {
-        return !(isEqualsUserStatus(BLOCKED, customer) || isEqualsUserStatus(BLOCKED, executor));
+        return businessRuleMetrics.check("contract.usersNotBlocked",
+                !(isEqualsUserStatus(BLOCKED, customer) || isEqualsUserStatus(BLOCKED, executor)));
     }
 
 
@@ -249,7 +302,7 @@ public class ContractServiceImpl implements ContractService {
      * @return - true - коды совпадают, false - коды не совпадают
      */
     private boolean isCorrectConfirmCodes(String code, String repeatCode) {
-        return (code != null) && code.equals(repeatCode);
+        return businessRuleMetrics.check("contract.isCorrectConfirmCodes", (code != null) && code.equals(repeatCode));
     }
 
     /**
@@ -267,82 +320,30 @@ public class ContractServiceImpl implements ContractService {
         boolean taskInTerminatedStatus = isEqualsTaskStatus(DONE, contract.getTask())
                 || isEqualsTaskStatus(CANCELED, contract.getTask());
 
-        return userNotBlocked && userIsCustomer && contractIsPaid && taskInTerminatedStatus;
+        return businessRuleMetrics.check("contract.allowToUpdate",
+                userNotBlocked && userIsCustomer && contractIsPaid && taskInTerminatedStatus);
     }
 
 
-    public PageDto<ContractDtoResponse> getContracts(SearchDto<ContractSearchDto> searchDto, Pageable pageable) {
-        Page<Contract> page;
+    public PageDto<ContractDtoResponse> getContracts(SearchDto<ContractSearchDto> searchDto, Pageable pageable, CountMode countMode) {
+        Specification<Contract> spec = null;
         if ((searchDto != null) && (searchDto.searchData() != null)) {
-            page = contractRepository.findAll(specificationBuilder.getSpec(prepareCriteriaObject(searchDto)), pageable);
-        } else {
-            page = contractRepository.findAll(pageable);
+            spec = specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData()));
         }
-
-        List<ContractDtoResponse> contractDtoResponses = page.map(this::enrichContractInfo).toList();
-        return new PageDto<>(contractDtoResponses, page.getTotalElements(), page.getTotalPages());
-
-    }
-
-    /**
-     * Метод наполняет CriteriaObject данными поиска из searchDto
-     *
-     * @param searchDto - модель с данными для поиска
-     * @return - CriteriaObject - конейнер со всеми данными и ограничениями для поиска
-     */
-    private CriteriaObject prepareCriteriaObject(SearchDto<ContractSearchDto> searchDto) {
-        ContractSearchDto contractSearchDto = searchDto.searchData();
-        return new CriteriaObject(contractSearchDto.getJoinOperation(), prepareRestrictionValues(contractSearchDto));
+        return pagingService.findPage(Contract.class, contractRepository, spec, FetchSpecifications.contractWithParticipants(), pageable, countMode,
+                this::enrichContractInfo);
     }
 
-
-    /**
-     * Метод подготавливает ограничения для полей поиска
-     *
-     * @param contractSearchDto - модель с данными для поиска
-     * @return - мписок ограничений для всех полей по которым осуществляется поиск
-     */
-    private List<CriteriaObject.RestrictionValues> prepareRestrictionValues(ContractSearchDto contractSearchDto) {
-        ArrayList<CriteriaObject.RestrictionValues> restrictionValues = new ArrayList<>();
-
-        SearchUnit contractSearchStatus = contractSearchDto.getContractStatus();
-        if (searchUnitIsValid(contractSearchStatus)) {
-            ContractStatus contractStatus = contractDtoEntityMapper.getContractStatusRepository()
-                    .findContractStatusByValue(contractSearchStatus.getValue())
-                    .orElseThrow(InvalidContractStatusException::new);
-
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<ContractStatus>(
-                            "contractStatus",
-                            contractSearchStatus.getSearchOperation(),
-                            contractStatus
-                    )
-            );
-        }
-
-        SearchUnit createdAt = contractSearchDto.getCreatedAt();
-        if (searchUnitIsValid(createdAt)) {
-            if (isBetweenOperation(createdAt)) {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<LocalDateTime>(
-                                "createdAt",
-                                createdAt.getSearchOperation(),
-                                createdAt.getValue(),
-                                createdAt.getMinValue(),
-                                createdAt.getMaxValue()
-                        )
-                );
-            } else {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<LocalDateTime>(
-                                "createdAt",
-                                createdAt.getValue(),
-                                createdAt.getSearchOperation()
-                        )
-                );
-            }
+    public KeysetPageDto<ContractDtoResponse> getContractsByCursor(SearchDto<ContractSearchDto> searchDto, String cursor, Pageable pageable) {
+        Sort.Direction direction = KeysetCursor.direction(pageable);
+        Specification<Contract> spec = Specification.where(FetchSpecifications.contractWithParticipants())
+                .and(specificationBuilder.getSeekSpec(KeysetCursor.decode(cursor), direction));
+        if ((searchDto != null) && (searchDto.searchData() != null)) {
+            spec = spec.and(specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData())));
         }
+        Slice<Contract> slice = keysetRepository.findSlice(Contract.class, spec, KeysetCursor.sort(direction), pageable.getPageSize());
 
-        return restrictionValues;
+        List<ContractDtoResponse> contractDtoResponses = enrichContractInfo(slice.getContent());
+        return new KeysetPageDto<>(contractDtoResponses, KeysetCursor.nextCursor(slice));
     }
 }
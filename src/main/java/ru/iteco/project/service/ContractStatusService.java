@@ -5,6 +5,8 @@ import org.springframework.data.domain.Pageable;
 import ru.iteco.project.controller.dto.ContractStatusDtoRequest;
 import ru.iteco.project.controller.dto.ContractStatusDtoResponse;
 import ru.iteco.project.controller.searching.ContractStatusSearchDto;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
 
@@ -62,7 +64,18 @@ public interface ContractStatusService {
      *
      * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
      * @param pageable  - объект пагинации и сортировки
+     * @param countMode - режим подсчета общего количества результатов
      * @return - объект PageDto с результатами поиска данных по заданным критериям
      */
-    PageDto<ContractStatusDtoResponse> getStatus(SearchDto<ContractStatusSearchDto> searchDto, Pageable pageable);
+    PageDto<ContractStatusDtoResponse> getStatus(SearchDto<ContractStatusSearchDto> searchDto, Pageable pageable, CountMode countMode);
+
+    /**
+     * Метод поиска данных с курсорной (keyset) пагинацией по заданным критериям поиска
+     *
+     * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
+     * @param cursor    - курсор последней записи предыдущей страницы, null - запрос первой страницы
+     * @param pageable  - объект пагинации с размером страницы и направлением сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами поиска данных по заданным критериям
+     */
+    KeysetPageDto<ContractStatusDtoResponse> getStatusByCursor(SearchDto<ContractStatusSearchDto> searchDto, String cursor, Pageable pageable);
 }
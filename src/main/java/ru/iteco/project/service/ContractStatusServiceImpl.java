@@ -2,32 +2,39 @@ package ru.iteco.project.service;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.iteco.project.controller.dto.ContractStatusDtoRequest;
 import ru.iteco.project.controller.dto.ContractStatusDtoResponse;
 import ru.iteco.project.controller.searching.ContractStatusSearchDto;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
-import ru.iteco.project.controller.searching.SearchUnit;
 import ru.iteco.project.domain.Contract;
 import ru.iteco.project.domain.ContractStatus;
 import ru.iteco.project.domain.User;
 import ru.iteco.project.repository.ContractRepository;
 import ru.iteco.project.repository.ContractStatusRepository;
+import ru.iteco.project.repository.KeysetRepository;
 import ru.iteco.project.repository.UserRepository;
+import ru.iteco.project.service.dictionary.DictionaryCache;
 import ru.iteco.project.service.mappers.ContractStatusDtoEntityMapper;
-import ru.iteco.project.service.specifications.CriteriaObject;
+import ru.iteco.project.service.retry.RetryOnConflict;
+import ru.iteco.project.service.specifications.KeysetCursor;
+import ru.iteco.project.service.specifications.SearchFieldRegistry;
 import ru.iteco.project.service.specifications.SpecificationBuilder;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.ADMIN;
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.isEqualsUserRole;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.searchUnitIsValid;
 
 /**
  * Класс реализует функционал сервисного слоя для работы со статусами контрактов
@@ -55,10 +62,24 @@ public class ContractStatusServiceImpl implements ContractStatusService {
     /*** Сервис для формирования спецификации поиска данных */
     private final SpecificationBuilder<ContractStatus> specificationBuilder;
 
+    /*** Реестр полей поиска для формирования критериев поиска из dto поиска */
+    private final SearchFieldRegistry searchFieldRegistry;
+
+    /*** Репозиторий выборки страниц данных без подсчета общего количества записей */
+    private final KeysetRepository keysetRepository;
+
+    /*** Сервис постраничной выборки данных с учетом режима подсчета количества результатов */
+    private final PagingService pagingService;
+
+    /*** Кэш справочников статусов и ролей */
+    private final DictionaryCache dictionaryCache;
+
 
     public ContractStatusServiceImpl(ContractStatusRepository contractStatusRepository, ContractRepository contractRepository,
                                      UserRepository userRepository, ContractService contractService,
-                                     ContractStatusDtoEntityMapper contractStatusDtoEntityMapper, SpecificationBuilder<ContractStatus> specificationBuilder) {
+                                     ContractStatusDtoEntityMapper contractStatusDtoEntityMapper, SpecificationBuilder<ContractStatus> specificationBuilder,
+                                     SearchFieldRegistry searchFieldRegistry, DictionaryCache dictionaryCache, KeysetRepository keysetRepository,
+                                     PagingService pagingService) {
 
         this.contractStatusRepository = contractStatusRepository;
         this.contractRepository = contractRepository;
@@ -66,6 +87,10 @@ public class ContractStatusServiceImpl implements ContractStatusService {
         this.contractService = contractService;
         this.contractStatusDtoEntityMapper = contractStatusDtoEntityMapper;
         this.specificationBuilder = specificationBuilder;
+        this.searchFieldRegistry = searchFieldRegistry;
+        this.dictionaryCache = dictionaryCache;
+        this.keysetRepository = keysetRepository;
+        this.pagingService = pagingService;
     }
 
 
@@ -90,12 +115,14 @@ public class ContractStatusServiceImpl implements ContractStatusService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public ContractStatusDtoResponse createContractStatus(ContractStatusDtoRequest contractStatusDtoRequest) {
         ContractStatusDtoResponse contractStatusDtoResponse = new ContractStatusDtoResponse();
         if (operationIsAllow(contractStatusDtoRequest)) {
             ContractStatus newContractStatus = contractStatusDtoEntityMapper.requestDtoToEntity(contractStatusDtoRequest);
             ContractStatus save = contractStatusRepository.save(newContractStatus);
+            dictionaryCache.invalidateContractStatuses();
             contractStatusDtoResponse = contractStatusDtoEntityMapper.entityToResponseDto(save);
         }
         return contractStatusDtoResponse;
@@ -106,17 +133,22 @@ public class ContractStatusServiceImpl implements ContractStatusService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public ContractStatusDtoResponse updateContractStatus(UUID id, ContractStatusDtoRequest contractStatusDtoRequest) {
         ContractStatusDtoResponse contractStatusDtoResponse = new ContractStatusDtoResponse();
         if (operationIsAllow(contractStatusDtoRequest) &&
-                Objects.equals(id, contractStatusDtoRequest.getId()) &&
-                contractStatusRepository.existsById(contractStatusDtoRequest.getId())) {
-
-            ContractStatus contractStatus = contractStatusDtoEntityMapper.requestDtoToEntity(contractStatusDtoRequest);
-            contractStatus.setId(id);
-            ContractStatus save = contractStatusRepository.save(contractStatus);
-            contractStatusDtoResponse = contractStatusDtoEntityMapper.entityToResponseDto(save);
+                Objects.equals(id, contractStatusDtoRequest.getId())) {
+
+            Optional<ContractStatus> persistedContractStatus = contractStatusRepository.findById(id);
+            if (persistedContractStatus.isPresent()) {
+                ContractStatus contractStatus = contractStatusDtoEntityMapper.requestDtoToEntity(contractStatusDtoRequest);
+                contractStatus.setId(id);
+                contractStatus.copyStateFrom(persistedContractStatus.get());
+                ContractStatus save = contractStatusRepository.save(contractStatus);
+                dictionaryCache.invalidateContractStatuses();
+                contractStatusDtoResponse = contractStatusDtoEntityMapper.entityToResponseDto(save);
+            }
         }
         return contractStatusDtoResponse;
     }
@@ -140,6 +172,7 @@ public class ContractStatusServiceImpl implements ContractStatusService {
      * должна быть применена только при выполнении общей транзакции (единицы бизнес логики)
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public Boolean deleteContractStatus(UUID id) {
         Optional<ContractStatus> contractStatusById = contractStatusRepository.findById(id);
@@ -147,6 +180,7 @@ public class ContractStatusServiceImpl implements ContractStatusService {
             Collection<Contract> allContractsByStatus = contractRepository.findContractsByContractStatus(contractStatusById.get());
             allContractsByStatus.forEach(contract -> contractService.deleteContract(contract.getId()));
             contractStatusRepository.deleteById(id);
+            dictionaryCache.invalidateContractStatuses();
             return true;
         }
         return false;
@@ -168,61 +202,26 @@ public class ContractStatusServiceImpl implements ContractStatusService {
         return false;
     }
 
-    public PageDto<ContractStatusDtoResponse> getStatus(SearchDto<ContractStatusSearchDto> searchDto, Pageable pageable) {
-        Page<ContractStatus> page;
+    public PageDto<ContractStatusDtoResponse> getStatus(SearchDto<ContractStatusSearchDto> searchDto, Pageable pageable, CountMode countMode) {
+        Specification<ContractStatus> spec = null;
         if ((searchDto != null) && (searchDto.searchData() != null)) {
-            page = contractStatusRepository.findAll(specificationBuilder.getSpec(prepareCriteriaObject(searchDto)), pageable);
-        } else {
-            page = contractStatusRepository.findAll(pageable);
+            spec = specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData()));
         }
-
-        List<ContractStatusDtoResponse> ContractStatusDtoResponses = page.map(contractStatusDtoEntityMapper::entityToResponseDto).toList();
-        return new PageDto<>(ContractStatusDtoResponses, page.getTotalElements(), page.getTotalPages());
-
-    }
-
-
-    /**
-     * Метод наполняет CriteriaObject данными поиска из searchDto
-     *
-     * @param searchDto - модель с данными для поиска
-     * @return - CriteriaObject - конейнер со всеми данными и ограничениями для поиска
-     */
-    private CriteriaObject prepareCriteriaObject(SearchDto<ContractStatusSearchDto> searchDto) {
-        ContractStatusSearchDto contractStatusSearchDto = searchDto.searchData();
-        return new CriteriaObject(contractStatusSearchDto.getJoinOperation(), prepareRestrictionValues(contractStatusSearchDto));
+        return pagingService.findPage(ContractStatus.class, contractStatusRepository, spec, null, pageable, countMode,
+                entities -> entities.stream()
+                        .map(contractStatusDtoEntityMapper::entityToResponseDto)
+                        .collect(Collectors.toList()));
     }
 
-    /**
-     * Метод подготавливает ограничения для полей поиска
-     *
-     * @param contractStatusSearchDto - модель с данными для поиска
-     * @return - мписок ограничений для всех полей по которым осуществляется поиск
-     */
-    private List<CriteriaObject.RestrictionValues> prepareRestrictionValues(ContractStatusSearchDto contractStatusSearchDto) {
-        ArrayList<CriteriaObject.RestrictionValues> restrictionValues = new ArrayList<>();
-
-        SearchUnit value = contractStatusSearchDto.getValue();
-        if (searchUnitIsValid(value)) {
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<String>(
-                            "value",
-                            value.getSearchOperation(),
-                            value.getValue()
-                    )
-            );
+    public KeysetPageDto<ContractStatusDtoResponse> getStatusByCursor(SearchDto<ContractStatusSearchDto> searchDto, String cursor, Pageable pageable) {
+        Sort.Direction direction = KeysetCursor.direction(pageable);
+        Specification<ContractStatus> spec = Specification.where(specificationBuilder.getSeekSpec(KeysetCursor.decode(cursor), direction));
+        if ((searchDto != null) && (searchDto.searchData() != null)) {
+            spec = spec.and(specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData())));
         }
+        Slice<ContractStatus> slice = keysetRepository.findSlice(ContractStatus.class, spec, KeysetCursor.sort(direction), pageable.getPageSize());
 
-        SearchUnit description = contractStatusSearchDto.getDescription();
-        if (searchUnitIsValid(description)) {
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<String>(
-                            "description",
-                            description.getValue(),
-                            description.getSearchOperation()
-                    )
-            );
-        }
-        return restrictionValues;
+        List<ContractStatusDtoResponse> contractStatusDtoResponses = slice.map(contractStatusDtoEntityMapper::entityToResponseDto).getContent();
+        return new KeysetPageDto<>(contractStatusDtoResponses, KeysetCursor.nextCursor(slice));
     }
 }
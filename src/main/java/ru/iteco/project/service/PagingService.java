@@ -0,0 +1,73 @@
+package ru.iteco.project.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Service;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.PageDto;
+import ru.iteco.project.repository.KeysetRepository;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Сервис постраничной выборки данных с учетом режима подсчета общего количества результатов
+ */
+@Service
+public class PagingService {
+
+    /*** Репозиторий выборки страниц данных без подсчета общего количества записей */
+    private final KeysetRepository keysetRepository;
+
+
+    public PagingService(KeysetRepository keysetRepository) {
+        this.keysetRepository = keysetRepository;
+    }
+
+
+    /**
+     * Метод постраничной выборки данных
+     *
+     * @param domainClass - класс сущности
+     * @param repository  - репозиторий сущности
+     * @param filter      - спецификация критериев поиска, null - критерии поиска не заданы
+     * @param fetch       - спецификация жадной загрузки связанных сущностей, может быть null
+     * @param pageable    - объект пагинации и сортировки
+     * @param countMode   - режим подсчета общего количества результатов, null - точный подсчет.
+     *                    Оценка (ESTIMATE) выполняется только при отсутствии критериев поиска и наличии статистики
+     *                    по таблице, в остальных случаях выполняется точный подсчет
+     * @param mapper      - функция преобразования списка сущностей в список dto
+     * @param <T>         - тип сущности
+     * @param <D>         - тип dto
+     * @return - объект PageDto с результатами поиска
+     */
+    public <T, D> PageDto<D> findPage(Class<T> domainClass, JpaSpecificationExecutor<T> repository,
+                                      Specification<T> filter, Specification<T> fetch, Pageable pageable,
+                                      CountMode countMode, Function<List<T>, List<D>> mapper) {
+
+        Specification<T> spec = (fetch == null) ? filter : Specification.where(filter).and(fetch);
+        CountMode mode = (countMode == null) ? CountMode.EXACT : countMode;
+
+        if (mode == CountMode.NONE) {
+            Slice<T> slice = keysetRepository.findSlice(domainClass, spec, pageable);
+            return new PageDto<>(mapper.apply(slice.getContent()), null, null, slice.hasNext(), CountMode.NONE);
+        }
+
+        long estimate = ((mode == CountMode.ESTIMATE) && (filter == null)) ? keysetRepository.estimateCount(domainClass) : -1;
+        if (estimate > 0) {
+            Slice<T> slice = keysetRepository.findSlice(domainClass, spec, pageable);
+            long seen = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+            long totalElements = Math.max(estimate, seen);
+            long totalPages = (totalElements + pageable.getPageSize() - 1) / pageable.getPageSize();
+            return new PageDto<>(mapper.apply(slice.getContent()), totalElements, totalPages, slice.hasNext(), CountMode.ESTIMATE);
+        }
+
+        Page<T> page = repository.findAll(spec, pageable);
+        return new PageDto<>(mapper.apply(page.getContent()), page.getTotalElements(), (long) page.getTotalPages(),
+                page.hasNext(), CountMode.EXACT);
+    }
+
+}
@@ -3,12 +3,15 @@ package ru.iteco.project.service;
 import org.springframework.data.domain.Pageable;
 import ru.iteco.project.controller.dto.TaskDtoRequest;
 import ru.iteco.project.controller.dto.TaskDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
 import ru.iteco.project.controller.searching.TaskSearchDto;
 import ru.iteco.project.domain.Task;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -71,12 +74,42 @@ public interface TaskService {
      */
     TaskDtoResponse enrichByUsersInfo(Task task);
 
+    /**
+     * Метод формирует ответ TaskDtoResponse и обогащает его данными о заказчике и исполнителе,
+     * используя заранее полученные идентификаторы заданий пользователей
+     *
+     * @param task            - объект задания
+     * @param tasksIdsByUsers - справочник id пользователя -> список id его заданий
+     * @return - объект TaskDtoResponse с подготовленными данными о задании, исполнителе и заказчике
+     */
+    TaskDtoResponse enrichByUsersInfo(Task task, Map<UUID, List<UUID>> tasksIdsByUsers);
+
+    /**
+     * Метод формирует ответы TaskDtoResponse для списка заданий и обогащает их данными о заказчиках и исполнителях.
+     * Данные о заданиях всех пользователей запрашиваются единовременно для всего списка
+     *
+     * @param tasks - список заданий
+     * @return - список объектов TaskDtoResponse в порядке исходного списка
+     */
+    List<TaskDtoResponse> enrichByUsersInfo(List<Task> tasks);
+
     /**
      * Метод поиска данных на основании заданной пагинации и/или сортировки и критериев поиска
      *
      * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
      * @param pageable  - объект пагинации и сортировки
+     * @param countMode - режим подсчета общего количества результатов
      * @return - объект PageDto с результатами поиска данных по заданным критериям
      */
-    PageDto<TaskDtoResponse> getTasks(SearchDto<TaskSearchDto> searchDto, Pageable pageable);
+    PageDto<TaskDtoResponse> getTasks(SearchDto<TaskSearchDto> searchDto, Pageable pageable, CountMode countMode);
+
+    /**
+     * Метод поиска данных с курсорной (keyset) пагинацией по заданным критериям поиска
+     *
+     * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
+     * @param cursor    - курсор последней записи предыдущей страницы, null - запрос первой страницы
+     * @param pageable  - объект пагинации с размером страницы и направлением сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами поиска данных по заданным критериям
+     */
+    KeysetPageDto<TaskDtoResponse> getTasksByCursor(SearchDto<TaskSearchDto> searchDto, String cursor, Pageable pageable);
 }
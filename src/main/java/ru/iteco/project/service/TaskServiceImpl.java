@@ -4,33 +4,38 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.iteco.project.controller.dto.TaskDtoRequest;
 import ru.iteco.project.controller.dto.TaskDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
-import ru.iteco.project.controller.searching.SearchUnit;
 import ru.iteco.project.controller.searching.TaskSearchDto;
-import ru.iteco.project.domain.Contract;
 import ru.iteco.project.domain.Task;
-import ru.iteco.project.domain.TaskStatus;
 import ru.iteco.project.domain.User;
-import ru.iteco.project.exception.InvalidTaskStatusException;
 import ru.iteco.project.exception.UnavailableRoleOperationException;
-import ru.iteco.project.repository.ContractRepository;
+import ru.iteco.project.metrics.BusinessRuleMetrics;
+import ru.iteco.project.repository.CascadeDeleteRepository;
+import ru.iteco.project.repository.FetchSpecifications;
+import ru.iteco.project.repository.KeysetRepository;
 import ru.iteco.project.repository.TaskRepository;
 import ru.iteco.project.repository.UserRepository;
 import ru.iteco.project.service.mappers.TaskDtoEntityMapper;
 import ru.iteco.project.service.mappers.UserDtoEntityMapper;
+import ru.iteco.project.service.retry.RetryOnConflict;
 import ru.iteco.project.service.specifications.CriteriaObject;
+import ru.iteco.project.service.specifications.KeysetCursor;
+import ru.iteco.project.service.specifications.SearchFieldRegistry;
 import ru.iteco.project.service.specifications.SpecificationBuilder;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -38,8 +43,6 @@ import static ru.iteco.project.domain.TaskStatus.TaskStatusEnum.*;
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.EXECUTOR;
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.isEqualsUserRole;
 import static ru.iteco.project.domain.UserStatus.UserStatusEnum.*;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.isBetweenOperation;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.searchUnitIsValid;
 
 /**
  * Класс реализует функционал сервисного слоя для работы с заданиями
@@ -59,8 +62,8 @@ public class TaskServiceImpl implements TaskService {
     /*** Объект доступа к репозиторию пользователей */
     private final UserRepository userRepository;
 
-    /*** Объект доступа к репозиторию контрактов */
-    private final ContractRepository contractRepository;
+    /*** Репозиторий каскадного удаления данных */
+    private final CascadeDeleteRepository cascadeDeleteRepository;
 
     /*** Объект маппера dto задания в сущность задания */
     private final TaskDtoEntityMapper taskMapper;
@@ -71,15 +74,34 @@ public class TaskServiceImpl implements TaskService {
     /*** Сервис для формирования спецификации поиска данных */
     private final SpecificationBuilder<Task> specificationBuilder;
 
+    /*** Реестр полей поиска для формирования критериев поиска из dto поиска */
+    private final SearchFieldRegistry searchFieldRegistry;
 
-    public TaskServiceImpl(TaskRepository taskRepository, UserRepository userRepository, ContractRepository contractRepository,
-                           TaskDtoEntityMapper taskMapper, UserDtoEntityMapper userMapper, SpecificationBuilder<Task> specificationBuilder) {
+    /*** Репозиторий выборки страниц данных без подсчета общего количества записей */
+    private final KeysetRepository keysetRepository;
+
+    /*** Сервис постраничной выборки данных с учетом режима подсчета количества результатов */
+    private final PagingService pagingService;
+
+
+    /*** Учет отклоненных бизнес-правил */
+    private final BusinessRuleMetrics businessRuleMetrics;
+
+
+    public TaskServiceImpl(TaskRepository taskRepository, UserRepository userRepository, CascadeDeleteRepository cascadeDeleteRepository,
+                           TaskDtoEntityMapper taskMapper, UserDtoEntityMapper userMapper, SpecificationBuilder<Task> specificationBuilder,
+                           SearchFieldRegistry searchFieldRegistry, KeysetRepository keysetRepository,
+                           PagingService pagingService, BusinessRuleMetrics businessRuleMetrics) {
         this.taskRepository = taskRepository;
         this.userRepository = userRepository;
-        this.contractRepository = contractRepository;
+        this.cascadeDeleteRepository = cascadeDeleteRepository;
         this.taskMapper = taskMapper;
         this.userMapper = userMapper;
         this.specificationBuilder = specificationBuilder;
+        this.searchFieldRegistry = searchFieldRegistry;
+        this.keysetRepository = keysetRepository;
+        this.pagingService = pagingService;
+        this.businessRuleMetrics = businessRuleMetrics;
     }
 
 
@@ -89,11 +111,7 @@ public class TaskServiceImpl implements TaskService {
     @Override
     @Transactional(readOnly = true)
     public List<TaskDtoResponse> getAllTasks() {
-        ArrayList<TaskDtoResponse> taskDtoResponses = new ArrayList<>();
-        for (Task task : taskRepository.findAll()) {
-            taskDtoResponses.add(enrichByUsersInfo(task));
-        }
-        return taskDtoResponses;
+        return enrichByUsersInfo(taskRepository.findAllWithParticipants());
     }
 
 
@@ -103,9 +121,7 @@ public class TaskServiceImpl implements TaskService {
     @Override
     @Transactional(readOnly = true)
     public List<TaskDtoResponse> getAllUserTasks(UUID userId) {
-        return taskRepository.findTasksByCustomerId(userId).stream()
-                .map(this::enrichByUsersInfo)
-                .collect(Collectors.toList());
+        return enrichByUsersInfo(new ArrayList<>(taskRepository.findTasksByCustomerId(userId)));
     }
 
 
@@ -130,6 +146,7 @@ public class TaskServiceImpl implements TaskService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public TaskDtoResponse createTask(TaskDtoRequest taskDtoRequest) {
         TaskDtoResponse taskDtoResponse = null;
@@ -152,6 +169,7 @@ public class TaskServiceImpl implements TaskService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public TaskDtoResponse updateTask(TaskDtoRequest taskDtoRequest) {
         TaskDtoResponse taskDtoResponse = null;
@@ -180,16 +198,10 @@ public class TaskServiceImpl implements TaskService {
      * должна быть применена только при выполнении общей транзакции (единицы бизнес логики)
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public Boolean deleteTask(UUID id) {
-        Optional<Task> optionalTask = taskRepository.findById(id);
-        if (optionalTask.isPresent()) {
-            Optional<Contract> optionalContract = contractRepository.findContractByTask(optionalTask.get());
-            optionalContract.ifPresent(contractRepository::delete);
-            taskRepository.deleteById(id);
-            return true;
-        }
-        return false;
+        return cascadeDeleteRepository.deleteTask(id).getTasks() > 0;
     }
 
 
@@ -201,14 +213,44 @@ public class TaskServiceImpl implements TaskService {
      */
     @Override
     public TaskDtoResponse enrichByUsersInfo(Task task) {
+        return enrichByUsersInfo(task, userMapper.prefetchTasksIds(collectUsers(Collections.singletonList(task))));
+    }
+
+    @Override
+    public TaskDtoResponse enrichByUsersInfo(Task task, Map<UUID, List<UUID>> tasksIdsByUsers) {
         TaskDtoResponse taskDtoResponse = taskMapper.entityToResponseDto(task);
-        taskDtoResponse.setCustomer(userMapper.entityToResponseDto(task.getCustomer()));
+        taskDtoResponse.setCustomer(userMapper.entityToResponseDto(task.getCustomer(), tasksIdsByUsers));
         if (task.getExecutor() != null) {
-            taskDtoResponse.setExecutor(userMapper.entityToResponseDto(task.getExecutor()));
+            taskDtoResponse.setExecutor(userMapper.entityToResponseDto(task.getExecutor(), tasksIdsByUsers));
         }
         return taskDtoResponse;
     }
 
+    @Override
+    public List<TaskDtoResponse> enrichByUsersInfo(List<Task> tasks) {
+        Map<UUID, List<UUID>> tasksIdsByUsers = userMapper.prefetchTasksIds(collectUsers(tasks));
+        return tasks.stream()
+                .map(task -> enrichByUsersInfo(task, tasksIdsByUsers))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Метод собирает заказчиков и исполнителей переданных заданий
+     *
+     * @param tasks - список заданий
+     * @return - список пользователей, участвующих в заданиях
+     */
+    private List<User> collectUsers(List<Task> tasks) {
+        List<User> users = new ArrayList<>(tasks.size() * 2);
+        for (Task task : tasks) {
+            users.add(task.getCustomer());
+            if (task.getExecutor() != null) {
+                users.add(task.getExecutor());
+            }
+        }
+        return users;
+    }
+
     public TaskDtoEntityMapper getTaskMapper() {
         return taskMapper;
     }
@@ -234,7 +276,8 @@ public class TaskServiceImpl implements TaskService {
                 user.getId().equals(task.getExecutor().getId()) &&
                 (isEqualsTaskStatus(IN_PROGRESS, task) || isEqualsTaskStatus(ON_FIX, task));
 
-        return userNotBlocked && (userIsCustomerAndTaskOnCustomer || userIsExecutorAndTaskOnExecutor);
+        return businessRuleMetrics.check("task.allowToUpdate",
+                userNotBlocked && (userIsCustomerAndTaskOnCustomer || userIsExecutorAndTaskOnExecutor));
     }
 
 
@@ -244,143 +287,38 @@ public class TaskServiceImpl implements TaskService {
      * @param user - сущность пользователя
      */
     private void checkUserPermissions(User user) {
-        if (isEqualsUserRole(EXECUTOR, user) || isEqualsUserStatus(BLOCKED, user)) {
+        if (!businessRuleMetrics.check("task.userCanCreateTask",
+                !(isEqualsUserRole(EXECUTOR, user) || isEqualsUserStatus(BLOCKED, user)))) {
             throw new UnavailableRoleOperationException(unavailableOperationMessage);
         }
     }
 
-    public PageDto<TaskDtoResponse> getTasks(SearchDto<TaskSearchDto> searchDto, Pageable pageable) {
-        Page<Task> page;
+    public PageDto<TaskDtoResponse> getTasks(SearchDto<TaskSearchDto> searchDto, Pageable pageable, CountMode countMode) {
+        Specification<Task> spec = null;
+        CriteriaObject criteriaObject = null;
         if ((searchDto != null) && (searchDto.searchData() != null)) {
-            page = taskRepository.findAll(specificationBuilder.getSpec(prepareCriteriaObject(searchDto)), pageable);
-        } else {
-            page = taskRepository.findAll(pageable);
+            criteriaObject = searchFieldRegistry.bind(searchDto.searchData());
+            spec = specificationBuilder.getSpec(criteriaObject);
         }
-
-        List<TaskDtoResponse> taskDtoResponses = page.map(this::enrichByUsersInfo).toList();
-        return new PageDto<>(taskDtoResponses, page.getTotalElements(), page.getTotalPages());
-
-    }
-
-    /**
-     * Метод наполняет CriteriaObject данными поиска из searchDto
-     *
-     * @param searchDto - модель с данными для поиска
-     * @return - CriteriaObject - конейнер со всеми данными и ограничениями для поиска
-     */
-    private CriteriaObject prepareCriteriaObject(SearchDto<TaskSearchDto> searchDto) {
-        TaskSearchDto taskSearchDto = searchDto.searchData();
-        return new CriteriaObject(taskSearchDto.getJoinOperation(), prepareRestrictionValues(taskSearchDto));
-    }
-
-
-    /**
-     * Метод подготавливает ограничения для полей поиска
-     *
-     * @param taskSearchDto - модель с данными для поиска
-     * @return - мписок ограничений для всех полей по которым осуществляется поиск
-     */
-    private List<CriteriaObject.RestrictionValues> prepareRestrictionValues(TaskSearchDto taskSearchDto) {
-        ArrayList<CriteriaObject.RestrictionValues> restrictionValues = new ArrayList<>();
-
-        SearchUnit taskSearchStatus = taskSearchDto.getTaskStatus();
-        if (searchUnitIsValid(taskSearchStatus)) {
-            TaskStatus taskStatus = taskMapper.getTaskStatusRepository()
-                    .findTaskStatusByValue(taskSearchStatus.getValue())
-                    .orElseThrow(InvalidTaskStatusException::new);
-
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<TaskStatus>(
-                            "taskStatus",
-                            taskSearchStatus.getSearchOperation(),
-                            taskStatus
-                    )
-            );
+        if (SpecificationBuilder.isRelevanceSorted(pageable)) {
+            // сортировка по релевантности задается спецификацией, поэтому объект пагинации передается без сортировки
+            spec = Specification.where(spec).and(specificationBuilder.getRelevanceSortSpec(criteriaObject, pageable.getSort()));
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
         }
+        return pagingService.findPage(Task.class, taskRepository, spec, FetchSpecifications.taskWithParticipants(), pageable, countMode,
+                this::enrichByUsersInfo);
+    }
 
-        SearchUnit createdAt = taskSearchDto.getCreatedAt();
-        if (searchUnitIsValid(createdAt)) {
-            if (isBetweenOperation(createdAt)) {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<LocalDateTime>(
-                                "createdAt",
-                                createdAt.getSearchOperation(),
-                                createdAt.getValue(),
-                                createdAt.getMinValue(),
-                                createdAt.getMaxValue()
-                        )
-                );
-            } else {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<LocalDateTime>(
-                                "createdAt",
-                                createdAt.getValue(),
-                                createdAt.getSearchOperation()
-                        )
-                );
-            }
-        }
-
-
-        SearchUnit price = taskSearchDto.getPrice();
-        if (searchUnitIsValid(price)) {
-            if (isBetweenOperation(price)) {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<BigDecimal>(
-                                "price",
-                                price.getSearchOperation(),
-                                price.getValue(),
-                                price.getMinValue(),
-                                price.getMaxValue()
-                        )
-                );
-            } else {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<BigDecimal>(
-                                "price",
-                                price.getValue(),
-                                price.getSearchOperation()
-                        )
-                );
-            }
-        }
-
-
-        SearchUnit description = taskSearchDto.getDescription();
-        if (searchUnitIsValid(description)) {
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<String>(
-                            "description",
-                            description.getValue(),
-                            description.getSearchOperation()
-                    )
-            );
-        }
-
-
-        SearchUnit taskCompletionDate = taskSearchDto.getTaskCompletionDate();
-        if (searchUnitIsValid(taskCompletionDate)) {
-            if (isBetweenOperation(taskCompletionDate)) {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<LocalDateTime>(
-                                "taskCompletionDate",
-                                taskCompletionDate.getSearchOperation(),
-                                taskCompletionDate.getValue(),
-                                taskCompletionDate.getMinValue(),
-                                taskCompletionDate.getMaxValue()
-                        )
-                );
-            } else {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<LocalDateTime>(
-                                "taskCompletionDate",
-                                taskCompletionDate.getValue(),
-                                taskCompletionDate.getSearchOperation()
-                        )
-                );
-            }
+    public KeysetPageDto<TaskDtoResponse> getTasksByCursor(SearchDto<TaskSearchDto> searchDto, String cursor, Pageable pageable) {
+        Sort.Direction direction = KeysetCursor.direction(pageable);
+        Specification<Task> spec = Specification.where(FetchSpecifications.taskWithParticipants())
+                .and(specificationBuilder.getSeekSpec(KeysetCursor.decode(cursor), direction));
+        if ((searchDto != null) && (searchDto.searchData() != null)) {
+            spec = spec.and(specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData())));
         }
+        Slice<Task> slice = keysetRepository.findSlice(Task.class, spec, KeysetCursor.sort(direction), pageable.getPageSize());
 
-        return restrictionValues;
+        List<TaskDtoResponse> taskDtoResponses = enrichByUsersInfo(slice.getContent());
+        return new KeysetPageDto<>(taskDtoResponses, KeysetCursor.nextCursor(slice));
     }
 }
@@ -4,6 +4,8 @@ package ru.iteco.project.service;
 import org.springframework.data.domain.Pageable;
 import ru.iteco.project.controller.dto.TaskStatusDtoRequest;
 import ru.iteco.project.controller.dto.TaskStatusDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
 import ru.iteco.project.controller.searching.TaskStatusSearchDto;
@@ -62,8 +64,19 @@ public interface TaskStatusService {
      *
      * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
      * @param pageable  - объект пагинации и сортировки
+     * @param countMode - режим подсчета общего количества результатов
      * @return - объект PageDto с результатами поиска данных по заданным критериям
      */
-    PageDto<TaskStatusDtoResponse> getStatus(SearchDto<TaskStatusSearchDto> searchDto, Pageable pageable);
+    PageDto<TaskStatusDtoResponse> getStatus(SearchDto<TaskStatusSearchDto> searchDto, Pageable pageable, CountMode countMode);
+
+    /**
+     * Метод поиска данных с курсорной (keyset) пагинацией по заданным критериям поиска
+     *
+     * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
+     * @param cursor    - курсор последней записи предыдущей страницы, null - запрос первой страницы
+     * @param pageable  - объект пагинации с размером страницы и направлением сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами поиска данных по заданным критериям
+     */
+    KeysetPageDto<TaskStatusDtoResponse> getStatusByCursor(SearchDto<TaskStatusSearchDto> searchDto, String cursor, Pageable pageable);
 
 }
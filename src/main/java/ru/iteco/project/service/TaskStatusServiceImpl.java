@@ -2,32 +2,39 @@ package ru.iteco.project.service;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.iteco.project.controller.dto.TaskStatusDtoRequest;
 import ru.iteco.project.controller.dto.TaskStatusDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
-import ru.iteco.project.controller.searching.SearchUnit;
 import ru.iteco.project.controller.searching.TaskStatusSearchDto;
 import ru.iteco.project.domain.Task;
 import ru.iteco.project.domain.TaskStatus;
 import ru.iteco.project.domain.User;
+import ru.iteco.project.repository.KeysetRepository;
 import ru.iteco.project.repository.TaskRepository;
 import ru.iteco.project.repository.TaskStatusRepository;
 import ru.iteco.project.repository.UserRepository;
+import ru.iteco.project.service.dictionary.DictionaryCache;
 import ru.iteco.project.service.mappers.TaskStatusDtoEntityMapper;
-import ru.iteco.project.service.specifications.CriteriaObject;
+import ru.iteco.project.service.retry.RetryOnConflict;
+import ru.iteco.project.service.specifications.KeysetCursor;
+import ru.iteco.project.service.specifications.SearchFieldRegistry;
 import ru.iteco.project.service.specifications.SpecificationBuilder;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.ADMIN;
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.isEqualsUserRole;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.searchUnitIsValid;
 
 /**
  * Класс реализует функционал сервисного слоя для работы со статусами заданий
@@ -56,15 +63,33 @@ public class TaskStatusServiceImpl implements TaskStatusService {
     /*** Сервис для формирования спецификации поиска данных */
     private final SpecificationBuilder<TaskStatus> specificationBuilder;
 
+    /*** Реестр полей поиска для формирования критериев поиска из dto поиска */
+    private final SearchFieldRegistry searchFieldRegistry;
+
+    /*** Репозиторий выборки страниц данных без подсчета общего количества записей */
+    private final KeysetRepository keysetRepository;
+
+    /*** Сервис постраничной выборки данных с учетом режима подсчета количества результатов */
+    private final PagingService pagingService;
+
+    /*** Кэш справочников статусов и ролей */
+    private final DictionaryCache dictionaryCache;
+
 
     public TaskStatusServiceImpl(TaskStatusRepository taskStatusRepository, TaskRepository taskRepository, UserRepository userRepository,
-                                 TaskService taskService, TaskStatusDtoEntityMapper taskStatusDtoEntityMapper, SpecificationBuilder<TaskStatus> specificationBuilder) {
+                                 TaskService taskService, TaskStatusDtoEntityMapper taskStatusDtoEntityMapper, SpecificationBuilder<TaskStatus> specificationBuilder,
+                                 SearchFieldRegistry searchFieldRegistry, DictionaryCache dictionaryCache, KeysetRepository keysetRepository,
+                                 PagingService pagingService) {
         this.taskStatusRepository = taskStatusRepository;
         this.taskRepository = taskRepository;
         this.userRepository = userRepository;
         this.taskService = taskService;
         this.taskStatusDtoEntityMapper = taskStatusDtoEntityMapper;
         this.specificationBuilder = specificationBuilder;
+        this.searchFieldRegistry = searchFieldRegistry;
+        this.dictionaryCache = dictionaryCache;
+        this.keysetRepository = keysetRepository;
+        this.pagingService = pagingService;
     }
 
 
@@ -89,12 +114,14 @@ public class TaskStatusServiceImpl implements TaskStatusService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public TaskStatusDtoResponse createTaskStatus(TaskStatusDtoRequest taskStatusDtoRequest) {
         TaskStatusDtoResponse taskStatusDtoResponse = new TaskStatusDtoResponse();
         if (operationIsAllow(taskStatusDtoRequest)) {
             TaskStatus newTaskStatus = taskStatusDtoEntityMapper.requestDtoToEntity(taskStatusDtoRequest);
             TaskStatus save = taskStatusRepository.save(newTaskStatus);
+            dictionaryCache.invalidateTaskStatuses();
             taskStatusDtoResponse = taskStatusDtoEntityMapper.entityToResponseDto(save);
         }
         return taskStatusDtoResponse;
@@ -105,17 +132,22 @@ public class TaskStatusServiceImpl implements TaskStatusService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public TaskStatusDtoResponse updateTaskStatus(UUID id, TaskStatusDtoRequest taskStatusDtoRequest) {
         TaskStatusDtoResponse taskStatusDtoResponse = new TaskStatusDtoResponse();
         if (operationIsAllow(taskStatusDtoRequest) &&
-                Objects.equals(id, taskStatusDtoRequest.getId()) &&
-                taskStatusRepository.existsById(taskStatusDtoRequest.getId())) {
-
-            TaskStatus taskStatus = taskStatusDtoEntityMapper.requestDtoToEntity(taskStatusDtoRequest);
-            taskStatus.setId(id);
-            TaskStatus save = taskStatusRepository.save(taskStatus);
-            taskStatusDtoResponse = taskStatusDtoEntityMapper.entityToResponseDto(save);
+                Objects.equals(id, taskStatusDtoRequest.getId())) {
+
+            Optional<TaskStatus> persistedTaskStatus = taskStatusRepository.findById(id);
+            if (persistedTaskStatus.isPresent()) {
+                TaskStatus taskStatus = taskStatusDtoEntityMapper.requestDtoToEntity(taskStatusDtoRequest);
+                taskStatus.setId(id);
+                taskStatus.copyStateFrom(persistedTaskStatus.get());
+                TaskStatus save = taskStatusRepository.save(taskStatus);
+                dictionaryCache.invalidateTaskStatuses();
+                taskStatusDtoResponse = taskStatusDtoEntityMapper.entityToResponseDto(save);
+            }
         }
         return taskStatusDtoResponse;
     }
@@ -139,6 +171,7 @@ public class TaskStatusServiceImpl implements TaskStatusService {
      * должна быть применена только при выполнении общей транзакции (единицы бизнес логики)
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public Boolean deleteTaskStatus(UUID id) {
         Optional<TaskStatus> taskStatusById = taskStatusRepository.findById(id);
@@ -146,6 +179,7 @@ public class TaskStatusServiceImpl implements TaskStatusService {
             Collection<Task> allTasksWithStatus = taskRepository.findAllByTaskStatus(taskStatusById.get());
             allTasksWithStatus.forEach(task -> taskService.deleteTask(task.getId()));
             taskStatusRepository.deleteById(id);
+            dictionaryCache.invalidateTaskStatuses();
             return true;
         }
         return false;
@@ -169,60 +203,26 @@ public class TaskStatusServiceImpl implements TaskStatusService {
     }
 
 
-    public PageDto<TaskStatusDtoResponse> getStatus(SearchDto<TaskStatusSearchDto> searchDto, Pageable pageable) {
-        Page<TaskStatus> page;
+    public PageDto<TaskStatusDtoResponse> getStatus(SearchDto<TaskStatusSearchDto> searchDto, Pageable pageable, CountMode countMode) {
+        Specification<TaskStatus> spec = null;
         if ((searchDto != null) && (searchDto.searchData() != null)) {
-            page = taskStatusRepository.findAll(specificationBuilder.getSpec(prepareCriteriaObject(searchDto)), pageable);
-        } else {
-            page = taskStatusRepository.findAll(pageable);
+            spec = specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData()));
         }
-
-        List<TaskStatusDtoResponse> TaskStatusDtoResponses = page.map(taskStatusDtoEntityMapper::entityToResponseDto).toList();
-        return new PageDto<>(TaskStatusDtoResponses, page.getTotalElements(), page.getTotalPages());
-
+        return pagingService.findPage(TaskStatus.class, taskStatusRepository, spec, null, pageable, countMode,
+                entities -> entities.stream()
+                        .map(taskStatusDtoEntityMapper::entityToResponseDto)
+                        .collect(Collectors.toList()));
     }
 
-    /**
-     * Метод наполняет CriteriaObject данными поиска из searchDto
-     *
-     * @param searchDto - модель с данными для поиска
-     * @return - CriteriaObject - конейнер со всеми данными и ограничениями для поиска
-     */
-    private CriteriaObject prepareCriteriaObject(SearchDto<TaskStatusSearchDto> searchDto) {
-        TaskStatusSearchDto taskStatusSearchDto = searchDto.searchData();
-        return new CriteriaObject(taskStatusSearchDto.getJoinOperation(), prepareRestrictionValues(taskStatusSearchDto));
-    }
-
-    /**
-     * Метод подготавливает ограничения для полей поиска
-     *
-     * @param taskStatusSearchDto - модель с данными для поиска
-     * @return - мписок ограничений для всех полей по которым осуществляется поиск
-     */
-    private List<CriteriaObject.RestrictionValues> prepareRestrictionValues(TaskStatusSearchDto taskStatusSearchDto) {
-        ArrayList<CriteriaObject.RestrictionValues> restrictionValues = new ArrayList<>();
-
-        SearchUnit value = taskStatusSearchDto.getValue();
-        if (searchUnitIsValid(value)) {
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<String>(
-                            "value",
-                            value.getSearchOperation(),
-                            value.getValue()
-                    )
-            );
+    public KeysetPageDto<TaskStatusDtoResponse> getStatusByCursor(SearchDto<TaskStatusSearchDto> searchDto, String cursor, Pageable pageable) {
+        Sort.Direction direction = KeysetCursor.direction(pageable);
+        Specification<TaskStatus> spec = Specification.where(specificationBuilder.getSeekSpec(KeysetCursor.decode(cursor), direction));
+        if ((searchDto != null) && (searchDto.searchData() != null)) {
+            spec = spec.and(specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData())));
         }
+        Slice<TaskStatus> slice = keysetRepository.findSlice(TaskStatus.class, spec, KeysetCursor.sort(direction), pageable.getPageSize());
 
-        SearchUnit description = taskStatusSearchDto.getDescription();
-        if (searchUnitIsValid(description)) {
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<String>(
-                            "description",
-                            description.getValue(),
-                            description.getSearchOperation()
-                    )
-            );
-        }
-        return restrictionValues;
+        List<TaskStatusDtoResponse> taskStatusDtoResponses = slice.map(taskStatusDtoEntityMapper::entityToResponseDto).getContent();
+        return new KeysetPageDto<>(taskStatusDtoResponses, KeysetCursor.nextCursor(slice));
     }
 }
@@ -4,6 +4,8 @@ package ru.iteco.project.service;
 import org.springframework.data.domain.Pageable;
 import ru.iteco.project.controller.dto.UserRoleDtoRequest;
 import ru.iteco.project.controller.dto.UserRoleDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
 import ru.iteco.project.controller.searching.UserRoleSearchDto;
@@ -63,9 +65,20 @@ public interface UserRoleService {
      *
      * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
      * @param pageable  - объект пагинации и сортировки
+     * @param countMode - режим подсчета общего количества результатов
      * @return - объект PageDto с результатами поиска данных по заданным критериям
      */
-    PageDto<UserRoleDtoResponse> getRoles(SearchDto<UserRoleSearchDto> searchDto, Pageable pageable);
+    PageDto<UserRoleDtoResponse> getRoles(SearchDto<UserRoleSearchDto> searchDto, Pageable pageable, CountMode countMode);
+
+    /**
+     * Метод поиска данных с курсорной (keyset) пагинацией по заданным критериям поиска
+     *
+     * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
+     * @param cursor    - курсор последней записи предыдущей страницы, null - запрос первой страницы
+     * @param pageable  - объект пагинации с размером страницы и направлением сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами поиска данных по заданным критериям
+     */
+    KeysetPageDto<UserRoleDtoResponse> getRolesByCursor(SearchDto<UserRoleSearchDto> searchDto, String cursor, Pageable pageable);
 
 }
 
@@ -2,30 +2,38 @@ package ru.iteco.project.service;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.iteco.project.controller.dto.UserRoleDtoRequest;
 import ru.iteco.project.controller.dto.UserRoleDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
-import ru.iteco.project.controller.searching.SearchUnit;
 import ru.iteco.project.controller.searching.UserRoleSearchDto;
 import ru.iteco.project.domain.User;
 import ru.iteco.project.domain.UserRole;
+import ru.iteco.project.repository.CascadeDeleteRepository;
+import ru.iteco.project.repository.KeysetRepository;
 import ru.iteco.project.repository.UserRepository;
 import ru.iteco.project.repository.UserRoleRepository;
+import ru.iteco.project.service.dictionary.DictionaryCache;
 import ru.iteco.project.service.mappers.UserRoleDtoEntityMapper;
-import ru.iteco.project.service.specifications.CriteriaObject;
+import ru.iteco.project.service.retry.RetryOnConflict;
+import ru.iteco.project.service.specifications.KeysetCursor;
+import ru.iteco.project.service.specifications.SearchFieldRegistry;
 import ru.iteco.project.service.specifications.SpecificationBuilder;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.ADMIN;
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.isEqualsUserRole;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.searchUnitIsValid;
 
 
 /**
@@ -42,8 +50,8 @@ public class UserRoleServiceImpl implements UserRoleService {
     /*** Объект доступа к репозиторию пользователей */
     private final UserRepository userRepository;
 
-    /*** Объект сервисного слоя пользователей */
-    private final UserService userService;
+    /*** Репозиторий каскадного удаления данных */
+    private final CascadeDeleteRepository cascadeDeleteRepository;
 
     /*** Объект маппера dto роли пользователя в сущность роли пользователя */
     private final UserRoleDtoEntityMapper userRoleDtoEntityMapper;
@@ -51,14 +59,32 @@ public class UserRoleServiceImpl implements UserRoleService {
     /*** Сервис для формирования спецификации поиска данных */
     private final SpecificationBuilder<UserRole> specificationBuilder;
 
-    public UserRoleServiceImpl(UserRoleRepository userRoleRepository, UserRepository userRepository, UserService userService,
-                               UserRoleDtoEntityMapper userRoleDtoEntityMapper, SpecificationBuilder<UserRole> specificationBuilder) {
+    /*** Реестр полей поиска для формирования критериев поиска из dto поиска */
+    private final SearchFieldRegistry searchFieldRegistry;
+
+    /*** Репозиторий выборки страниц данных без подсчета общего количества записей */
+    private final KeysetRepository keysetRepository;
+
+    /*** Сервис постраничной выборки данных с учетом режима подсчета количества результатов */
+    private final PagingService pagingService;
+
+    /*** Кэш справочников статусов и ролей */
+    private final DictionaryCache dictionaryCache;
+
+    public UserRoleServiceImpl(UserRoleRepository userRoleRepository, UserRepository userRepository, CascadeDeleteRepository cascadeDeleteRepository,
+                               UserRoleDtoEntityMapper userRoleDtoEntityMapper, SpecificationBuilder<UserRole> specificationBuilder,
+                               SearchFieldRegistry searchFieldRegistry, DictionaryCache dictionaryCache, KeysetRepository keysetRepository,
+                               PagingService pagingService) {
 
         this.userRoleRepository = userRoleRepository;
         this.userRepository = userRepository;
-        this.userService = userService;
+        this.cascadeDeleteRepository = cascadeDeleteRepository;
         this.userRoleDtoEntityMapper = userRoleDtoEntityMapper;
         this.specificationBuilder = specificationBuilder;
+        this.searchFieldRegistry = searchFieldRegistry;
+        this.dictionaryCache = dictionaryCache;
+        this.keysetRepository = keysetRepository;
+        this.pagingService = pagingService;
     }
 
 
@@ -84,12 +110,14 @@ public class UserRoleServiceImpl implements UserRoleService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public UserRoleDtoResponse createUserRole(UserRoleDtoRequest userRoleDtoRequest) {
         UserRoleDtoResponse userRoleDtoResponse = new UserRoleDtoResponse();
         if (operationIsAllow(userRoleDtoRequest)) {
             UserRole newUserRole = userRoleDtoEntityMapper.requestDtoToEntity(userRoleDtoRequest);
             UserRole save = userRoleRepository.save(newUserRole);
+            dictionaryCache.invalidateUserRoles();
             userRoleDtoResponse = userRoleDtoEntityMapper.entityToResponseDto(save);
         }
         return userRoleDtoResponse;
@@ -101,17 +129,22 @@ public class UserRoleServiceImpl implements UserRoleService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public UserRoleDtoResponse updateUserRole(UUID id, UserRoleDtoRequest userRoleDtoRequest) {
         UserRoleDtoResponse userRoleDtoResponse = new UserRoleDtoResponse();
         if (operationIsAllow(userRoleDtoRequest) &&
-                Objects.equals(id, userRoleDtoRequest.getId()) &&
-                userRoleRepository.existsById(userRoleDtoRequest.getId())) {
-
-            UserRole userRole = userRoleDtoEntityMapper.requestDtoToEntity(userRoleDtoRequest);
-            userRole.setId(id);
-            UserRole save = userRoleRepository.save(userRole);
-            userRoleDtoResponse = userRoleDtoEntityMapper.entityToResponseDto(save);
+                Objects.equals(id, userRoleDtoRequest.getId())) {
+
+            Optional<UserRole> persistedUserRole = userRoleRepository.findById(id);
+            if (persistedUserRole.isPresent()) {
+                UserRole userRole = userRoleDtoEntityMapper.requestDtoToEntity(userRoleDtoRequest);
+                userRole.setId(id);
+                userRole.copyStateFrom(persistedUserRole.get());
+                UserRole save = userRoleRepository.save(userRole);
+                dictionaryCache.invalidateUserRoles();
+                userRoleDtoResponse = userRoleDtoEntityMapper.entityToResponseDto(save);
+            }
         }
         return userRoleDtoResponse;
     }
@@ -137,14 +170,13 @@ public class UserRoleServiceImpl implements UserRoleService {
      * должна быть применена только при выполнении общей транзакции (единицы бизнес логики)
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public Boolean deleteUserRole(UUID id) {
-        Optional<UserRole> userRoleById = userRoleRepository.findById(id);
-        if (userRoleById.isPresent()) {
-            UserRole userRole = userRoleById.get();
-            Collection<User> allUsersByRole = userRepository.findAllByRole(userRole);
-            allUsersByRole.forEach(user -> userService.deleteUser(user.getId()));
+        if (userRoleRepository.existsById(id)) {
+            cascadeDeleteRepository.deleteUsers(CascadeDeleteRepository.UserScope.ROLE, id);
             userRoleRepository.deleteById(id);
+            dictionaryCache.invalidateUserRoles();
             return true;
         }
         return false;
@@ -168,50 +200,27 @@ public class UserRoleServiceImpl implements UserRoleService {
         return false;
     }
 
-    public PageDto<UserRoleDtoResponse> getRoles(SearchDto<UserRoleSearchDto> searchDto, Pageable pageable) {
-        Page<UserRole> page;
+    public PageDto<UserRoleDtoResponse> getRoles(SearchDto<UserRoleSearchDto> searchDto, Pageable pageable, CountMode countMode) {
+        Specification<UserRole> spec = null;
         if ((searchDto != null) && (searchDto.searchData() != null)) {
-            page = userRoleRepository.findAll(specificationBuilder.getSpec(prepareCriteriaObject(searchDto)), pageable);
-        } else {
-            page = userRoleRepository.findAll(pageable);
+            spec = specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData()));
         }
-
-        List<UserRoleDtoResponse> userRoleDtoResponses = page.map(userRoleDtoEntityMapper::entityToResponseDto).toList();
-        return new PageDto<>(userRoleDtoResponses, page.getTotalElements(), page.getTotalPages());
-
+        return pagingService.findPage(UserRole.class, userRoleRepository, spec, null, pageable, countMode,
+                entities -> entities.stream()
+                        .map(userRoleDtoEntityMapper::entityToResponseDto)
+                        .collect(Collectors.toList()));
     }
 
-    /**
-     * Метод наполняет CriteriaObject данными поиска из searchDto
-     *
-     * @param searchDto - модель с данными для поиска
-     * @return - CriteriaObject - конейнер со всеми данными и ограничениями для поиска
-     */
-    private CriteriaObject prepareCriteriaObject(SearchDto<UserRoleSearchDto> searchDto) {
-        UserRoleSearchDto userRoleSearchDto = searchDto.searchData();
-        return new CriteriaObject(userRoleSearchDto.getJoinOperation(), prepareRestrictionValues(userRoleSearchDto));
-    }
-
-    /**
-     * Метод подготавливает ограничения для полей поиска
-     *
-     * @param userRoleSearchDto - модель с данными для поиска
-     * @return - мписок ограничений для всех полей по которым осуществляется поиск
-     */
-    private List<CriteriaObject.RestrictionValues> prepareRestrictionValues(UserRoleSearchDto userRoleSearchDto) {
-        ArrayList<CriteriaObject.RestrictionValues> restrictionValues = new ArrayList<>();
-
-        SearchUnit value = userRoleSearchDto.getValue();
-        if (searchUnitIsValid(value)) {
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<String>(
-                            "value",
-                            value.getSearchOperation(),
-                            value.getValue()
-                    )
-            );
+    public KeysetPageDto<UserRoleDtoResponse> getRolesByCursor(SearchDto<UserRoleSearchDto> searchDto, String cursor, Pageable pageable) {
+        Sort.Direction direction = KeysetCursor.direction(pageable);
+        Specification<UserRole> spec = Specification.where(specificationBuilder.getSeekSpec(KeysetCursor.decode(cursor), direction));
+        if ((searchDto != null) && (searchDto.searchData() != null)) {
+            spec = spec.and(specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData())));
         }
-        return restrictionValues;
+        Slice<UserRole> slice = keysetRepository.findSlice(UserRole.class, spec, KeysetCursor.sort(direction), pageable.getPageSize());
+
+        List<UserRoleDtoResponse> userRoleDtoResponses = slice.map(userRoleDtoEntityMapper::entityToResponseDto).getContent();
+        return new KeysetPageDto<>(userRoleDtoResponses, KeysetCursor.nextCursor(slice));
     }
 
 }
@@ -3,6 +3,9 @@ package ru.iteco.project.service;
 import org.springframework.data.domain.Pageable;
 import ru.iteco.project.controller.dto.UserDtoRequest;
 import ru.iteco.project.controller.dto.UserDtoResponse;
+import ru.iteco.project.controller.dto.UserImportResultDto;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
 import ru.iteco.project.controller.searching.UserSearchDto;
@@ -33,12 +36,13 @@ public interface UserService {
     UserDtoResponse createUser(UserDtoRequest userDtoRequest);
 
     /**
-     * Метод создания список пользователей
+     * Метод пакетного создания пользователей. Некорректные записи и записи с занятыми логином или email
+     * пропускаются, остальные записи добавляются
      *
      * @param userDtoRequestList - список пользователей
-     * @return - список пользователей  с проставленными уникальными идентификатороми id
+     * @return - список результатов импорта каждой записи в порядке следования в запросе
      */
-    List<UserDtoResponse> createBundleUsers(List<UserDtoRequest> userDtoRequestList);
+    List<UserImportResultDto> createBundleUsers(List<UserDtoRequest> userDtoRequestList);
 
     /**
      * Метод обновления данны пользователя
@@ -70,7 +74,18 @@ public interface UserService {
      *
      * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
      * @param pageable  - объект пагинации и сортировки
+     * @param countMode - режим подсчета общего количества результатов
      * @return - объект PageDto с результатами поиска данных по заданным критериям
      */
-    PageDto<UserDtoResponse> getUsers(SearchDto<UserSearchDto> searchDto, Pageable pageable);
+    PageDto<UserDtoResponse> getUsers(SearchDto<UserSearchDto> searchDto, Pageable pageable, CountMode countMode);
+
+    /**
+     * Метод поиска данных с курсорной (keyset) пагинацией по заданным критериям поиска
+     *
+     * @param searchDto - объект содержащий поля по которым осуществляется поиск данных
+     * @param cursor    - курсор последней записи предыдущей страницы, null - запрос первой страницы
+     * @param pageable  - объект пагинации с размером страницы и направлением сортировки по createdAt
+     * @return - объект KeysetPageDto с результатами поиска данных по заданным критериям
+     */
+    KeysetPageDto<UserDtoResponse> getUsersByCursor(SearchDto<UserSearchDto> searchDto, String cursor, Pageable pageable);
 }
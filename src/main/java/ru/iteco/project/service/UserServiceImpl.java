@@ -2,37 +2,46 @@ package ru.iteco.project.service;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.data.domain.Page;
+import org.springframework.context.MessageSource;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
 import ru.iteco.project.controller.dto.UserDtoRequest;
 import ru.iteco.project.controller.dto.UserDtoResponse;
+import ru.iteco.project.controller.dto.UserImportResultDto;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
-import ru.iteco.project.controller.searching.SearchUnit;
 import ru.iteco.project.controller.searching.UserSearchDto;
+import ru.iteco.project.domain.Money;
 import ru.iteco.project.domain.User;
-import ru.iteco.project.domain.UserRole;
-import ru.iteco.project.domain.UserStatus;
-import ru.iteco.project.exception.InvalidUserRoleException;
-import ru.iteco.project.exception.InvalidUserStatusException;
-import ru.iteco.project.repository.TaskRepository;
+import ru.iteco.project.metrics.BusinessRuleMetrics;
+import ru.iteco.project.repository.CascadeDeleteRepository;
+import ru.iteco.project.repository.KeysetRepository;
+import ru.iteco.project.repository.UserJdbcRepository;
 import ru.iteco.project.repository.UserRepository;
+import ru.iteco.project.service.dictionary.DictionaryCache;
 import ru.iteco.project.service.mappers.UserDtoEntityMapper;
-import ru.iteco.project.service.specifications.CriteriaObject;
+import ru.iteco.project.service.retry.RetryOnConflict;
+import ru.iteco.project.service.specifications.KeysetCursor;
+import ru.iteco.project.service.specifications.SearchFieldRegistry;
 import ru.iteco.project.service.specifications.SpecificationBuilder;
+import ru.iteco.project.validator.UserDtoRequestValidator;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static ru.iteco.project.domain.UserStatus.UserStatusEnum.CREATED;
 import static ru.iteco.project.domain.UserStatus.UserStatusEnum.isEqualsUserStatus;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.isBetweenOperation;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.searchUnitIsValid;
 
 /**
  * Класс реализует функционал сервисного слоя для работы с пользователями
@@ -45,11 +54,8 @@ public class UserServiceImpl implements UserService {
     /*** Объект доступа к репозиторию пользователей */
     private final UserRepository userRepository;
 
-    /*** Объект доступа к репозиторию заданий */
-    private final TaskRepository taskRepository;
-
-    /*** Объект сервисного слоя заданий */
-    private final TaskService taskService;
+    /*** Репозиторий каскадного удаления данных */
+    private final CascadeDeleteRepository cascadeDeleteRepository;
 
     /*** Объект маппера dto пользователя в сущность пользователя */
     private final UserDtoEntityMapper userMapper;
@@ -57,13 +63,52 @@ public class UserServiceImpl implements UserService {
     /*** Сервис для формирования спецификации поиска данных */
     private final SpecificationBuilder<User> specificationBuilder;
 
-    public UserServiceImpl(UserRepository userRepository, TaskRepository taskRepository, TaskService taskService,
-                           UserDtoEntityMapper userMapper, SpecificationBuilder<User> specificationBuilder) {
+    /*** Реестр полей поиска для формирования критериев поиска из dto поиска */
+    private final SearchFieldRegistry searchFieldRegistry;
+
+    /*** Репозиторий выборки страниц данных без подсчета общего количества записей */
+    private final KeysetRepository keysetRepository;
+
+    /*** Сервис постраничной выборки данных с учетом режима подсчета количества результатов */
+    private final PagingService pagingService;
+
+    /*** Кэш справочников статусов и ролей */
+    private final DictionaryCache dictionaryCache;
+
+    /*** Репозиторий пакетного добавления пользователей */
+    private final UserJdbcRepository userJdbcRepository;
+
+    /*** Валидатор записей пакетного импорта пользователей */
+    private final UserDtoRequestValidator userDtoRequestValidator;
+
+    /*** Объект-источник текстовок для ошибок */
+    private final MessageSource messageSource;
+
+    /*** Учет отклоненных бизнес-правил */
+    private final BusinessRuleMetrics businessRuleMetrics;
+
+    /*** Сервис кошельков пользователей */
+    private final WalletService walletService;
+
+    public UserServiceImpl(UserRepository userRepository, CascadeDeleteRepository cascadeDeleteRepository,
+                           UserDtoEntityMapper userMapper, SpecificationBuilder<User> specificationBuilder,
+                           SearchFieldRegistry searchFieldRegistry, DictionaryCache dictionaryCache, KeysetRepository keysetRepository,
+                           PagingService pagingService, UserJdbcRepository userJdbcRepository,
+                           UserDtoRequestValidator userDtoRequestValidator, MessageSource messageSource,
+                           BusinessRuleMetrics businessRuleMetrics, WalletService walletService) {
         this.userRepository = userRepository;
-        this.taskRepository = taskRepository;
-        this.taskService = taskService;
+        this.cascadeDeleteRepository = cascadeDeleteRepository;
         this.userMapper = userMapper;
         this.specificationBuilder = specificationBuilder;
+        this.searchFieldRegistry = searchFieldRegistry;
+        this.dictionaryCache = dictionaryCache;
+        this.keysetRepository = keysetRepository;
+        this.pagingService = pagingService;
+        this.userJdbcRepository = userJdbcRepository;
+        this.userDtoRequestValidator = userDtoRequestValidator;
+        this.messageSource = messageSource;
+        this.businessRuleMetrics = businessRuleMetrics;
+        this.walletService = walletService;
     }
 
     /**
@@ -78,6 +123,7 @@ public class UserServiceImpl implements UserService {
         if (optionalUser.isPresent()) {
             User user = optionalUser.get();
             userDtoResponse = userMapper.entityToResponseDto(user);
+            userDtoResponse.setWallet(walletService.getBalance(user.getId()).toBigDecimal());
         }
         return userDtoResponse;
     }
@@ -87,11 +133,12 @@ public class UserServiceImpl implements UserService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public UserDtoResponse createUser(UserDtoRequest userDtoRequest) {
         UserDtoResponse userDtoResponse = null;
         if (isCorrectLoginEmail(userDtoRequest.getLogin(), userDtoRequest.getEmail())
-                && isEqualsUserStatus(CREATED, userDtoRequest.getUserStatus())) {
+                && businessRuleMetrics.check("user.createdStatus", isEqualsUserStatus(CREATED, userDtoRequest.getUserStatus()))) {
             User newUser = userMapper.requestDtoToEntity(userDtoRequest);
             User save = userRepository.save(newUser);
             userDtoResponse = userMapper.entityToResponseDto(save);
@@ -104,26 +151,94 @@ public class UserServiceImpl implements UserService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
-    public List<UserDtoResponse> createBundleUsers(List<UserDtoRequest> userDtoRequestList) {
-        List<User> usersList = userDtoRequestList.stream().map(userMapper::requestDtoToEntity).collect(Collectors.toList());
-        List<User> users = userRepository.saveAll(usersList);
-        return users.stream().map(userMapper::entityToResponseDto).collect(Collectors.toList());
+    public List<UserImportResultDto> createBundleUsers(List<UserDtoRequest> userDtoRequestList) {
+        List<UserImportResultDto> results = new ArrayList<>(userDtoRequestList.size());
+        List<UserImportResultDto> accepted = new ArrayList<>();
+        List<User> newUsers = new ArrayList<>();
+        Set<String> seenLogins = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+
+        for (int i = 0; i < userDtoRequestList.size(); i++) {
+            UserDtoRequest userDtoRequest = userDtoRequestList.get(i);
+            if (userDtoRequest == null) {
+                UserImportResultDto result = new UserImportResultDto(i, null, null);
+                result.setStatus(UserImportResultDto.ImportStatus.INVALID);
+                results.add(result);
+                continue;
+            }
+            UserImportResultDto result = new UserImportResultDto(i, userDtoRequest.getLogin(), userDtoRequest.getEmail());
+            results.add(result);
+
+            BindingResult errors = validateImportRow(userDtoRequest);
+            if (errors.hasErrors()) {
+                result.setStatus(UserImportResultDto.ImportStatus.INVALID);
+                result.setErrors(errors.getAllErrors());
+            } else if (seenLogins.contains(userDtoRequest.getLogin()) || seenEmails.contains(userDtoRequest.getEmail())) {
+                rejectDuplicate(result, userDtoRequest, seenLogins, seenEmails);
+            } else {
+                seenLogins.add(userDtoRequest.getLogin());
+                seenEmails.add(userDtoRequest.getEmail());
+                accepted.add(result);
+                newUsers.add(userMapper.requestDtoToEntity(userDtoRequest));
+            }
+        }
+
+        if (!newUsers.isEmpty()) {
+            Set<String> takenLogins = new HashSet<>();
+            Set<String> takenEmails = new HashSet<>();
+            userJdbcRepository.findTakenCredentials(
+                    newUsers.stream().map(User::getLogin).collect(Collectors.toList()),
+                    newUsers.stream().map(User::getEmail).collect(Collectors.toList()),
+                    takenLogins, takenEmails);
+
+            LocalDateTime now = LocalDateTime.now();
+            List<User> usersToInsert = new ArrayList<>(newUsers.size());
+            for (int i = 0; i < newUsers.size(); i++) {
+                User user = newUsers.get(i);
+                UserImportResultDto result = accepted.get(i);
+                if (takenLogins.contains(user.getLogin()) || takenEmails.contains(user.getEmail())) {
+                    rejectDuplicate(result, user, takenLogins, takenEmails);
+                } else {
+                    user.setCreatedAt(now);
+                    user.setUpdatedAt(now);
+                    usersToInsert.add(user);
+                    result.setId(user.getId());
+                    result.setStatus(UserImportResultDto.ImportStatus.CREATED);
+                }
+            }
+            int inserted = userJdbcRepository.insertAll(usersToInsert);
+            log.info("batch import: {} rows received, {} users inserted", userDtoRequestList.size(), inserted);
+        }
+        return results;
     }
 
     /**
-     * SERIALIZABLE - т.к. во время модификации и создание новых данных не должно быть влияния извне
+     * READ_COMMITTED - кошелек пользователя блокируется до чтения баланса, и баланс должен читаться после
+     * получения блокировки: в SERIALIZABLE снимок данных берется первым запросом транзакции и не видел бы
+     * списаний, зафиксированных до получения блокировки. Изменение строки пользователя защищено версией записи.
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @RetryOnConflict
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public UserDtoResponse updateUser(UserDtoRequest userDtoRequest) {
         UserDtoResponse userDtoResponse = null;
-        if (userRepository.existsById(userDtoRequest.getId())) {
+        Optional<User> persistedUser = userRepository.findById(userDtoRequest.getId());
+        if (persistedUser.isPresent()) {
             User user = userMapper.requestDtoToEntity(userDtoRequest);
             user.setId(userDtoRequest.getId());
+            user.copyStateFrom(persistedUser.get());
+            // изменение кошелька записывается в журнал, колонка users.wallet изменяется только сверткой журнала.
+            // Изменение считается от фактического баланса (с еще не свернутыми записями журнала) под блокировкой
+            // кошелька, чтобы не пересечься со списаниями по договорам
+            walletService.lockWallet(user.getId());
+            Money walletChange = user.getWallet().subtract(walletService.getBalance(user.getId()));
             User save = userRepository.save(user);
+            walletService.adjust(save.getId(), walletChange);
             userDtoResponse = userMapper.entityToResponseDto(save);
+            userDtoResponse.setWallet(walletService.getBalance(save.getId()).toBigDecimal());
         }
         return userDtoResponse;
     }
@@ -134,11 +249,7 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public ArrayList<UserDtoResponse> getAllUsers() {
-        ArrayList<UserDtoResponse> userDtoResponseList = new ArrayList<>();
-        for (User user : userRepository.findAll()) {
-            userDtoResponseList.add(userMapper.entityToResponseDto(user));
-        }
-        return userDtoResponseList;
+        return new ArrayList<>(userMapper.entitiesToResponseDtoList(userRepository.findAll()));
     }
 
     /**
@@ -147,17 +258,10 @@ public class UserServiceImpl implements UserService {
      * должна быть применена только при выполнении общей транзакции (единицы бизнес логики)
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public Boolean deleteUser(UUID id) {
-        Optional<User> optionalUser = userRepository.findById(id);
-        if (optionalUser.isPresent()) {
-            User user = optionalUser.get();
-            taskRepository.findTasksByUser(user)
-                    .forEach(task -> taskService.deleteTask(task.getId()));
-            userRepository.deleteById(id);
-            return true;
-        }
-        return false;
+        return cascadeDeleteRepository.deleteUsers(CascadeDeleteRepository.UserScope.USER, id).getUsers() > 0;
     }
 
 
@@ -173,130 +277,80 @@ public class UserServiceImpl implements UserService {
      * @return - true - логин и email не пусты и пользователя с такими данными не существует, false - в любом ином случае
      */
     private boolean isCorrectLoginEmail(String login, String email) {
-        return !userRepository.existsByEmailOrLogin(email, login);
+        return businessRuleMetrics.check("user.isCorrectLoginEmail", !userRepository.existsByEmailOrLogin(email, login));
     }
 
 
-    public PageDto<UserDtoResponse> getUsers(SearchDto<UserSearchDto> searchDto, Pageable pageable) {
-        Page<User> page;
+    public PageDto<UserDtoResponse> getUsers(SearchDto<UserSearchDto> searchDto, Pageable pageable, CountMode countMode) {
+        Specification<User> spec = null;
         if ((searchDto != null) && (searchDto.searchData() != null)) {
-            page = userRepository.findAll(specificationBuilder.getSpec(prepareCriteriaObject(searchDto)), pageable);
-        } else {
-            page = userRepository.findAll(pageable);
+            spec = specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData()));
         }
+        return pagingService.findPage(User.class, userRepository, spec, null, pageable, countMode,
+                userMapper::entitiesToResponseDtoList);
+    }
 
-        List<UserDtoResponse> userDtoResponses = page.map(userMapper::entityToResponseDto).toList();
-        return new PageDto<>(userDtoResponses, page.getTotalElements(), page.getTotalPages());
+    public KeysetPageDto<UserDtoResponse> getUsersByCursor(SearchDto<UserSearchDto> searchDto, String cursor, Pageable pageable) {
+        Sort.Direction direction = KeysetCursor.direction(pageable);
+        Specification<User> spec = Specification.where(specificationBuilder.getSeekSpec(KeysetCursor.decode(cursor), direction));
+        if ((searchDto != null) && (searchDto.searchData() != null)) {
+            spec = spec.and(specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData())));
+        }
+        Slice<User> slice = keysetRepository.findSlice(User.class, spec, KeysetCursor.sort(direction), pageable.getPageSize());
 
+        List<UserDtoResponse> userDtoResponses = userMapper.entitiesToResponseDtoList(slice.getContent());
+        return new KeysetPageDto<>(userDtoResponses, KeysetCursor.nextCursor(slice));
     }
 
     /**
-     * Метод наполняет CriteriaObject данными поиска из searchDto
+     * Метод проверяет запись пакетного импорта пользователей: корректность полей и наличие
+     * указанных роли и статуса в справочниках
      *
-     * @param searchDto - модель с данными для поиска
-     * @return - CriteriaObject - конейнер со всеми данными и ограничениями для поиска
+     * @param userDtoRequest - запись импорта
+     * @return - объект с ошибками проверки записи
      */
-    private CriteriaObject prepareCriteriaObject(SearchDto<UserSearchDto> searchDto) {
-        UserSearchDto userSearchDto = searchDto.searchData();
-        return new CriteriaObject(userSearchDto.getJoinOperation(), prepareRestrictionValues(userSearchDto));
+    private BindingResult validateImportRow(UserDtoRequest userDtoRequest) {
+        BindingResult errors = new BeanPropertyBindingResult(userDtoRequest, "userDtoRequest");
+        userDtoRequestValidator.validate(userDtoRequest, errors);
+        if (!errors.hasErrors() && (dictionaryCache.getUserRole(userDtoRequest.getRole()) == null)) {
+            rejectImportRow(errors, "user.role.invalid", "role");
+        }
+        if (!errors.hasErrors() && (dictionaryCache.getUserStatus(userDtoRequest.getUserStatus()) == null)) {
+            rejectImportRow(errors, "user.status.invalid", "userStatus");
+        }
+        return errors;
     }
 
-
     /**
-     * Метод подготавливает ограничения для полей поиска
+     * Метод отмечает запись пакетного импорта как дубликат и указывает занятые поля
      *
-     * @param userSearchDto - модель с данными для поиска
-     * @return - мписок ограничений для всех полей по которым осуществляется поиск
+     * @param result      - результат импорта записи
+     * @param target      - запись импорта или сформированная из нее сущность
+     * @param takenLogins - занятые логины
+     * @param takenEmails - занятые email
      */
-    private List<CriteriaObject.RestrictionValues> prepareRestrictionValues(UserSearchDto userSearchDto) {
-        ArrayList<CriteriaObject.RestrictionValues> restrictionValues = new ArrayList<>();
-
-        SearchUnit role = userSearchDto.getRole();
-        if (searchUnitIsValid(role)) {
-            UserRole userRole = userMapper.getUserRoleRepository()
-                    .findUserRoleByValue(role.getValue())
-                    .orElseThrow(InvalidUserRoleException::new);
-
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<UserRole>(
-                            "role",
-                            role.getSearchOperation(),
-                            userRole
-                    )
-            );
+    private void rejectDuplicate(UserImportResultDto result, Object target, Set<String> takenLogins,
+                                 Set<String> takenEmails) {
+        BindingResult errors = new BeanPropertyBindingResult(target, "userDtoRequest");
+        if (takenLogins.contains(result.getLogin())) {
+            rejectImportRow(errors, "user.login.duplicate", "login");
         }
-
-        SearchUnit searchUserStatus = userSearchDto.getUserStatus();
-        if (searchUnitIsValid(searchUserStatus)) {
-            UserStatus userStatus = userMapper.getUserStatusRepository()
-                    .findUserStatusByValue(searchUserStatus.getValue())
-                    .orElseThrow(InvalidUserStatusException::new);
-
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<UserStatus>(
-                            "userStatus",
-                            searchUserStatus.getSearchOperation(),
-                            userStatus
-                    )
-            );
-        }
-
-        SearchUnit secondName = userSearchDto.getSecondName();
-        if (searchUnitIsValid(secondName)) {
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<String>(
-                            "secondName",
-                            secondName.getValue(),
-                            secondName.getSearchOperation()
-                    )
-            );
-        }
-
-        SearchUnit wallet = userSearchDto.getWallet();
-        if (searchUnitIsValid(wallet)) {
-            if (isBetweenOperation(wallet)) {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<BigDecimal>(
-                                "wallet",
-                                wallet.getSearchOperation(),
-                                wallet.getValue(),
-                                wallet.getMinValue(),
-                                wallet.getMaxValue()
-                        )
-                );
-            } else {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<BigDecimal>(
-                                "wallet",
-                                wallet.getValue(),
-                                wallet.getSearchOperation()
-                        )
-                );
-            }
+        if (takenEmails.contains(result.getEmail())) {
+            rejectImportRow(errors, "user.email.duplicate", "email");
         }
+        result.setStatus(UserImportResultDto.ImportStatus.DUPLICATE);
+        result.setErrors(errors.getAllErrors());
+    }
 
-        SearchUnit createdAt = userSearchDto.getCreatedAt();
-        if (searchUnitIsValid(createdAt)) {
-            if (isBetweenOperation(createdAt)) {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<LocalDateTime>(
-                                "createdAt",
-                                createdAt.getSearchOperation(),
-                                createdAt.getValue(),
-                                createdAt.getMinValue(),
-                                createdAt.getMaxValue()
-                        )
-                );
-            } else {
-                restrictionValues.add(
-                        new CriteriaObject.RestrictionValues<LocalDateTime>(
-                                "createdAt",
-                                createdAt.getValue(),
-                                createdAt.getSearchOperation()
-                        )
-                );
-            }
-        }
-        return restrictionValues;
+    /**
+     * Метод добавляет ошибку проверки поля записи пакетного импорта
+     *
+     * @param errors    - объект ошибок
+     * @param errCode   - код ошибки
+     * @param fieldName - имя поля при проверке которого возникла ошибка
+     */
+    private void rejectImportRow(Errors errors, String errCode, String fieldName) {
+        String message = messageSource.getMessage(errCode, new Object[]{}, Locale.getDefault());
+        errors.rejectValue(fieldName, errCode, message);
     }
 }
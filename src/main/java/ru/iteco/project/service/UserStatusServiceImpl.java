@@ -2,30 +2,38 @@ package ru.iteco.project.service;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.iteco.project.controller.dto.UserStatusDtoRequest;
 import ru.iteco.project.controller.dto.UserStatusDtoResponse;
+import ru.iteco.project.controller.searching.CountMode;
+import ru.iteco.project.controller.searching.KeysetPageDto;
 import ru.iteco.project.controller.searching.PageDto;
 import ru.iteco.project.controller.searching.SearchDto;
-import ru.iteco.project.controller.searching.SearchUnit;
 import ru.iteco.project.controller.searching.UserStatusSearchDto;
 import ru.iteco.project.domain.User;
 import ru.iteco.project.domain.UserStatus;
+import ru.iteco.project.repository.CascadeDeleteRepository;
+import ru.iteco.project.repository.KeysetRepository;
 import ru.iteco.project.repository.UserRepository;
 import ru.iteco.project.repository.UserStatusRepository;
+import ru.iteco.project.service.dictionary.DictionaryCache;
 import ru.iteco.project.service.mappers.UserStatusDtoEntityMapper;
-import ru.iteco.project.service.specifications.CriteriaObject;
+import ru.iteco.project.service.retry.RetryOnConflict;
+import ru.iteco.project.service.specifications.KeysetCursor;
+import ru.iteco.project.service.specifications.SearchFieldRegistry;
 import ru.iteco.project.service.specifications.SpecificationBuilder;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.ADMIN;
 import static ru.iteco.project.domain.UserRole.UserRoleEnum.isEqualsUserRole;
-import static ru.iteco.project.service.specifications.SpecificationBuilder.searchUnitIsValid;
 
 
 /**
@@ -42,8 +50,8 @@ public class UserStatusServiceImpl implements UserStatusService {
     /*** Объект доступа к репозиторию пользователей */
     private final UserRepository userRepository;
 
-    /*** Объект сервисного слоя пользователей */
-    private final UserService userService;
+    /*** Репозиторий каскадного удаления данных */
+    private final CascadeDeleteRepository cascadeDeleteRepository;
 
     /*** Объект маппера dto статуса пользователя в сущность статуса пользователя */
     private final UserStatusDtoEntityMapper userStatusDtoEntityMapper;
@@ -51,15 +59,33 @@ public class UserStatusServiceImpl implements UserStatusService {
     /*** Сервис для формирования спецификации поиска данных */
     private final SpecificationBuilder<UserStatus> specificationBuilder;
 
+    /*** Реестр полей поиска для формирования критериев поиска из dto поиска */
+    private final SearchFieldRegistry searchFieldRegistry;
+
+    /*** Репозиторий выборки страниц данных без подсчета общего количества записей */
+    private final KeysetRepository keysetRepository;
+
+    /*** Сервис постраничной выборки данных с учетом режима подсчета количества результатов */
+    private final PagingService pagingService;
+
+    /*** Кэш справочников статусов и ролей */
+    private final DictionaryCache dictionaryCache;
+
 
     public UserStatusServiceImpl(UserStatusRepository userStatusRepository, UserRepository userRepository,
-                                 UserService userService, UserStatusDtoEntityMapper userStatusDtoEntityMapper,
-                                 SpecificationBuilder<UserStatus> specificationBuilder) {
+                                 CascadeDeleteRepository cascadeDeleteRepository, UserStatusDtoEntityMapper userStatusDtoEntityMapper,
+                                 SpecificationBuilder<UserStatus> specificationBuilder,
+                                 SearchFieldRegistry searchFieldRegistry, DictionaryCache dictionaryCache, KeysetRepository keysetRepository,
+                                 PagingService pagingService) {
         this.userStatusRepository = userStatusRepository;
         this.userRepository = userRepository;
-        this.userService = userService;
+        this.cascadeDeleteRepository = cascadeDeleteRepository;
         this.userStatusDtoEntityMapper = userStatusDtoEntityMapper;
         this.specificationBuilder = specificationBuilder;
+        this.searchFieldRegistry = searchFieldRegistry;
+        this.dictionaryCache = dictionaryCache;
+        this.keysetRepository = keysetRepository;
+        this.pagingService = pagingService;
     }
 
 
@@ -84,12 +110,14 @@ public class UserStatusServiceImpl implements UserStatusService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public UserStatusDtoResponse createUserStatus(UserStatusDtoRequest userStatusDtoRequest) {
         UserStatusDtoResponse userStatusDtoResponse = new UserStatusDtoResponse();
         if (operationIsAllow(userStatusDtoRequest)) {
             UserStatus newUserStatus = userStatusDtoEntityMapper.requestDtoToEntity(userStatusDtoRequest);
             UserStatus save = userStatusRepository.save(newUserStatus);
+            dictionaryCache.invalidateUserStatuses();
             userStatusDtoResponse = userStatusDtoEntityMapper.entityToResponseDto(save);
         }
         return userStatusDtoResponse;
@@ -101,17 +129,22 @@ public class UserStatusServiceImpl implements UserStatusService {
      * REQUIRED - в транзакции внешней или новой
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public UserStatusDtoResponse updateUserStatus(UUID id, UserStatusDtoRequest userStatusDtoRequest) {
         UserStatusDtoResponse userStatusDtoResponse = new UserStatusDtoResponse();
         if (operationIsAllow(userStatusDtoRequest) &&
-                Objects.equals(id, userStatusDtoRequest.getId()) &&
-                userStatusRepository.existsById(userStatusDtoRequest.getId())) {
-
-            UserStatus userStatus = userStatusDtoEntityMapper.requestDtoToEntity(userStatusDtoRequest);
-            userStatus.setId(id);
-            UserStatus save = userStatusRepository.save(userStatus);
-            userStatusDtoResponse = userStatusDtoEntityMapper.entityToResponseDto(save);
+                Objects.equals(id, userStatusDtoRequest.getId())) {
+
+            Optional<UserStatus> persistedUserStatus = userStatusRepository.findById(id);
+            if (persistedUserStatus.isPresent()) {
+                UserStatus userStatus = userStatusDtoEntityMapper.requestDtoToEntity(userStatusDtoRequest);
+                userStatus.setId(id);
+                userStatus.copyStateFrom(persistedUserStatus.get());
+                UserStatus save = userStatusRepository.save(userStatus);
+                dictionaryCache.invalidateUserStatuses();
+                userStatusDtoResponse = userStatusDtoEntityMapper.entityToResponseDto(save);
+            }
         }
         return userStatusDtoResponse;
     }
@@ -136,14 +169,13 @@ public class UserStatusServiceImpl implements UserStatusService {
      * должна быть применена только при выполнении общей транзакции (единицы бизнес логики)
      */
     @Override
+    @RetryOnConflict
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public Boolean deleteUserStatus(UUID id) {
-        Optional<UserStatus> userStatusById = userStatusRepository.findById(id);
-        if (userStatusById.isPresent()) {
-            UserStatus userStatus = userStatusById.get();
-            Collection<User> allUsersByStatus = userRepository.findAllByUserStatus(userStatus);
-            allUsersByStatus.forEach(user -> userService.deleteUser(user.getId()));
+        if (userStatusRepository.existsById(id)) {
+            cascadeDeleteRepository.deleteUsers(CascadeDeleteRepository.UserScope.STATUS, id);
             userStatusRepository.deleteById(id);
+            dictionaryCache.invalidateUserStatuses();
             return true;
         }
         return false;
@@ -166,60 +198,27 @@ public class UserStatusServiceImpl implements UserStatusService {
     }
 
 
-    public PageDto<UserStatusDtoResponse> getStatus(SearchDto<UserStatusSearchDto> searchDto, Pageable pageable) {
-        Page<UserStatus> page;
+    public PageDto<UserStatusDtoResponse> getStatus(SearchDto<UserStatusSearchDto> searchDto, Pageable pageable, CountMode countMode) {
+        Specification<UserStatus> spec = null;
         if ((searchDto != null) && (searchDto.searchData() != null)) {
-            page = userStatusRepository.findAll(specificationBuilder.getSpec(prepareCriteriaObject(searchDto)), pageable);
-        } else {
-            page = userStatusRepository.findAll(pageable);
+            spec = specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData()));
         }
-        List<UserStatusDtoResponse> userStatusDtoResponses = page.map(userStatusDtoEntityMapper::entityToResponseDto).toList();
-        return new PageDto<>(userStatusDtoResponses, page.getTotalElements(), page.getTotalPages());
-
-    }
-
-    /**
-     * Метод наполняет CriteriaObject данными поиска из searchDto
-     *
-     * @param searchDto - модель с данными для поиска
-     * @return - CriteriaObject - конейнер со всеми данными и ограничениями для поиска
-     */
-    private CriteriaObject prepareCriteriaObject(SearchDto<UserStatusSearchDto> searchDto) {
-        UserStatusSearchDto userStatusSearchDto = searchDto.searchData();
-        return new CriteriaObject(userStatusSearchDto.getJoinOperation(), prepareRestrictionValues(userStatusSearchDto));
+        return pagingService.findPage(UserStatus.class, userStatusRepository, spec, null, pageable, countMode,
+                entities -> entities.stream()
+                        .map(userStatusDtoEntityMapper::entityToResponseDto)
+                        .collect(Collectors.toList()));
     }
 
-    /**
-     * Метод подготавливает ограничения для полей поиска
-     *
-     * @param statusSearchDto - модель с данными для поиска
-     * @return - мписок ограничений для всех полей по которым осуществляется поиск
-     */
-    private List<CriteriaObject.RestrictionValues> prepareRestrictionValues(UserStatusSearchDto statusSearchDto) {
-        ArrayList<CriteriaObject.RestrictionValues> restrictionValues = new ArrayList<>();
-
-        SearchUnit value = statusSearchDto.getValue();
-        if (searchUnitIsValid(value)) {
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<String>(
-                            "value",
-                            value.getSearchOperation(),
-                            value.getValue()
-                    )
-            );
+    public KeysetPageDto<UserStatusDtoResponse> getStatusByCursor(SearchDto<UserStatusSearchDto> searchDto, String cursor, Pageable pageable) {
+        Sort.Direction direction = KeysetCursor.direction(pageable);
+        Specification<UserStatus> spec = Specification.where(specificationBuilder.getSeekSpec(KeysetCursor.decode(cursor), direction));
+        if ((searchDto != null) && (searchDto.searchData() != null)) {
+            spec = spec.and(specificationBuilder.getSpec(searchFieldRegistry.bind(searchDto.searchData())));
         }
+        Slice<UserStatus> slice = keysetRepository.findSlice(UserStatus.class, spec, KeysetCursor.sort(direction), pageable.getPageSize());
 
-        SearchUnit description = statusSearchDto.getDescription();
-        if (searchUnitIsValid(description)) {
-            restrictionValues.add(
-                    new CriteriaObject.RestrictionValues<String>(
-                            "description",
-                            description.getValue(),
-                            description.getSearchOperation()
-                    )
-            );
-        }
-        return restrictionValues;
+        List<UserStatusDtoResponse> userStatusDtoResponses = slice.map(userStatusDtoEntityMapper::entityToResponseDto).getContent();
+        return new KeysetPageDto<>(userStatusDtoResponses, KeysetCursor.nextCursor(slice));
     }
 
 }
@@ -0,0 +1,120 @@
+package ru.iteco.project.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.iteco.project.domain.Money;
+import ru.iteco.project.domain.WalletEntryType;
+import ru.iteco.project.repository.WalletLedgerRepository;
+
+import java.util.UUID;
+
+/**
+ * Сервис кошельков пользователей. Изменения баланса не изменяют строку пользователя, а добавляются
+ * в журнал wallet_ledger, поэтому параллельные договоры одного заказчика или исполнителя не конкурируют
+ * за изменение одной строки users. Баланс пользователя - сумма users.wallet и еще не свернутых записей
+ * журнала. Записи журнала периодически (wallet.ledger.compaction.interval) сворачиваются в users.wallet,
+ * поэтому в списках и при поиске пользователей отображается баланс на момент последней свертки,
+ * а при получении и изменении одного пользователя - фактический баланс
+ */
+@Service
+public class WalletService {
+
+    private static final Logger log = LogManager.getLogger(WalletService.class.getName());
+
+    /*** Максимальное количество записей журнала, сворачиваемых одним запросом */
+    @Value("${wallet.ledger.compaction.batch-size:10000}")
+    private int compactionBatchSize;
+
+    /*** Максимальное количество запросов свертки за один запуск */
+    @Value("${wallet.ledger.compaction.max-batches:10}")
+    private int compactionMaxBatches;
+
+    /*** Репозиторий журнала изменений кошельков */
+    private final WalletLedgerRepository walletLedgerRepository;
+
+
+    public WalletService(WalletLedgerRepository walletLedgerRepository) {
+        this.walletLedgerRepository = walletLedgerRepository;
+    }
+
+
+    /**
+     * Метод получения баланса пользователя с учетом еще не свернутых записей журнала.
+     * Для проверки достаточности средств перед списанием кошелек должен быть заблокирован методом lockWallet
+     *
+     * @param userId - уникальный идентификатор пользователя
+     * @return - баланс пользователя, Money.ZERO - пользователь не существует
+     */
+    public Money getBalance(UUID userId) {
+        Money balance = walletLedgerRepository.findBalance(userId);
+        return (balance == null) ? Money.ZERO : balance;
+    }
+
+    /**
+     * Метод блокирует кошелек пользователя до конца текущей транзакции, чтобы параллельные списания одного
+     * пользователя проверяли баланс по очереди. Пополнения блокировки не требуют
+     *
+     * @param userId - уникальный идентификатор пользователя
+     */
+    public void lockWallet(UUID userId) {
+        walletLedgerRepository.lockWallet(userId);
+    }
+
+    /**
+     * Метод списывает сумму с кошелька пользователя
+     *
+     * @param userId     - уникальный идентификатор пользователя
+     * @param contractId - уникальный идентификатор договора
+     * @param entryType  - вид списания
+     * @param amount     - списываемая сумма
+     */
+    public void debit(UUID userId, UUID contractId, WalletEntryType entryType, Money amount) {
+        walletLedgerRepository.append(userId, contractId, entryType, amount.negate());
+    }
+
+    /**
+     * Метод зачисляет сумму на кошелек пользователя
+     *
+     * @param userId     - уникальный идентификатор пользователя
+     * @param contractId - уникальный идентификатор договора
+     * @param entryType  - вид зачисления
+     * @param amount     - зачисляемая сумма
+     */
+    public void credit(UUID userId, UUID contractId, WalletEntryType entryType, Money amount) {
+        walletLedgerRepository.append(userId, contractId, entryType, amount);
+    }
+
+    /**
+     * Метод изменяет баланс пользователя на переданную сумму (изменение баланса администратором)
+     *
+     * @param userId - уникальный идентификатор пользователя
+     * @param amount - сумма изменения: пополнение - положительная, списание - отрицательная
+     */
+    public void adjust(UUID userId, Money amount) {
+        if (amount.signum() != 0) {
+            walletLedgerRepository.append(userId, null, WalletEntryType.ADJUSTMENT, amount);
+        }
+    }
+
+    /**
+     * Метод сворачивает записи журнала в балансы пользователей (users.wallet). Выполняется вне транзакции:
+     * каждый запрос свертки фиксируется сразу, чтобы не удерживать блокировки строк пользователей
+     */
+    @Scheduled(fixedDelayString = "${wallet.ledger.compaction.interval:1000}")
+    public void compactLedger() {
+        int users = 0;
+        for (int batch = 0; batch < compactionMaxBatches; batch++) {
+            int compacted = walletLedgerRepository.compact(compactionBatchSize);
+            if (compacted == 0) {
+                break;
+            }
+            users += compacted;
+        }
+        if (users > 0) {
+            log.debug("wallet ledger compacted, balances updated: {}", users);
+        }
+    }
+}
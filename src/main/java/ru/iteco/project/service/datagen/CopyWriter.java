@@ -0,0 +1,92 @@
+package ru.iteco.project.service.datagen;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+/**
+ * Построчная запись данных в таблицу командой COPY ... FROM STDIN в формате CSV.
+ * Строки накапливаются в буфере и передаются в БД порциями, поэтому объем памяти не зависит от количества строк.
+ * Значения не экранируются: генератор формирует значения без запятых, кавычек и переводов строки
+ */
+class CopyWriter {
+
+    /*** Размер порции данных, передаваемой в БД, в символах */
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+
+    /*** Операция COPY */
+    private final CopyIn copyIn;
+
+    /*** Буфер строк CSV */
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+
+    /*** Количество записанных строк */
+    private long rows;
+
+
+    /**
+     * @param copyManager - объект выполнения команд COPY соединения с БД
+     * @param table       - таблица
+     * @param columns     - столбцы таблицы через запятую, в порядке значений строки
+     * @throws SQLException - ошибка начала операции COPY
+     */
+    CopyWriter(CopyManager copyManager, String table, String columns) throws SQLException {
+        this.copyIn = copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)");
+    }
+
+
+    /**
+     * Метод записывает строку таблицы
+     *
+     * @param values - значения столбцов, null записывается как NULL
+     * @throws SQLException - ошибка передачи данных в БД
+     */
+    void row(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            if (values[i] != null) {
+                buffer.append(values[i]);
+            }
+        }
+        buffer.append('\n');
+        rows++;
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    /**
+     * Метод передает оставшиеся строки и завершает операцию COPY
+     *
+     * @return - количество записанных строк
+     * @throws SQLException - ошибка передачи данных в БД
+     */
+    long finish() throws SQLException {
+        flush();
+        copyIn.endCopy();
+        return rows;
+    }
+
+    /**
+     * Метод прерывает незавершенную операцию COPY, переданные строки в таблицу не попадают
+     *
+     * @throws SQLException - ошибка прерывания операции
+     */
+    void cancel() throws SQLException {
+        if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
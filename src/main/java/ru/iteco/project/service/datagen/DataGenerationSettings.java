@@ -0,0 +1,65 @@
+package ru.iteco.project.service.datagen;
+
+import java.time.Instant;
+
+/**
+ * Параметры генерации синтетических данных
+ */
+public class DataGenerationSettings {
+
+    /*** Начальное значение генератора случайных чисел: одинаковые параметры дают одинаковые данные */
+    private final long seed;
+
+    /*** Количество генерируемых пользователей */
+    private final int users;
+
+    /*** Количество генерируемых заданий */
+    private final int tasks;
+
+    /*** Момент времени, относительно которого генерируются даты создания и сроки выполнения */
+    private final Instant baseDate;
+
+    /*** Признак очистки таблиц пользователей, заданий и договоров перед генерацией */
+    private final boolean truncate;
+
+
+    public DataGenerationSettings(long seed, int users, int tasks, Instant baseDate, boolean truncate) {
+        this.seed = seed;
+        this.users = users;
+        this.tasks = tasks;
+        this.baseDate = baseDate;
+        this.truncate = truncate;
+    }
+
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getTasks() {
+        return tasks;
+    }
+
+    public Instant getBaseDate() {
+        return baseDate;
+    }
+
+    public boolean isTruncate() {
+        return truncate;
+    }
+
+    @Override
+    public String toString() {
+        return "DataGenerationSettings{" +
+                "seed=" + seed +
+                ", users=" + users +
+                ", tasks=" + tasks +
+                ", baseDate=" + baseDate +
+                ", truncate=" + truncate +
+                '}';
+    }
+}
@@ -0,0 +1,474 @@
+package ru.iteco.project.service.datagen;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Service;
+import ru.iteco.project.domain.ContractStatus.ContractStatusEnum;
+import ru.iteco.project.domain.TaskStatus.TaskStatusEnum;
+import ru.iteco.project.domain.UserRole.UserRoleEnum;
+import ru.iteco.project.domain.UserStatus.UserStatusEnum;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Генератор синтетических данных биржи фриланса для нагрузочного тестирования поиска и пагинации.
+ * Пользователи получают роли и статусы из справочников data-postgresql.sql с заданным распределением,
+ * задания распределяются по всем статусам TaskStatusEnum со скошенными (логнормальными) ценами и сроками
+ * выполнения, небольшая доля заказчиков и исполнителей получает большую часть заданий.
+ * Для заданий, взятых в работу, создаются договоры в статусах PAID/DONE, для части отмененных - TERMINATED.
+ * Данные загружаются командой COPY в одной транзакции. Все значения, включая идентификаторы и даты,
+ * вычисляются из seed и baseDate, поэтому повторная генерация с теми же параметрами дает те же данные
+ */
+@Service
+public class SyntheticDataGenerator {
+
+    private static final Logger log = LogManager.getLogger(SyntheticDataGenerator.class.getName());
+
+    /*** Скрипт заполнения справочников, выполняется если справочник ролей пуст */
+    private static final String DICTIONARIES_SCRIPT = "data-postgresql.sql";
+
+    /*** Доли ролей пользователей в промилле, в порядке UserRoleEnum: ADMIN, CUSTOMER, EXECUTOR */
+    private static final int[] ROLE_WEIGHTS = {1, 300, 699};
+
+    /*** Доли статусов пользователей в промилле, в порядке UserStatusEnum: NOT_EXIST, CREATED, BLOCKED, ACTIVE */
+    private static final int[] USER_STATUS_WEIGHTS = {20, 80, 50, 850};
+
+    /*** Доли статусов заданий в промилле, в порядке TaskStatusEnum: REGISTERED, IN_PROGRESS, ON_CHECK, ON_FIX, DONE, CANCELED */
+    private static final int[] TASK_STATUS_WEIGHTS = {350, 150, 70, 30, 250, 150};
+
+    /*** Доля отмененных заданий, отмененных после заключения договора (договор TERMINATED) */
+    private static final double TERMINATED_SHARE = 1 / 3d;
+
+    /*** Медиана и разброс логнормального распределения стоимости задания */
+    private static final double PRICE_MEDIAN = 1_500;
+    private static final double PRICE_SIGMA = 1.0;
+
+    /*** Медиана и разброс логнормального распределения средств заказчика */
+    private static final double CUSTOMER_WALLET_MEDIAN = 20_000;
+    private static final double CUSTOMER_WALLET_SIGMA = 1.2;
+
+    /*** Медиана и разброс логнормального распределения средств исполнителя */
+    private static final double EXECUTOR_WALLET_MEDIAN = 3_000;
+    private static final double EXECUTOR_WALLET_SIGMA = 1.0;
+
+    /*** Степени, задающие концентрацию заданий у части заказчиков и исполнителей (1 - равномерно) */
+    private static final double CUSTOMER_SKEW = 3;
+    private static final double EXECUTOR_SKEW = 2;
+
+    /*** Период дат регистрации пользователей и создания заданий до baseDate в секундах */
+    private static final long USER_PERIOD = 730L * 24 * 60 * 60;
+    private static final long TASK_PERIOD = 365L * 24 * 60 * 60;
+
+    /*** Средний и максимальный срок выполнения задания в секундах */
+    private static final double COMPLETION_MEAN = 14d * 24 * 60 * 60;
+    private static final long COMPLETION_MAX = 180L * 24 * 60 * 60;
+
+    /*** Поправки к seed, разделяющие последовательности случайных чисел пользователей, заданий и договоров */
+    private static final long TASK_SALT = 0x5DEECE66DL;
+    private static final long CONTRACT_SALT = 0x2545F4914F6CDD1DL;
+
+    private static final String USER_COLUMNS = "id, first_name, second_name, last_name, login, password, email, " +
+            "phone_number, role_id, status_id, wallet, created_at, updated_at";
+
+    private static final String TASK_COLUMNS = "id, customer_id, executor_id, title, description, " +
+            "task_completion_date, price, task_status_id, task_decision, created_at, updated_at";
+
+    private static final String CONTRACT_COLUMNS = "id, customer_id, executor_id, task_id, contract_status_id, " +
+            "created_at, updated_at";
+
+    /*** Объект выполнения запросов к БД */
+    private final JdbcTemplate jdbcTemplate;
+
+
+    public SyntheticDataGenerator(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+
+    /**
+     * Метод генерирует пользователей, задания и договоры и загружает их в БД
+     *
+     * @param settings - параметры генерации
+     * @return - количество загруженных записей
+     */
+    public GenerationResult generate(DataGenerationSettings settings) {
+        if ((settings.getUsers() < 2) && (settings.getTasks() > 0)) {
+            throw new IllegalArgumentException("at least one customer and one executor are required to generate tasks");
+        }
+        log.info("data generation started: {}", settings);
+        long start = System.currentTimeMillis();
+
+        GenerationResult result = jdbcTemplate.execute((ConnectionCallback<GenerationResult>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (settings.isTruncate()) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("TRUNCATE wallet_ledger, contract, task, users");
+                    }
+                }
+                Dictionaries dictionaries = prepareDictionaries(connection);
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+
+                UserPool users = copyUsers(copyManager, dictionaries, settings);
+                long tasks = copyTasks(copyManager, dictionaries, settings, users);
+                long contracts = copyContracts(copyManager, dictionaries, settings, users);
+                connection.commit();
+                return new GenerationResult(settings.getUsers(), tasks, contracts);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+        jdbcTemplate.execute("ANALYZE users, task, contract");
+
+        log.info("data generation finished in {} ms: {}", System.currentTimeMillis() - start, result);
+        return result;
+    }
+
+
+    /**
+     * Метод заполняет справочники скриптом data-postgresql.sql, если они пусты, и загружает идентификаторы значений
+     *
+     * @param connection - соединение с БД
+     * @return - идентификаторы значений справочников
+     * @throws SQLException - ошибка выполнения запроса
+     */
+    private Dictionaries prepareDictionaries(Connection connection) throws SQLException {
+        Map<String, UUID> roles = loadDictionary(connection, "user_roles");
+        if (roles.isEmpty()) {
+            log.info("dictionaries are empty, executing {}", DICTIONARIES_SCRIPT);
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource(DICTIONARIES_SCRIPT));
+            roles = loadDictionary(connection, "user_roles");
+        }
+        Dictionaries dictionaries = new Dictionaries();
+        dictionaries.roles = resolve(roles, UserRoleEnum.values(), "user_roles");
+        dictionaries.userStatuses = resolve(loadDictionary(connection, "user_statuses"), UserStatusEnum.values(), "user_statuses");
+        dictionaries.taskStatuses = resolve(loadDictionary(connection, "task_statuses"), TaskStatusEnum.values(), "task_statuses");
+        dictionaries.contractStatuses = resolve(loadDictionary(connection, "contract_statuses"), ContractStatusEnum.values(), "contract_statuses");
+        return dictionaries;
+    }
+
+    private static Map<String, UUID> loadDictionary(Connection connection, String table) throws SQLException {
+        Map<String, UUID> values = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT value, id FROM " + table)) {
+            while (resultSet.next()) {
+                values.put(resultSet.getString(1), resultSet.getObject(2, UUID.class));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Метод сопоставляет элементы перечисления с идентификаторами значений справочника
+     *
+     * @param dictionary - идентификаторы значений справочника
+     * @param values     - элементы перечисления
+     * @param table      - таблица справочника (для сообщения об ошибке)
+     * @return - идентификаторы в порядке элементов перечисления
+     */
+    private static UUID[] resolve(Map<String, UUID> dictionary, Enum<?>[] values, String table) {
+        UUID[] ids = new UUID[values.length];
+        for (Enum<?> value : values) {
+            ids[value.ordinal()] = dictionary.get(value.name());
+            if (ids[value.ordinal()] == null) {
+                throw new IllegalStateException("value " + value.name() + " is missing in " + table);
+            }
+        }
+        return ids;
+    }
+
+
+    /**
+     * Метод загружает пользователей. Первые два пользователя - заказчик и исполнитель, роли остальных
+     * распределяются согласно ROLE_WEIGHTS
+     *
+     * @return - идентификаторы сгенерированных заказчиков и исполнителей
+     */
+    private UserPool copyUsers(CopyManager copyManager, Dictionaries dictionaries, DataGenerationSettings settings)
+            throws SQLException {
+        Random random = new Random(settings.getSeed());
+        long base = settings.getBaseDate().getEpochSecond();
+        String prefix = "gen" + settings.getSeed() + "_";
+        UserPool pool = new UserPool();
+
+        CopyWriter writer = new CopyWriter(copyManager, "users", USER_COLUMNS);
+        try {
+            for (int i = 0; i < settings.getUsers(); i++) {
+                UUID id = randomUuid(random);
+                int role = (i < 2) ? UserRoleEnum.CUSTOMER.ordinal() + i : pick(random, ROLE_WEIGHTS);
+                int status = pick(random, USER_STATUS_WEIGHTS);
+                BigDecimal wallet;
+                if (role == UserRoleEnum.CUSTOMER.ordinal()) {
+                    wallet = logNormal(random, CUSTOMER_WALLET_MEDIAN, CUSTOMER_WALLET_SIGMA);
+                    pool.customers.add(id);
+                } else if (role == UserRoleEnum.EXECUTOR.ordinal()) {
+                    wallet = logNormal(random, EXECUTOR_WALLET_MEDIAN, EXECUTOR_WALLET_SIGMA);
+                    pool.executors.add(id);
+                } else {
+                    wallet = BigDecimal.ZERO;
+                }
+                long createdAt = base - (long) (random.nextDouble() * USER_PERIOD);
+                long updatedAt = createdAt + (long) (random.nextDouble() * (base - createdAt));
+                writer.row(id, "Имя" + i, "Отчество" + i, "Фамилия" + i, prefix + i, "password",
+                        prefix + i + "@mail.ru", 80_000_000_000L + random.nextInt(1_000_000_000),
+                        dictionaries.roles[role], dictionaries.userStatuses[status], wallet.toPlainString(),
+                        Instant.ofEpochSecond(createdAt), Instant.ofEpochSecond(updatedAt));
+            }
+            long rows = writer.finish();
+            log.info("users loaded: {}, customers: {}, executors: {}", rows, pool.customers.size(), pool.executors.size());
+        } catch (SQLException | RuntimeException e) {
+            writer.cancel();
+            throw e;
+        }
+        return pool;
+    }
+
+    /**
+     * Метод загружает задания
+     *
+     * @return - количество загруженных заданий
+     */
+    private long copyTasks(CopyManager copyManager, Dictionaries dictionaries, DataGenerationSettings settings,
+                           UserPool users) throws SQLException {
+        Random random = new Random(settings.getSeed() ^ TASK_SALT);
+        long base = settings.getBaseDate().getEpochSecond();
+
+        CopyWriter writer = new CopyWriter(copyManager, "task", TASK_COLUMNS);
+        try {
+            for (int i = 0; i < settings.getTasks(); i++) {
+                GeneratedTask task = nextTask(random, users, base);
+                String decision = ((task.status == TaskStatusEnum.ON_CHECK) || (task.status == TaskStatusEnum.ON_FIX)
+                        || (task.status == TaskStatusEnum.DONE)) ? "Решение задания " + i : null;
+                writer.row(task.id, task.customerId, task.executorId, "Задание " + i, "Описание задания " + i,
+                        Instant.ofEpochSecond(task.completionDate), task.price.toPlainString(),
+                        dictionaries.taskStatuses[task.status.ordinal()], decision,
+                        Instant.ofEpochSecond(task.createdAt), Instant.ofEpochSecond(task.updatedAt));
+            }
+            long rows = writer.finish();
+            log.info("tasks loaded: {}", rows);
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            writer.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Метод загружает договоры заданий, имеющих исполнителя. Задания генерируются повторно из того же seed,
+     * поэтому хранить их в памяти между загрузкой заданий и договоров не требуется
+     *
+     * @return - количество загруженных договоров
+     */
+    private long copyContracts(CopyManager copyManager, Dictionaries dictionaries, DataGenerationSettings settings,
+                               UserPool users) throws SQLException {
+        Random taskRandom = new Random(settings.getSeed() ^ TASK_SALT);
+        Random random = new Random(settings.getSeed() ^ CONTRACT_SALT);
+        long base = settings.getBaseDate().getEpochSecond();
+
+        CopyWriter writer = new CopyWriter(copyManager, "contract", CONTRACT_COLUMNS);
+        try {
+            for (int i = 0; i < settings.getTasks(); i++) {
+                GeneratedTask task = nextTask(taskRandom, users, base);
+                if (task.executorId != null) {
+                    ContractStatusEnum status;
+                    if (task.status == TaskStatusEnum.DONE) {
+                        status = ContractStatusEnum.DONE;
+                    } else if (task.status == TaskStatusEnum.CANCELED) {
+                        status = ContractStatusEnum.TERMINATED;
+                    } else {
+                        status = ContractStatusEnum.PAID;
+                    }
+                    long createdAt = task.createdAt + (long) (random.nextDouble() * (task.updatedAt - task.createdAt));
+                    writer.row(randomUuid(random), task.customerId, task.executorId, task.id,
+                            dictionaries.contractStatuses[status.ordinal()],
+                            Instant.ofEpochSecond(createdAt), Instant.ofEpochSecond(task.updatedAt));
+                }
+            }
+            long rows = writer.finish();
+            log.info("contracts loaded: {}", rows);
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            writer.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Метод генерирует очередное задание. Количество обращений к random не зависит от значений,
+     * поэтому последовательность заданий однозначно определяется seed
+     *
+     * @param random - генератор случайных чисел заданий
+     * @param users  - идентификаторы заказчиков и исполнителей
+     * @param base   - момент времени, относительно которого генерируются даты (секунды эпохи)
+     * @return - сгенерированное задание
+     */
+    private static GeneratedTask nextTask(Random random, UserPool users, long base) {
+        GeneratedTask task = new GeneratedTask();
+        task.id = randomUuid(random);
+        task.customerId = users.customers.get(skewedIndex(random, users.customers.size(), CUSTOMER_SKEW));
+        UUID executorId = users.executors.get(skewedIndex(random, users.executors.size(), EXECUTOR_SKEW));
+        task.status = TaskStatusEnum.values()[pick(random, TASK_STATUS_WEIGHTS)];
+        boolean terminated = random.nextDouble() < TERMINATED_SHARE;
+        if ((task.status != TaskStatusEnum.REGISTERED) && ((task.status != TaskStatusEnum.CANCELED) || terminated)) {
+            task.executorId = executorId;
+        }
+        task.price = logNormal(random, PRICE_MEDIAN, PRICE_SIGMA);
+        task.createdAt = base - (long) (random.nextDouble() * TASK_PERIOD);
+        long duration = Math.min((long) (-COMPLETION_MEAN * Math.log(1 - random.nextDouble())), COMPLETION_MAX);
+        task.completionDate = task.createdAt + 24 * 60 * 60 + duration;
+        task.updatedAt = task.createdAt + (long) (random.nextDouble() * (Math.min(task.completionDate, base) - task.createdAt));
+        return task;
+    }
+
+
+    /**
+     * Метод выбирает индекс согласно весам
+     *
+     * @param random  - генератор случайных чисел
+     * @param weights - веса вариантов
+     * @return - индекс выбранного варианта
+     */
+    private static int pick(Random random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int value = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Метод выбирает индекс из [0, size) с концентрацией у начала списка: при skew = 3 первые 10% индексов
+     * выбираются почти в половине случаев
+     */
+    private static int skewedIndex(Random random, int size, double skew) {
+        return Math.min((int) (size * Math.pow(random.nextDouble(), skew)), size - 1);
+    }
+
+    /**
+     * Метод возвращает сумму с логнормальным распределением, округленную до копеек
+     *
+     * @param random - генератор случайных чисел
+     * @param median - медиана распределения
+     * @param sigma  - стандартное отклонение логарифма суммы
+     * @return - сумма не менее 1
+     */
+    private static BigDecimal logNormal(Random random, double median, double sigma) {
+        double value = median * Math.exp(sigma * random.nextGaussian());
+        return BigDecimal.valueOf(Math.max(Math.round(value * 100), 100), 2);
+    }
+
+    /**
+     * Метод формирует UUID версии 4 из последовательности случайных чисел
+     */
+    private static UUID randomUuid(Random random) {
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+
+    /**
+     * Идентификаторы значений справочников в порядке элементов соответствующих перечислений
+     */
+    private static class Dictionaries {
+        private UUID[] roles;
+        private UUID[] userStatuses;
+        private UUID[] taskStatuses;
+        private UUID[] contractStatuses;
+    }
+
+    /**
+     * Идентификаторы сгенерированных заказчиков и исполнителей
+     */
+    private static class UserPool {
+        private final List<UUID> customers = new ArrayList<>();
+        private final List<UUID> executors = new ArrayList<>();
+    }
+
+    /**
+     * Сгенерированное задание, даты - в секундах эпохи
+     */
+    private static class GeneratedTask {
+        private UUID id;
+        private UUID customerId;
+        private UUID executorId;
+        private TaskStatusEnum status;
+        private BigDecimal price;
+        private long createdAt;
+        private long updatedAt;
+        private long completionDate;
+    }
+
+    /**
+     * Количество загруженных записей
+     */
+    public static class GenerationResult {
+
+        /*** Количество пользователей */
+        private final long users;
+
+        /*** Количество заданий */
+        private final long tasks;
+
+        /*** Количество договоров */
+        private final long contracts;
+
+
+        public GenerationResult(long users, long tasks, long contracts) {
+            this.users = users;
+            this.tasks = tasks;
+            this.contracts = contracts;
+        }
+
+
+        public long getUsers() {
+            return users;
+        }
+
+        public long getTasks() {
+            return tasks;
+        }
+
+        public long getContracts() {
+            return contracts;
+        }
+
+        @Override
+        public String toString() {
+            return "GenerationResult{" +
+                    "users=" + users +
+                    ", tasks=" + tasks +
+                    ", contracts=" + contracts +
+                    '}';
+        }
+    }
+}
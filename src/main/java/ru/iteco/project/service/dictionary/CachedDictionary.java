@@ -0,0 +1,227 @@
+package ru.iteco.project.service.dictionary;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Кэш одного справочника (статусы, роли). Содержимое справочника хранится в неизменяемом снимке, который
+ * целиком заменяется при перезагрузке, поэтому чтение не требует блокировок и не создает новых объектов
+ *
+ * @param <E> - тип перечисления значений справочника
+ * @param <V> - тип сущности справочника
+ */
+class CachedDictionary<E extends Enum<E>, V> {
+
+    private static final Logger log = LogManager.getLogger(CachedDictionary.class.getName());
+
+    /*** Наименование справочника (используется в логах и метриках) */
+    private final String name;
+
+    /*** Класс перечисления значений справочника */
+    private final Class<E> enumClass;
+
+    /*** Функция получения строкового значения из сущности справочника */
+    private final Function<V, String> valueExtractor;
+
+    /*** Функция загрузки всех записей справочника из БД */
+    private final Supplier<List<V>> loader;
+
+    /*** Функция поиска записи справочника в БД по строковому значению */
+    private final Function<String, Optional<V>> finder;
+
+    /*** Счетчик обращений, обслуженных кэшем */
+    private final Counter hitCounter;
+
+    /*** Счетчик обращений, для которых значение в кэше отсутствовало */
+    private final Counter missCounter;
+
+    /*** Счетчик перезагрузок справочника */
+    private final Counter reloadCounter;
+
+    /*** Текущий снимок справочника, null - справочник требует перезагрузки */
+    private volatile Snapshot<E, V> snapshot;
+
+
+    CachedDictionary(String name, Class<E> enumClass, Function<V, String> valueExtractor, Supplier<List<V>> loader,
+                     Function<String, Optional<V>> finder, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.enumClass = enumClass;
+        this.valueExtractor = valueExtractor;
+        this.loader = loader;
+        this.finder = finder;
+        this.hitCounter = Counter.builder("dictionary.cache.lookups")
+                .description("Количество обращений к кэшу справочников")
+                .tags("dictionary", name, "result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("dictionary.cache.lookups")
+                .description("Количество обращений к кэшу справочников")
+                .tags("dictionary", name, "result", "miss")
+                .register(meterRegistry);
+        this.reloadCounter = Counter.builder("dictionary.cache.reloads")
+                .description("Количество перезагрузок справочника из БД")
+                .tags("dictionary", name)
+                .register(meterRegistry);
+        Gauge.builder("dictionary.cache.size", this, CachedDictionary::size)
+                .description("Количество записей справочника в кэше")
+                .tags("dictionary", name)
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Метод получения записи справочника по элементу перечисления
+     *
+     * @param key - элемент перечисления
+     * @return - сущность справочника или null, если запись с таким значением отсутствует
+     */
+    V get(E key) {
+        V value = currentSnapshot().byEnum.get(key);
+        if (value != null) {
+            hitCounter.increment();
+            return value;
+        }
+        return miss(key.name());
+    }
+
+    /**
+     * Метод получения записи справочника по строковому значению
+     *
+     * @param key - строковое значение записи справочника
+     * @return - сущность справочника или null, если запись с таким значением отсутствует
+     */
+    V get(String key) {
+        if (key == null) {
+            return null;
+        }
+        V value = currentSnapshot().byValue.get(key);
+        if (value != null) {
+            hitCounter.increment();
+            return value;
+        }
+        return miss(key);
+    }
+
+    /**
+     * Метод загружает справочник из БД заново
+     */
+    synchronized void reload() {
+        snapshot = load();
+    }
+
+    /**
+     * Метод помечает справочник как устаревший. Если вызов выполняется внутри транзакции, справочник повторно
+     * помечается устаревшим после ее завершения, чтобы в кэше не остались данные, прочитанные до фиксации изменений
+     */
+    void invalidate() {
+        snapshot = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    snapshot = null;
+                }
+            });
+        }
+    }
+
+    /**
+     * Метод возвращает количество записей справочника в кэше
+     *
+     * @return - количество записей или 0, если справочник еще не загружен
+     */
+    int size() {
+        Snapshot<E, V> current = snapshot;
+        return (current == null) ? 0 : current.byValue.size();
+    }
+
+
+    /**
+     * Метод обрабатывает отсутствие значения в кэше: значение ищется в БД и, если оно найдено,
+     * справочник помечается устаревшим (запись была добавлена в обход кэша)
+     *
+     * @param key - строковое значение записи справочника
+     * @return - сущность справочника или null, если запись с таким значением отсутствует
+     */
+    private V miss(String key) {
+        missCounter.increment();
+        Optional<V> found = finder.apply(key);
+        if (found.isPresent()) {
+            log.debug("dictionary {} is stale, value {} found in database", name, key);
+            snapshot = null;
+            return found.get();
+        }
+        return null;
+    }
+
+    /**
+     * Метод возвращает текущий снимок справочника, при необходимости загружая его из БД
+     *
+     * @return - актуальный снимок справочника
+     */
+    private Snapshot<E, V> currentSnapshot() {
+        Snapshot<E, V> current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Метод формирует новый снимок справочника из данных БД
+     *
+     * @return - неизменяемый снимок справочника
+     */
+    private Snapshot<E, V> load() {
+        Map<String, V> byValue = new HashMap<>();
+        for (V entity : loader.get()) {
+            byValue.put(valueExtractor.apply(entity), entity);
+        }
+        EnumMap<E, V> byEnum = new EnumMap<>(enumClass);
+        for (E key : enumClass.getEnumConstants()) {
+            V entity = byValue.get(key.name());
+            if (entity != null) {
+                byEnum.put(key, entity);
+            }
+        }
+        reloadCounter.increment();
+        log.info("dictionary {} loaded, {} entries", name, byValue.size());
+        return new Snapshot<>(Collections.unmodifiableMap(byEnum), Collections.unmodifiableMap(byValue));
+    }
+
+
+    /**
+     * Неизменяемый снимок справочника
+     *
+     * @param <E> - тип перечисления значений справочника
+     * @param <V> - тип сущности справочника
+     */
+    private static final class Snapshot<E extends Enum<E>, V> {
+
+        /*** Записи справочника, соответствующие элементам перечисления */
+        private final Map<E, V> byEnum;
+
+        /*** Все записи справочника по строковому значению */
+        private final Map<String, V> byValue;
+
+        private Snapshot(Map<E, V> byEnum, Map<String, V> byValue) {
+            this.byEnum = byEnum;
+            this.byValue = byValue;
+        }
+    }
+
+}
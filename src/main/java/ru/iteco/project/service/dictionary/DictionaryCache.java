@@ -0,0 +1,168 @@
+package ru.iteco.project.service.dictionary;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.iteco.project.domain.ContractStatus;
+import ru.iteco.project.domain.ContractStatus.ContractStatusEnum;
+import ru.iteco.project.domain.TaskStatus;
+import ru.iteco.project.domain.TaskStatus.TaskStatusEnum;
+import ru.iteco.project.domain.UserRole;
+import ru.iteco.project.domain.UserRole.UserRoleEnum;
+import ru.iteco.project.domain.UserStatus;
+import ru.iteco.project.domain.UserStatus.UserStatusEnum;
+import ru.iteco.project.repository.ContractStatusRepository;
+import ru.iteco.project.repository.TaskStatusRepository;
+import ru.iteco.project.repository.UserRoleRepository;
+import ru.iteco.project.repository.UserStatusRepository;
+
+/**
+ * Сервис кэширования справочников статусов и ролей. Справочники загружаются при старте приложения,
+ * перезагружаются после изменения через сервисы статусов и ролей, а также при обнаружении в БД значения,
+ * отсутствующего в кэше. Статистика обращений публикуется в метриках dictionary.cache.*
+ */
+@Service
+public class DictionaryCache {
+
+    /*** Справочник статусов заданий */
+    private final CachedDictionary<TaskStatusEnum, TaskStatus> taskStatuses;
+
+    /*** Справочник статусов пользователей */
+    private final CachedDictionary<UserStatusEnum, UserStatus> userStatuses;
+
+    /*** Справочник ролей пользователей */
+    private final CachedDictionary<UserRoleEnum, UserRole> userRoles;
+
+    /*** Справочник статусов договоров */
+    private final CachedDictionary<ContractStatusEnum, ContractStatus> contractStatuses;
+
+
+    public DictionaryCache(TaskStatusRepository taskStatusRepository, UserStatusRepository userStatusRepository,
+                           UserRoleRepository userRoleRepository, ContractStatusRepository contractStatusRepository,
+                           MeterRegistry meterRegistry) {
+        this.taskStatuses = new CachedDictionary<>("task_statuses", TaskStatusEnum.class, TaskStatus::getValue,
+                taskStatusRepository::findAll, taskStatusRepository::findTaskStatusByValue, meterRegistry);
+        this.userStatuses = new CachedDictionary<>("user_statuses", UserStatusEnum.class, UserStatus::getValue,
+                userStatusRepository::findAll, userStatusRepository::findUserStatusByValue, meterRegistry);
+        this.userRoles = new CachedDictionary<>("user_roles", UserRoleEnum.class, UserRole::getValue,
+                userRoleRepository::findAll, userRoleRepository::findUserRoleByValue, meterRegistry);
+        this.contractStatuses = new CachedDictionary<>("contract_statuses", ContractStatusEnum.class, ContractStatus::getValue,
+                contractStatusRepository::findAll, contractStatusRepository::findContractStatusByValue, meterRegistry);
+    }
+
+
+    /**
+     * Метод загружает все справочники после старта приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        taskStatuses.reload();
+        userStatuses.reload();
+        userRoles.reload();
+        contractStatuses.reload();
+    }
+
+
+    /**
+     * Метод получения статуса задания по элементу перечисления
+     *
+     * @param taskStatusEnum - элемент перечисления статусов заданий
+     * @return - сущность статуса задания или null, если статус отсутствует в БД
+     */
+    public TaskStatus getTaskStatus(TaskStatusEnum taskStatusEnum) {
+        return taskStatuses.get(taskStatusEnum);
+    }
+
+    /**
+     * Метод получения статуса задания по строковому значению
+     *
+     * @param value - строковое представление статуса задания
+     * @return - сущность статуса задания или null, если статус отсутствует в БД
+     */
+    public TaskStatus getTaskStatus(String value) {
+        return taskStatuses.get(value);
+    }
+
+    /**
+     * Метод получения статуса пользователя по элементу перечисления
+     *
+     * @param userStatusEnum - элемент перечисления статусов пользователей
+     * @return - сущность статуса пользователя или null, если статус отсутствует в БД
+     */
+    public UserStatus getUserStatus(UserStatusEnum userStatusEnum) {
+        return userStatuses.get(userStatusEnum);
+    }
+
+    /**
+     * Метод получения статуса пользователя по строковому значению
+     *
+     * @param value - строковое представление статуса пользователя
+     * @return - сущность статуса пользователя или null, если статус отсутствует в БД
+     */
+    public UserStatus getUserStatus(String value) {
+        return userStatuses.get(value);
+    }
+
+    /**
+     * Метод получения роли пользователя по элементу перечисления
+     *
+     * @param userRoleEnum - элемент перечисления ролей пользователей
+     * @return - сущность роли пользователя или null, если роль отсутствует в БД
+     */
+    public UserRole getUserRole(UserRoleEnum userRoleEnum) {
+        return userRoles.get(userRoleEnum);
+    }
+
+    /**
+     * Метод получения роли пользователя по строковому значению
+     *
+     * @param value - строковое представление роли пользователя
+     * @return - сущность роли пользователя или null, если роль отсутствует в БД
+     */
+    public UserRole getUserRole(String value) {
+        return userRoles.get(value);
+    }
+
+    /**
+     * Метод получения статуса договора по элементу перечисления
+     *
+     * @param contractStatusEnum - элемент перечисления статусов договоров
+     * @return - сущность статуса договора или null, если статус отсутствует в БД
+     */
+    public ContractStatus getContractStatus(ContractStatusEnum contractStatusEnum) {
+        return contractStatuses.get(contractStatusEnum);
+    }
+
+    /**
+     * Метод получения статуса договора по строковому значению
+     *
+     * @param value - строковое представление статуса договора
+     * @return - сущность статуса договора или null, если статус отсутствует в БД
+     */
+    public ContractStatus getContractStatus(String value) {
+        return contractStatuses.get(value);
+    }
+
+
+    /*** Метод помечает справочник статусов заданий устаревшим */
+    public void invalidateTaskStatuses() {
+        taskStatuses.invalidate();
+    }
+
+    /*** Метод помечает справочник статусов пользователей устаревшим */
+    public void invalidateUserStatuses() {
+        userStatuses.invalidate();
+    }
+
+    /*** Метод помечает справочник ролей пользователей устаревшим */
+    public void invalidateUserRoles() {
+        userRoles.invalidate();
+    }
+
+    /*** Метод помечает справочник статусов договоров устаревшим */
+    public void invalidateContractStatuses() {
+        contractStatuses.invalidate();
+    }
+
+}
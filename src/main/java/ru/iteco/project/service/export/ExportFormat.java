@@ -0,0 +1,33 @@
+package ru.iteco.project.service.export;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Доступные форматы потоковой выгрузки данных
+ */
+public enum ExportFormat {
+    /*** JSON объекты, разделенные переводом строки (один объект на строку) */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /*** Значения, разделенные запятыми, с заголовком из наименований полей */
+    CSV("text/csv", "csv");
+
+    /*** Тип содержимого ответа */
+    private final String contentType;
+
+    /*** Расширение файла выгрузки */
+    private final String extension;
+
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return MediaType.parseMediaType(contentType);
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,234 @@
+package ru.iteco.project.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.iteco.project.domain.Contract;
+import ru.iteco.project.domain.Task;
+import ru.iteco.project.domain.User;
+import ru.iteco.project.repository.ContractRepository;
+import ru.iteco.project.repository.TaskRepository;
+import ru.iteco.project.repository.UserRepository;
+import ru.iteco.project.service.ContractService;
+import ru.iteco.project.service.TaskService;
+import ru.iteco.project.service.mappers.UserDtoEntityMapper;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Сервис потоковой выгрузки пользователей, заданий и договоров. Записи читаются из БД курсором и обрабатываются
+ * пачками: каждая пачка преобразуется в dto, записывается в поток ответа, после чего контекст персистентности
+ * очищается, поэтому потребление памяти не зависит от размера таблицы
+ */
+@Service
+public class ExportService {
+
+    private static final Logger log = LogManager.getLogger(ExportService.class.getName());
+
+    /*** Получатель хода выгрузки, игнорирующий уведомления */
+    private static final LongConsumer NO_PROGRESS = count -> {
+    };
+
+    /*** Количество записей, после выгрузки которых очищается контекст персистентности */
+    @Value("${export.batch.size:500}")
+    private int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /*** Объект доступа к репозиторию пользователей */
+    private final UserRepository userRepository;
+
+    /*** Объект доступа к репозиторию заданий */
+    private final TaskRepository taskRepository;
+
+    /*** Объект доступа к репозиторию договоров */
+    private final ContractRepository contractRepository;
+
+    /*** Маппер DTO/сущность для пользователей */
+    private final UserDtoEntityMapper userMapper;
+
+    /*** Объект сервисного слоя заданий */
+    private final TaskService taskService;
+
+    /*** Объект сервисного слоя договоров */
+    private final ContractService contractService;
+
+    /*** Объект для преобразования dto в JSON */
+    private final ObjectMapper objectMapper;
+
+
+    public ExportService(UserRepository userRepository, TaskRepository taskRepository, ContractRepository contractRepository,
+                         UserDtoEntityMapper userMapper, TaskService taskService, ContractService contractService,
+                         ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.contractRepository = contractRepository;
+        this.userMapper = userMapper;
+        this.taskService = taskService;
+        this.contractService = contractService;
+        this.objectMapper = objectMapper;
+    }
+
+
+    /**
+     * Метод потоковой выгрузки всех пользователей
+     *
+     * @param outputStream - поток ответа
+     * @param format       - формат выгрузки
+     * @return - количество выгруженных записей
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream outputStream, ExportFormat format) throws IOException {
+        return exportUsers(outputStream, format, NO_PROGRESS);
+    }
+
+    /**
+     * Метод потоковой выгрузки всех пользователей с уведомлением о ходе выгрузки
+     *
+     * @param outputStream - поток ответа
+     * @param format       - формат выгрузки
+     * @param progress     - получатель количества выгруженных записей, вызывается после каждой пачки
+     * @return - количество выгруженных записей
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream outputStream, ExportFormat format, LongConsumer progress) throws IOException {
+        try (Stream<User> users = userRepository.streamAllForExport()) {
+            return export("users", users, userMapper::entitiesToResponseDtoList, outputStream, format, progress);
+        }
+    }
+
+    /**
+     * Метод потоковой выгрузки всех заданий
+     *
+     * @param outputStream - поток ответа
+     * @param format       - формат выгрузки
+     * @return - количество выгруженных записей
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    @Transactional(readOnly = true)
+    public long exportTasks(OutputStream outputStream, ExportFormat format) throws IOException {
+        return exportTasks(outputStream, format, NO_PROGRESS);
+    }
+
+    /**
+     * Метод потоковой выгрузки всех заданий с уведомлением о ходе выгрузки
+     *
+     * @param outputStream - поток ответа
+     * @param format       - формат выгрузки
+     * @param progress     - получатель количества выгруженных записей, вызывается после каждой пачки
+     * @return - количество выгруженных записей
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    @Transactional(readOnly = true)
+    public long exportTasks(OutputStream outputStream, ExportFormat format, LongConsumer progress) throws IOException {
+        try (Stream<Task> tasks = taskRepository.streamAllForExport()) {
+            return export("tasks", tasks, taskService::enrichByUsersInfo, outputStream, format, progress);
+        }
+    }
+
+    /**
+     * Метод потоковой выгрузки всех договоров
+     *
+     * @param outputStream - поток ответа
+     * @param format       - формат выгрузки
+     * @return - количество выгруженных записей
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    @Transactional(readOnly = true)
+    public long exportContracts(OutputStream outputStream, ExportFormat format) throws IOException {
+        return exportContracts(outputStream, format, NO_PROGRESS);
+    }
+
+    /**
+     * Метод потоковой выгрузки всех договоров с уведомлением о ходе выгрузки
+     *
+     * @param outputStream - поток ответа
+     * @param format       - формат выгрузки
+     * @param progress     - получатель количества выгруженных записей, вызывается после каждой пачки
+     * @return - количество выгруженных записей
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    @Transactional(readOnly = true)
+    public long exportContracts(OutputStream outputStream, ExportFormat format, LongConsumer progress) throws IOException {
+        try (Stream<Contract> contracts = contractRepository.streamAllForExport()) {
+            return export("contracts", contracts, contractService::enrichContractInfo, outputStream, format, progress);
+        }
+    }
+
+
+    /**
+     * Метод выгружает поток сущностей пачками по batchSize записей
+     *
+     * @param name         - наименование выгрузки (для логирования)
+     * @param entities     - поток сущностей
+     * @param mapper       - функция преобразования пачки сущностей в список dto
+     * @param outputStream - поток ответа
+     * @param format       - формат выгрузки
+     * @param progress     - получатель количества выгруженных записей
+     * @param <T>          - тип сущности
+     * @param <D>          - тип dto
+     * @return - количество выгруженных записей
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    private <T, D> long export(String name, Stream<T> entities, Function<List<T>, List<D>> mapper,
+                               OutputStream outputStream, ExportFormat format, LongConsumer progress) throws IOException {
+
+        ExportWriter writer = new ExportWriter(outputStream, format, objectMapper);
+        List<T> batch = new ArrayList<>(batchSize);
+        long count = 0;
+
+        Iterator<T> iterator = entities.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() >= batchSize) {
+                count += writeBatch(batch, mapper, writer);
+                progress.accept(count);
+            }
+        }
+        count += writeBatch(batch, mapper, writer);
+        progress.accept(count);
+
+        log.info("export {} finished, {} rows written as {}", name, count, format);
+        return count;
+    }
+
+    /**
+     * Метод записывает пачку сущностей в поток ответа и очищает контекст персистентности
+     *
+     * @param batch  - пачка сущностей, очищается после записи
+     * @param mapper - функция преобразования пачки сущностей в список dto
+     * @param writer - объект записи в поток ответа
+     * @param <T>    - тип сущности
+     * @param <D>    - тип dto
+     * @return - количество записанных записей
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    private <T, D> int writeBatch(List<T> batch, Function<List<T>, List<D>> mapper, ExportWriter writer) throws IOException {
+        if (!batch.isEmpty()) {
+            for (D dto : mapper.apply(batch)) {
+                writer.write(dto);
+            }
+        }
+        writer.flush();
+        int written = batch.size();
+        batch.clear();
+        entityManager.clear();
+        return written;
+    }
+
+}
@@ -0,0 +1,126 @@
+package ru.iteco.project.service.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Построчная запись объектов выгрузки в поток ответа в заданном формате. Объекты записываются
+ * в буферизованный поток сразу после преобразования и не накапливаются в памяти
+ */
+class ExportWriter implements Flushable {
+
+    /*** Разделитель значений CSV */
+    private static final char CSV_SEPARATOR = ',';
+
+    /*** Формат выгрузки */
+    private final ExportFormat format;
+
+    /*** Объект для преобразования объектов выгрузки в JSON */
+    private final ObjectMapper objectMapper;
+
+    /*** Объект записи JSON, не закрывающий и не сбрасывающий поток ответа после каждого объекта */
+    private final ObjectWriter objectWriter;
+
+    /*** Поток ответа */
+    private final Writer writer;
+
+    /*** Признак того, что заголовок CSV уже записан */
+    private boolean headerWritten;
+
+
+    ExportWriter(OutputStream outputStream, ExportFormat format, ObjectMapper objectMapper) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Метод записывает объект выгрузки в поток ответа
+     *
+     * @param value - объект выгрузки
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    void write(Object value) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsvRow(objectMapper.valueToTree(value));
+        } else {
+            objectWriter.writeValue(writer, value);
+            writer.write('\n');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+
+    /**
+     * Метод записывает строку CSV. Перед первой строкой записывается заголовок из наименований полей,
+     * вложенные объекты и списки записываются в виде JSON
+     *
+     * @param row - объект выгрузки в виде дерева JSON
+     * @throws IOException - ошибка записи в поток ответа
+     */
+    private void writeCsvRow(ObjectNode row) throws IOException {
+        if (!headerWritten) {
+            Iterator<String> names = row.fieldNames();
+            while (names.hasNext()) {
+                writer.write(escapeCsv(names.next()));
+                if (names.hasNext()) {
+                    writer.write(CSV_SEPARATOR);
+                }
+            }
+            writer.write("\r\n");
+            headerWritten = true;
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = row.fields();
+        while (fields.hasNext()) {
+            JsonNode node = fields.next().getValue();
+            if (node.isContainerNode()) {
+                writer.write(escapeCsv(objectWriter.writeValueAsString(node)));
+            } else if (!node.isNull()) {
+                writer.write(escapeCsv(node.asText()));
+            }
+            if (fields.hasNext()) {
+                writer.write(CSV_SEPARATOR);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Метод экранирует значение CSV (RFC 4180): значение, содержащее разделитель, кавычки или перевод строки,
+     * заключается в кавычки, кавычки внутри значения удваиваются
+     *
+     * @param value - исходное значение
+     * @return - экранированное значение
+     */
+    private static String escapeCsv(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c == CSV_SEPARATOR) || (c == '"') || (c == '\n') || (c == '\r')) {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,180 @@
+package ru.iteco.project.service.job;
+
+import ru.iteco.project.exception.JobCancelledException;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновое задание. Состояние задания изменяется потоком исполнителя и читается потоками запросов,
+ * поэтому все изменяемые поля volatile, а переходы между состояниями выполняются под монитором задания
+ */
+public class Job {
+
+    /*** Уникальный id задания */
+    private final UUID id = UUID.randomUUID();
+
+    /*** Тип задания */
+    private final JobType type;
+
+    /*** Дата и время постановки задания в очередь */
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    /*** Количество обработанных записей */
+    private final AtomicLong processed = new AtomicLong();
+
+    /*** Общее количество обрабатываемых записей (null - неизвестно) */
+    private volatile Long total;
+
+    /*** Состояние задания */
+    private volatile JobStatus status = JobStatus.QUEUED;
+
+    /*** Дата и время начала выполнения */
+    private volatile LocalDateTime startedAt;
+
+    /*** Дата и время завершения */
+    private volatile LocalDateTime finishedAt;
+
+    /*** Результат выполнения задания */
+    private volatile Object result;
+
+    /*** Файл с результатом выполнения задания (для выгрузок) */
+    private volatile Path resultFile;
+
+    /*** Сообщение об ошибке выполнения */
+    private volatile String error;
+
+    /*** Признак запроса на отмену выполняющегося задания */
+    private volatile boolean cancelRequested;
+
+    /*** Объект управления выполнением задания в пуле исполнителя */
+    private volatile Future<?> future;
+
+
+    Job(JobType type) {
+        this.type = type;
+    }
+
+
+    /**
+     * Метод проверяет, не запрошена ли отмена задания. Вызывается кодом задания между этапами обработки
+     *
+     * @throws JobCancelledException - отмена задания запрошена
+     */
+    public void checkCancelled() {
+        if (cancelRequested || Thread.currentThread().isInterrupted()) {
+            throw new JobCancelledException("job " + id + " cancelled");
+        }
+    }
+
+    /**
+     * Метод устанавливает количество обработанных записей и проверяет, не запрошена ли отмена задания
+     *
+     * @param count - количество обработанных записей
+     */
+    public void progress(long count) {
+        processed.set(count);
+        checkCancelled();
+    }
+
+    synchronized boolean start() {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        status = JobStatus.RUNNING;
+        startedAt = LocalDateTime.now();
+        return true;
+    }
+
+    synchronized void finish(JobStatus finalStatus, Object result, String error) {
+        this.result = result;
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.status = finalStatus;
+    }
+
+    /**
+     * Метод отмены задания: задание из очереди отменяется сразу, у выполняющегося задания
+     * устанавливается признак отмены, который проверяется кодом задания
+     *
+     * @return - true - задание отменено или отмена запрошена, false - задание уже завершено
+     */
+    synchronized boolean cancel() {
+        if (status == JobStatus.QUEUED) {
+            finish(JobStatus.CANCELLED, null, null);
+            if (future != null) {
+                future.cancel(false);
+            }
+            return true;
+        }
+        if (status == JobStatus.RUNNING) {
+            cancelRequested = true;
+            return true;
+        }
+        return false;
+    }
+
+
+    public UUID getId() {
+        return id;
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public Path getResultFile() {
+        return resultFile;
+    }
+
+    void setResultFile(Path resultFile) {
+        this.resultFile = resultFile;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+}
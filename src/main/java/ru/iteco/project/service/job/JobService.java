@@ -0,0 +1,336 @@
+package ru.iteco.project.service.job;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import ru.iteco.project.controller.dto.JobDtoResponse;
+import ru.iteco.project.controller.dto.UserDtoRequest;
+import ru.iteco.project.exception.JobCancelledException;
+import ru.iteco.project.exception.JobRejectedException;
+import ru.iteco.project.service.UserService;
+import ru.iteco.project.service.UserStatusService;
+import ru.iteco.project.service.export.ExportFormat;
+import ru.iteco.project.service.export.ExportService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static ru.iteco.project.service.mappers.DateTimeMapper.objectToString;
+
+/**
+ * Сервис фоновых заданий. Длительные пакетные операции (импорт, удаление, выгрузка) выполняются в отдельном
+ * ограниченном пуле потоков, а не в потоке HTTP запроса: запрос ставит задание в очередь и сразу получает его id,
+ * после чего клиент опрашивает состояние задания и при необходимости отменяет его.
+ * Завершенные задания хранятся в памяти в течение job.retention.minutes минут
+ */
+@Service
+@PropertySource(value = {"classpath:errors.properties"})
+public class JobService {
+
+    private static final Logger log = LogManager.getLogger(JobService.class.getName());
+
+    /*** Количество одновременно выполняющихся фоновых заданий */
+    @Value("${job.executor.concurrency:2}")
+    private int concurrency;
+
+    /*** Максимальное количество заданий, ожидающих выполнения */
+    @Value("${job.executor.queue-capacity:50}")
+    private int queueCapacity;
+
+    /*** Время хранения завершенных заданий (в минутах) */
+    @Value("${job.retention.minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${errors.job.rejected}")
+    private String jobRejectedMessage;
+
+    /*** Пул потоков фоновых заданий, отдельный от пула потоков веб-сервера */
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    /*** Задания по их id */
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+    /*** Объект сервисного слоя пользователей */
+    private final UserService userService;
+
+    /*** Объект сервисного слоя статусов пользователей */
+    private final UserStatusService userStatusService;
+
+    /*** Сервис потоковой выгрузки данных */
+    private final ExportService exportService;
+
+
+    public JobService(UserService userService, UserStatusService userStatusService, ExportService exportService) {
+        this.userService = userService;
+        this.userStatusService = userStatusService;
+        this.exportService = exportService;
+    }
+
+
+    @PostConstruct
+    public void init() {
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("job-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(Job::cancel);
+        executor.shutdown();
+    }
+
+
+    /**
+     * Метод ставит в очередь задание пакетного добавления пользователей
+     *
+     * @param userDtoRequestList - список пользователей
+     * @return - объект JobDtoResponse с id и состоянием задания
+     */
+    public JobDtoResponse submitUserImport(List<UserDtoRequest> userDtoRequestList) {
+        return submit(JobType.USER_IMPORT, job -> {
+            job.setTotal((long) userDtoRequestList.size());
+            job.checkCancelled();
+            Object result = userService.createBundleUsers(userDtoRequestList);
+            job.progress(userDtoRequestList.size());
+            return result;
+        });
+    }
+
+    /**
+     * Метод ставит в очередь задание удаления статуса пользователей вместе со всеми пользователями в этом статусе
+     *
+     * @param userStatusId - id статуса пользователей
+     * @return - объект JobDtoResponse с id и состоянием задания
+     */
+    public JobDtoResponse submitUserStatusDeletion(UUID userStatusId) {
+        return submit(JobType.USER_STATUS_DELETE, job -> {
+            job.checkCancelled();
+            return userStatusService.deleteUserStatus(userStatusId);
+        });
+    }
+
+    /**
+     * Метод ставит в очередь задание выгрузки данных во временный файл
+     *
+     * @param type   - тип выгрузки: USER_EXPORT, TASK_EXPORT или CONTRACT_EXPORT
+     * @param format - формат выгрузки
+     * @return - объект JobDtoResponse с id и состоянием задания
+     */
+    public JobDtoResponse submitExport(JobType type, ExportFormat format) {
+        return submit(type, job -> {
+            Path file = Files.createTempFile("export-" + job.getId() + "-", "." + format.getExtension());
+            job.setResultFile(file);
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+                switch (type) {
+                    case USER_EXPORT:
+                        return exportService.exportUsers(outputStream, format, job::progress);
+                    case TASK_EXPORT:
+                        return exportService.exportTasks(outputStream, format, job::progress);
+                    case CONTRACT_EXPORT:
+                        return exportService.exportContracts(outputStream, format, job::progress);
+                    default:
+                        throw new IllegalArgumentException("job type " + type + " is not an export");
+                }
+            }
+        });
+    }
+
+    /**
+     * Метод возвращает состояние задания
+     *
+     * @param id - id задания
+     * @return - объект JobDtoResponse или null, если задание не найдено
+     */
+    public JobDtoResponse getJob(UUID id) {
+        purgeExpiredJobs();
+        Job job = jobs.get(id);
+        return (job == null) ? null : toDto(job);
+    }
+
+    /**
+     * Метод возвращает состояние всех заданий, начиная с последних поставленных в очередь
+     *
+     * @return - список JobDtoResponse
+     */
+    public List<JobDtoResponse> getAllJobs() {
+        purgeExpiredJobs();
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(Job::getCreatedAt).reversed())
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Метод отмены задания. Задание из очереди отменяется сразу, выполняющееся задание прерывается
+     * в ближайшей точке проверки (между пачками выгрузки или этапами обработки)
+     *
+     * @param id - id задания
+     * @return - объект JobDtoResponse с состоянием задания или null, если задание не найдено
+     */
+    public JobDtoResponse cancelJob(UUID id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        if (job.cancel() && (job.getStatus() == JobStatus.CANCELLED)) {
+            deleteResultFile(job);
+        }
+        return toDto(job);
+    }
+
+    /**
+     * Метод возвращает файл с результатом успешно завершенного задания выгрузки
+     *
+     * @param id - id задания
+     * @return - путь к файлу или null, если задание не найдено, не завершено или не формирует файл
+     */
+    public Path getResultFile(UUID id) {
+        Job job = jobs.get(id);
+        if ((job == null) || (job.getStatus() != JobStatus.COMPLETED)) {
+            return null;
+        }
+        return job.getResultFile();
+    }
+
+
+    /**
+     * Метод регистрирует задание и ставит его в очередь пула потоков
+     *
+     * @param type - тип задания
+     * @param work - код задания
+     * @return - объект JobDtoResponse с id и состоянием задания
+     */
+    private JobDtoResponse submit(JobType type, JobWork work) {
+        purgeExpiredJobs();
+        Job job = new Job(type);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, work)));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            log.warn("job {} of type {} rejected: queue is full", job.getId(), type);
+            throw new JobRejectedException(jobRejectedMessage, e);
+        }
+        log.info("job {} of type {} queued", job.getId(), type);
+        return toDto(job);
+    }
+
+    /**
+     * Метод выполняет задание в потоке пула и фиксирует результат его выполнения
+     *
+     * @param job  - задание
+     * @param work - код задания
+     */
+    private void run(Job job, JobWork work) {
+        if (!job.start()) {
+            return;
+        }
+        log.info("job {} of type {} started", job.getId(), job.getType());
+        try {
+            Object result = work.run(job);
+            job.finish(JobStatus.COMPLETED, result, null);
+            log.info("job {} of type {} completed, {} rows processed", job.getId(), job.getType(), job.getProcessed());
+        } catch (JobCancelledException e) {
+            job.finish(JobStatus.CANCELLED, null, null);
+            deleteResultFile(job);
+            log.info("job {} of type {} cancelled", job.getId(), job.getType());
+        } catch (Exception e) {
+            job.finish(JobStatus.FAILED, null, e.getLocalizedMessage());
+            deleteResultFile(job);
+            log.error("job " + job.getId() + " of type " + job.getType() + " failed", e);
+        }
+    }
+
+    /**
+     * Метод удаляет из памяти задания, завершенные более retentionMinutes минут назад, вместе с их файлами
+     */
+    private void purgeExpiredJobs() {
+        LocalDateTime expiration = LocalDateTime.now().minusMinutes(retentionMinutes);
+        List<Job> expired = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            if (job.getStatus().isFinished() && job.getFinishedAt().isBefore(expiration)) {
+                expired.add(job);
+            }
+        }
+        for (Job job : expired) {
+            jobs.remove(job.getId());
+            deleteResultFile(job);
+        }
+    }
+
+    /**
+     * Метод удаляет файл с результатом задания, если он был создан
+     *
+     * @param job - задание
+     */
+    private void deleteResultFile(Job job) {
+        Path file = job.getResultFile();
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("unable to delete result file {} of job {}", file, job.getId());
+            }
+        }
+    }
+
+    /**
+     * Метод формирует dto задания
+     *
+     * @param job - задание
+     * @return - объект JobDtoResponse
+     */
+    private JobDtoResponse toDto(Job job) {
+        JobDtoResponse jobDtoResponse = new JobDtoResponse();
+        jobDtoResponse.setId(job.getId());
+        jobDtoResponse.setType(job.getType());
+        jobDtoResponse.setStatus(job.getStatus());
+        jobDtoResponse.setProcessed(job.getProcessed());
+        jobDtoResponse.setTotal(job.getTotal());
+        jobDtoResponse.setCancelRequested(job.isCancelRequested());
+        jobDtoResponse.setCreatedAt(objectToString(job.getCreatedAt()));
+        jobDtoResponse.setStartedAt(objectToString(job.getStartedAt()));
+        jobDtoResponse.setFinishedAt(objectToString(job.getFinishedAt()));
+        jobDtoResponse.setResult(job.getResult());
+        jobDtoResponse.setResultFileAvailable((job.getStatus() == JobStatus.COMPLETED) && (job.getResultFile() != null));
+        jobDtoResponse.setError(job.getError());
+        return jobDtoResponse;
+    }
+
+
+    /**
+     * Код фонового задания
+     */
+    @FunctionalInterface
+    interface JobWork {
+
+        /**
+         * Метод выполняет задание
+         *
+         * @param job - выполняемое задание, используется для отчета о ходе выполнения и проверки отмены
+         * @return - результат выполнения
+         * @throws Exception - ошибка выполнения задания
+         */
+        Object run(Job job) throws Exception;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.iteco.project.service.job;
+
+/**
+ * Состояния фонового задания
+ */
+public enum JobStatus {
+    /*** Задание ожидает в очереди */
+    QUEUED,
+    /*** Задание выполняется */
+    RUNNING,
+    /*** Задание успешно завершено */
+    COMPLETED,
+    /*** Задание завершилось с ошибкой */
+    FAILED,
+    /*** Задание отменено */
+    CANCELLED;
+
+    /**
+     * Метод проверяет, завершено ли задание
+     *
+     * @return - true - задание завершено (успешно, с ошибкой или отменено)
+     */
+    public boolean isFinished() {
+        return (this == COMPLETED) || (this == FAILED) || (this == CANCELLED);
+    }
+}
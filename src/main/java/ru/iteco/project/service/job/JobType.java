@@ -0,0 +1,17 @@
+package ru.iteco.project.service.job;
+
+/**
+ * Типы фоновых заданий
+ */
+public enum JobType {
+    /*** Пакетное добавление пользователей */
+    USER_IMPORT,
+    /*** Удаление статуса пользователей вместе со всеми пользователями в этом статусе */
+    USER_STATUS_DELETE,
+    /*** Выгрузка всех пользователей */
+    USER_EXPORT,
+    /*** Выгрузка всех заданий */
+    TASK_EXPORT,
+    /*** Выгрузка всех договоров */
+    CONTRACT_EXPORT
+}
@@ -6,14 +6,13 @@ import org.springframework.stereotype.Service;
 import ru.iteco.project.controller.dto.ContractDtoRequest;
 import ru.iteco.project.controller.dto.ContractDtoResponse;
 import ru.iteco.project.domain.Contract;
+import ru.iteco.project.domain.ContractStatus;
 import ru.iteco.project.domain.Task;
 import ru.iteco.project.domain.TaskStatus;
 import ru.iteco.project.exception.InvalidContractStatusException;
 import ru.iteco.project.exception.InvalidTaskStatusException;
-import ru.iteco.project.repository.ContractStatusRepository;
-import ru.iteco.project.repository.TaskStatusRepository;
+import ru.iteco.project.service.dictionary.DictionaryCache;
 
-import java.util.Optional;
 import java.util.UUID;
 
 import static ru.iteco.project.domain.ContractStatus.ContractStatusEnum.PAID;
@@ -32,16 +31,12 @@ public class ContractDtoEntityMapper implements DtoEntityMapper<Contract, Contra
     @Value("${errors.task.status.invalid}")
     private String taskStatusIsInvalidMessage;
 
-    /*** Объект доступа к репозиторию статусов контрактов */
-    private final ContractStatusRepository contractStatusRepository;
+    /*** Кэш справочников статусов и ролей */
+    private final DictionaryCache dictionaryCache;
 
-    /*** Объект доступа к репозиторию статусов заданий */
-    private final TaskStatusRepository taskStatusRepository;
 
-
-    public ContractDtoEntityMapper(ContractStatusRepository contractStatusRepository, TaskStatusRepository taskStatusRepository) {
-        this.contractStatusRepository = contractStatusRepository;
-        this.taskStatusRepository = taskStatusRepository;
+    public ContractDtoEntityMapper(DictionaryCache dictionaryCache) {
+        this.dictionaryCache = dictionaryCache;
     }
 
     @Override
@@ -63,8 +58,7 @@ public class ContractDtoEntityMapper implements DtoEntityMapper<Contract, Contra
         Contract contract = new Contract();
         if (requestDto != null) {
             contract.setId(UUID.randomUUID());
-            contract.setContractStatus(contractStatusRepository.findContractStatusByValue(PAID.name())
-                    .orElseThrow(() -> new InvalidContractStatusException(invalidContractStatusMessage)));
+            contract.setContractStatus(requireContractStatus(dictionaryCache.getContractStatus(PAID)));
         }
         return contract;
     }
@@ -79,8 +73,7 @@ public class ContractDtoEntityMapper implements DtoEntityMapper<Contract, Contra
     public void requestDtoToEntity(ContractDtoRequest requestDto, Contract contract, String role) {
         if (requestDto != null) {
             if (CUSTOMER.name().equals(role)) {
-                contract.setContractStatus(contractStatusRepository.findContractStatusByValue(requestDto.getContractStatus())
-                        .orElseThrow(() -> new InvalidContractStatusException(invalidContractStatusMessage)));
+                contract.setContractStatus(requireContractStatus(dictionaryCache.getContractStatus(requestDto.getContractStatus())));
             }
         }
     }
@@ -92,13 +85,23 @@ public class ContractDtoEntityMapper implements DtoEntityMapper<Contract, Contra
      * @param taskStatusEnum - объект перечисления статусов заданий
      */
     public void updateTaskStatus(Task task, TaskStatus.TaskStatusEnum taskStatusEnum) {
-        Optional<TaskStatus> taskStatusByValue = taskStatusRepository.findTaskStatusByValue(taskStatusEnum.name());
-        TaskStatus taskStatus = taskStatusByValue
-                .orElseThrow(() -> new InvalidTaskStatusException(taskStatusIsInvalidMessage));
+        TaskStatus taskStatus = dictionaryCache.getTaskStatus(taskStatusEnum);
+        if (taskStatus == null) {
+            throw new InvalidTaskStatusException(taskStatusIsInvalidMessage);
+        }
         task.setTaskStatus(taskStatus);
     }
 
-    public ContractStatusRepository getContractStatusRepository() {
-        return contractStatusRepository;
+    /**
+     * Метод проверяет что статус договора найден в справочнике
+     *
+     * @param contractStatus - сущность статуса договора или null
+     * @return - переданная сущность статуса договора
+     */
+    private ContractStatus requireContractStatus(ContractStatus contractStatus) {
+        if (contractStatus == null) {
+            throw new InvalidContractStatusException(invalidContractStatusMessage);
+        }
+        return contractStatus;
     }
 }
@@ -4,19 +4,65 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Service;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+/**
+ * Сервис преобразования даты и времени в строку установленного формата и обратно.
+ * Форматтеры создаются один раз при установке формата (DateTimeFormatter неизменяем и потокобезопасен).
+ * Для формата yyyy-MM-dd HH:mm:ss используется быстрый путь без DateTimeFormatter: строка собирается
+ * в переиспользуемом буфере потока, разбор выполняется по фиксированным позициям символов.
+ * Кроме установленного формата при разборе принимаются дополнительные форматы format.date.input
+ */
 @Service
 @PropertySource(value = {"classpath:application.yml"})
 public class DateTimeMapper {
 
-    /*** Установленный формат даты и времени*/
-    private static String formatDateTime;
+    /*** Формат даты и времени с быстрым путем преобразования */
+    static final String FIXED_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    /*** Длина строки в формате FIXED_FORMAT */
+    private static final int FIXED_LENGTH = FIXED_FORMAT.length();
+
+    /*** Переиспользуемый буфер потока для формирования строки в формате FIXED_FORMAT */
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[FIXED_LENGTH]);
+
+    /*** Признак того, что установленный формат совпадает с FIXED_FORMAT */
+    private static volatile boolean fixedFormat = true;
+
+    /*** Форматтер установленного формата */
+    private static volatile DateTimeFormatter formatter = DateTimeFormatter.ofPattern(FIXED_FORMAT);
+
+    /*** Форматтеры дополнительных форматов, принимаемых при разборе строки */
+    private static volatile List<DateTimeFormatter> inputFormatters = Collections.emptyList();
 
     @Value("${format.date.time}")
     public void setFormatDateTime(String formatDateTime) {
-        DateTimeMapper.formatDateTime = formatDateTime;
+        DateTimeMapper.formatter = DateTimeFormatter.ofPattern(formatDateTime);
+        DateTimeMapper.fixedFormat = FIXED_FORMAT.equals(formatDateTime);
+    }
+
+    @Value("${format.date.input:}")
+    public void setInputFormats(String[] inputFormats) {
+        List<DateTimeFormatter> formatters = new ArrayList<>();
+        for (String inputFormat : inputFormats) {
+            if (!inputFormat.trim().isEmpty()) {
+                formatters.add(new DateTimeFormatterBuilder()
+                        .appendPattern(inputFormat.trim())
+                        .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+                        .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+                        .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+                        .toFormatter());
+            }
+        }
+        DateTimeMapper.inputFormatters = Collections.unmodifiableList(formatters);
     }
 
 
@@ -29,22 +75,132 @@ public class DateTimeMapper {
     public static String objectToString(LocalDateTime localDateTime) {
         String dateTimeStr = "";
         if (localDateTime != null) {
-            dateTimeStr = localDateTime.format(DateTimeFormatter.ofPattern(formatDateTime));
+            if (fixedFormat && (localDateTime.getYear() > 0) && (localDateTime.getYear() <= 9999)) {
+                dateTimeStr = formatFixed(localDateTime);
+            } else {
+                dateTimeStr = localDateTime.format(formatter);
+            }
         }
         return dateTimeStr;
     }
 
     /**
-     * Метод конвертирует строковое, форматированное представление даты и времени в объект localDateTime
+     * Метод конвертирует строковое, форматированное представление даты и времени в объект localDateTime.
+     * Строка разбирается в установленном формате, при неудаче - в дополнительных форматах format.date.input
      *
      * @param dateTimeStr - строковое представление даты и времени в установленном формате (yyyy-MM-dd HH:mm:ss)
      * @return - объект LocalDateTime с заданным временем и датой
+     * @throws DateTimeParseException - строка не соответствует ни одному из форматов
      */
     public static LocalDateTime stringToObject(String dateTimeStr) {
         if (dateTimeStr != null) {
-            return LocalDateTime.parse(dateTimeStr, DateTimeFormatter.ofPattern(formatDateTime));
+            if (fixedFormat) {
+                LocalDateTime localDateTime = parseFixed(dateTimeStr);
+                if (localDateTime != null) {
+                    return localDateTime;
+                }
+            }
+            try {
+                return LocalDateTime.parse(dateTimeStr, formatter);
+            } catch (DateTimeParseException e) {
+                for (DateTimeFormatter inputFormatter : inputFormatters) {
+                    try {
+                        return LocalDateTime.parse(dateTimeStr, inputFormatter);
+                    } catch (DateTimeParseException ignored) {
+                        // пробуем следующий формат
+                    }
+                }
+                throw e;
+            }
         }
         return null;
     }
 
+    /**
+     * Метод формирует строку в формате yyyy-MM-dd HH:mm:ss без использования DateTimeFormatter
+     *
+     * @param localDateTime - объект LocalDateTime с годом от 1 до 9999
+     * @return - строковое представление даты и времени
+     */
+    private static String formatFixed(LocalDateTime localDateTime) {
+        char[] buffer = BUFFER.get();
+        int year = localDateTime.getYear();
+        buffer[0] = (char) ('0' + year / 1000);
+        buffer[1] = (char) ('0' + year / 100 % 10);
+        buffer[2] = (char) ('0' + year / 10 % 10);
+        buffer[3] = (char) ('0' + year % 10);
+        buffer[4] = '-';
+        writeTwoDigits(buffer, 5, localDateTime.getMonthValue());
+        buffer[7] = '-';
+        writeTwoDigits(buffer, 8, localDateTime.getDayOfMonth());
+        buffer[10] = ' ';
+        writeTwoDigits(buffer, 11, localDateTime.getHour());
+        buffer[13] = ':';
+        writeTwoDigits(buffer, 14, localDateTime.getMinute());
+        buffer[16] = ':';
+        writeTwoDigits(buffer, 17, localDateTime.getSecond());
+        return new String(buffer, 0, FIXED_LENGTH);
+    }
+
+    /**
+     * Метод разбирает строку в формате yyyy-MM-dd HH:mm:ss по фиксированным позициям символов
+     *
+     * @param dateTimeStr - строковое представление даты и времени
+     * @return - объект LocalDateTime или null, если строка не соответствует формату или содержит недопустимую
+     * дату (такая строка разбирается форматтером, который формирует ошибку или корректирует дату)
+     */
+    private static LocalDateTime parseFixed(String dateTimeStr) {
+        if ((dateTimeStr.length() != FIXED_LENGTH)
+                || (dateTimeStr.charAt(4) != '-') || (dateTimeStr.charAt(7) != '-') || (dateTimeStr.charAt(10) != ' ')
+                || (dateTimeStr.charAt(13) != ':') || (dateTimeStr.charAt(16) != ':')) {
+            return null;
+        }
+        int year = readDigits(dateTimeStr, 0, 4);
+        int month = readDigits(dateTimeStr, 5, 2);
+        int day = readDigits(dateTimeStr, 8, 2);
+        int hour = readDigits(dateTimeStr, 11, 2);
+        int minute = readDigits(dateTimeStr, 14, 2);
+        int second = readDigits(dateTimeStr, 17, 2);
+        if ((year <= 0) || (month < 0) || (day < 0) || (hour < 0) || (minute < 0) || (second < 0)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Метод записывает в буфер число от 0 до 99 двумя цифрами
+     *
+     * @param buffer - буфер
+     * @param offset - позиция первой цифры
+     * @param value  - число
+     */
+    private static void writeTwoDigits(char[] buffer, int offset, int value) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    /**
+     * Метод читает из строки неотрицательное число из заданного количества цифр
+     *
+     * @param str    - строка
+     * @param offset - позиция первой цифры
+     * @param length - количество цифр
+     * @return - число или -1, если в указанных позициях есть символ, отличный от цифры
+     */
+    private static int readDigits(String str, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = str.charAt(i);
+            if ((c < '0') || (c > '9')) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
 }
@@ -5,9 +5,11 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Service;
 import ru.iteco.project.controller.dto.TaskDtoRequest;
 import ru.iteco.project.controller.dto.TaskDtoResponse;
+import ru.iteco.project.domain.Money;
 import ru.iteco.project.domain.Task;
+import ru.iteco.project.domain.TaskStatus;
 import ru.iteco.project.exception.InvalidTaskStatusException;
-import ru.iteco.project.repository.TaskStatusRepository;
+import ru.iteco.project.service.dictionary.DictionaryCache;
 
 import java.util.UUID;
 
@@ -25,12 +27,12 @@ public class TaskDtoEntityMapper implements DtoEntityMapper<Task, TaskDtoRequest
     @Value("${errors.task.status.invalid}")
     private String invalidTaskStatusMessage;
 
-    /*** Объект доступа к репозиторию статусов заданий */
-    private final TaskStatusRepository taskStatusRepository;
+    /*** Кэш справочников статусов и ролей */
+    private final DictionaryCache dictionaryCache;
 
 
-    public TaskDtoEntityMapper(TaskStatusRepository taskStatusRepository) {
-        this.taskStatusRepository = taskStatusRepository;
+    public TaskDtoEntityMapper(DictionaryCache dictionaryCache) {
+        this.dictionaryCache = dictionaryCache;
     }
 
     @Override
@@ -44,7 +46,7 @@ public class TaskDtoEntityMapper implements DtoEntityMapper<Task, TaskDtoRequest
             taskDtoResponse.setCreatedAt(DateTimeMapper.objectToString(entity.getCreatedAt()));
             taskDtoResponse.setTaskCompletionDate(DateTimeMapper.objectToString(entity.getTaskCompletionDate()));
             taskDtoResponse.setUpdatedAt(DateTimeMapper.objectToString(entity.getUpdatedAt()));
-            taskDtoResponse.setPrice(entity.getPrice());
+            taskDtoResponse.setPrice(entity.getPrice().toBigDecimal());
             taskDtoResponse.setTaskStatus(entity.getTaskStatus().getValue());
             taskDtoResponse.setTaskDecision(entity.getTaskDecision());
             if (entity.getExecutor() != null) {
@@ -63,10 +65,9 @@ public class TaskDtoEntityMapper implements DtoEntityMapper<Task, TaskDtoRequest
             task.setTitle(requestDto.getName());
             task.setDescription(requestDto.getDescription());
             task.setTaskCompletionDate(DateTimeMapper.stringToObject(requestDto.getTaskCompletionDate()));
-            task.setPrice(requestDto.getPrice());
+            task.setPrice(Money.of(requestDto.getPrice()));
 
-            task.setTaskStatus(taskStatusRepository.findTaskStatusByValue(REGISTERED.name())
-                    .orElseThrow(() -> new InvalidTaskStatusException(invalidTaskStatusMessage)));
+            task.setTaskStatus(requireTaskStatus(dictionaryCache.getTaskStatus(REGISTERED)));
             task.setTaskDecision(requestDto.getTaskDecision());
         }
 
@@ -86,20 +87,27 @@ public class TaskDtoEntityMapper implements DtoEntityMapper<Task, TaskDtoRequest
                 task.setTitle(requestDto.getName());
                 task.setDescription(requestDto.getDescription());
                 task.setTaskCompletionDate(DateTimeMapper.stringToObject(requestDto.getTaskCompletionDate()));
-                task.setPrice(requestDto.getPrice());
+                task.setPrice(Money.of(requestDto.getPrice()));
                 if (requestDto.getTaskStatus() != null) {
-                    task.setTaskStatus(taskStatusRepository.findTaskStatusByValue(requestDto.getTaskStatus())
-                            .orElseThrow(() -> new InvalidTaskStatusException(invalidTaskStatusMessage)));
+                    task.setTaskStatus(requireTaskStatus(dictionaryCache.getTaskStatus(requestDto.getTaskStatus())));
                 }
             } else if (isEqualsUserRole(EXECUTOR, role)) {
                 task.setTaskDecision(requestDto.getTaskDecision());
-                task.setTaskStatus(taskStatusRepository.findTaskStatusByValue(ON_CHECK.name())
-                        .orElseThrow(() -> new InvalidTaskStatusException(invalidTaskStatusMessage)));
+                task.setTaskStatus(requireTaskStatus(dictionaryCache.getTaskStatus(ON_CHECK)));
             }
         }
     }
 
-    public TaskStatusRepository getTaskStatusRepository() {
-        return taskStatusRepository;
+    /**
+     * Метод проверяет что статус задания найден в справочнике
+     *
+     * @param taskStatus - сущность статуса задания или null
+     * @return - переданная сущность статуса задания
+     */
+    private TaskStatus requireTaskStatus(TaskStatus taskStatus) {
+        if (taskStatus == null) {
+            throw new InvalidTaskStatusException(invalidTaskStatusMessage);
+        }
+        return taskStatus;
     }
 }
@@ -4,16 +4,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.iteco.project.controller.dto.UserDtoRequest;
 import ru.iteco.project.controller.dto.UserDtoResponse;
+import ru.iteco.project.domain.Money;
 import ru.iteco.project.domain.User;
+import ru.iteco.project.domain.UserRole;
 import ru.iteco.project.domain.UserStatus;
 import ru.iteco.project.exception.InvalidUserRoleException;
 import ru.iteco.project.exception.InvalidUserStatusException;
 import ru.iteco.project.repository.TaskRepository;
-import ru.iteco.project.repository.UserRoleRepository;
-import ru.iteco.project.repository.UserStatusRepository;
+import ru.iteco.project.service.dictionary.DictionaryCache;
 
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Класс маппер для сущности User
@@ -24,11 +25,8 @@ public class UserDtoEntityMapper implements DtoEntityMapper<User, UserDtoRequest
     /*** Объект доступа к репозиторию заданий */
     private final TaskRepository taskRepository;
 
-    /*** Объект доступа к репозиторию ролей пользователей */
-    private final UserRoleRepository userRoleRepository;
-
-    /*** Объект доступа к репозиторию статусов пользователей */
-    private final UserStatusRepository userStatusRepository;
+    /*** Кэш справочников статусов и ролей */
+    private final DictionaryCache dictionaryCache;
 
     @Value("${errors.user.role.operation.unavailable}")
     private String unavailableOperationMessage;
@@ -40,15 +38,24 @@ public class UserDtoEntityMapper implements DtoEntityMapper<User, UserDtoRequest
     private String userStatusIsInvalidMessage;
 
 
-    public UserDtoEntityMapper(TaskRepository taskRepository, UserRoleRepository userRoleRepository,
-                               UserStatusRepository userStatusRepository) {
+    public UserDtoEntityMapper(TaskRepository taskRepository, DictionaryCache dictionaryCache) {
         this.taskRepository = taskRepository;
-        this.userRoleRepository = userRoleRepository;
-        this.userStatusRepository = userStatusRepository;
+        this.dictionaryCache = dictionaryCache;
     }
 
     @Override
     public UserDtoResponse entityToResponseDto(User entity) {
+        return entityToResponseDto(entity, prefetchTasksIds(Collections.singletonList(entity)));
+    }
+
+    /**
+     * Метод преобразует entity в response, используя заранее полученные идентификаторы заданий пользователей
+     *
+     * @param entity          - модель данных, хранимая в БД
+     * @param tasksIdsByUsers - справочник id пользователя -> список id его заданий (см. prefetchTasksIds)
+     * @return - объект dto содержащий данные для отображения информации на фронте
+     */
+    public UserDtoResponse entityToResponseDto(User entity, Map<UUID, List<UUID>> tasksIdsByUsers) {
         final UserDtoResponse userDtoResponse = new UserDtoResponse();
         if (entity != null) {
             userDtoResponse.setId(entity.getId());
@@ -60,15 +67,38 @@ public class UserDtoEntityMapper implements DtoEntityMapper<User, UserDtoRequest
             userDtoResponse.setLogin(entity.getLogin());
             userDtoResponse.setRole(entity.getRole().getValue());
             userDtoResponse.setUserStatus(entity.getUserStatus().getValue());
-            userDtoResponse.setWallet(entity.getWallet());
+            userDtoResponse.setWallet(entity.getWallet().toBigDecimal());
             userDtoResponse.setCreatedAt(DateTimeMapper.objectToString(entity.getCreatedAt()));
             userDtoResponse.setUpdatedAt(DateTimeMapper.objectToString(entity.getUpdatedAt()));
-            taskRepository.findTasksByUser(entity)
-                    .forEach(task -> userDtoResponse.getTasksIdList().add(task.getId()));
+            userDtoResponse.getTasksIdList().addAll(tasksIdsByUsers.getOrDefault(entity.getId(), Collections.emptyList()));
         }
         return userDtoResponse;
     }
 
+    /**
+     * Метод преобразует коллекцию entity в список response. Идентификаторы заданий всех пользователей
+     * запрашиваются единовременно, а не отдельным запросом на каждого пользователя
+     *
+     * @param entities - коллекция моделей данных, хранимых в БД
+     * @return - список объектов dto в порядке исходной коллекции
+     */
+    public List<UserDtoResponse> entitiesToResponseDtoList(Collection<User> entities) {
+        Map<UUID, List<UUID>> tasksIdsByUsers = prefetchTasksIds(entities);
+        return entities.stream()
+                .map(user -> entityToResponseDto(user, tasksIdsByUsers))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Метод получает идентификаторы заданий для всех переданных пользователей фиксированным количеством запросов
+     *
+     * @param users - коллекция сущностей пользователей
+     * @return - справочник id пользователя -> список id его заданий
+     */
+    public Map<UUID, List<UUID>> prefetchTasksIds(Collection<User> users) {
+        return taskRepository.findTasksIdsByUsers(users);
+    }
+
 
     @Override
     public User requestDtoToEntity(UserDtoRequest requestDto) {
@@ -82,11 +112,17 @@ public class UserDtoEntityMapper implements DtoEntityMapper<User, UserDtoRequest
             user.setPassword(requestDto.getPassword());
             user.setEmail(requestDto.getEmail());
             user.setPhoneNumber(requestDto.getPhoneNumber());
-            user.setRole(userRoleRepository.findUserRoleByValue(requestDto.getRole())
-                    .orElseThrow(() -> new InvalidUserRoleException(userRoleIsInvalidMessage)));
-            user.setUserStatus(userStatusRepository.findUserStatusByValue(requestDto.getUserStatus())
-                    .orElseThrow(() -> new InvalidUserStatusException(unavailableOperationMessage)));
-            user.setWallet(requestDto.getWallet());
+            UserRole userRole = dictionaryCache.getUserRole(requestDto.getRole());
+            if (userRole == null) {
+                throw new InvalidUserRoleException(userRoleIsInvalidMessage);
+            }
+            user.setRole(userRole);
+            UserStatus userStatus = dictionaryCache.getUserStatus(requestDto.getUserStatus());
+            if (userStatus == null) {
+                throw new InvalidUserStatusException(unavailableOperationMessage);
+            }
+            user.setUserStatus(userStatus);
+            user.setWallet(Money.of(requestDto.getWallet()));
         }
         return user;
     }
@@ -98,17 +134,11 @@ public class UserDtoEntityMapper implements DtoEntityMapper<User, UserDtoRequest
      * @param userStatusEnum - объект перечисления статусов пользователей
      */
     public void updateUserStatus(User user, UserStatus.UserStatusEnum userStatusEnum) {
-        Optional<UserStatus> userStatusByValue = userStatusRepository.findUserStatusByValue(userStatusEnum.name());
-        UserStatus userStatus = userStatusByValue
-                .orElseThrow(() -> new InvalidUserStatusException(userStatusIsInvalidMessage));
+        UserStatus userStatus = dictionaryCache.getUserStatus(userStatusEnum);
+        if (userStatus == null) {
+            throw new InvalidUserStatusException(userStatusIsInvalidMessage);
+        }
         user.setUserStatus(userStatus);
     }
 
-    public UserRoleRepository getUserRoleRepository() {
-        return userRoleRepository;
-    }
-
-    public UserStatusRepository getUserStatusRepository() {
-        return userStatusRepository;
-    }
 }
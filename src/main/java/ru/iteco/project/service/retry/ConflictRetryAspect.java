@@ -0,0 +1,148 @@
+package ru.iteco.project.service.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Аспект повтора методов, отмеченных аннотацией RetryOnConflict, при конфликте транзакций (см. ConflictType).
+ * Выполняется до начала транзакции метода (порядок выше, чем у перехватчика @Transactional), поэтому
+ * каждая попытка выполняется в новой транзакции. Пауза между попытками удваивается с каждой попыткой
+ * от transaction.retry.backoff.initial до transaction.retry.backoff.max миллисекунд, фактическая пауза
+ * выбирается случайно от половины до полной величины, чтобы конфликтующие транзакции не повторялись одновременно.
+ * Конфликты учитываются счетчиком transaction.conflict с тегами class, method, type и outcome:
+ * retried - попытка будет повторена, recovered - метод выполнен после повтора, exhausted - попытки исчерпаны.
+ * Количество попыток вызовов, потребовавших повтора, записывается в распределение transaction.retry.attempts.
+ * После исчерпания попыток конфликт передается вызывающей стороне как ConcurrencyFailureException
+ */
+@Aspect
+@Component
+@Order(ConflictRetryAspect.ORDER)
+public class ConflictRetryAspect {
+
+    private static final Logger log = LogManager.getLogger(ConflictRetryAspect.class.getName());
+
+    /*** Порядок аспекта: перед перехватчиком транзакций, имеющим порядок Ordered.LOWEST_PRECEDENCE */
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 100;
+
+    /*** Наименование счетчика конфликтов транзакций */
+    public static final String TRANSACTION_CONFLICT_COUNTER = "transaction.conflict";
+
+    /*** Наименование распределения количества попыток вызовов, потребовавших повтора */
+    public static final String TRANSACTION_RETRY_ATTEMPTS = "transaction.retry.attempts";
+
+    /*** Максимальное количество попыток выполнения метода, включая первую */
+    @Value("${transaction.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    /*** Пауза перед первым повтором (в миллисекундах) */
+    @Value("${transaction.retry.backoff.initial:20}")
+    private long initialBackoff;
+
+    /*** Максимальная пауза между повторами (в миллисекундах) */
+    @Value("${transaction.retry.backoff.max:500}")
+    private long maxBackoff;
+
+    /*** Реестр метрик */
+    private final MeterRegistry meterRegistry;
+
+
+    public ConflictRetryAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    @Around("@annotation(ru.iteco.project.service.retry.RetryOnConflict)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // откат внешней транзакции неизбежен, повтор внутри нее бесполезен
+            return joinPoint.proceed();
+        }
+        long backoff = initialBackoff;
+        ConflictType lastConflict = null;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                if (lastConflict != null) {
+                    counter(joinPoint, lastConflict, "recovered").increment();
+                    attempts(joinPoint).record(attempt);
+                }
+                return result;
+            } catch (RuntimeException e) {
+                ConflictType conflict = ConflictType.of(e);
+                if (conflict == null) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    counter(joinPoint, conflict, "exhausted").increment();
+                    attempts(joinPoint).record(attempt);
+                    log.warn("{} in {}, attempts exhausted: {}", conflict.tag(), joinPoint.getSignature().toShortString(), attempt);
+                    throw conflict.toConcurrencyFailure(e);
+                }
+                counter(joinPoint, conflict, "retried").increment();
+                lastConflict = conflict;
+                long pause = jitter(backoff);
+                log.debug("{} in {}, attempt {}, retry in {} ms", conflict.tag(), joinPoint.getSignature().toShortString(),
+                        attempt, pause);
+                pause(pause, conflict.toConcurrencyFailure(e));
+                backoff = Math.min(backoff * 2, maxBackoff);
+            }
+        }
+    }
+
+    /**
+     * Метод выбирает случайную паузу от половины до полной величины паузы
+     *
+     * @param backoff - величина паузы в миллисекундах
+     * @return - пауза в миллисекундах
+     */
+    private long jitter(long backoff) {
+        long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    /**
+     * Метод выдерживает паузу перед повтором
+     *
+     * @param millis   - длительность паузы в миллисекундах
+     * @param conflict - исключение конфликта, передаваемое вызывающей стороне при прерывании потока
+     */
+    private void pause(long millis, RuntimeException conflict) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private Counter counter(ProceedingJoinPoint joinPoint, ConflictType conflict, String outcome) {
+        return Counter.builder(TRANSACTION_CONFLICT_COUNTER)
+                .description("Conflicts of service transactions with concurrent transactions")
+                .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("type", conflict.tag())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary attempts(ProceedingJoinPoint joinPoint) {
+        return DistributionSummary.builder(TRANSACTION_RETRY_ATTEMPTS)
+                .description("Attempts of service transactions that had to be retried")
+                .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .register(meterRegistry);
+    }
+}
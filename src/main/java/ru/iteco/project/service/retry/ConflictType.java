@@ -0,0 +1,86 @@
+package ru.iteco.project.service.retry;
+
+import org.springframework.dao.CannotSerializeTransactionException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.sql.SQLException;
+
+/**
+ * Перечисление видов конфликтов транзакций, после которых транзакцию можно безопасно повторить
+ */
+public enum ConflictType {
+
+    /*** Запись изменена другой транзакцией после чтения (версия записи не совпала) */
+    OPTIMISTIC_LOCK,
+
+    /*** Транзакция SERIALIZABLE не может быть сериализована (SQLSTATE 40001) */
+    SERIALIZATION_FAILURE,
+
+    /*** Транзакция прервана при обнаружении взаимной блокировки (SQLSTATE 40P01) */
+    DEADLOCK;
+
+    /*** Код SQLSTATE ошибки сериализации */
+    private static final String SERIALIZATION_FAILURE_STATE = "40001";
+
+    /*** Код SQLSTATE взаимной блокировки */
+    private static final String DEADLOCK_DETECTED_STATE = "40P01";
+
+
+    /**
+     * Метод определяет вид конфликта по исключению. Ошибки сериализации и взаимной блокировки, возникающие
+     * в Hibernate, не всегда преобразуются Spring в ConcurrencyFailureException, поэтому дополнительно
+     * проверяется SQLSTATE исключений SQLException в цепочке причин
+     *
+     * @param e - исключение, прервавшее транзакцию
+     * @return - вид конфликта или null, если исключение не является конфликтом транзакций
+     */
+    public static ConflictType of(Throwable e) {
+        if (e instanceof OptimisticLockingFailureException) {
+            return OPTIMISTIC_LOCK;
+        }
+        if (e instanceof CannotSerializeTransactionException) {
+            return SERIALIZATION_FAILURE;
+        }
+        if (e instanceof DeadlockLoserDataAccessException) {
+            return DEADLOCK;
+        }
+        for (Throwable cause = e; cause != null; cause = (cause.getCause() == cause) ? null : cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+                if (SERIALIZATION_FAILURE_STATE.equals(sqlState)) {
+                    return SERIALIZATION_FAILURE;
+                } else if (DEADLOCK_DETECTED_STATE.equals(sqlState)) {
+                    return DEADLOCK;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Метод приводит исключение конфликта к ConcurrencyFailureException для единообразной обработки
+     * вызывающей стороной после исчерпания попыток
+     *
+     * @param e - исключение, прервавшее транзакцию
+     * @return - исходное исключение, если оно уже является ConcurrencyFailureException, иначе исключение,
+     * соответствующее виду конфликта, с исходным исключением в качестве причины
+     */
+    public RuntimeException toConcurrencyFailure(RuntimeException e) {
+        if (e instanceof ConcurrencyFailureException) {
+            return e;
+        }
+        if (this == DEADLOCK) {
+            return new DeadlockLoserDataAccessException(e.getMessage(), e);
+        }
+        return new CannotSerializeTransactionException(e.getMessage(), e);
+    }
+
+    /**
+     * @return - значение тега метрик
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
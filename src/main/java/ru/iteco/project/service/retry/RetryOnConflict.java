@@ -0,0 +1,20 @@
+package ru.iteco.project.service.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Аннотация метода сервиса, транзакция которого повторяется при конфликте с другими транзакциями:
+ * конфликте оптимистической блокировки, ошибке сериализации транзакции SERIALIZABLE или взаимной блокировке
+ * (см. ConflictType). Повтор выполняется аспектом ConflictRetryAspect вне транзакции метода, поэтому каждая
+ * попытка читает данные заново. Если метод вызван внутри уже начатой транзакции, повтор не выполняется
+ * и конфликт передается вызывающей стороне
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
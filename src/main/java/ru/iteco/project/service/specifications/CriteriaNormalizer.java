@@ -0,0 +1,427 @@
+package ru.iteco.project.service.specifications;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static ru.iteco.project.service.specifications.SearchOperations.*;
+
+/**
+ * Утилитарный класс нормализации дерева критериев поиска перед формированием спецификации:
+ * - отрицания групп (NOT) опускаются до ограничений по законам де Моргана (JoinOperations.negated(),
+ * SearchOperations.negated()), в нормализованном дереве признак negated не установлен ни у одного узла;
+ * - вложенные группы с той же операцией объединения, что и у родителя, а также группы из одного элемента
+ * поднимаются в родительскую группу, пустые группы отбрасываются;
+ * - ограничения по одному полю внутри группы AND объединяются: множества EQUAL / IN пересекаются,
+ * диапазоны сужаются до одного (BETWEEN, EQUAL при совпадении границ), NOT_EQUAL / NOT_IN объединяются в NOT_IN,
+ * противоречивые ограничения превращают группу в заведомо ложную;
+ * - ограничения по одному полю внутри группы OR объединяются: EQUAL / IN в один IN, односторонние диапазоны
+ * одного направления - в наиболее широкий;
+ * - повторяющиеся ограничения удаляются.
+ * Заведомо истинная группа - пустая группа AND, заведомо ложная - пустая группа OR
+ */
+public class CriteriaNormalizer {
+
+    /**
+     * Метод нормализации дерева критериев поиска
+     *
+     * @param criteriaObject - объект с критериями поиска, может быть null
+     * @return - новый нормализованный объект критериев поиска, исходный объект не изменяется
+     */
+    public static CriteriaObject normalize(CriteriaObject criteriaObject) {
+        CriteriaObject pushed = pushNegation(criteriaObject, false);
+        if (pushed == null) {
+            return alwaysTrue();
+        }
+        return simplify(pushed);
+    }
+
+    /**
+     * @return - true - узел нормализованного дерева заведомо истинен (ограничений нет)
+     */
+    public static boolean isTrue(CriteriaObject criteriaObject) {
+        return (criteriaObject.getJoinOperation() == JoinOperations.AND) && criteriaObject.isEmpty();
+    }
+
+    /**
+     * @return - true - узел нормализованного дерева заведомо ложен (ограничения противоречивы)
+     */
+    public static boolean isFalse(CriteriaObject criteriaObject) {
+        return (criteriaObject.getJoinOperation() == JoinOperations.OR) && criteriaObject.isEmpty();
+    }
+
+    /**
+     * Метод опускает отрицания узлов дерева до ограничений и отбрасывает пустые группы.
+     * Операция объединения, не заданная в запросе, считается OR
+     *
+     * @param criteriaObject - узел дерева критериев поиска
+     * @param negate         - признак отрицания, унаследованный от родительских узлов
+     * @return - копия узла без признаков отрицания, null - узел не содержит ограничений
+     */
+    private static CriteriaObject pushNegation(CriteriaObject criteriaObject, boolean negate) {
+        if ((criteriaObject == null) || criteriaObject.isEmpty()) {
+            return null;
+        }
+        boolean negated = negate ^ criteriaObject.isNegated();
+        JoinOperations joinOperation = (criteriaObject.getJoinOperation() == null)
+                ? JoinOperations.OR
+                : criteriaObject.getJoinOperation();
+
+        List<CriteriaObject.RestrictionValues> restrictions = new ArrayList<>();
+        if (criteriaObject.getRestrictions() != null) {
+            for (CriteriaObject.RestrictionValues restriction : criteriaObject.getRestrictions()) {
+                restrictions.add(negated ? restriction.negated() : restriction);
+            }
+        }
+        List<CriteriaObject> groups = new ArrayList<>();
+        if (criteriaObject.getGroups() != null) {
+            for (CriteriaObject group : criteriaObject.getGroups()) {
+                CriteriaObject pushed = pushNegation(group, negated);
+                if (pushed != null) {
+                    groups.add(pushed);
+                }
+            }
+        }
+        if (restrictions.isEmpty() && groups.isEmpty()) {
+            return null;
+        }
+        return new CriteriaObject(negated ? joinOperation.negated() : joinOperation, restrictions, groups, false);
+    }
+
+    /**
+     * Метод упрощения узла дерева без отрицаний: вычисление заведомо истинных и ложных групп,
+     * подъем вложенных групп и объединение ограничений по одному полю
+     *
+     * @param criteriaObject - узел дерева критериев поиска без признаков отрицания
+     * @return - упрощенный узел
+     */
+    private static CriteriaObject simplify(CriteriaObject criteriaObject) {
+        JoinOperations joinOperation = criteriaObject.getJoinOperation();
+        boolean and = joinOperation == JoinOperations.AND;
+        List<CriteriaObject.RestrictionValues> restrictions = new ArrayList<>(criteriaObject.getRestrictions());
+        List<CriteriaObject> groups = new ArrayList<>();
+
+        for (CriteriaObject group : criteriaObject.getGroups()) {
+            CriteriaObject simplified = simplify(group);
+            if (and ? isFalse(simplified) : isTrue(simplified)) {
+                return and ? alwaysFalse() : alwaysTrue();
+            }
+            if (and ? isTrue(simplified) : isFalse(simplified)) {
+                continue;
+            }
+            if ((simplified.getJoinOperation() == joinOperation)
+                    || (simplified.getRestrictions().size() + simplified.getGroups().size() == 1)) {
+                restrictions.addAll(simplified.getRestrictions());
+                groups.addAll(simplified.getGroups());
+            } else {
+                groups.add(simplified);
+            }
+        }
+
+        Map<String, List<CriteriaObject.RestrictionValues>> restrictionsByKey = new LinkedHashMap<>();
+        for (CriteriaObject.RestrictionValues restriction : restrictions) {
+            restrictionsByKey.computeIfAbsent(restriction.getKey(), key -> new ArrayList<>()).add(restriction);
+        }
+        List<CriteriaObject.RestrictionValues> merged = new ArrayList<>();
+        for (Map.Entry<String, List<CriteriaObject.RestrictionValues>> entry : restrictionsByKey.entrySet()) {
+            List<CriteriaObject.RestrictionValues> keyRestrictions = and
+                    ? mergeConjunction(entry.getKey(), entry.getValue())
+                    : mergeDisjunction(entry.getKey(), entry.getValue());
+            if (keyRestrictions == null) {
+                return alwaysFalse();
+            }
+            merged.addAll(keyRestrictions);
+        }
+
+        if (merged.isEmpty() && (groups.size() == 1)) {
+            return groups.get(0);
+        }
+        return new CriteriaObject(joinOperation, merged, groups, false);
+    }
+
+    /**
+     * Метод объединения ограничений по одному полю, соединенных операцией AND
+     *
+     * @param key          - наименование атрибута сущности
+     * @param restrictions - ограничения по атрибуту
+     * @return - объединенные ограничения, null - ограничения противоречивы
+     */
+    @SuppressWarnings("unchecked")
+    private static List<CriteriaObject.RestrictionValues> mergeConjunction(String key,
+                                                                           List<CriteriaObject.RestrictionValues> restrictions) {
+        Set<Object> allowed = null;
+        Set<Object> excluded = new LinkedHashSet<>();
+        Bound lower = null;
+        Bound upper = null;
+        Set<CriteriaObject.RestrictionValues> other = new LinkedHashSet<>();
+
+        for (CriteriaObject.RestrictionValues restriction : restrictions) {
+            SearchOperations operation = restriction.getSearchOperation();
+            if ((operation == EQUAL) || (operation == IN)) {
+                Collection<Object> values = values(restriction);
+                if (allowed == null) {
+                    allowed = new LinkedHashSet<>(values);
+                } else {
+                    allowed.retainAll(values);
+                }
+            } else if ((operation == NOT_EQUAL) || (operation == NOT_IN)) {
+                excluded.addAll(values(restriction));
+            } else if (isLowerBound(restriction)) {
+                lower = Bound.tighterLower(lower, lowerBound(restriction));
+                if (operation == BETWEEN) {
+                    upper = Bound.tighterUpper(upper, upperBound(restriction));
+                }
+            } else if (isUpperBound(restriction)) {
+                upper = Bound.tighterUpper(upper, upperBound(restriction));
+            } else {
+                other.add(restriction);
+            }
+        }
+
+        List<CriteriaObject.RestrictionValues> merged = new ArrayList<>();
+        if (allowed != null) {
+            List<Object> values = new ArrayList<>();
+            for (Object value : allowed) {
+                if (!excluded.contains(value) && Bound.accepts(lower, upper, value)) {
+                    values.add(value);
+                }
+            }
+            if (values.isEmpty()) {
+                return null;
+            }
+            merged.add(valuesRestriction(key, EQUAL, IN, values));
+        } else {
+            if ((lower != null) && (upper != null)) {
+                int compare = lower.value.compareTo(upper.value);
+                if ((compare > 0) || ((compare == 0) && !(lower.inclusive && upper.inclusive))) {
+                    return null;
+                }
+                if (compare == 0) {
+                    if (excluded.contains(lower.value)) {
+                        return null;
+                    }
+                    merged.add(new CriteriaObject.RestrictionValues<>(key, EQUAL, lower.value));
+                    excluded.clear();
+                } else if (lower.inclusive && upper.inclusive) {
+                    merged.add(new CriteriaObject.RestrictionValues<>(key, BETWEEN, lower.value, upper.value));
+                } else {
+                    merged.add(lower.toRestriction(key));
+                    merged.add(upper.toRestriction(key));
+                }
+            } else if (lower != null) {
+                merged.add(lower.toRestriction(key));
+            } else if (upper != null) {
+                merged.add(upper.toRestriction(key));
+            }
+            List<Object> values = new ArrayList<>();
+            for (Object value : excluded) {
+                if (Bound.accepts(lower, upper, value)) {
+                    values.add(value);
+                }
+            }
+            if (!values.isEmpty()) {
+                merged.add(valuesRestriction(key, NOT_EQUAL, NOT_IN, values));
+            }
+        }
+        merged.addAll(other);
+        return merged;
+    }
+
+    /**
+     * Метод объединения ограничений по одному полю, соединенных операцией OR
+     *
+     * @param key          - наименование атрибута сущности
+     * @param restrictions - ограничения по атрибуту
+     * @return - объединенные ограничения
+     */
+    private static List<CriteriaObject.RestrictionValues> mergeDisjunction(String key,
+                                                                           List<CriteriaObject.RestrictionValues> restrictions) {
+        Set<Object> allowed = new LinkedHashSet<>();
+        Bound lower = null;
+        Bound upper = null;
+        Set<CriteriaObject.RestrictionValues> other = new LinkedHashSet<>();
+
+        for (CriteriaObject.RestrictionValues restriction : restrictions) {
+            SearchOperations operation = restriction.getSearchOperation();
+            if ((operation == EQUAL) || (operation == IN)) {
+                allowed.addAll(values(restriction));
+            } else if ((operation != BETWEEN) && isLowerBound(restriction)) {
+                lower = Bound.looserLower(lower, lowerBound(restriction));
+            } else if (isUpperBound(restriction)) {
+                upper = Bound.looserUpper(upper, upperBound(restriction));
+            } else {
+                other.add(restriction);
+            }
+        }
+
+        List<CriteriaObject.RestrictionValues> merged = new ArrayList<>();
+        if (!allowed.isEmpty()) {
+            merged.add(valuesRestriction(key, EQUAL, IN, new ArrayList<>(allowed)));
+        }
+        if (lower != null) {
+            merged.add(lower.toRestriction(key));
+        }
+        if (upper != null) {
+            merged.add(upper.toRestriction(key));
+        }
+        merged.addAll(other);
+        return merged;
+    }
+
+    /**
+     * Метод получения значений ограничения EQUAL / NOT_EQUAL (одно значение) или IN / NOT_IN (коллекция значений)
+     */
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> values(CriteriaObject.RestrictionValues restriction) {
+        SearchOperations operation = restriction.getSearchOperation();
+        if ((operation == IN) || (operation == NOT_IN)) {
+            return (Collection<Object>) restriction.getTypedValue();
+        }
+        return Collections.singletonList(restriction.getTypedValue());
+    }
+
+    /**
+     * Метод формирования ограничения по множеству значений: одно значение - single, несколько - multiple
+     */
+    private static CriteriaObject.RestrictionValues valuesRestriction(String key, SearchOperations single,
+                                                                      SearchOperations multiple, List<Object> values) {
+        if (values.size() == 1) {
+            return new CriteriaObject.RestrictionValues<>(key, single, values.get(0));
+        }
+        return new CriteriaObject.RestrictionValues<>(key, multiple, values);
+    }
+
+    /**
+     * @return - true - ограничение задает нижнюю границу диапазона сравнимых значений (GT, GTE, BETWEEN)
+     */
+    private static boolean isLowerBound(CriteriaObject.RestrictionValues restriction) {
+        SearchOperations operation = restriction.getSearchOperation();
+        if (operation == BETWEEN) {
+            return (restriction.getTypedMinValue() instanceof Comparable)
+                    && (restriction.getTypedMaxValue() instanceof Comparable);
+        }
+        return ((operation == GREATER_THAN) || (operation == GREATER_THAN_OR_EQUAL))
+                && (restriction.getTypedValue() instanceof Comparable);
+    }
+
+    /**
+     * @return - true - ограничение задает верхнюю границу диапазона сравнимых значений (LT, LTE)
+     */
+    private static boolean isUpperBound(CriteriaObject.RestrictionValues restriction) {
+        SearchOperations operation = restriction.getSearchOperation();
+        return ((operation == LESS_THAN) || (operation == LESS_THAN_OR_EQUAL))
+                && (restriction.getTypedValue() instanceof Comparable);
+    }
+
+    private static Bound lowerBound(CriteriaObject.RestrictionValues restriction) {
+        if (restriction.getSearchOperation() == BETWEEN) {
+            return new Bound((Comparable) restriction.getTypedMinValue(), true, true);
+        }
+        return new Bound((Comparable) restriction.getTypedValue(),
+                restriction.getSearchOperation() == GREATER_THAN_OR_EQUAL, true);
+    }
+
+    private static Bound upperBound(CriteriaObject.RestrictionValues restriction) {
+        if (restriction.getSearchOperation() == BETWEEN) {
+            return new Bound((Comparable) restriction.getTypedMaxValue(), true, false);
+        }
+        return new Bound((Comparable) restriction.getTypedValue(),
+                restriction.getSearchOperation() == LESS_THAN_OR_EQUAL, false);
+    }
+
+    private static CriteriaObject alwaysTrue() {
+        return new CriteriaObject(JoinOperations.AND, new ArrayList<>(), new ArrayList<>(), false);
+    }
+
+    private static CriteriaObject alwaysFalse() {
+        return new CriteriaObject(JoinOperations.OR, new ArrayList<>(), new ArrayList<>(), false);
+    }
+
+
+    /**
+     * Граница диапазона сравнимых значений
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static class Bound {
+
+        /*** Значение границы */
+        private final Comparable value;
+
+        /*** Признак включения значения границы в диапазон */
+        private final boolean inclusive;
+
+        /*** true - нижняя граница, false - верхняя граница */
+        private final boolean lower;
+
+
+        private Bound(Comparable value, boolean inclusive, boolean lower) {
+            this.value = value;
+            this.inclusive = inclusive;
+            this.lower = lower;
+        }
+
+        /**
+         * @return - true - значение лежит внутри диапазона, заданного границами (null - граница отсутствует)
+         */
+        private static boolean accepts(Bound lower, Bound upper, Object value) {
+            if (!(value instanceof Comparable)) {
+                return true;
+            }
+            if (lower != null) {
+                int compare = ((Comparable) value).compareTo(lower.value);
+                if ((compare < 0) || ((compare == 0) && !lower.inclusive)) {
+                    return false;
+                }
+            }
+            if (upper != null) {
+                int compare = ((Comparable) value).compareTo(upper.value);
+                return (compare < 0) || ((compare == 0) && upper.inclusive);
+            }
+            return true;
+        }
+
+        private static Bound tighterLower(Bound current, Bound candidate) {
+            if (current == null) {
+                return candidate;
+            }
+            int compare = candidate.value.compareTo(current.value);
+            return ((compare > 0) || ((compare == 0) && !candidate.inclusive)) ? candidate : current;
+        }
+
+        private static Bound tighterUpper(Bound current, Bound candidate) {
+            if (current == null) {
+                return candidate;
+            }
+            int compare = candidate.value.compareTo(current.value);
+            return ((compare < 0) || ((compare == 0) && !candidate.inclusive)) ? candidate : current;
+        }
+
+        private static Bound looserLower(Bound current, Bound candidate) {
+            if (current == null) {
+                return candidate;
+            }
+            int compare = candidate.value.compareTo(current.value);
+            return ((compare < 0) || ((compare == 0) && candidate.inclusive)) ? candidate : current;
+        }
+
+        private static Bound looserUpper(Bound current, Bound candidate) {
+            if (current == null) {
+                return candidate;
+            }
+            int compare = candidate.value.compareTo(current.value);
+            return ((compare > 0) || ((compare == 0) && candidate.inclusive)) ? candidate : current;
+        }
+
+        private CriteriaObject.RestrictionValues toRestriction(String key) {
+            SearchOperations operation = lower
+                    ? (inclusive ? GREATER_THAN_OR_EQUAL : GREATER_THAN)
+                    : (inclusive ? LESS_THAN_OR_EQUAL : LESS_THAN);
+            return new CriteriaObject.RestrictionValues<>(key, operation, value);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package ru.iteco.project.service.specifications;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * Объект - контейнер для критериеф поиска и ограничений
+ * Объект - контейнер для критериеф поиска и ограничений. Является узлом дерева логического выражения:
+ * ограничения и вложенные группы объединяются операцией joinOperation, признак negated задает отрицание узла
  */
 public class CriteriaObject {
 
@@ -13,12 +16,26 @@ public class CriteriaObject {
     /*** Список ограничений поиска */
     private List<RestrictionValues> restrictions;
 
+    /*** Вложенные группы ограничений, объединяемые с ограничениями операцией joinOperation */
+    private List<CriteriaObject> groups = new ArrayList<>();
+
+    /*** Признак отрицания (NOT) ограничений и вложенных групп */
+    private boolean negated;
+
 
     public CriteriaObject(JoinOperations joinOperation, List<RestrictionValues> restrictions) {
         this.joinOperation = joinOperation;
         this.restrictions = restrictions;
     }
 
+    public CriteriaObject(JoinOperations joinOperation, List<RestrictionValues> restrictions, List<CriteriaObject> groups,
+                          boolean negated) {
+        this.joinOperation = joinOperation;
+        this.restrictions = restrictions;
+        this.groups = groups;
+        this.negated = negated;
+    }
+
     public CriteriaObject() {
     }
 
@@ -38,9 +55,33 @@ public class CriteriaObject {
         this.restrictions = restrictions;
     }
 
+    public List<CriteriaObject> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<CriteriaObject> groups) {
+        this.groups = groups;
+    }
+
+    public boolean isNegated() {
+        return negated;
+    }
+
+    public void setNegated(boolean negated) {
+        this.negated = negated;
+    }
+
+    /**
+     * @return - true - узел не содержит ни ограничений, ни вложенных групп
+     */
+    public boolean isEmpty() {
+        return ((restrictions == null) || restrictions.isEmpty()) && ((groups == null) || groups.isEmpty());
+    }
+
 
     /**
-     * Класс-контейнер для данных ограничей поиска
+     * Класс-контейнер для данных ограничей поиска. Значения ограничения разобраны в тип атрибута сущности
+     * при формировании ограничения (SearchFieldRegistry), для операций поиска подстроки значение - готовый шаблон
      *
      * @param <T> - тип данных для поиска
      */
@@ -49,50 +90,25 @@ public class CriteriaObject {
         private String key;
         /*** Тип операции поиска */
         private SearchOperations searchOperation;
-        /*** Минимальное значение поля (для поиска по диапазонам) */
-        private String minValue;
-        /*** Максимальное значение поля (для поиска по диапазонам) */
-        private String maxValue;
-        /*** Значение поля для поиска */
-        private String value;
         /*** Типизированное значение поля для поиска */
         private T typedValue;
+        /*** Типизированное минимальное значение поля (для поиска по диапазонам) */
+        private T typedMinValue;
+        /*** Типизированное максимальное значение поля (для поиска по диапазонам) */
+        private T typedMaxValue;
 
 
-        public RestrictionValues(String key, SearchOperations searchOperation, String minValue, String maxValue, String value, T typedValue) {
-            this.key = key;
-            this.searchOperation = searchOperation;
-            this.minValue = minValue;
-            this.maxValue = maxValue;
-            this.value = value;
-            this.typedValue = typedValue;
-        }
-
-        public RestrictionValues(String key, SearchOperations searchOperation, String value, String minValue, String maxValue) {
-            this.key = key;
-            this.searchOperation = searchOperation;
-            this.value = value;
-            this.minValue = minValue;
-            this.maxValue = maxValue;
-        }
-
-        public RestrictionValues(String key, SearchOperations searchOperation, String value, T typedValue) {
-            this.key = key;
-            this.searchOperation = searchOperation;
-            this.value = value;
-            this.typedValue = typedValue;
-        }
-
         public RestrictionValues(String key, SearchOperations searchOperation, T typedValue) {
             this.key = key;
             this.searchOperation = searchOperation;
             this.typedValue = typedValue;
         }
 
-        public RestrictionValues(String key, String value, SearchOperations searchOperation) {
+        public RestrictionValues(String key, SearchOperations searchOperation, T typedMinValue, T typedMaxValue) {
             this.key = key;
             this.searchOperation = searchOperation;
-            this.value = value;
+            this.typedMinValue = typedMinValue;
+            this.typedMaxValue = typedMaxValue;
         }
 
         public String getKey() {
@@ -111,36 +127,57 @@ public class CriteriaObject {
             this.searchOperation = searchOperation;
         }
 
-        public String getMinValue() {
-            return minValue;
+        public T getTypedValue() {
+            return typedValue;
         }
 
-        public void setMinValue(String minValue) {
-            this.minValue = minValue;
+        public void setTypedValue(T typedValue) {
+            this.typedValue = typedValue;
         }
 
-        public String getMaxValue() {
-            return maxValue;
+        public T getTypedMinValue() {
+            return typedMinValue;
         }
 
-        public void setMaxValue(String maxValue) {
-            this.maxValue = maxValue;
+        public void setTypedMinValue(T typedMinValue) {
+            this.typedMinValue = typedMinValue;
         }
 
-        public String getValue() {
-            return value;
+        public T getTypedMaxValue() {
+            return typedMaxValue;
         }
 
-        public void setValue(String value) {
-            this.value = value;
+        public void setTypedMaxValue(T typedMaxValue) {
+            this.typedMaxValue = typedMaxValue;
         }
 
-        public T getTypedValue() {
-            return typedValue;
+        /**
+         * Метод получения отрицания ограничения: ограничение с теми же значениями и противоположной операцией
+         *
+         * @return - новый объект ограничения
+         */
+        public RestrictionValues<T> negated() {
+            RestrictionValues<T> negated = new RestrictionValues<>(key, searchOperation.negated(), typedValue);
+            negated.setTypedMinValue(typedMinValue);
+            negated.setTypedMaxValue(typedMaxValue);
+            return negated;
         }
 
-        public void setTypedValue(T typedValue) {
-            this.typedValue = typedValue;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RestrictionValues<?> that = (RestrictionValues<?>) o;
+            return Objects.equals(key, that.key) &&
+                    searchOperation == that.searchOperation &&
+                    Objects.equals(typedValue, that.typedValue) &&
+                    Objects.equals(typedMinValue, that.typedMinValue) &&
+                    Objects.equals(typedMaxValue, that.typedMaxValue);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, searchOperation, typedValue, typedMinValue, typedMaxValue);
         }
     }
 }
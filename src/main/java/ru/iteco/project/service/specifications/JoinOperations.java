@@ -5,7 +5,23 @@ package ru.iteco.project.service.specifications;
  */
 public enum JoinOperations {
     /*** Логическое "и" */
-    AND,
+    AND {
+        public JoinOperations negated() {
+            return OR;
+        }
+    },
     /*** Логическое "или" */
-    OR;
+    OR {
+        public JoinOperations negated() {
+            return AND;
+        }
+    };
+
+    /**
+     * Метод получения операции объединения отрицаний ограничений по законам де Моргана:
+     * NOT (a AND b) = NOT a OR NOT b, NOT (a OR b) = NOT a AND NOT b
+     *
+     * @return - двойственная операция объединения
+     */
+    public abstract JoinOperations negated();
 }
@@ -0,0 +1,123 @@
+package ru.iteco.project.service.specifications;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import ru.iteco.project.domain.CreateAtIdentified;
+import ru.iteco.project.domain.Identified;
+import ru.iteco.project.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Курсор курсорной (keyset) пагинации - позиция последней записи страницы в порядке сортировки (createdAt, id).
+ * Клиенту передается в виде непрозрачной строки
+ */
+public class KeysetCursor {
+
+    /*** Наименование поля даты создания записи, по которому осуществляется сортировка */
+    public static final String CREATED_AT = "createdAt";
+
+    /*** Наименование поля идентификатора записи, по которому упорядочиваются записи с одинаковой датой создания */
+    public static final String ID = "id";
+
+    /*** Разделитель значений курсора */
+    private static final String SEPARATOR = "|";
+
+    /*** Дата и время создания последней записи страницы */
+    private final LocalDateTime createdAt;
+
+    /*** Идентификатор последней записи страницы */
+    private final UUID id;
+
+
+    public KeysetCursor(LocalDateTime createdAt, UUID id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+
+    /**
+     * Метод формирует строковое представление курсора
+     *
+     * @return - строковое представление курсора для передачи клиенту
+     */
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Метод восстанавливает курсор из строкового представления
+     *
+     * @param cursor - строковое представление курсора
+     * @return - объект курсора или null, если курсор не передан (запрос первой страницы)
+     */
+    public static KeysetCursor decode(String cursor) {
+        if ((cursor == null) || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separatorIndex)),
+                    UUID.fromString(raw.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Метод формирует курсор следующей страницы по результатам выборки
+     *
+     * @param slice - результат выборки страницы
+     * @param <E>   - тип сущности
+     * @return - строковое представление курсора следующей страницы или null, если следующая страница отсутствует
+     */
+    public static <E extends CreateAtIdentified & Identified<UUID>> String nextCursor(Slice<E> slice) {
+        List<E> content = slice.getContent();
+        if (!slice.hasNext() || content.isEmpty()) {
+            return null;
+        }
+        E last = content.get(content.size() - 1);
+        return new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+    }
+
+    /**
+     * Метод определяет направление сортировки курсорной пагинации по объекту пагинации.
+     * Учитывается только направление сортировки по полю createdAt, по умолчанию - DESC
+     *
+     * @param pageable - объект пагинации и сортировки
+     * @return - направление сортировки
+     */
+    public static Sort.Direction direction(Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor(CREATED_AT);
+        return (order != null) ? order.getDirection() : Sort.Direction.DESC;
+    }
+
+    /**
+     * Метод формирует сортировку курсорной пагинации
+     *
+     * @param direction - направление сортировки
+     * @return - сортировка по полям (createdAt, id) в заданном направлении
+     */
+    public static Sort sort(Sort.Direction direction) {
+        return Sort.by(direction, CREATED_AT, ID);
+    }
+}
@@ -0,0 +1,115 @@
+package ru.iteco.project.service.specifications;
+
+import ru.iteco.project.controller.searching.SearchDto;
+import ru.iteco.project.controller.searching.SearchUnit;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Описание поля поиска: поле SearchUnit dto поиска, атрибут сущности, по которому выполняется поиск,
+ * тип значения атрибута, допустимые операции и разбор строкового значения в значение типа атрибута.
+ * Формируется один раз при старте приложения реестром SearchFieldRegistry, значение поля dto читается
+ * скомпилированным при старте методом доступа без рефлексии
+ */
+public class SearchField {
+
+    /*** Наименование поля dto поиска, содержащего элемент поиска SearchUnit */
+    private final String name;
+
+    /*** Метод доступа к полю dto поиска (getter) */
+    private final Function<SearchDto<?>, SearchUnit> accessor;
+
+    /*** Класс сущности, по атрибуту которой выполняется поиск */
+    private final Class<?> entityClass;
+
+    /*** Наименование атрибута сущности */
+    private final String path;
+
+    /*** Наименование атрибута сущности для полнотекстового поиска, null - полнотекстовый поиск недоступен */
+    private final String fullTextPath;
+
+    /*** Тип значения атрибута сущности */
+    private final Class<?> javaType;
+
+    /*** Допустимые операции поиска */
+    private final Set<SearchOperations> operations;
+
+    /*** Разбор строкового значения поиска в значение типа атрибута */
+    private final Function<String, ?> parser;
+
+
+    public SearchField(String name, Function<SearchDto<?>, SearchUnit> accessor, Class<?> entityClass, String path,
+                       String fullTextPath, Class<?> javaType, Set<SearchOperations> operations,
+                       Function<String, ?> parser) {
+        this.name = name;
+        this.accessor = accessor;
+        this.entityClass = entityClass;
+        this.path = path;
+        this.fullTextPath = fullTextPath;
+        this.javaType = javaType;
+        this.operations = operations;
+        this.parser = parser;
+    }
+
+
+    /**
+     * Метод получает элемент поиска данного поля из dto поиска
+     *
+     * @param searchDto - dto поиска
+     * @return - элемент поиска, null - поиск по полю не запрошен
+     */
+    public SearchUnit read(SearchDto<?> searchDto) {
+        return accessor.apply(searchDto);
+    }
+
+    /**
+     * Метод определяет атрибут сущности, по которому выполняется операция поиска
+     *
+     * @param searchOperation - операция поиска
+     * @return - наименование атрибута сущности
+     */
+    public String pathFor(SearchOperations searchOperation) {
+        if ((searchOperation == SearchOperations.FULL_TEXT) || (searchOperation == SearchOperations.NOT_FULL_TEXT)) {
+            return fullTextPath;
+        }
+        return path;
+    }
+
+    /**
+     * Метод разбирает строковое значение поиска
+     *
+     * @param value - строковое значение поиска
+     * @return - значение типа атрибута сущности
+     */
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+
+    /**
+     * @return - наименование поля dto поиска
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getFullTextPath() {
+        return fullTextPath;
+    }
+
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    public Set<SearchOperations> getOperations() {
+        return operations;
+    }
+}
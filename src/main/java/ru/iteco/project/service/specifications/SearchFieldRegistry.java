@@ -0,0 +1,315 @@
+package ru.iteco.project.service.specifications;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+import ru.iteco.project.controller.searching.AbstractSearchDto;
+import ru.iteco.project.controller.searching.ContractSearchDto;
+import ru.iteco.project.controller.searching.ContractStatusSearchDto;
+import ru.iteco.project.controller.searching.SearchDto;
+import ru.iteco.project.controller.searching.SearchUnit;
+import ru.iteco.project.controller.searching.TaskSearchDto;
+import ru.iteco.project.controller.searching.TaskStatusSearchDto;
+import ru.iteco.project.controller.searching.UserRoleSearchDto;
+import ru.iteco.project.controller.searching.UserSearchDto;
+import ru.iteco.project.controller.searching.UserStatusSearchDto;
+import ru.iteco.project.domain.Contract;
+import ru.iteco.project.domain.ContractStatus;
+import ru.iteco.project.domain.Money;
+import ru.iteco.project.domain.Task;
+import ru.iteco.project.domain.TaskStatus;
+import ru.iteco.project.domain.User;
+import ru.iteco.project.domain.UserRole;
+import ru.iteco.project.domain.UserStatus;
+import ru.iteco.project.exception.InvalidContractStatusException;
+import ru.iteco.project.exception.InvalidSearchCriteriaException;
+import ru.iteco.project.exception.InvalidSearchPatternException;
+import ru.iteco.project.exception.InvalidTaskStatusException;
+import ru.iteco.project.exception.InvalidUserRoleException;
+import ru.iteco.project.exception.InvalidUserStatusException;
+import ru.iteco.project.service.dictionary.DictionaryCache;
+import ru.iteco.project.service.mappers.DateTimeMapper;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static ru.iteco.project.service.specifications.SearchOperations.*;
+import static ru.iteco.project.service.specifications.SpecificationBuilder.*;
+
+/**
+ * Реестр полей поиска. При старте приложения для каждого dto поиска по метамодели JPA формируются описания
+ * полей SearchField: атрибут сущности, тип значения, допустимые операции и разбор значения по типу атрибута.
+ * Значения полей dto читаются скомпилированными при старте методами доступа (getter), без рефлексии.
+ * При обработке запроса значения SearchUnit разбираются и проверяются один раз, ограничения CriteriaObject
+ * содержат готовые типизированные значения, и формирование предикатов не требует разбора строк
+ */
+@Service
+public class SearchFieldRegistry {
+
+    private static final Logger log = LogManager.getLogger(SearchFieldRegistry.class.getName());
+
+    /*** Операции поиска по строковым атрибутам */
+    private static final Set<SearchOperations> TEXT_OPERATIONS = Collections.unmodifiableSet(
+            EnumSet.of(EQUAL, NOT_EQUAL, LIKE, NOT_LIKE, ILIKE, NOT_ILIKE));
+
+    /*** Операции поиска по атрибутам упорядочиваемых типов (дата, денежная сумма) */
+    private static final Set<SearchOperations> RANGE_OPERATIONS = Collections.unmodifiableSet(
+            EnumSet.of(EQUAL, NOT_EQUAL, BETWEEN, NOT_BETWEEN, LESS_THAN, LESS_THAN_OR_EQUAL, GREATER_THAN, GREATER_THAN_OR_EQUAL));
+
+    /*** Операции поиска по атрибутам-справочникам */
+    private static final Set<SearchOperations> DICTIONARY_OPERATIONS = Collections.unmodifiableSet(
+            EnumSet.of(EQUAL, NOT_EQUAL));
+
+    /*** Минимальная длина искомой подстроки LIKE / ILIKE (более короткая не дает триграмм для поиска по индексу) */
+    @Value("${search.like.min-length:3}")
+    private int likeMinLength;
+
+    /*** Максимальная глубина вложенности групп ограничений поиска */
+    @Value("${search.groups.max-depth:3}")
+    private int groupsMaxDepth;
+
+    /*** Описания полей поиска по классу dto поиска */
+    private final Map<Class<?>, List<SearchField>> searchFields = new HashMap<>();
+
+    /*** Разбор значений поиска по типу атрибута сущности */
+    private final Map<Class<?>, Function<String, ?>> parsers = new HashMap<>();
+
+    /*** Допустимые операции поиска по типу атрибута сущности */
+    private final Map<Class<?>, Set<SearchOperations>> operations = new HashMap<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final DictionaryCache dictionaryCache;
+
+
+    public SearchFieldRegistry(EntityManagerFactory entityManagerFactory, DictionaryCache dictionaryCache) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.dictionaryCache = dictionaryCache;
+        registerTypes();
+        registerSearchDtos();
+    }
+
+
+    /**
+     * Метод регистрирует разбор значений и допустимые операции для типов атрибутов сущностей
+     */
+    private void registerTypes() {
+        registerType(String.class, TEXT_OPERATIONS, Function.identity());
+        registerType(LocalDateTime.class, RANGE_OPERATIONS, DateTimeMapper::stringToObject);
+        registerType(Money.class, RANGE_OPERATIONS, Money::parse);
+        registerType(TaskStatus.class, DICTIONARY_OPERATIONS,
+                value -> dictionaryValue(dictionaryCache.getTaskStatus(value), InvalidTaskStatusException::new));
+        registerType(UserStatus.class, DICTIONARY_OPERATIONS,
+                value -> dictionaryValue(dictionaryCache.getUserStatus(value), InvalidUserStatusException::new));
+        registerType(UserRole.class, DICTIONARY_OPERATIONS,
+                value -> dictionaryValue(dictionaryCache.getUserRole(value), InvalidUserRoleException::new));
+        registerType(ContractStatus.class, DICTIONARY_OPERATIONS,
+                value -> dictionaryValue(dictionaryCache.getContractStatus(value), InvalidContractStatusException::new));
+    }
+
+    /**
+     * Метод формирует описания полей всех dto поиска
+     */
+    private void registerSearchDtos() {
+        Map<String, String> taskPaths = Collections.singletonMap("name", "title");
+        Set<String> taskFullTextFields = new HashSet<>(Arrays.asList("name", "description"));
+
+        registerSearchDto(UserSearchDto.class, User.class, Collections.emptyMap(), Collections.emptySet());
+        registerSearchDto(TaskSearchDto.class, Task.class, taskPaths, taskFullTextFields);
+        registerSearchDto(ContractSearchDto.class, Contract.class, Collections.emptyMap(), Collections.emptySet());
+        registerSearchDto(UserRoleSearchDto.class, UserRole.class, Collections.emptyMap(), Collections.emptySet());
+        registerSearchDto(UserStatusSearchDto.class, UserStatus.class, Collections.emptyMap(), Collections.emptySet());
+        registerSearchDto(TaskStatusSearchDto.class, TaskStatus.class, Collections.emptyMap(), Collections.emptySet());
+        registerSearchDto(ContractStatusSearchDto.class, ContractStatus.class, Collections.emptyMap(), Collections.emptySet());
+
+        log.info("search field registry compiled: {}", searchFields.entrySet().stream()
+                .map(entry -> entry.getKey().getSimpleName() + entry.getValue().stream()
+                        .map(SearchField::getName).collect(Collectors.toList()))
+                .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Метод формирует описания полей SearchUnit dto поиска. Поле соответствует одноименному атрибуту сущности,
+     * если иное не указано в paths, поля без атрибута сущности не регистрируются
+     *
+     * @param dtoClass       - класс dto поиска
+     * @param entityClass    - класс сущности
+     * @param paths          - атрибуты сущности полей dto, имя которых не совпадает с именем атрибута
+     * @param fullTextFields - поля dto, для которых доступен полнотекстовый поиск по Task.SEARCH_VECTOR
+     * @throws IllegalStateException - для типа атрибута сущности не зарегистрирован разбор значений
+     */
+    private void registerSearchDto(Class<? extends AbstractSearchDto> dtoClass, Class<?> entityClass,
+                                   Map<String, String> paths, Set<String> fullTextFields) {
+        EntityType<?> entity = entityManagerFactory.getMetamodel().entity(entityClass);
+        Map<String, Class<?>> attributeTypes = entity.getAttributes().stream()
+                .collect(Collectors.toMap(Attribute::getName, Attribute::getJavaType));
+
+        List<SearchField> fields = new ArrayList<>();
+        ReflectionUtils.doWithFields(dtoClass, field -> {
+            String path = paths.getOrDefault(field.getName(), field.getName());
+            Class<?> javaType = attributeTypes.get(path);
+            if (javaType == null) {
+                log.debug("search field {}.{} has no entity attribute, skipped", dtoClass.getSimpleName(), field.getName());
+                return;
+            }
+            Function<String, ?> parser = parsers.get(javaType);
+            if (parser == null) {
+                throw new IllegalStateException(String.format("No search value parser for %s of %s.%s",
+                        javaType.getName(), entityClass.getSimpleName(), path));
+            }
+            Set<SearchOperations> fieldOperations = operations.get(javaType);
+            String fullTextPath = null;
+            if (fullTextFields.contains(field.getName())) {
+                fieldOperations = EnumSet.copyOf(fieldOperations);
+                fieldOperations.add(FULL_TEXT);
+                fieldOperations.add(NOT_FULL_TEXT);
+                fullTextPath = Task.SEARCH_VECTOR;
+            }
+            fields.add(new SearchField(field.getName(), compileAccessor(dtoClass, field.getName()), entityClass, path,
+                    fullTextPath, javaType, fieldOperations, parser));
+        }, field -> SearchUnit.class.equals(field.getType()));
+        searchFields.put(dtoClass, Collections.unmodifiableList(fields));
+    }
+
+    /**
+     * Метод компилирует метод доступа к полю dto поиска: getter поля преобразуется в реализацию Function
+     * (LambdaMetafactory), поэтому чтение значения при обработке запроса выполняется без рефлексии
+     *
+     * @param dtoClass  - класс dto поиска
+     * @param fieldName - наименование поля dto
+     * @return - метод доступа к полю
+     * @throws IllegalStateException - у поля нет публичного getter
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<SearchDto<?>, SearchUnit> compileAccessor(Class<?> dtoClass, String fieldName) {
+        PropertyDescriptor property = BeanUtils.getPropertyDescriptor(dtoClass, fieldName);
+        if ((property == null) || (property.getReadMethod() == null)) {
+            throw new IllegalStateException(String.format("No getter for search field %s.%s",
+                    dtoClass.getSimpleName(), fieldName));
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle getter = lookup.unreflect(property.getReadMethod());
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), getter,
+                    MethodType.methodType(SearchUnit.class, dtoClass));
+            return (Function<SearchDto<?>, SearchUnit>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(String.format("Cannot compile accessor for search field %s.%s",
+                    dtoClass.getSimpleName(), fieldName), e);
+        }
+    }
+
+    private <T> void registerType(Class<T> javaType, Set<SearchOperations> typeOperations, Function<String, T> parser) {
+        parsers.put(javaType, parser);
+        operations.put(javaType, typeOperations);
+    }
+
+    /**
+     * @return - описания полей поиска по классу dto поиска
+     */
+    public Map<Class<?>, List<SearchField>> getSearchFields() {
+        return Collections.unmodifiableMap(searchFields);
+    }
+
+    /**
+     * Метод формирует объект критериев поиска по данным dto поиска: для каждого заполненного поля
+     * проверяется допустимость операции, значения разбираются в значения типа атрибута сущности.
+     * Вложенные группы dto поиска формируют вложенные объекты критериев поиска
+     *
+     * @param searchDto - dto поиска
+     * @return - CriteriaObject - конейнер со всеми данными и ограничениями для поиска
+     * @throws InvalidSearchCriteriaException - операция недопустима для поля, значение не соответствует типу поля
+     *                                        или вложенность групп превышает search.groups.max-depth
+     * @throws InvalidSearchPatternException  - искомая подстрока LIKE / ILIKE короче search.like.min-length
+     */
+    public CriteriaObject bind(AbstractSearchDto<?> searchDto) {
+        return bind(searchDto, 0);
+    }
+
+    private CriteriaObject bind(AbstractSearchDto<?> searchDto, int depth) {
+        List<SearchField> fields = searchFields.get(searchDto.getClass());
+        if (fields == null) {
+            throw new IllegalArgumentException("No search fields registered for " + searchDto.getClass().getName());
+        }
+        List<CriteriaObject.RestrictionValues> restrictions = new ArrayList<>();
+        for (SearchField field : fields) {
+            SearchUnit searchUnit = field.read(searchDto);
+            if (searchUnitIsValid(searchUnit)) {
+                restrictions.add(toRestriction(field, searchUnit));
+            }
+        }
+        List<CriteriaObject> groups = new ArrayList<>();
+        if (searchDto.getGroups() != null) {
+            if (!searchDto.getGroups().isEmpty() && (depth >= groupsMaxDepth)) {
+                throw new InvalidSearchCriteriaException(String.format(
+                        "Search groups nesting exceeds maximum depth %d", groupsMaxDepth));
+            }
+            for (AbstractSearchDto<?> group : searchDto.getGroups()) {
+                if (group != null) {
+                    groups.add(bind(group, depth + 1));
+                }
+            }
+        }
+        return new CriteriaObject(searchDto.getJoinOperation(), restrictions, groups, searchDto.isNot());
+    }
+
+    /**
+     * Метод формирует ограничение поиска с разобранными значениями. Для операций поиска подстроки значение
+     * ограничения - готовый шаблон с экранированными специальными символами
+     */
+    private CriteriaObject.RestrictionValues<Object> toRestriction(SearchField field, SearchUnit searchUnit) {
+        SearchOperations searchOperation = searchUnit.getSearchOperation();
+        if (!field.getOperations().contains(searchOperation)) {
+            throw new InvalidSearchCriteriaException(String.format("Search operation %s is not supported for %s, supported: %s",
+                    searchOperation, field.getName(), field.getOperations()));
+        }
+        String path = field.pathFor(searchOperation);
+        if (isBetweenOperation(searchUnit)) {
+            return new CriteriaObject.RestrictionValues<>(path, searchOperation,
+                    parse(field, searchUnit.getMinValue()), parse(field, searchUnit.getMaxValue()));
+        }
+        if (isLikeOperation(searchOperation)) {
+            if (searchUnit.getValue().trim().length() < likeMinLength) {
+                throw new InvalidSearchPatternException(String.format(
+                        "Search value for %s of %s must contain at least %d characters",
+                        field.getName(), searchOperation, likeMinLength));
+            }
+            return new CriteriaObject.RestrictionValues<>(path, searchOperation,
+                    SearchPredicatesUtil.containsPattern(searchUnit.getValue()));
+        }
+        return new CriteriaObject.RestrictionValues<>(path, searchOperation, parse(field, searchUnit.getValue()));
+    }
+
+    private Object parse(SearchField field, String value) {
+        try {
+            return field.parse(value);
+        } catch (DateTimeParseException | NumberFormatException | ArithmeticException e) {
+            throw new InvalidSearchCriteriaException(String.format("Invalid search value '%s' for %s of type %s",
+                    value, field.getName(), field.getJavaType().getSimpleName()), e);
+        }
+    }
+
+    private static <T> T dictionaryValue(T value, Supplier<? extends RuntimeException> exceptionSupplier) {
+        if (value == null) {
+            throw exceptionSupplier.get();
+        }
+        return value;
+    }
+}
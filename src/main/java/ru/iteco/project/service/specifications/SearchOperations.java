@@ -1,7 +1,9 @@
 package ru.iteco.project.service.specifications;
 
 /**
- * Доступные типы операций ограничений для формирования спецификации
+ * Доступные типы операций ограничений для формирования спецификации.
+ * Операции IN / NOT_IN формируются только при нормализации критериев поиска (CriteriaNormalizer)
+ * из нескольких EQUAL / NOT_EQUAL по одному полю и не допускаются в запросах поиска
  */
 public enum SearchOperations {
     BETWEEN {
@@ -24,6 +26,26 @@ public enum SearchOperations {
             return LIKE;
         }
     },
+    ILIKE {
+        public SearchOperations negated() {
+            return NOT_ILIKE;
+        }
+    },
+    NOT_ILIKE {
+        public SearchOperations negated() {
+            return ILIKE;
+        }
+    },
+    FULL_TEXT {
+        public SearchOperations negated() {
+            return NOT_FULL_TEXT;
+        }
+    },
+    NOT_FULL_TEXT {
+        public SearchOperations negated() {
+            return FULL_TEXT;
+        }
+    },
     EQUAL {
         public SearchOperations negated() {
             return NOT_EQUAL;
@@ -34,6 +56,16 @@ public enum SearchOperations {
             return EQUAL;
         }
     },
+    IN {
+        public SearchOperations negated() {
+            return NOT_IN;
+        }
+    },
+    NOT_IN {
+        public SearchOperations negated() {
+            return IN;
+        }
+    },
     LESS_THAN {
         public SearchOperations negated() {
             return GREATER_THAN_OR_EQUAL;
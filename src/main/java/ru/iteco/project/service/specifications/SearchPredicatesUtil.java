@@ -2,19 +2,16 @@ package ru.iteco.project.service.specifications;
 
 import org.hibernate.query.criteria.internal.CriteriaBuilderImpl;
 import org.hibernate.query.criteria.internal.predicate.ComparisonPredicate;
-import ru.iteco.project.service.mappers.DateTimeMapper;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
-
-import static ru.iteco.project.service.specifications.SearchOperations.GREATER_THAN_OR_EQUAL;
-import static ru.iteco.project.service.specifications.SearchOperations.LESS_THAN_OR_EQUAL;
+import java.util.Collection;
 
 /**
- * Утилитарный класс содержащий методы формирования предикатов поиска
+ * Утилитарный класс содержащий методы формирования предикатов поиска.
+ * Значения ограничений разобраны в тип атрибута сущности при формировании ограничения (SearchFieldRegistry),
+ * поэтому предикаты формируются без разбора строк и проверок типа атрибута
  */
 public class SearchPredicatesUtil {
 
@@ -49,38 +46,49 @@ public class SearchPredicatesUtil {
     }
 
 
+    /**
+     * Метод получения предиката для поиска значений с логической операцией IN.
+     * Значение ограничения - коллекция значений, сформированная при нормализации критериев поиска
+     *
+     * @return - сформированный объект предиката
+     */
+    public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> in() {
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                path.in((Collection<?>) restriction.getTypedValue());
+    }
+
+
+    /**
+     * Метод получения предиката для поиска значений с логической операцией NOT_IN
+     *
+     * @return - сформированный объект предиката
+     */
+    public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> notIn() {
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.not(path.in((Collection<?>) restriction.getTypedValue()));
+    }
+
+
     /**
      * Метод получения предиката для поиска значений с логической операцией BETWEEN
      *
      * @return - сформированный объект предиката
      */
     public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> between() {
-        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) -> {
-            if (LocalDateTime.class.equals(path.getJavaType())) {
-                return cb.between(path,
-                        DateTimeMapper.stringToObject(restriction.getMinValue()),
-                        DateTimeMapper.stringToObject(restriction.getMaxValue())
-                );
-            }
-            if (BigDecimal.class.equals(path.getJavaType())) {
-                return cb.between(path,
-                        new BigDecimal(restriction.getMinValue()),
-                        new BigDecimal(restriction.getMaxValue())
-                );
-            }
-            return cb.isNull(path);
-        };
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.between(path, (Comparable) restriction.getTypedMinValue(), (Comparable) restriction.getTypedMaxValue());
     }
 
 
     /**
-     * Метод получения предиката для поиска значений с логической операцией LIKE
+     * Метод получения предиката для поиска значений с логической операцией LIKE.
+     * Значение ограничения - шаблон, сформированный методом containsPattern
      *
      * @return - сформированный объект предиката
      */
     public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> like() {
         return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
-                cb.like(path, "%" + restriction.getValue() + "%");
+                cb.like(path, (String) restriction.getTypedValue(), SearchSqlFunctions.LIKE_ESCAPE_CHAR);
     }
 
 
@@ -91,7 +99,76 @@ public class SearchPredicatesUtil {
      */
     public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> notLike() {
         return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
-                cb.notLike(path, "%" + restriction.getValue() + "%");
+                cb.notLike(path, (String) restriction.getTypedValue(), SearchSqlFunctions.LIKE_ESCAPE_CHAR);
+    }
+
+
+    /**
+     * Метод получения предиката для поиска значений без учета регистра с логической операцией ILIKE
+     *
+     * @return - сформированный объект предиката
+     */
+    public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> ilike() {
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.isTrue(cb.function(SearchSqlFunctions.ILIKE_FUNCTION, Boolean.class, path,
+                        cb.literal(restriction.getTypedValue())));
+    }
+
+
+    /**
+     * Метод получения предиката для поиска значений без учета регистра с логической операцией NOT_ILIKE
+     *
+     * @return - сформированный объект предиката
+     */
+    public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> notIlike() {
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.isFalse(cb.function(SearchSqlFunctions.ILIKE_FUNCTION, Boolean.class, path,
+                        cb.literal(restriction.getTypedValue())));
+    }
+
+
+    /**
+     * Метод формирует шаблон поиска подстроки: символы %, _ и символ экранирования в значении экранируются
+     * и значение обрамляется символами %
+     *
+     * @param value - искомая подстрока
+     * @return - шаблон для LIKE / ILIKE с символом экранирования SearchSqlFunctions.LIKE_ESCAPE_CHAR
+     */
+    public static String containsPattern(String value) {
+        StringBuilder pattern = new StringBuilder(value.length() + 8).append('%');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c == '%') || (c == '_') || (c == SearchSqlFunctions.LIKE_ESCAPE_CHAR)) {
+                pattern.append(SearchSqlFunctions.LIKE_ESCAPE_CHAR);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+
+    /**
+     * Метод получения предиката полнотекстового поиска с логической операцией FULL_TEXT.
+     * Путь должен указывать на поисковый вектор (tsvector)
+     *
+     * @return - сформированный объект предиката
+     */
+    public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> fullText() {
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.isTrue(cb.function(SearchSqlFunctions.MATCH_FUNCTION, Boolean.class, path,
+                        cb.literal(restriction.getTypedValue())));
+    }
+
+
+    /**
+     * Метод получения предиката полнотекстового поиска с логической операцией NOT_FULL_TEXT
+     *
+     * @return - сформированный объект предиката
+     */
+    public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> notFullText() {
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.isFalse(cb.function(SearchSqlFunctions.MATCH_FUNCTION, Boolean.class, path,
+                        cb.literal(restriction.getTypedValue())));
     }
 
 
@@ -101,15 +178,8 @@ public class SearchPredicatesUtil {
      * @return - сформированный объект предиката
      */
     public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> lessThan() {
-        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) -> {
-            if (LocalDateTime.class.equals(path.getJavaType())) {
-                return cb.lessThan(path, DateTimeMapper.stringToObject(restriction.getValue()));
-            }
-            if (BigDecimal.class.equals(path.getJavaType())) {
-                return cb.lessThan(path, new BigDecimal(restriction.getValue()));
-            }
-            return cb.isNull(path);
-        };
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.lessThan(path, (Comparable) restriction.getTypedValue());
     }
 
 
@@ -119,15 +189,8 @@ public class SearchPredicatesUtil {
      * @return - сформированный объект предиката
      */
     public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> greaterThan() {
-        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) -> {
-            if (LocalDateTime.class.equals(path.getJavaType())) {
-                return cb.greaterThan(path, DateTimeMapper.stringToObject(restriction.getValue()));
-            }
-            if (BigDecimal.class.equals(path.getJavaType())) {
-                return cb.greaterThan(path, new BigDecimal(restriction.getValue()));
-            }
-            return cb.isNull(path);
-        };
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.greaterThan(path, (Comparable) restriction.getTypedValue());
     }
 
 
@@ -137,15 +200,8 @@ public class SearchPredicatesUtil {
      * @return - сформированный объект предиката
      */
     public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> lessThanOrEqual() {
-        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) -> {
-            if (LocalDateTime.class.equals(path.getJavaType())) {
-                return cb.lessThanOrEqualTo(path, DateTimeMapper.stringToObject(restriction.getValue()));
-            }
-            if (BigDecimal.class.equals(path.getJavaType())) {
-                return cb.lessThanOrEqualTo(path, new BigDecimal(restriction.getValue()));
-            }
-            return cb.isNull(path);
-        };
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.lessThanOrEqualTo(path, (Comparable) restriction.getTypedValue());
     }
 
 
@@ -155,15 +211,8 @@ public class SearchPredicatesUtil {
      * @return - сформированный объект предиката
      */
     public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> greaterThanOrEqual() {
-        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) -> {
-            if (LocalDateTime.class.equals(path.getJavaType())) {
-                return cb.greaterThanOrEqualTo(path, DateTimeMapper.stringToObject(restriction.getValue()));
-            }
-            if (BigDecimal.class.equals(path.getJavaType())) {
-                return cb.greaterThanOrEqualTo(path, new BigDecimal(restriction.getValue()));
-            }
-            return cb.isNull(path);
-        };
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.greaterThanOrEqualTo(path, (Comparable) restriction.getTypedValue());
     }
 
 
@@ -173,39 +222,10 @@ public class SearchPredicatesUtil {
      * @return - сформированный объект предиката
      */
     public static PredicateProducer<CriteriaBuilder, Path, CriteriaObject.RestrictionValues, Predicate> notBetween() {
-        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) -> {
-
-            if (LocalDateTime.class.equals(path.getJavaType())) {
-                return cb.or(
-                        lessThanOrEqual().produce(cb, path, new CriteriaObject.RestrictionValues(
-                                restriction.getKey(),
-                                restriction.getMaxValue(),
-                                GREATER_THAN_OR_EQUAL
-                        )),
-
-                        lessThan().produce(cb, path, new CriteriaObject.RestrictionValues(
-                                restriction.getKey(),
-                                restriction.getMinValue(),
-                                LESS_THAN_OR_EQUAL
-                        ))
-                );
-            }
-
-            if (BigDecimal.class.equals(path.getJavaType())) {
-                return cb.or(
-                        greaterThan().produce(cb, path, new CriteriaObject.RestrictionValues(
-                                restriction.getKey(),
-                                restriction.getMaxValue(),
-                                GREATER_THAN_OR_EQUAL
-                        )),
-                        lessThan().produce(cb, path, new CriteriaObject.RestrictionValues(
-                                restriction.getKey(),
-                                restriction.getMinValue(),
-                                LESS_THAN_OR_EQUAL
-                        ))
+        return (CriteriaBuilder cb, Path path, CriteriaObject.RestrictionValues restriction) ->
+                cb.or(
+                        cb.lessThan(path, (Comparable) restriction.getTypedMinValue()),
+                        cb.greaterThan(path, (Comparable) restriction.getTypedMaxValue())
                 );
-            }
-            return cb.isNull(path);
-        };
     }
 }
@@ -0,0 +1,47 @@
+package ru.iteco.project.service.specifications;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Регистрация в Hibernate функций поиска Postgres, отсутствующих в Criteria API.
+ * Полнотекстовый поиск: запрос разбирается функцией websearch_to_tsquery, которая не завершается ошибкой на
+ * произвольном пользовательском вводе и поддерживает кавычки (фраза), OR и минус (исключение слова).
+ * Первым аргументом функций fts_match / fts_rank передается поисковый вектор TaskSearchVector.vector
+ * (путь Task.SEARCH_VECTOR), который не входит в сущность Task и не выбирается при загрузке заданий.
+ * Поиск по вхождению подстроки без учета регистра: оператор ILIKE, использующий те же триграммные индексы, что и LIKE.
+ * Подключается свойством spring.jpa.properties.hibernate.metadata_builder_contributor
+ */
+public class SearchSqlFunctions implements MetadataBuilderContributor {
+
+    /*** Конфигурация текстового поиска (русский стеммер для кириллицы, английский для латиницы), как у task.search_vector */
+    public static final String TEXT_SEARCH_CONFIG = "russian";
+
+    /*** Функция проверки соответствия поискового вектора запросу: fts_match(вектор, запрос) */
+    public static final String MATCH_FUNCTION = "fts_match";
+
+    /*** Функция релевантности поискового вектора запросу: fts_rank(вектор, запрос) */
+    public static final String RANK_FUNCTION = "fts_rank";
+
+    /*** Наименование свойства сортировки по релевантности полнотекстового поиска (?sort=relevance) */
+    public static final String RELEVANCE_SORT = "relevance";
+
+    /*** Функция сравнения строки с шаблоном без учета регистра: ilike(строка, шаблон) */
+    public static final String ILIKE_FUNCTION = "ilike";
+
+    /*** Символ экранирования специальных символов % и _ в шаблонах LIKE / ILIKE */
+    public static final char LIKE_ESCAPE_CHAR = '\\';
+
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction(MATCH_FUNCTION, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "(?1 @@ websearch_to_tsquery('" + TEXT_SEARCH_CONFIG + "', ?2))"));
+        metadataBuilder.applySqlFunction(RANK_FUNCTION, new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+                "ts_rank_cd(?1, websearch_to_tsquery('" + TEXT_SEARCH_CONFIG + "', ?2))"));
+        metadataBuilder.applySqlFunction(ILIKE_FUNCTION, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "(?1 ilike ?2 escape '" + LIKE_ESCAPE_CHAR + "')"));
+    }
+}
@@ -1,15 +1,25 @@
 package ru.iteco.project.service.specifications;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ObjectUtils;
 import ru.iteco.project.controller.searching.SearchUnit;
 
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static ru.iteco.project.service.specifications.SearchOperations.*;
 import static ru.iteco.project.service.specifications.SearchPredicatesUtil.*;
@@ -35,12 +45,21 @@ public class SpecificationBuilder<T> {
             put(EQUAL, equal());
             put(NOT_EQUAL, notEqual());
 
+            put(IN, in());
+            put(NOT_IN, notIn());
+
             put(BETWEEN, between());
             put(NOT_BETWEEN, notBetween());
 
             put(LIKE, like());
             put(NOT_LIKE, notLike());
 
+            put(ILIKE, ilike());
+            put(NOT_ILIKE, notIlike());
+
+            put(FULL_TEXT, fullText());
+            put(NOT_FULL_TEXT, notFullText());
+
             put(LESS_THAN, lessThan());
             put(GREATER_THAN, greaterThan());
 
@@ -51,17 +70,114 @@ public class SpecificationBuilder<T> {
 
 
     /**
-     * Метод получения спецификации для поиска
+     * Метод получения спецификации для поиска. Дерево критериев поиска нормализуется (CriteriaNormalizer)
+     * один раз при формировании спецификации, а не при каждом построении запроса
      *
      * @param criteriaObject - объект со всей информаций о критериях и условиях поиска
      * @return - объект спецификации для поиска данных
      */
     public Specification<T> getSpec(final CriteriaObject criteriaObject) {
-        return (root, query, builder) -> buildPredicates(root, builder, criteriaObject);
+        final CriteriaObject normalized = CriteriaNormalizer.normalize(criteriaObject);
+        return (root, query, builder) -> CriteriaNormalizer.isTrue(normalized)
+                ? null
+                : buildPredicates(root, builder, normalized);
+    }
+
+    /**
+     * Метод получения спецификации курсорной (keyset) пагинации. Спецификация ограничивает выборку записями,
+     * следующими за курсором в порядке сортировки (createdAt, id):
+     * для DESC - createdAt <= c.createdAt AND (createdAt < c.createdAt OR (createdAt = c.createdAt AND id < c.id)),
+     * для ASC - аналогично с ">=" и ">". Первое условие избыточно, но, в отличие от OR, используется Postgres как
+     * граница диапазона индекса (created_at, id), поэтому чтение индекса начинается с позиции курсора
+     *
+     * @param cursor    - курсор последней записи предыдущей страницы, null - запрос первой страницы
+     * @param direction - направление сортировки
+     * @return - объект спецификации для поиска данных
+     */
+    public Specification<T> getSeekSpec(final KeysetCursor cursor, final Sort.Direction direction) {
+        return (root, query, builder) -> {
+            if (cursor == null) {
+                return null;
+            }
+            Path<LocalDateTime> createdAt = root.get(KeysetCursor.CREATED_AT);
+            Path<UUID> id = root.get(KeysetCursor.ID);
+            if (direction.isDescending()) {
+                return builder.and(
+                        builder.lessThanOrEqualTo(createdAt, cursor.getCreatedAt()),
+                        builder.or(
+                                builder.lessThan(createdAt, cursor.getCreatedAt()),
+                                builder.and(builder.equal(createdAt, cursor.getCreatedAt()), builder.lessThan(id, cursor.getId()))
+                        )
+                );
+            }
+            return builder.and(
+                    builder.greaterThanOrEqualTo(createdAt, cursor.getCreatedAt()),
+                    builder.or(
+                            builder.greaterThan(createdAt, cursor.getCreatedAt()),
+                            builder.and(builder.equal(createdAt, cursor.getCreatedAt()), builder.greaterThan(id, cursor.getId()))
+                    )
+            );
+        };
+    }
+
+    /**
+     * Метод получения спецификации сортировки по релевантности полнотекстового поиска. Записи упорядочиваются
+     * по убыванию релевантности первого ограничения FULL_TEXT, затем по остальным свойствам сортировки и по id,
+     * чтобы записи с одинаковой релевантностью располагались на страницах в постоянном порядке.
+     * Ограничений поиска спецификация не добавляет, для запроса подсчета количества записей сортировка не задается.
+     * Запрос должен выполняться с объектом пагинации без сортировки, иначе она заменит сортировку спецификации
+     *
+     * @param criteriaObject - объект с критериями поиска, может быть null
+     * @param sort           - запрошенная сортировка, включая свойство relevance
+     * @return - объект спецификации сортировки
+     */
+    public Specification<T> getRelevanceSortSpec(final CriteriaObject criteriaObject, final Sort sort) {
+        Sort otherSort = Sort.by(sort.stream()
+                .filter(order -> !SearchSqlFunctions.RELEVANCE_SORT.equals(order.getProperty()))
+                .collect(Collectors.toList()));
+        final CriteriaObject normalized = CriteriaNormalizer.normalize(criteriaObject);
+        return (root, query, builder) -> {
+            if ((Long.class == query.getResultType()) || (long.class == query.getResultType())) {
+                return null;
+            }
+            List<Order> orders = new ArrayList<>();
+            CriteriaObject.RestrictionValues restriction = findFullText(normalized);
+            if (restriction != null) {
+                orders.add(builder.desc(builder.function(SearchSqlFunctions.RANK_FUNCTION, Double.class,
+                        path(root, restriction.getKey()), builder.literal(restriction.getTypedValue()))));
+            }
+            orders.addAll(QueryUtils.toOrders(otherSort, root, builder));
+            if (otherSort.getOrderFor(KeysetCursor.ID) == null) {
+                orders.add(builder.asc(root.get(KeysetCursor.ID)));
+            }
+            query.orderBy(orders);
+            return null;
+        };
+    }
+
+    /**
+     * Метод поиска первого (в глубину) ограничения полнотекстового поиска в нормализованном дереве критериев поиска
+     *
+     * @param criteriaObject - нормализованный объект с критериями поиска
+     * @return - ограничение FULL_TEXT, null - ограничение отсутствует
+     */
+    private CriteriaObject.RestrictionValues findFullText(final CriteriaObject criteriaObject) {
+        for (CriteriaObject.RestrictionValues restriction : criteriaObject.getRestrictions()) {
+            if (restriction.getSearchOperation() == FULL_TEXT) {
+                return restriction;
+            }
+        }
+        for (CriteriaObject group : criteriaObject.getGroups()) {
+            CriteriaObject.RestrictionValues restriction = findFullText(group);
+            if (restriction != null) {
+                return restriction;
+            }
+        }
+        return null;
     }
 
     /**
-     * Метод формирует итоговый предикат на основании списка предоставленных
+     * Метод формирует итоговый предикат на основании ограничений и вложенных групп узла дерева критериев поиска
      *
      * @param root           - корневой тип
      * @param builder        - объект для построения критериев и сложных выборок
@@ -69,16 +185,50 @@ public class SpecificationBuilder<T> {
      * @return - итоговый предикат на основании списка предоставленных
      */
     private Predicate buildPredicates(Root root, CriteriaBuilder builder, final CriteriaObject criteriaObject) {
-        Predicate[] predicates = criteriaObject.getRestrictions().stream()
-                .map(restriction -> predicatesForSearchOperations.get(restriction.getSearchOperation())
-                        .produce(builder, root.get(restriction.getKey()), restriction))
+        List<Predicate> predicates = new ArrayList<>();
+        for (CriteriaObject.RestrictionValues restriction : criteriaObject.getRestrictions()) {
+            predicates.add(predicatesForSearchOperations.get(restriction.getSearchOperation())
+                    .produce(builder, path(root, restriction.getKey()), restriction));
+        }
+        for (CriteriaObject group : criteriaObject.getGroups()) {
+            predicates.add(buildPredicates(root, builder, group));
+        }
 
-                .toArray(Predicate[]::new);
+        Predicate predicate = (criteriaObject.getJoinOperation() == JoinOperations.AND)
+                ? builder.and(predicates.toArray(new Predicate[0]))
+                : builder.or(predicates.toArray(new Predicate[0]));
+        return criteriaObject.isNegated() ? builder.not(predicate) : predicate;
+    }
 
-        if (criteriaObject.getJoinOperation() == JoinOperations.AND) {
-            return builder.and(predicates);
+    /**
+     * Метод получения пути к атрибуту сущности. Для атрибута связанной сущности (ключ вида "связь.атрибут")
+     * связь присоединяется к корню один раз и используется всеми ограничениями и сортировкой запроса
+     *
+     * @param root - корневой тип
+     * @param key  - наименование атрибута сущности или "связь.атрибут"
+     * @return - путь к атрибуту
+     */
+    private static Path path(Root<?> root, String key) {
+        int dot = key.indexOf('.');
+        if (dot < 0) {
+            return root.get(key);
         }
-        return builder.or(predicates);
+        String association = key.substring(0, dot);
+        Join<?, ?> join = root.getJoins().stream()
+                .filter(existing -> association.equals(existing.getAttribute().getName()))
+                .findFirst()
+                .orElseGet(() -> root.join(association));
+        return join.get(key.substring(dot + 1));
+    }
+
+    /**
+     * Метод определяет запрошена ли сортировка по релевантности полнотекстового поиска (?sort=relevance)
+     *
+     * @param pageable - объект пагинации и сортировки
+     * @return - true - запрошена сортировка по релевантности, false - не запрошена
+     */
+    public static boolean isRelevanceSorted(Pageable pageable) {
+        return pageable.getSort().getOrderFor(SearchSqlFunctions.RELEVANCE_SORT) != null;
     }
 
     /**
@@ -91,6 +241,17 @@ public class SpecificationBuilder<T> {
         return (searchUnit.getSearchOperation() == BETWEEN) || (searchUnit.getSearchOperation() == NOT_BETWEEN);
     }
 
+    /**
+     * Метод определяет относится ли операция к поиску по вхождению подстроки
+     *
+     * @param searchOperation - операция поиска
+     * @return - true - операция LIKE, NOT_LIKE, ILIKE или NOT_ILIKE, false - иная операция
+     */
+    public static boolean isLikeOperation(SearchOperations searchOperation) {
+        return (searchOperation == LIKE) || (searchOperation == NOT_LIKE)
+                || (searchOperation == ILIKE) || (searchOperation == NOT_ILIKE);
+    }
+
     /**
      * Метод проверяет наличие необходимых значений в searchUnit для конкретного типа операции
      *
@@ -10,6 +10,7 @@ import org.springframework.util.ObjectUtils;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import ru.iteco.project.controller.dto.TaskDtoRequest;
+import ru.iteco.project.domain.Money;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -91,6 +92,9 @@ public class TaskDtoRequestValidator extends AbstractDtoValidator implements Val
         if (ObjectUtils.isEmpty(taskForm.getPrice())) {
             logger.error("task price is empty");
             prepareErrorMessage(errors, "task.price.empty", "price");
+        } else if (!Money.isRepresentable(taskForm.getPrice())) {
+            logger.error("task price has more than two fractional digits or is too large");
+            prepareErrorMessage(errors, "task.price.format", "price");
         } else if (!priceIsValid(taskForm)) {
             logger.error("task price less than the minimum allowable");
             prepareErrorMessage(errors, "task.price.min", "price");
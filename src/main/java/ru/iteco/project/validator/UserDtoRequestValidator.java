@@ -10,6 +10,7 @@ import org.springframework.util.ObjectUtils;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import ru.iteco.project.controller.dto.UserDtoRequest;
+import ru.iteco.project.domain.Money;
 
 import java.util.ArrayList;
 
@@ -95,6 +96,9 @@ public class UserDtoRequestValidator extends AbstractDtoValidator implements Val
         } else if (userForm.getWallet().signum() < 0) {
             logger.error("wallet have incorrect negative value");
             prepareErrorMessage(errors, "user.wallet.negative", "wallet");
+        } else if (!Money.isRepresentable(userForm.getWallet())) {
+            logger.error("wallet has more than two fractional digits or is too large");
+            prepareErrorMessage(errors, "user.wallet.format", "wallet");
         }
         if (errors.hasErrors()) return;
 
@@ -0,0 +1,84 @@
+package ru.iteco.project.perf;
+
+import java.util.Arrays;
+
+/**
+ * Накопитель длительностей запросов одного потока нагрузки. Длительности хранятся в растущем массиве примитивов,
+ * чтобы запись замера не порождала объектов и не искажала результаты сборкой мусора
+ */
+class LatencyRecorder {
+
+    /*** Длительности успешных запросов в наносекундах */
+    private long[] latencies = new long[1 << 12];
+
+    /*** Количество записанных длительностей */
+    private int size;
+
+    /*** Количество запросов, завершившихся ошибкой */
+    private long errors;
+
+
+    /**
+     * Метод записывает длительность успешного запроса
+     *
+     * @param nanos - длительность запроса в наносекундах
+     */
+    void record(long nanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size << 1);
+        }
+        latencies[size++] = nanos;
+    }
+
+    /**
+     * Метод учитывает запрос, завершившийся ошибкой
+     */
+    void recordError() {
+        errors++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Метод объединяет замеры нескольких потоков в один накопитель
+     *
+     * @param recorders - накопители потоков нагрузки
+     * @return - общий накопитель
+     */
+    static LatencyRecorder merge(Iterable<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        int total = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.size;
+            merged.errors += recorder.errors;
+        }
+        merged.latencies = new long[Math.max(total, 1)];
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged.latencies, merged.size, recorder.size);
+            merged.size += recorder.size;
+        }
+        Arrays.sort(merged.latencies, 0, merged.size);
+        return merged;
+    }
+
+    /**
+     * Метод возвращает перцентиль длительности запросов (методом ближайшего ранга).
+     * Применяется к накопителю, полученному методом merge
+     *
+     * @param percentile - перцентиль от 0 до 100
+     * @return - длительность в миллисекундах, 0 - замеров нет
+     */
+    double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return latencies[Math.min(Math.max(rank, 1), size) - 1] / 1_000_000d;
+    }
+}
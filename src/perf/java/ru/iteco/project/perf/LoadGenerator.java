@@ -0,0 +1,262 @@
+package ru.iteco.project.perf;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Генератор конкурентной нагрузки на REST эндпоинты. Каждый сценарий выполняется заданным количеством потоков:
+ * сначала прогрев (замеры не учитываются), затем замер в течение заданного времени.
+ * Каждый поток отправляет следующий запрос сразу после получения ответа на предыдущий (замкнутая модель нагрузки)
+ */
+class LoadGenerator {
+
+    private static final Logger log = LogManager.getLogger(LoadGenerator.class.getName());
+
+    /*** Размер буфера чтения тела ответа */
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    /*** Базовый адрес приложения (схема, хост, порт и context-path) */
+    private final String baseUrl;
+
+    /*** Количество потоков нагрузки */
+    private final int threads;
+
+    /*** Длительность прогрева в секундах */
+    private final long warmupSeconds;
+
+    /*** Длительность замера в секундах */
+    private final long durationSeconds;
+
+
+    LoadGenerator(String baseUrl, int threads, long warmupSeconds, long durationSeconds) {
+        this.baseUrl = baseUrl;
+        this.threads = threads;
+        this.warmupSeconds = warmupSeconds;
+        this.durationSeconds = durationSeconds;
+    }
+
+
+    /**
+     * Метод выполняет сценарий нагрузки и возвращает результаты замера
+     *
+     * @param scenario - сценарий нагрузки
+     * @return - результаты замера
+     * @throws Exception - ошибка выполнения потоков нагрузки
+     */
+    ScenarioResult run(Scenario scenario) throws Exception {
+        log.info("scenario {}: warmup {} s, measurement {} s, {} threads",
+                scenario.getName(), warmupSeconds, durationSeconds, threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long measureEnd = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+            List<Future<LatencyRecorder>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                Random random = new Random(31L * i + scenario.getName().hashCode());
+                futures.add(executor.submit(() -> drive(scenario, random, warmupEnd, measureEnd)));
+            }
+            List<LatencyRecorder> recorders = new ArrayList<>(threads);
+            for (Future<LatencyRecorder> future : futures) {
+                recorders.add(future.get());
+            }
+            long measuredNanos = Math.max(System.nanoTime() - warmupEnd, 1);
+            return new ScenarioResult(scenario.getName(), LatencyRecorder.merge(recorders), measuredNanos);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Цикл одного потока нагрузки
+     *
+     * @param scenario   - сценарий нагрузки
+     * @param random     - генератор случайных чисел потока
+     * @param warmupEnd  - момент окончания прогрева (System.nanoTime)
+     * @param measureEnd - момент окончания замера (System.nanoTime)
+     * @return - замеры потока
+     */
+    private LatencyRecorder drive(Scenario scenario, Random random, long warmupEnd, long measureEnd) {
+        LatencyRecorder recorder = new LatencyRecorder();
+        long start;
+        while ((start = System.nanoTime()) < measureEnd) {
+            Request request = scenario.next(random);
+            if (request == null) {
+                log.warn("scenario {}: test data exhausted", scenario.getName());
+                break;
+            }
+            boolean success = send(request);
+            long elapsed = System.nanoTime() - start;
+            if (start >= warmupEnd) {
+                if (success) {
+                    recorder.record(elapsed);
+                } else {
+                    recorder.recordError();
+                }
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * Метод отправляет запрос и полностью вычитывает тело ответа
+     *
+     * @param request - запрос
+     * @return - true - получен ответ с кодом 2xx
+     */
+    private boolean send(Request request) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUrl + request.path).openConnection();
+            connection.setRequestMethod(request.method);
+            connection.setRequestProperty("Accept", "application/json");
+            if (request.body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                connection.setFixedLengthStreamingMode(request.body.length);
+                try (OutputStream outputStream = connection.getOutputStream()) {
+                    outputStream.write(request.body);
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream body = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                try (InputStream inputStream = body) {
+                    byte[] buffer = new byte[READ_BUFFER_SIZE];
+                    while (inputStream.read(buffer) != -1) {
+                        // тело ответа вычитывается для повторного использования соединения
+                    }
+                }
+            }
+            if ((status < 200) || (status >= 300)) {
+                log.debug("{} {} returned {}", request.method, request.path, status);
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            log.debug("{} {} failed: {}", request.method, request.path, e.getMessage());
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return false;
+        }
+    }
+
+
+    /**
+     * Сценарий нагрузки на один эндпоинт
+     */
+    interface Scenario {
+
+        /**
+         * @return - наименование сценария в отчете
+         */
+        String getName();
+
+        /**
+         * Метод формирует следующий запрос сценария
+         *
+         * @param random - генератор случайных чисел потока нагрузки
+         * @return - запрос или null, если тестовые данные сценария исчерпаны
+         */
+        Request next(Random random);
+
+        /**
+         * Метод создает сценарий из функции формирования запросов
+         *
+         * @param name     - наименование сценария в отчете
+         * @param requests - функция формирования следующего запроса
+         * @return - сценарий нагрузки
+         */
+        static Scenario of(String name, Function<Random, Request> requests) {
+            return new Scenario() {
+                @Override
+                public String getName() {
+                    return name;
+                }
+
+                @Override
+                public Request next(Random random) {
+                    return requests.apply(random);
+                }
+            };
+        }
+    }
+
+    /**
+     * HTTP запрос сценария нагрузки
+     */
+    static class Request {
+
+        /*** HTTP метод */
+        private final String method;
+
+        /*** Путь относительно базового адреса приложения, включая параметры запроса */
+        private final String path;
+
+        /*** Тело запроса в формате JSON, null - запрос без тела */
+        private final byte[] body;
+
+
+        Request(String method, String path, byte[] body) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Результаты замера одного сценария
+     */
+    static class ScenarioResult {
+
+        /*** Наименование сценария */
+        private final String name;
+
+        /*** Объединенные замеры всех потоков */
+        private final LatencyRecorder latencies;
+
+        /*** Фактическая длительность замера в наносекундах */
+        private final long measuredNanos;
+
+
+        ScenarioResult(String name, LatencyRecorder latencies, long measuredNanos) {
+            this.name = name;
+            this.latencies = latencies;
+            this.measuredNanos = measuredNanos;
+        }
+
+
+        /**
+         * @return - строка отчета: количество запросов и ошибок, пропускная способность, перцентили длительности
+         */
+        String format() {
+            double throughput = latencies.size() / (measuredNanos / 1_000_000_000d);
+            return String.format("%-22s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                    name, latencies.size(), latencies.getErrors(), throughput,
+                    latencies.percentileMillis(50), latencies.percentileMillis(90),
+                    latencies.percentileMillis(99), latencies.percentileMillis(100));
+        }
+
+        static String header() {
+            return String.format("%-22s %9s %7s %10s %9s %9s %9s %9s",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        }
+    }
+}
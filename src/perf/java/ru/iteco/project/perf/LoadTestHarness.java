@@ -0,0 +1,284 @@
+package ru.iteco.project.perf;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.iteco.project.Application;
+import ru.iteco.project.controller.dto.ContractDtoRequest;
+import ru.iteco.project.controller.dto.UserDtoRequest;
+import ru.iteco.project.metrics.RequestSqlMetricsInterceptor;
+import ru.iteco.project.service.datagen.DataGenerationSettings;
+import ru.iteco.project.service.datagen.SyntheticDataGenerator;
+import ru.iteco.project.service.dictionary.DictionaryCache;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный стенд: запускает встроенный PostgreSQL, поднимает приложение на случайном порту
+ * (схема БД создается Liquibase), наполняет БД генератором SyntheticDataGenerator и нагружает эндпоинты
+ * поиска заданий, заключения договоров и пакетного создания пользователей.
+ * По каждому эндпоинту выводятся количество запросов, пропускная способность и перцентили длительности,
+ * а также эндпоинты, превысившие бюджет SQL запросов (sql.statements.budget.*).
+ * Приложение не стартует, если по колонкам условий поиска нет индексов (index.coverage.*).
+ * Запуск: ./gradlew perfTest, параметры задаются системными свойствами perf.* (см. build.gradle)
+ */
+public class LoadTestHarness {
+
+    private static final Logger log = LogManager.getLogger(LoadTestHarness.class.getName());
+
+    /*** Пароль пользователей, создаваемых пакетно */
+    private static final String PASSWORD = "password";
+
+    /*** Количество генерируемых пользователей */
+    private static final int USERS = Integer.getInteger("perf.users", 100_000);
+
+    /*** Количество генерируемых заданий */
+    private static final int TASKS = Integer.getInteger("perf.tasks", 1_000_000);
+
+    /*** Начальное значение генератора данных */
+    private static final long SEED = Long.getLong("perf.seed", 42);
+
+    /*** Количество потоков нагрузки */
+    private static final int THREADS = Integer.getInteger("perf.threads", 16);
+
+    /*** Длительность прогрева каждого сценария в секундах */
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup", 10);
+
+    /*** Длительность замера каждого сценария в секундах */
+    private static final int DURATION_SECONDS = Integer.getInteger("perf.duration", 30);
+
+    /*** Количество страниц результатов поиска заданий, из которых случайно выбирается запрашиваемая */
+    private static final int SEARCH_PAGES = Integer.getInteger("perf.search.pages", 100);
+
+    /*** Режим подсчета общего количества результатов поиска заданий */
+    private static final String SEARCH_COUNT_MODE = System.getProperty("perf.search.count-mode", "EXACT");
+
+    /*** Количество пользователей в одном запросе пакетного создания */
+    private static final int BATCH_SIZE = Integer.getInteger("perf.batch.size", 50);
+
+    /*** Максимальное количество зарегистрированных заданий, подготавливаемых для заключения договоров */
+    private static final int CONTRACT_TASKS_LIMIT = 200_000;
+
+    /*** Количество исполнителей, среди которых случайно выбирается исполнитель договора */
+    private static final int EXECUTORS_LIMIT = 10_000;
+
+    /*** Признак завершения стенда с ошибкой, если HTTP запросы превышали бюджет SQL запросов */
+    private static final boolean FAIL_ON_SQL_BUDGET = Boolean.getBoolean("perf.fail-on-sql-budget");
+
+
+    public static void main(String[] args) throws Exception {
+        boolean sqlBudgetExceeded;
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("max_connections", "200")
+                .start()) {
+
+            ConfigurableApplicationContext context = startApplication(postgres);
+            try {
+                SyntheticDataGenerator.GenerationResult data = context.getBean(SyntheticDataGenerator.class)
+                        .generate(new DataGenerationSettings(SEED, USERS, TASKS,
+                                Instant.parse(context.getEnvironment().getRequiredProperty("datagen.base-date")), false));
+                invalidateDictionaries(context.getBean(DictionaryCache.class));
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                        + context.getEnvironment().getProperty("server.servlet.context-path", "");
+                ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+                LoadGenerator generator = new LoadGenerator(baseUrl, THREADS, WARMUP_SECONDS, DURATION_SECONDS);
+
+                List<LoadGenerator.ScenarioResult> results = new ArrayList<>();
+                results.add(generator.run(taskSearchScenario()));
+                results.add(generator.run(contractCreationScenario(objectMapper,
+                        findContractableTaskIds(jdbcTemplate), findExecutorIds(jdbcTemplate))));
+                results.add(generator.run(userBatchScenario(objectMapper)));
+
+                StringBuilder report = new StringBuilder("\n").append(LoadGenerator.ScenarioResult.header());
+                for (LoadGenerator.ScenarioResult result : results) {
+                    report.append('\n').append(result.format());
+                }
+                log.info("load test finished: {} users, {} tasks, {} contracts, {} threads{}",
+                        data.getUsers(), data.getTasks(), data.getContracts(), THREADS, report);
+                sqlBudgetExceeded = reportSqlBudget(context.getBean(MeterRegistry.class));
+            } finally {
+                context.close();
+            }
+        }
+        if (FAIL_ON_SQL_BUDGET && sqlBudgetExceeded) {
+            System.exit(1);
+        }
+    }
+
+
+    /**
+     * Метод запускает приложение на случайном порту с подключением к встроенному PostgreSQL
+     *
+     * @param postgres - встроенный PostgreSQL
+     * @return - контекст приложения
+     */
+    private static ConfigurableApplicationContext startApplication(EmbeddedPostgres postgres) {
+        // аргументы командной строки переопределяют значения application.yml
+        return new SpringApplicationBuilder(Application.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=" + Integer.getInteger("perf.pool", 20),
+                "--logging.level.ru.iteco.project=INFO",
+                "--sql.statements.budget.enabled=true",
+                "--index.coverage.fail=true");
+    }
+
+    /**
+     * Метод выводит эндпоинты, превысившие бюджет SQL запросов
+     *
+     * @param meterRegistry - реестр метрик приложения
+     * @return - true - хотя бы один HTTP запрос превысил бюджет
+     */
+    private static boolean reportSqlBudget(MeterRegistry meterRegistry) {
+        boolean exceeded = false;
+        for (Counter counter : meterRegistry.find(RequestSqlMetricsInterceptor.REQUEST_SQL_BUDGET_EXCEEDED).counters()) {
+            if (counter.count() > 0) {
+                exceeded = true;
+                log.warn("SQL statement budget exceeded {} times: {} {}", (long) counter.count(),
+                        counter.getId().getTag("method"), counter.getId().getTag("uri"));
+            }
+        }
+        return exceeded;
+    }
+
+    /**
+     * Метод сбрасывает кэш справочников, загруженный до заполнения БД
+     *
+     * @param dictionaryCache - кэш справочников
+     */
+    private static void invalidateDictionaries(DictionaryCache dictionaryCache) {
+        dictionaryCache.invalidateUserRoles();
+        dictionaryCache.invalidateUserStatuses();
+        dictionaryCache.invalidateTaskStatuses();
+        dictionaryCache.invalidateContractStatuses();
+    }
+
+
+    /**
+     * Метод выбирает зарегистрированные задания, для которых может быть заключен договор:
+     * заказчик не заблокирован и имеет достаточно средств на оплату всех выбранных заданий. Каждый договор
+     * списывает стоимость задания с кошелька заказчика, поэтому для каждого заказчика выбираются первые задания,
+     * суммарная стоимость которых не превышает его баланс (с учетом еще не свернутых записей журнала кошельков),
+     * и сценарий не получает отказов 422 из-за недостатка средств
+     *
+     * @param jdbcTemplate - объект выполнения запросов к БД
+     * @return - идентификаторы заданий
+     */
+    private static List<UUID> findContractableTaskIds(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("SELECT x.id FROM (" +
+                "SELECT t.id, t.created_at, " +
+                "SUM(t.price) OVER (PARTITION BY t.customer_id ORDER BY t.created_at, t.id) AS total_price, " +
+                "c.wallet + COALESCE((SELECT SUM(l.amount) FROM wallet_ledger l " +
+                "WHERE l.user_id = c.id AND NOT l.compacted), 0) AS balance " +
+                "FROM task t " +
+                "JOIN task_statuses ts ON ts.id = t.task_status_id " +
+                "JOIN users c ON c.id = t.customer_id " +
+                "JOIN user_statuses cs ON cs.id = c.status_id " +
+                "WHERE ts.value = 'REGISTERED' AND cs.value <> 'BLOCKED') x " +
+                "WHERE x.total_price <= x.balance " +
+                "ORDER BY x.created_at LIMIT ?", UUID.class, CONTRACT_TASKS_LIMIT);
+    }
+
+    /**
+     * @param jdbcTemplate - объект выполнения запросов к БД
+     * @return - идентификаторы незаблокированных исполнителей
+     */
+    private static List<UUID> findExecutorIds(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("SELECT u.id FROM users u " +
+                "JOIN user_roles r ON r.id = u.role_id " +
+                "JOIN user_statuses s ON s.id = u.status_id " +
+                "WHERE r.value = 'EXECUTOR' AND s.value <> 'BLOCKED' LIMIT ?", UUID.class, EXECUTORS_LIMIT);
+    }
+
+
+    /**
+     * @return - сценарий поиска заданий: случайная страница из первых SEARCH_PAGES страниц без фильтров
+     */
+    private static LoadGenerator.Scenario taskSearchScenario() {
+        return LoadGenerator.Scenario.of("GET tasks/search", random -> new LoadGenerator.Request("GET",
+                "/api/v1/tasks/search?size=20&page=" + random.nextInt(SEARCH_PAGES) + "&countMode=" + SEARCH_COUNT_MODE,
+                null));
+    }
+
+    /**
+     * Сценарий заключения договоров: каждый запрос использует очередное зарегистрированное задание,
+     * которое после заключения договора переходит на выполнение
+     *
+     * @param objectMapper - объект преобразования тела запроса в JSON
+     * @param taskIds      - идентификаторы зарегистрированных заданий
+     * @param executorIds  - идентификаторы исполнителей
+     * @return - сценарий нагрузки
+     */
+    private static LoadGenerator.Scenario contractCreationScenario(ObjectMapper objectMapper, List<UUID> taskIds,
+                                                                   List<UUID> executorIds) {
+        Queue<UUID> tasks = new ConcurrentLinkedQueue<>(taskIds);
+        return LoadGenerator.Scenario.of("POST contracts", random -> {
+            UUID taskId = tasks.poll();
+            if (taskId == null) {
+                return null;
+            }
+            ContractDtoRequest request = new ContractDtoRequest("code", "code");
+            request.setTaskId(taskId);
+            request.setExecutorId(executorIds.get(random.nextInt(executorIds.size())));
+            request.setContractStatus("PAID");
+            return new LoadGenerator.Request("POST", "/api/v1/contracts", toJson(objectMapper, request));
+        });
+    }
+
+    /**
+     * Сценарий пакетного создания пользователей с уникальными логинами и email
+     *
+     * @param objectMapper - объект преобразования тела запроса в JSON
+     * @return - сценарий нагрузки
+     */
+    private static LoadGenerator.Scenario userBatchScenario(ObjectMapper objectMapper) {
+        AtomicLong sequence = new AtomicLong();
+        return LoadGenerator.Scenario.of("POST users/batch", random -> {
+            List<UserDtoRequest> users = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                long number = sequence.incrementAndGet();
+                UserDtoRequest user = new UserDtoRequest();
+                user.setFirstName("Имя");
+                user.setSecondName("Отчество");
+                user.setLastName("Фамилия");
+                user.setLogin("perf_batch_" + number);
+                user.setEmail("perf_batch_" + number + "@mail.ru");
+                user.setPhoneNumber("89000000000");
+                user.setRole(random.nextBoolean() ? "CUSTOMER" : "EXECUTOR");
+                user.setUserStatus("ACTIVE");
+                user.setWallet(BigDecimal.valueOf(random.nextInt(10_000)));
+                user.setPassword(PASSWORD);
+                user.setRepeatPassword(PASSWORD);
+                users.add(user);
+            }
+            return new LoadGenerator.Request("POST", "/api/v1/users/batch", toJson(objectMapper, users));
+        });
+    }
+
+    private static byte[] toJson(ObjectMapper objectMapper, Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}